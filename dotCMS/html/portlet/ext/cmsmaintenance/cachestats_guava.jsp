@@ -6,6 +6,8 @@
 <%@page import="com.dotcms.repackage.com.google.common.cache.CacheStats"%>
 <%@page import="java.util.ArrayList"%>
 <%@page import="com.dotmarketing.business.CacheLocator"%>
+<%@page import="com.dotmarketing.business.ChainableCacheAdministratorImpl"%>
+<%@page import="com.dotmarketing.business.DotCacheAdministrator"%>
 <%@page import="java.util.Map"%>
 <%@ include file="/html/common/init.jsp"%>
 <%@page import="java.util.List"%>
@@ -224,4 +226,27 @@ MemoryMeter meter = new MemoryMeter();
 
             
         </tr>
-</table>
\ No newline at end of file
+</table>
+<%
+	//Cache invalidations sent to the cluster, only while they are batched
+	Map<String, Object> invalidationStats = null;
+	DotCacheAdministrator cacheAdministrator = CacheLocator.getCacheAdministrator().getImplementationObject();
+	if ( cacheAdministrator instanceof ChainableCacheAdministratorImpl ) {
+		invalidationStats = ((ChainableCacheAdministratorImpl) cacheAdministrator).getInvalidationStats();
+	}
+	if ( invalidationStats != null ) {
+%>
+	<div style="padding-top:30px;">
+		<table class="listingTable shadowBox" style="width:400px">
+			<tr>
+				<th colspan="2"><%= LanguageUtil.get(pageContext, "Cluster-Cache-Invalidations") %></th>
+			</tr>
+			<% for ( Map.Entry<String, Object> stat : invalidationStats.entrySet() ) { %>
+			<tr>
+				<td><%= stat.getKey() %></td>
+				<td align="right"><%= stat.getValue() instanceof Double ? nf.format(stat.getValue()) : stat.getValue() %></td>
+			</tr>
+			<% } %>
+		</table>
+	</div>
+<% } %>
\ No newline at end of file
@@ -76,6 +76,7 @@ function checkReindexationCallback (response) {
 	var lastIndexationProgress = response['lastIndexationProgress'];
 	var currentIndexPath = response['currentIndexPath'];
 	var newIndexPath = response['newIndexPath'];
+	var documentsPerSecond = response['documentsPerSecond'];
 	var lastIndexationStartTime = ' ';
 	var lastIndexationEndTime = ' ';
 
@@ -100,7 +101,8 @@ function checkReindexationCallback (response) {
 		}
 		stillInReindexation = true;
 		var indexationProgressDiv = document.getElementById("indexationProgressDiv");
-		indexationProgressDiv.innerHTML = "<%= LanguageUtil.get(pageContext,"Reindex-Progress") %>: " + lastIndexationProgress + " / " + contentCountToIndex + " ";
+		indexationProgressDiv.innerHTML = "<%= LanguageUtil.get(pageContext,"Reindex-Progress") %>: " + lastIndexationProgress + " / " + contentCountToIndex + " "
+			+ "(" + documentsPerSecond + " <%= LanguageUtil.get(pageContext,"Reindex-Documents-Per-Second") %>)";
 	} else {
 		dojo.query(".indexActionsDiv").style("display","");
 		reindexationInProgressDiv.style.display = "none";
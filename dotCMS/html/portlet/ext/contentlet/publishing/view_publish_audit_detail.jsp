@@ -125,6 +125,18 @@
         <td style="background: white"><%=currentEndpointHistory.getAssets().size() %></td>
 
     </tr>
+    <%if ( currentEndpointHistory.getHandlerDurations() != null && !currentEndpointHistory.getHandlerDurations().isEmpty() ) {%>
+    <tr>
+        <th><b><%= LanguageUtil.get(pageContext, "publisher_Audit_Handler_Durations") %>: </b></th>
+        <td style="background: white">
+            <%for ( Map.Entry<String, Long> handlerDuration : currentEndpointHistory.getHandlerDurations().entrySet() ) {
+                Integer handlerFiles = currentEndpointHistory.getHandlerFileCounts() != null ? currentEndpointHistory.getHandlerFileCounts().get( handlerDuration.getKey() ) : null;%>
+            <%=handlerDuration.getKey() %>: <%=handlerDuration.getValue() %> ms<%if ( handlerFiles != null ) {%>, <%=handlerFiles %> <%= LanguageUtil.get(pageContext, "publisher_Audit_Handler_Files") %> (<%=handlerDuration.getValue() > 0 ? Math.round( handlerFiles * 1000D / handlerDuration.getValue() ) : handlerFiles %>/s)<%}%><br/>
+            <%}%>
+        </td>
+
+    </tr>
+    <%}%>
 </table>
 
 <div>&nbsp;</div>
@@ -57,7 +57,9 @@ import org.elasticsearch.action.count.CountRequestBuilder;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -82,8 +84,10 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.StringTokenizer;
 
 /**
@@ -103,6 +107,7 @@ public class ESContentFactoryImpl extends ContentletFactory {
 
 	private static final Contentlet cache404Content= new Contentlet();
 	private static final String CACHE_404_CONTENTLET="CACHE_404_CONTENTLET";
+	private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(Config.getIntProperty("ES_SCROLL_KEEP_ALIVE_MINUTES", 5));
 
 	/**
 	 * Default factory constructor that initializes the connection with the
@@ -1251,7 +1256,10 @@ public class ESContentFactoryImpl extends ContentletFactory {
         	SearchRequestBuilder srb = createRequest(client, qq, sortBy);
 
         	srb.setIndices(indexToHit);
-        	srb.addFields("inode","identifier");
+        	if(ESMappingAPIImpl.isIndexHydrationEnabled())
+        	    srb.addFields("inode","identifier",ESMappingAPIImpl.HYDRATION_SOURCE_FIELD);
+        	else
+        	    srb.addFields("inode","identifier");
 
             if(limit>0)
                 srb.setSize(limit);
@@ -1507,6 +1515,88 @@ public class ESContentFactoryImpl extends ContentletFactory {
 		    save(con);
 	}
 
+	@Override
+	protected Iterator<List<String>> indexScroll(String query, int batchSize) {
+	    String qq=findAndReplaceQueryDates(translateQuery(query, null).getQuery());
+
+	    // we check the query to figure out wich indexes to hit
+	    String indexToHit;
+	    IndiciesInfo info;
+	    try {
+	        info=APILocator.getIndiciesAPI().loadIndicies();
+	    }
+	    catch(DotDataException ee) {
+	        throw new DotRuntimeException("Can't get indicies information", ee);
+	    }
+	    if(query.contains("+live:true") && !query.contains("+deleted:true"))
+	        indexToHit=info.live;
+	    else
+	        indexToHit=info.working;
+
+	    Client client=new ESClient().getClient();
+	    // a scan returns up to batchSize hits per shard and no hits on the first response
+	    SearchResponse resp = client.prepareSearch(indexToHit).setSearchType(SearchType.SCAN)
+	            .setQuery(QueryBuilders.queryString(qq)).addFields("inode")
+	            .setSize(batchSize).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+	    return new ScrollIterator(client, resp.getScrollId());
+	}
+
+	/**
+	 * Iterates over the batches of inodes of a scroll, clearing it once the
+	 * hits are exhausted. A scroll abandoned before the end is released by the
+	 * index when its keep alive expires.
+	 */
+	private static class ScrollIterator implements Iterator<List<String>> {
+
+	    private final Client client;
+	    private String scrollId;
+	    private List<String> next;
+	    private boolean done;
+
+	    private ScrollIterator(Client client, String scrollId) {
+	        this.client = client;
+	        this.scrollId = scrollId;
+	    }
+
+	    @Override
+	    public boolean hasNext() {
+	        if(next == null && !done) {
+	            SearchResponse resp = client.prepareSearchScroll(scrollId).setScroll(SCROLL_KEEP_ALIVE).execute().actionGet();
+	            scrollId = resp.getScrollId();
+	            List<String> inodes = new ArrayList<String>();
+	            for(SearchHit h : resp.getHits())
+	                inodes.add(h.field("inode").getValue().toString());
+	            if(inodes.isEmpty()) {
+	                done = true;
+	                try {
+	                    client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+	                }
+	                catch(Exception e) {
+	                    Logger.debug(ESContentFactoryImpl.class, "Unable to clear scroll: " + e.getMessage(), e);
+	                }
+	            }
+	            else {
+	                next = inodes;
+	            }
+	        }
+	        return next != null;
+	    }
+
+	    @Override
+	    public List<String> next() {
+	        if(!hasNext())
+	            throw new NoSuchElementException();
+	        List<String> batch = next;
+	        next = null;
+	        return batch;
+	    }
+
+	    @Override
+	    public void remove() {
+	        throw new UnsupportedOperationException();
+	    }
+	}
+
 	@Override
 	protected List<Contentlet> search(String query, int limit, int offset, String sortBy) throws DotDataException, DotStateException, DotSecurityException {
 	    SearchHits hits = indexSearch(query, limit, offset, sortBy);
@@ -78,6 +78,7 @@ import com.dotmarketing.portlets.contentlet.business.DotContentletValidationExce
 import com.dotmarketing.portlets.contentlet.business.DotLockException;
 import com.dotmarketing.portlets.contentlet.business.DotReindexStateException;
 import com.dotmarketing.portlets.contentlet.business.HostAPI;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduler;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.contentlet.model.ContentletAndBinary;
 import com.dotmarketing.portlets.contentlet.model.ContentletVersionInfo;
@@ -551,9 +552,13 @@ public class ESContentletAPIImpl implements ContentletAPI {
             inodes.add(conwrap.getInode());
         }
 
+        Map<String, Contentlet> map = new HashMap<String, Contentlet>(inodes.size());
+        List<String> inodesToLoad = inodes;
+        if(ESMappingAPIImpl.isIndexHydrationEnabled()) {
+            inodesToLoad = hydrateFromIndex(list, map);
+        }
 
-        List<Contentlet> contentlets = findContentlets(inodes);
-        Map<String, Contentlet> map = new HashMap<String, Contentlet>(contentlets.size());
+        List<Contentlet> contentlets = inodesToLoad.isEmpty() ? new ArrayList<Contentlet>() : findContentlets(inodesToLoad);
         for (Contentlet contentlet : contentlets) {
             map.put(contentlet.getInode(), contentlet);
         }
@@ -565,6 +570,30 @@ public class ESContentletAPIImpl implements ContentletAPI {
 
     }
 
+    /**
+     * Builds the contentlets of the given search results out of the values
+     * kept in the index, contentlets already in cache are taken from it.
+     * Returns the inodes of the results that must be loaded from the db
+     * because their index document doesn't carry those values.
+     */
+    private List<String> hydrateFromIndex(List<ContentletSearch> results, Map<String, Contentlet> hydrated) {
+        ESMappingAPIImpl mappingAPI = new ESMappingAPIImpl();
+        ContentletCache cc = CacheLocator.getContentletCache();
+        List<String> missing = new ArrayList<String>();
+        for(ContentletSearch conwrap : results) {
+            Contentlet contentlet = cc.get(conwrap.getInode());
+            if(contentlet == null || !InodeUtils.isSet(contentlet.getInode())) {
+                contentlet = mappingAPI.toContentlet(conwrap.getHydrationSource());
+            }
+            if(contentlet != null) {
+                hydrated.put(conwrap.getInode(), contentlet);
+            } else {
+                missing.add(conwrap.getInode());
+            }
+        }
+        return missing;
+    }
+
     @Override
     public List<Contentlet> searchByIdentifier(String luceneQuery, int limit, int offset,String sortBy, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
         return searchByIdentifier(luceneQuery, limit, offset, sortBy, user, respectFrontendRoles, PermissionAPI.PERMISSION_READ);
@@ -650,8 +679,11 @@ public class ESContentletAPIImpl implements ContentletAPI {
         buffy.append(")");
     }
 
-    @Override
-    public List <ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles)throws DotSecurityException, DotDataException {
+    /**
+     * Returns the query with the permissions the user needs to read its
+     * results, admins read everything.
+     */
+    private String buildPermissionedQuery(String luceneQuery, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
         boolean isAdmin = false;
         List<Role> roles = new ArrayList<Role>();
         if(user == null && !respectFrontendRoles){
@@ -669,6 +701,12 @@ public class ESContentletAPIImpl implements ContentletAPI {
         // Permissions in the query
         if (!isAdmin)
             addPermissionsToQuery(buffy, user, roles, respectFrontendRoles);
+        return buffy.toString();
+    }
+
+    @Override
+    public List <ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles)throws DotSecurityException, DotDataException {
+        StringBuffer buffy = new StringBuffer(buildPermissionedQuery(luceneQuery, user, respectFrontendRoles));
 
         int originalLimit = limit;
         if(UtilMethods.isSet(sortBy) && sortBy.trim().equalsIgnoreCase("random")){
@@ -688,6 +726,8 @@ public class ESContentletAPIImpl implements ContentletAPI {
                 conwrapper.setIdentifier(sh.field("identifier").getValue().toString());
                 conwrapper.setInode(sh.field("inode").getValue().toString());
                 conwrapper.setScore(sh.getScore());
+                if(sh.field(ESMappingAPIImpl.HYDRATION_SOURCE_FIELD) != null)
+                    conwrapper.setHydrationSource(sh.field(ESMappingAPIImpl.HYDRATION_SOURCE_FIELD).getValue().toString());
                 
                 list.add(conwrapper);
             }
@@ -699,6 +739,56 @@ public class ESContentletAPIImpl implements ContentletAPI {
         return list;
     }
 
+    @Override
+    public Iterable<Contentlet> scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
+        final String query = buildPermissionedQuery(luceneQuery, user, respectFrontendRoles);
+        final int size = batchSize > 0 ? batchSize : 100;
+        return new Iterable<Contentlet>() {
+            @Override
+            public Iterator<Contentlet> iterator() {
+                return new ScrollContentletIterator(conFac.indexScroll(query, size));
+            }
+        };
+    }
+
+    /**
+     * Loads the contentlets of each batch of inodes of a scroll when the
+     * iteration reaches it, the previous batch is left to the gc.
+     */
+    private class ScrollContentletIterator implements Iterator<Contentlet> {
+
+        private final Iterator<List<String>> batches;
+        private Iterator<Contentlet> current = Collections.<Contentlet>emptyList().iterator();
+
+        private ScrollContentletIterator(Iterator<List<String>> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!current.hasNext() && batches.hasNext()) {
+                try {
+                    current = findContentlets(batches.next()).iterator();
+                } catch (Exception e) {
+                    throw new DotRuntimeException(e.getMessage(), e);
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Contentlet next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     @Override
     public void publishRelatedHtmlPages(Contentlet contentlet) throws DotStateException, DotDataException{
         if(contentlet.getInode().equals(""))
@@ -3006,6 +3096,7 @@ public class ESContentletAPIImpl implements ContentletAPI {
 
     			            // publish/expire dates changed
     			            APILocator.getIdentifierAPI().save(ident);
+    			            PublishExpireScheduler.getInstance().identifierChanged(ident.getId());
 
     			            // we take all inodes associated with that identifier
     			            // remove them from cache and then reindex them
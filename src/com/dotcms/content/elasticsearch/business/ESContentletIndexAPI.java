@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -340,40 +341,69 @@ public class ESContentletIndexAPI implements ContentletIndexAPI{
 		    Logger.debug(this.getClass(), "Indexing " + contentToIndex.size()  + " contents, starting with: " + contentToIndex.get(0).getTitle());
 		}
 
+		// all the documents are built before adding any of them, a failure leaves the request untouched
+		Map<Contentlet, String> mappings=buildMappings(contentToIndex);
+
 		for(Contentlet con : contentToIndex) {
             String id=con.getIdentifier()+"_"+con.getLanguageId();
             IndiciesInfo info=APILocator.getIndiciesAPI().loadIndicies();
-            Gson gson=new Gson();
-            String mapping=null;
-            try {
-                if(con.isWorking()) {
-                    mapping=gson.toJson(mappingAPI.toMap(con));
-                    
-                    if(!reindexOnly)
-                        req.add(new IndexRequest(info.working, "content", id)
-                                    .source(mapping));
-                    if(info.reindex_working!=null)
-                        req.add(new IndexRequest(info.reindex_working, "content", id)
-                                    .source(mapping));
-                }
-    
-                if(con.isLive()) {
-                    if(mapping==null)
-                        mapping=gson.toJson(mappingAPI.toMap(con));
-                    
-                    if(!reindexOnly)
-                        req.add(new IndexRequest(info.live, "content", id)
+            String mapping=mappings.get(con);
+            if(con.isWorking()) {
+                if(!reindexOnly)
+                    req.add(new IndexRequest(info.working, "content", id)
                                 .source(mapping));
-                    if(info.reindex_live!=null)
-                        req.add(new IndexRequest(info.reindex_live, "content", id)
+                if(info.reindex_working!=null)
+                    req.add(new IndexRequest(info.reindex_working, "content", id)
                                 .source(mapping));
-                }
             }
-            catch(DotMappingException ex) {
-				Logger.error(this, "Can't get a mapping for contentlet with id_lang:" + id + " Content data: " + con.getMap(), ex);
-				throw ex;
+
+            if(con.isLive()) {
+                if(!reindexOnly)
+                    req.add(new IndexRequest(info.live, "content", id)
+                            .source(mapping));
+                if(info.reindex_live!=null)
+                    req.add(new IndexRequest(info.reindex_live, "content", id)
+                            .source(mapping));
             }
         }
+
+	}
+
+	/**
+	 * Builds the json documents of the working and live contentlets of the
+	 * list, all of them in one batch. If the batch fails they are built one by
+	 * one to find out which contentlet can't be mapped.
+	 */
+	private Map<Contentlet, String> buildMappings(List<Contentlet> contentToIndex) throws DotDataException, DotSecurityException, DotMappingException {
+		List<Contentlet> toMap=new ArrayList<Contentlet>();
+		for(Contentlet con : contentToIndex) {
+			if(con.isWorking() || con.isLive())
+				toMap.add(con);
+		}
+
+		Gson gson=new Gson();
+		Map<Contentlet, String> mappings=new IdentityHashMap<Contentlet, String>();
+		try {
+			List<Map<String,Object>> maps=mappingAPI.toMaps(toMap);
+			for(int i=0;i<toMap.size();i++)
+				mappings.put(toMap.get(i), gson.toJson(maps.get(i)));
+			return mappings;
+		}
+		catch(DotMappingException ex) {
+			Logger.debug(this, "Unable to map " + toMap.size() + " contents in one batch: " + ex.getMessage());
+		}
+
+		for(Contentlet con : toMap) {
+			try {
+				mappings.put(con, gson.toJson(mappingAPI.toMap(con)));
+			}
+			catch(DotMappingException ex) {
+				String id=con.getIdentifier()+"_"+con.getLanguageId();
+				Logger.error(this, "Can't get a mapping for contentlet with id_lang:" + id + " Content data: " + con.getMap(), ex);
+				throw ex;
+			}
+		}
+		return mappings;
 		
 	}
 
@@ -9,9 +9,12 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -35,11 +38,13 @@ import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.PermissionAPI;
 import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.portlets.categories.model.Category;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.business.ContentletCache;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.contentlet.model.ContentletVersionInfo;
 import com.dotmarketing.portlets.fileassets.business.FileAssetAPI;
@@ -63,6 +68,18 @@ import com.dotmarketing.util.UtilMethods;
 
 public class ESMappingAPIImpl implements ContentMappingAPI {
 
+	/**
+	 * Not indexed field of the content documents holding the values used to
+	 * hydrate the search results, see {@link #toContentlet(String)}
+	 */
+	public static final String HYDRATION_SOURCE_FIELD = "dotsource";
+	private static final int HYDRATION_SOURCE_VERSION = 1;
+	private static final Set<String> HYDRATION_BASE_KEYS = new HashSet<String>(Arrays.asList(
+			Contentlet.INODE_KEY, Contentlet.IDENTIFIER_KEY, Contentlet.STRUCTURE_INODE_KEY, Contentlet.LANGUAGEID_KEY,
+			Contentlet.SORT_ORDER_KEY, Contentlet.OWNER_KEY, Contentlet.MOD_USER_KEY, Contentlet.MOD_DATE_KEY,
+			Contentlet.HOST_KEY, Contentlet.FOLDER_KEY, Contentlet.LAST_REVIEW_KEY, Contentlet.NEXT_REVIEW_KEY,
+			Contentlet.REVIEW_INTERNAL_KEY, Contentlet.DISABLED_WYSIWYG_KEY));
+
 	static ObjectMapper mapper = null;
 
 	public ESMappingAPIImpl() {
@@ -192,16 +209,48 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 	 * Jun 7, 2013 - 3:47:26 PM
 	 */
 	public Map<String,Object> toMap(Contentlet con) throws DotMappingException {
+		return toMap(con, null);
+	}
+
+	/**
+	 * Builds the documents of a list of contentlets, the same ones
+	 * {@link #toMap(Contentlet)} would build. The identifiers, categories,
+	 * relationships and permissions of the whole list are loaded up front with
+	 * a few queries instead of several queries per contentlet.
+	 *
+	 * @param contentlets
+	 * @return the documents, in the same order as the contentlets
+	 * @throws DotMappingException
+	 */
+	public List<Map<String,Object>> toMaps(List<Contentlet> contentlets) throws DotMappingException {
+		MappingBatch batch;
+		try {
+			batch = loadBatch(contentlets);
+		} catch (DotDataException e) {
+			throw new DotMappingException(e.getMessage(), e);
+		}
+
+		List<Map<String,Object>> maps = new ArrayList<Map<String,Object>>(contentlets.size());
+		for (Contentlet con : contentlets) {
+			maps.add(toMap(con, batch));
+		}
+		return maps;
+	}
+
+	private Map<String,Object> toMap(Contentlet con, MappingBatch batch) throws DotMappingException {
 		try {
 
 			Map<String,String> m = new HashMap<String,String>();
 			Map<String,Object> mlowered=new HashMap<String,Object>();
-			loadCategories(con, m);
+			loadCategories(con, m, batch);
 			loadFields(con, m);
 			loadPermissions(con, m);
-			loadRelationshipFields(con, m);
+			loadRelationshipFields(con, m, batch);
 
-			Identifier ident = APILocator.getIdentifierAPI().find(con);
+			Identifier ident = batch != null ? batch.identifiers.get(con.getIdentifier()) : null;
+			if (ident == null) {
+				ident = APILocator.getIdentifierAPI().find(con);
+			}
 			ContentletVersionInfo cvi = APILocator.getVersionableAPI().getContentletVersionInfo(ident.getId(), con.getLanguageId());
 			Structure st=CacheLocator.getContentTypeCache().getStructureByInode(con.getStructureInode());
 
@@ -294,6 +343,13 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 				mlowered.put(con.getStructure().getVelocityVarName().toLowerCase() + ".url_dotraw", ident.getAssetName());
 			}
 
+			if(isIndexHydrationEnabled()) {
+				String hydrationSource = toHydrationSource(con);
+				if(hydrationSource != null) {
+					mlowered.put(HYDRATION_SOURCE_FIELD, hydrationSource);
+				}
+			}
+
             return mlowered;
 		} catch (Exception e) {
 			//Logger.error(this.getClass(), e.getMessage(), e);
@@ -306,8 +362,280 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 		return toJson(con);
 	}
 
+	/**
+	 * Returns true if the index documents must carry the values needed to
+	 * build the contentlets of the search results without hitting the
+	 * database, see {@link #toContentlet(String)}.
+	 */
+	public static boolean isIndexHydrationEnabled() {
+		return Config.getBooleanProperty("ES_INDEX_HYDRATION_ENABLED", false);
+	}
+
+	/**
+	 * Encodes the values of the contentlet map as a json string keeping their
+	 * original case and type. Binary fields are left out as they are resolved
+	 * from the assets folder, and text fields longer than
+	 * ES_INDEX_HYDRATION_MAX_TEXT_LENGTH are flagged to be lazy loaded from
+	 * the database, as are the fields the contentlet itself has not loaded
+	 * yet. Returns null if the contentlet holds a value that can't be encoded,
+	 * those contentlets are always loaded from the database.
+	 */
+	@SuppressWarnings("unchecked")
+	protected String toHydrationSource(Contentlet con) throws IOException {
+		final int maxTextLength = Config.getIntProperty("ES_INDEX_HYDRATION_MAX_TEXT_LENGTH", 8192);
+
+		Map<String,Field> fields = new HashMap<String,Field>();
+		for(Field field : FieldsCache.getFieldsByStructureInode(con.getStructureInode())) {
+			fields.put(field.getVelocityVarName(), field);
+		}
+
+		Map<String,Object> values = new HashMap<String,Object>();
+		Map<String,String> types = new HashMap<String,String>();
+		List<String> lazy = new ArrayList<String>();
+
+		// only the mapped properties are read, and as they are held: getMap() would load the lazy fields
+		Set<String> keys = new LinkedHashSet<String>(HYDRATION_BASE_KEYS);
+		keys.addAll(fields.keySet());
+		for(String key : keys) {
+			final Object value = con.getRawValue(key);
+			final Field field = fields.get(key);
+			if(value == null || field != null && FieldType.BINARY.toString().equals(field.getFieldType())) {
+				continue;
+			}
+
+			if(ContentletCache.LAZY_FIELD.equals(value)) {
+				lazy.add(key);
+			} else if(value instanceof String) {
+				if(field != null && ((String) value).length() > maxTextLength) {
+					lazy.add(key);
+					continue;
+				}
+				types.put(key, "s");
+				values.put(key, value);
+			} else if(value instanceof Long) {
+				types.put(key, "l");
+				values.put(key, value);
+			} else if(value instanceof Integer) {
+				types.put(key, "i");
+				values.put(key, value);
+			} else if(value instanceof Boolean) {
+				types.put(key, "b");
+				values.put(key, value);
+			} else if(value instanceof Float) {
+				types.put(key, "f");
+				values.put(key, value);
+			} else if(value instanceof Double) {
+				types.put(key, "d");
+				values.put(key, value);
+			} else if(value instanceof Date) {
+				types.put(key, "t");
+				values.put(key, ((Date) value).getTime());
+			} else if(value instanceof List) {
+				for(Object item : (List<Object>) value) {
+					if(!(item instanceof String)) {
+						return null;
+					}
+				}
+				types.put(key, "a");
+				values.put(key, value);
+			} else {
+				return null;
+			}
+		}
+
+		Map<String,Object> source = new HashMap<String,Object>();
+		source.put("version", HYDRATION_SOURCE_VERSION);
+		source.put("values", values);
+		source.put("types", types);
+		source.put("lazy", lazy);
+		return mapper.writeValueAsString(source);
+	}
+
+	/**
+	 * Builds a contentlet out of the {@link #HYDRATION_SOURCE_FIELD} of an
+	 * index document. Fields that were too big to be kept in the index are
+	 * set to {@link ContentletCache#LAZY_FIELD} and loaded from the database
+	 * the first time they are read. Returns null if the given source can't be
+	 * used, in which case the contentlet must be loaded from the database.
+	 */
+	@SuppressWarnings("unchecked")
+	public Contentlet toContentlet(String hydrationSource) {
+		if(!UtilMethods.isSet(hydrationSource)) {
+			return null;
+		}
+		try {
+			Map<String,Object> source = mapper.readValue(hydrationSource, HashMap.class);
+			if(!Integer.valueOf(HYDRATION_SOURCE_VERSION).equals(source.get("version"))) {
+				return null;
+			}
+			Map<String,Object> values = (Map<String,Object>) source.get("values");
+			Map<String,String> types = (Map<String,String>) source.get("types");
+			List<String> lazy = (List<String>) source.get("lazy");
+
+			Contentlet con = new Contentlet();
+			for(Entry<String,Object> entry : values.entrySet()) {
+				final Object value = entry.getValue();
+				final String type = types.get(entry.getKey());
+				if(value == null || type == null) {
+					continue;
+				}
+				switch(type.charAt(0)) {
+					case 'l':
+						con.setProperty(entry.getKey(), ((Number) value).longValue());
+						break;
+					case 'i':
+						con.setProperty(entry.getKey(), ((Number) value).intValue());
+						break;
+					case 'f':
+						con.setProperty(entry.getKey(), ((Number) value).floatValue());
+						break;
+					case 'd':
+						con.setProperty(entry.getKey(), ((Number) value).doubleValue());
+						break;
+					case 't':
+						con.setProperty(entry.getKey(), new Date(((Number) value).longValue()));
+						break;
+					case 'a':
+						con.setProperty(entry.getKey(), new ArrayList<String>((List<String>) value));
+						break;
+					default:
+						con.setProperty(entry.getKey(), value);
+				}
+			}
+			if(lazy != null) {
+				for(String key : lazy) {
+					con.setProperty(key, ContentletCache.LAZY_FIELD);
+				}
+			}
+
+			if(!InodeUtils.isSet(con.getInode()) || !InodeUtils.isSet(con.getStructureInode())) {
+				return null;
+			}
+			return con;
+		} catch (Exception e) {
+			Logger.warn(this.getClass(), "Unable to hydrate contentlet from the index: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Values shared by the documents of a list of contentlets, loaded for the
+	 * whole list by {@link ESMappingAPIImpl#loadBatch(List)}
+	 */
+	private static class MappingBatch {
+		final Map<String, Identifier> identifiers = new HashMap<String, Identifier>();
+		// category velocity var names by contentlet inode
+		final Map<String, List<String>> categories = new HashMap<String, List<String>>();
+		// tree rows by the identifier of the contentlets on either side
+		final Map<String, List<Map<String, Object>>> relationships = new HashMap<String, List<Map<String, Object>>>();
+	}
+
+	static final int MAX_BATCH_IDS = 500;
+
 	@SuppressWarnings("unchecked")
+	private MappingBatch loadBatch(List<Contentlet> contentlets) throws DotDataException {
+		MappingBatch batch = new MappingBatch();
+
+		Set<String> identifiers = new HashSet<String>();
+		List<String> categorizedInodes = new ArrayList<String>();
+		for (Contentlet con : contentlets) {
+			if (UtilMethods.isSet(con.getIdentifier())) {
+				identifiers.add(con.getIdentifier());
+			}
+			if (hasCategoryField(con.getStructureInode())) {
+				categorizedInodes.add(con.getInode());
+			}
+		}
+		List<String> identifierList = new ArrayList<String>(identifiers);
+
+		for (int i = 0; i < identifierList.size(); i += MAX_BATCH_IDS) {
+			List<String> chunk = identifierList.subList(i, Math.min(i + MAX_BATCH_IDS, identifierList.size()));
+			Set<String> chunkIds = new HashSet<String>(chunk);
+
+			HibernateUtil hu = new HibernateUtil(Identifier.class);
+			hu.setQuery("from identifier in class com.dotmarketing.beans.Identifier where id in (" + placeholders(chunk.size()) + ")");
+			for (String id : chunk) {
+				hu.setParam(id);
+			}
+			for (Identifier ident : (List<Identifier>) hu.list()) {
+				batch.identifiers.put(ident.getId(), ident);
+			}
+
+			DotConnect db = new DotConnect();
+			db.setSQL("select * from tree where parent in (" + placeholders(chunk.size()) + ") or child in ("
+					+ placeholders(chunk.size()) + ") order by tree_order asc");
+			for (String id : chunk) {
+				db.addParam(id);
+			}
+			for (String id : chunk) {
+				db.addParam(id);
+			}
+			for (Map<String, Object> row : db.loadObjectResults()) {
+				String parent = row.get("parent").toString();
+				String child = row.get("child").toString();
+				// a row between two chunks is also loaded with the other chunk, where it is added to the other side
+				if (chunkIds.contains(parent)) {
+					addTo(batch.relationships, parent, row);
+				}
+				if (chunkIds.contains(child) && !child.equals(parent)) {
+					addTo(batch.relationships, child, row);
+				}
+			}
+		}
+
+		for (int i = 0; i < categorizedInodes.size(); i += MAX_BATCH_IDS) {
+			List<String> chunk = categorizedInodes.subList(i, Math.min(i + MAX_BATCH_IDS, categorizedInodes.size()));
+			DotConnect db = new DotConnect();
+			db.setSQL("select tree.child as inode, category.category_velocity_var_name as cat_velocity_var "
+					+ " from category join tree on (tree.parent = category.inode) where tree.child in (" + placeholders(chunk.size()) + ")");
+			for (String inode : chunk) {
+				db.addParam(inode);
+			}
+			for (String inode : chunk) {
+				batch.categories.put(inode, new ArrayList<String>());
+			}
+			for (Map<String, Object> row : db.loadObjectResults()) {
+				addTo(batch.categories, row.get("inode").toString(), (String) row.get("cat_velocity_var"));
+			}
+		}
+
+		APILocator.getPermissionAPI().addPermissionsToCache(contentlets);
+
+		return batch;
+	}
+
+	private static <T> void addTo(Map<String, List<T>> map, String key, T value) {
+		List<T> values = map.get(key);
+		if (values == null) {
+			values = new ArrayList<T>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	private static String placeholders(int count) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			sb.append(i == 0 ? "?" : ",?");
+		}
+		return sb.toString();
+	}
+
+	private boolean hasCategoryField(String structureInode) {
+		for (Field f : FieldsCache.getFieldsByStructureInode(structureInode)) {
+			if (f.getFieldType().equals(FieldType.CATEGORY.toString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	protected void loadCategories(Contentlet con, Map<String,String> m) throws DotDataException, DotSecurityException {
+		loadCategories(con, m, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void loadCategories(Contentlet con, Map<String,String> m, MappingBatch batch) throws DotDataException, DotSecurityException {
 	    // first we check if there is a category field in the structure. We don't hit db if not needed
 	    boolean thereiscategory=false;
 	    Structure st=CacheLocator.getContentTypeCache().getStructureByInode(con.getStructureInode());
@@ -319,16 +647,19 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 	    String categoriesString="";
 
 	    if(thereiscategory) {
-    	    String categoriesSQL = "select category.category_velocity_var_name as cat_velocity_var "+
-                    " from  category join tree on (tree.parent = category.inode) join contentlet c on (c.inode = tree.child) " +
-                    " where c.inode = ?";
-    	    DotConnect db = new DotConnect();
-            db.setSQL(categoriesSQL);
-            db.addParam(con.getInode());
-            ArrayList<String> categories=new ArrayList<String>();
-    	    List<HashMap<String, String>> categoriesResults = db.loadResults();
-    	    for (HashMap<String, String> crow : categoriesResults)
-    	        categories.add(crow.get("cat_velocity_var"));
+            List<String> categories=batch!=null ? batch.categories.get(con.getInode()) : null;
+            if(categories==null) {
+        	    String categoriesSQL = "select category.category_velocity_var_name as cat_velocity_var "+
+                        " from  category join tree on (tree.parent = category.inode) join contentlet c on (c.inode = tree.child) " +
+                        " where c.inode = ?";
+        	    DotConnect db = new DotConnect();
+                db.setSQL(categoriesSQL);
+                db.addParam(con.getInode());
+                categories=new ArrayList<String>();
+        	    List<HashMap<String, String>> categoriesResults = db.loadResults();
+        	    for (HashMap<String, String> crow : categoriesResults)
+        	        categories.add(crow.get("cat_velocity_var"));
+            }
 
     	    categoriesString=UtilMethods.join(categories, " ").trim();
 
@@ -623,12 +954,25 @@ public class ESMappingAPIImpl implements ContentMappingAPI {
 	}
 
 	protected void loadRelationshipFields(Contentlet con, Map<String,String> m) throws DotStateException, DotDataException {
-	    DotConnect db = new DotConnect();
-        db.setSQL("select * from tree where parent = ? or child = ? order by tree_order asc");
-        db.addParam(con.getIdentifier());
-        db.addParam(con.getIdentifier());
+		loadRelationshipFields(con, m, null);
+	}
+
+	private void loadRelationshipFields(Contentlet con, Map<String,String> m, MappingBatch batch) throws DotStateException, DotDataException {
+        List<Map<String, Object>> relatedEntries;
+        if(batch!=null) {
+            relatedEntries = batch.relationships.get(con.getIdentifier());
+            if(relatedEntries==null)
+                relatedEntries = new ArrayList<Map<String, Object>>();
+        }
+        else {
+    	    DotConnect db = new DotConnect();
+            db.setSQL("select * from tree where parent = ? or child = ? order by tree_order asc");
+            db.addParam(con.getIdentifier());
+            db.addParam(con.getIdentifier());
+            relatedEntries = db.loadObjectResults();
+        }
 
-        for(Map<String, Object> relatedEntry : db.loadObjectResults()) {
+        for(Map<String, Object> relatedEntry : relatedEntries) {
 
             String childId = relatedEntry.get("child").toString();
             String parentId = relatedEntry.get("parent").toString();
@@ -9,6 +9,8 @@ import com.dotcms.content.elasticsearch.business.ESContentletIndexAPI;
 import com.dotcms.content.elasticsearch.business.IndiciesAPI.IndiciesInfo;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.common.reindex.ReindexQueue;
+import com.dotmarketing.common.reindex.ReindexThread;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
@@ -69,7 +71,13 @@ public class ESReindexationProcessStatus implements Serializable {
 	            theMap.put("lastIndexationProgress", getLastIndexationProgress());
 	            theMap.put("currentIndexPath", currentIndexPath());
 	            theMap.put("newIndexPath", getNewIndexPath());
+	            theMap.put("documentsPerSecond", Math.round(ReindexThread.getInstance().getDocumentsPerSecond()));
+	            theMap.put("reindexQueueDepth", ReindexQueue.getInstance().getDepth());
             }
+            // time between a record being added to the journal and being indexed
+            theMap.put("reindexedRecords", ReindexQueue.getInstance().getIndexedRecords());
+            theMap.put("reindexLatencyMillis", ReindexQueue.getInstance().getAverageLatency());
+            theMap.put("reindexMaxLatencyMillis", ReindexQueue.getInstance().getMaxLatency());
             return theMap;
         }
         finally {
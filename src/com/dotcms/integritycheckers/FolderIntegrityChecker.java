@@ -270,7 +270,7 @@ public class FolderIntegrityChecker extends AbstractIntegrityChecker {
             /*
             Clean up the caches
              */
-            List<Contentlet> contents = APILocator.getContentletAPI().findContentletsByFolder(folder, APILocator.getUserAPI().getSystemUser(), false);
+            Iterable<Contentlet> contents = APILocator.getContentletAPI().scroll("+conFolder:" + folder.getInode(), 500, APILocator.getUserAPI().getSystemUser(), false);
             for ( Contentlet contentlet : contents ) {
                 APILocator.getContentletIndexAPI().removeContentFromIndex(contentlet);
                 CacheLocator.getContentletCache().remove(contentlet.getInode());
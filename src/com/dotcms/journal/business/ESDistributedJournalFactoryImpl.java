@@ -2,11 +2,14 @@ package com.dotcms.journal.business;
 
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +46,9 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
     private String ORACLEREINDEXENTRIESSELECTSQL = "SELECT * FROM table(load_records_to_index(?, ?, ?))";
     private String MYSQLREINDEXENTRIESSELECTSQL = "{call load_records_to_index(?,?,?)}";
 
+    // Oracle allows no more than 1000 values in an IN clause
+    private static final int CLAIM_CHUNK_SIZE = 500;
+
     public ESDistributedJournalFactoryImpl(T newIndexValue) {
         super(newIndexValue);
 
@@ -85,24 +91,25 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
                 con = DbConnectionFactory.getConnection();
                 con.setAutoCommit(false);
                 java.sql.Timestamp timestamp = new java.sql.Timestamp(new java.util.Date().getTime());
+                DotConnect dc = new DotConnect();
+                dc.setSQL("INSERT INTO dist_process(object_to_index, time_entered, serverid, journal_type)VALUES (?, ?, ?, ?)");
                 for (String serversId : serversIds) {
                     if (!serverId.equals(serversId)) {
-                        DotConnect dc = new DotConnect();
-                        dc.setSQL("INSERT INTO dist_process(object_to_index, time_entered, serverid, journal_type)VALUES (?, ?, ?, ?)");
                         dc.addParam(key + ":" + group);
                         dc.addParam(timestamp);
                         dc.addParam(serversId);
                         dc.addParam(JOURNAL_TYPE_CACHE);
-                        try {
-                            dc.getResult(con);
-                        } catch (Exception e) {
-                            Logger
-                                    .warn(this,
-                                            "Usually not a problem but a cache entry failed to insert in the table.");
-                            Logger.debug(this, e.getMessage(), e);
-                        }
+                        dc.addBatch();
                     }
                 }
+                try {
+                    dc.executeBatch(con);
+                } catch (Exception e) {
+                    Logger
+                            .warn(this,
+                                    "Usually not a problem but a cache entry failed to insert in the table.");
+                    Logger.debug(this, e.getMessage(), e);
+                }
             }
         } catch (SQLException e1) {
             throw new DotDataException(e1.getMessage(), e1);
@@ -224,27 +231,45 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 				.append("UPDATE dist_reindex_journal SET serverid=NULL, priority = CASE WHEN priority < ")
 				.append(REINDEX_JOURNAL_PRIORITY_FAILED_FIRST_ATTEMPT).append(" THEN ")
 				.append(REINDEX_JOURNAL_PRIORITY_FAILED_FIRST_ATTEMPT).append(" WHEN priority = ").append(totalAttempts)
-				.append(" THEN priority ").append(" ELSE priority + 1 END where id in (");
-        boolean first = true;
+				.append(" THEN priority ").append(" ELSE priority + 1 END where id = ? AND priority <= ?");
+        dc.setSQL(sql.toString());
         for ( IndexJournal<T> idx : recordsToModify ) {
-            if ( !first ) sql.append(',');
-            else first = false;
-            sql.append(idx.getId());
+            dc.addParam(idx.getId());
+            dc.addParam(totalAttempts);
+            dc.addBatch();
         }
-        sql.append(") AND priority <= " + totalAttempts);
-        dc.setSQL(sql.toString());
+        executeBatchInOwnTransaction(dc);
+    }
+
+    @Override
+    protected void deleteReindexEntryForServer(List<IndexJournal<T>> recordsToDelete) throws DotDataException {
+        DotConnect dc = new DotConnect();
+        dc.setSQL("DELETE FROM dist_reindex_journal where id = ?");
+        for(IndexJournal<T> idx : recordsToDelete) {
+            dc.addParam(idx.getId());
+            dc.addBatch();
+        }
+        executeBatchInOwnTransaction(dc);
+    }
+
+    /**
+     * Runs the batched statements of the given DotConnect on a connection of its own, so the journal
+     * changes are committed right away no matter the transaction the current thread is in.
+     */
+    private void executeBatchInOwnTransaction(DotConnect dc) {
         Connection con = null;
         try {
             con = DbConnectionFactory.getDataSource().getConnection();
-            con.setAutoCommit(true);
-            dc.loadResult(con);
-        } catch ( SQLException e ) {
+            con.setAutoCommit(false);
+            dc.executeBatch(con);
+            con.commit();
+        } catch ( Exception e ) {
             try {
                 if ( con != null ) {
                     con.rollback();
                 }
             } catch ( SQLException e1 ) {
-                Logger.error(this.getClass(), e.getMessage(), e);
+                Logger.error(this.getClass(), e1.getMessage(), e1);
             }
             Logger.error(ESDistributedJournalFactoryImpl.class, e.getMessage(), e);
         } finally {
@@ -258,34 +283,6 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
         }
     }
 
-    @Override
-    protected void deleteReindexEntryForServer(List<IndexJournal<T>> recordsToDelete) throws DotDataException {
-        DotConnect dc = new DotConnect();
-        StringBuilder sql=new StringBuilder().append("DELETE FROM dist_reindex_journal where id in (");
-        boolean first=true;
-        for(IndexJournal<T> idx : recordsToDelete) {
-            if(!first) sql.append(','); else first=false;
-            sql.append(idx.getId());
-        }
-        sql.append(')');
-
-        dc.setSQL(sql.toString());
-        Connection con = null;
-		try {
-			con = DbConnectionFactory.getDataSource().getConnection();
-			con.setAutoCommit(true);
-			dc.loadResult(con);
-		} catch (SQLException e) {
-			Logger.error(ESDistributedJournalFactoryImpl.class,e.getMessage(),e);
-		}finally{
-			try {
-				con.close();
-			} catch (SQLException e) {
-				Logger.error(ESDistributedJournalFactoryImpl.class,e.getMessage(),e);
-			}
-		}
-    }
-
     @Override
     protected void distReindexJournalCleanup(int time, boolean add, boolean includeInodeCheck, DateType type) throws DotDataException {
         StringBuilder reindexJournalCleanupSql = new StringBuilder();
@@ -472,6 +469,157 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
         return x;
     }
 
+    @Override
+    protected List<IndexJournal<T>> claimContentReindexEntries(boolean includeFailedRecords, int recordsToFetch,
+            List<String> identifierPrefixes) throws DotDataException {
+        return claimContentReindexEntries(ConfigUtils.getServerId(), includeFailedRecords, recordsToFetch, identifierPrefixes);
+    }
+
+    /**
+     * Claims the re-index entries for the given server, see
+     * {@link #claimContentReindexEntries(boolean, int, List)}.
+     */
+    List<IndexJournal<T>> claimContentReindexEntries(String serverId, boolean includeFailedRecords, int recordsToFetch,
+            List<String> identifierPrefixes) throws DotDataException {
+        List<IndexJournal<T>> claimed;
+        Connection con = null;
+        try {
+            // a connection of its own, the claim is committed right away no matter the transaction of the thread
+            con = DbConnectionFactory.getDataSource().getConnection();
+            con.setAutoCommit(false);
+            claimed = assignReindexEntries(con, serverId,
+                    findReindexEntriesToClaim(con, includeFailedRecords, recordsToFetch, identifierPrefixes));
+            con.commit();
+        } catch (SQLException e) {
+            rollback(con);
+            throw new DotDataException(e.getMessage(), e);
+        } catch (DotDataException e) {
+            rollback(con);
+            throw e;
+        } finally {
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException e) {
+                Logger.error(this, e.getMessage(), e);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Returns the re-index entries no server claimed yet, by id, in the order
+     * they have to be indexed.
+     */
+    Map<Long, IndexJournal<T>> findReindexEntriesToClaim(Connection con, boolean includeFailedRecords, int recordsToFetch,
+            List<String> identifierPrefixes) throws DotDataException {
+        int priorityLevel = REINDEX_JOURNAL_PRIORITY_NEWINDEX;
+        if (includeFailedRecords) {
+            priorityLevel = REINDEX_JOURNAL_PRIORITY_FAILED_FIRST_ATTEMPT + (RETRY_FAILED_INDEX_TIMES);
+        }
+
+        StringBuilder select = new StringBuilder("select id, inode_to_index, ident_to_index, priority, time_entered ")
+                .append("from dist_reindex_journal where serverid is null and priority <= ?");
+        if (identifierPrefixes != null && !identifierPrefixes.isEmpty()) {
+            select.append(" and (");
+            for (int i = 0; i < identifierPrefixes.size(); i++) {
+                select.append(i > 0 ? " or " : "").append("ident_to_index like ?");
+            }
+            select.append(")");
+        }
+        select.append(" order by priority asc, id asc");
+        DotConnect dc = new DotConnect();
+        dc.setSQL(select.toString(), recordsToFetch);
+        dc.addParam(priorityLevel);
+        if (identifierPrefixes != null) {
+            for (String prefix : identifierPrefixes) {
+                dc.addParam(prefix + "%");
+            }
+        }
+        Map<Long, IndexJournal<T>> candidates = new LinkedHashMap<Long, IndexJournal<T>>();
+        for (Map<String, Object> r : dc.loadObjectResults(con)) {
+            IndexJournal<T> ij = new IndexJournal<T>();
+            ij.setId(((Number) r.get("id")).longValue());
+            ij.setInodeToIndex((T) r.get("inode_to_index"));
+            ij.setIdentToIndex((T) r.get("ident_to_index"));
+            ij.setPriority(((Number) (r.get("priority"))).intValue());
+            if (r.get("time_entered") instanceof Date) {
+                ij.setTimeEntered((Date) r.get("time_entered"));
+            }
+            candidates.put(ij.getId(), ij);
+        }
+        return candidates;
+    }
+
+    /**
+     * Assigns the given entries to the server with a conditional UPDATE, only
+     * the ones no other server took in the meantime are assigned and returned.
+     */
+    List<IndexJournal<T>> assignReindexEntries(Connection con, String serverId, Map<Long, IndexJournal<T>> candidates)
+            throws DotDataException {
+        List<IndexJournal<T>> claimed = new ArrayList<IndexJournal<T>>();
+        DotConnect dc = new DotConnect();
+        List<Long> ids = new ArrayList<Long>(candidates.keySet());
+        for (int from = 0; from < ids.size(); from += CLAIM_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CLAIM_CHUNK_SIZE, ids.size()));
+            String inClause = " IN (" + DotConnect.createParametersPlaceholder(chunk.size()) + ")";
+
+            dc.setSQL("UPDATE dist_reindex_journal SET serverid = ? WHERE serverid IS NULL AND id" + inClause);
+            dc.addParam(serverId);
+            for (Long id : chunk) {
+                dc.addParam(id);
+            }
+            dc.loadResult(con);
+
+            dc.setSQL("SELECT id FROM dist_reindex_journal WHERE serverid = ? AND id" + inClause);
+            dc.addParam(serverId);
+            for (Long id : chunk) {
+                dc.addParam(id);
+            }
+            for (Map<String, Object> r : dc.loadObjectResults(con)) {
+                claimed.add(candidates.get(((Number) r.get("id")).longValue()));
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    protected int releaseReindexEntriesForServer(String serverId) throws DotDataException {
+        Connection con = null;
+        try {
+            con = DbConnectionFactory.getDataSource().getConnection();
+            con.setAutoCommit(true);
+            PreparedStatement statement = con.prepareStatement("UPDATE dist_reindex_journal SET serverid = NULL WHERE serverid = ?");
+            try {
+                statement.setString(1, serverId);
+                return statement.executeUpdate();
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            throw new DotDataException(e.getMessage(), e);
+        } finally {
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException e) {
+                Logger.error(this, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void rollback(Connection con) {
+        try {
+            if (con != null) {
+                con.rollback();
+            }
+        } catch (SQLException e) {
+            Logger.error(this, e.getMessage(), e);
+        }
+    }
+
     @Override
     protected String getServerId() {
         return ConfigUtils.getServerId();
@@ -550,8 +698,8 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 
     @Override
     protected void refreshContentUnderFolder(Folder folder) throws DotDataException {
-        final String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action) "+
-                           " SELECT distinct identifier.id, identifier.id, ?, ? " +
+        final String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,time_entered) "+
+                           " SELECT distinct identifier.id, identifier.id, ?, ?, " + TIMESTAMPSQL +
                            " FROM contentlet join identifier ON contentlet.identifier=identifier.id "+
                            " WHERE identifier.host_inode=? AND identifier.parent_path LIKE ? ";
         DotConnect dc = new DotConnect();
@@ -566,8 +714,8 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 
     @Override
     protected void refreshContentUnderFolderPath(String hostId, String folderPath) throws DotDataException {
-        final String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action) "+
-                           " SELECT distinct identifier.id, identifier.id, ?, ? " +
+        final String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,time_entered) "+
+                           " SELECT distinct identifier.id, identifier.id, ?, ?, " + TIMESTAMPSQL +
                            " FROM contentlet join identifier ON contentlet.identifier=identifier.id "+
                            " WHERE identifier.host_inode=? AND identifier.parent_path LIKE ? ";
         DotConnect dc = new DotConnect();
@@ -581,8 +729,8 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
 
     @Override
     protected void refreshContentUnderHost(Host host) throws DotDataException {
-        String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action) "+
-                " SELECT id, id, ?, ? " +
+        String sql = " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,time_entered) "+
+                " SELECT id, id, ?, ?, " + TIMESTAMPSQL +
                 " FROM identifier "+
                 " WHERE asset_type='contentlet' and identifier.host_inode=?";
         DotConnect dc = new DotConnect();
@@ -593,8 +741,8 @@ public class ESDistributedJournalFactoryImpl<T> extends DistributedJournalFactor
         dc.loadResult();
 
         // https://github.com/dotCMS/dotCMS/issues/2229
-        sql =   " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action) "+
-                " SELECT asset_id, asset_id, ?, ? " +
+        sql =   " INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,time_entered) "+
+                " SELECT asset_id, asset_id, ?, ?, " + TIMESTAMPSQL +
                 " FROM permission_reference "+
                 " WHERE reference_id=?";
         dc.setSQL(sql);
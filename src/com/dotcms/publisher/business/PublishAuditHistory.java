@@ -23,6 +23,10 @@ public class PublishAuditHistory implements Serializable {
 	private Date publishEnd;
 	private int numTries = 0;
 	private Map<String, String> assets;
+	//Milliseconds spent on every step of the publishing of the bundle by the receiver
+	private Map<String, Long> handlerDurations;
+	//Number of files of the bundle every handler of the receiver reads
+	private Map<String, Integer> handlerFileCounts;
 	
 	public PublishAuditHistory() {
 		assets = new HashMap<String, String>();
@@ -85,6 +89,29 @@ public class PublishAuditHistory implements Serializable {
 		this.assets = assets;
 	}
 	
+	/**
+	 * Returns the milliseconds spent on every step of the publishing of the
+	 * bundle by the receiver: extracting it and running every handler.
+	 */
+	public Map<String, Long> getHandlerDurations() {
+		return handlerDurations;
+	}
+	public void setHandlerDurations(Map<String, Long> handlerDurations) {
+		this.handlerDurations = handlerDurations;
+	}
+
+	/**
+	 * Returns the number of files of the bundle every handler of the receiver
+	 * reads, by the same names as {@link #getHandlerDurations()}, so the rate
+	 * of every handler can be shown.
+	 */
+	public Map<String, Integer> getHandlerFileCounts() {
+		return handlerFileCounts;
+	}
+	public void setHandlerFileCounts(Map<String, Integer> handlerFileCounts) {
+		this.handlerFileCounts = handlerFileCounts;
+	}
+
 	public int getNumTries() {
 		return numTries;
 	}
@@ -1,22 +1,51 @@
 package com.dotcms.publisher.receiver;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.tools.tar.TarEntry;
 import org.apache.tools.tar.TarInputStream;
 
 import com.dotcms.enterprise.LicenseUtil;
+import com.dotcms.enterprise.publishing.remote.bundler.CategoryBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.ContainerBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.ContentBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.FolderBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.HTMLPageBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.HostBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.LanguageBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.LanguageVariablesBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.LinkBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.OSGIBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.RelationshipBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.RuleBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.StructureBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.TemplateBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.UserBundler;
+import com.dotcms.enterprise.publishing.remote.bundler.WorkflowBundler;
 import com.dotcms.enterprise.publishing.remote.handler.BundleXMLascHandler;
 import com.dotcms.enterprise.publishing.remote.handler.CategoryHandler;
 import com.dotcms.enterprise.publishing.remote.handler.ContainerHandler;
@@ -46,6 +75,7 @@ import com.dotcms.publisher.pusher.PushPublisherConfig;
 import com.dotcms.publisher.receiver.handler.IHandler;
 import com.dotcms.publishing.BundlerUtil;
 import com.dotcms.publishing.DotPublishingException;
+import com.dotcms.publishing.IBundler;
 import com.dotcms.publishing.PublishStatus;
 import com.dotcms.publishing.Publisher;
 import com.dotcms.publishing.PublisherConfig;
@@ -53,11 +83,13 @@ import com.dotcms.repackage.org.apache.commons.io.FileUtils;
 import com.dotcms.repackage.org.apache.commons.lang.exception.ExceptionUtils;
 import com.dotcms.rest.BundlePublisherResource;
 import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.DotRunnable;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.ConfigUtils;
 import com.dotmarketing.util.Logger;
+import com.liferay.util.FileUtil;
 
 /**
  * This publisher will be in charge of retrieving the bundle, un-zipping it, and
@@ -69,6 +101,20 @@ import com.dotmarketing.util.Logger;
  * files (i.e., a Container handler will only read Container data files),
  * retrieve the Java objects that they represent, and imports their content in
  * the destination server.
+ * <p>
+ * With PUSH_PUBLISHING_PARALLEL_HANDLERS enabled, the handlers that don't
+ * depend on each other run at the same time, every handler in its own
+ * transaction, and the contentlets saved by all of them are reindexed in
+ * batches once they are done. If a handler fails, the bundle is marked as
+ * FAILED_TO_PUBLISH but the handlers that already finished stay committed:
+ * the ones of the earlier stages and the others of the same stage. Otherwise
+ * all the handlers run one after the other in a single transaction, and a
+ * failure rolls back the whole bundle.
+ * <p>
+ * The time every handler takes and the number of files of the bundle it
+ * reads are kept in the audit of the bundle, see
+ * {@link PublishAuditHistory#getHandlerDurations()} and
+ * {@link PublishAuditHistory#getHandlerFileCounts()}.
  * 
  * @author Alberto
  * @version 1.0
@@ -83,33 +129,49 @@ public class BundlePublisher extends Publisher {
 
     private List<IHandler> handlers = new ArrayList<IHandler>();
 
+    /**
+     * The handlers that can run at the same time, in order. A handler only
+     * depends on the ones of the previous stages.
+     */
+    private List<List<IHandler>> handlerStages = new ArrayList<List<IHandler>>();
+
+    /**
+     * The bundler that wrote the files every handler reads.
+     */
+    private Map<IHandler, IBundler> handlerBundlers = new HashMap<IHandler, IBundler>();
+
+    private int extractedEntries = 0;
+    private long extractedBytes = 0;
+
     @Override
     public PublisherConfig init ( PublisherConfig config ) throws DotPublishingException {
         if ( LicenseUtil.getLevel() < 200 ) {
             throw new RuntimeException( "need an enterprise licence to run this" );
         }
         handlers = new ArrayList<IHandler>();
-        handlers.add(new BundleXMLascHandler( config ));
+        handlerStages = new ArrayList<List<IHandler>>();
+        handlerBundlers = new HashMap<IHandler, IBundler>();
+        addHandler( new BundleXMLascHandler( config ), null, 0 );
         //The order is really important
-        handlers.add( new UserHandler( config ) );
-        handlers.add( new CategoryHandler( config ) );
-        handlers.add( new HostHandler( config ) );
-        handlers.add( new FolderHandler( config ) );
-        handlers.add( new WorkflowHandler( config ) );
+        addHandler( new UserHandler( config ), new UserBundler(), 1 );
+        addHandler( new CategoryHandler( config ), new CategoryBundler(), 1 );
+        addHandler( new HostHandler( config ), new HostBundler(), 2 );
+        addHandler( new FolderHandler( config ), new FolderBundler(), 3 );
+        addHandler( new WorkflowHandler( config ), new WorkflowBundler(), 4 );
         if ( Config.getBooleanProperty( "PUSH_PUBLISHING_PUSH_STRUCTURES", true) ) {
-            handlers.add( new StructureHandler( config ) );
-            handlers.add( new RelationshipHandler( config ) );
+            addHandler( new StructureHandler( config ), new StructureBundler(), 5 );
+            addHandler( new RelationshipHandler( config ), new RelationshipBundler(), 6 );
         }
-        handlers.add( new ContainerHandler( config ) );
-        handlers.add( new TemplateHandler( config ) );
-        handlers.add( new HTMLPageHandler( config ) );
-        handlers.add( new LanguageHandler( config ) );
-        handlers.add( new LanguageVariablesHandler( config ) );
-        handlers.add( new ContentHandler( config ) );
-        handlers.add( new ContentWorkflowHandler( config ) );
-        handlers.add( new OSGIHandler( config ) );
-        handlers.add( new LinkHandler( config ) );
-        handlers.add(new RuleHandler(config));
+        addHandler( new ContainerHandler( config ), new ContainerBundler(), 6 );
+        addHandler( new TemplateHandler( config ), new TemplateBundler(), 7 );
+        addHandler( new HTMLPageHandler( config ), new HTMLPageBundler(), 8 );
+        addHandler( new LanguageHandler( config ), new LanguageBundler(), 1 );
+        addHandler( new LanguageVariablesHandler( config ), new LanguageVariablesBundler(), 2 );
+        addHandler( new ContentHandler( config ), new ContentBundler(), 9 );
+        addHandler( new ContentWorkflowHandler( config ), null, 10 );
+        addHandler( new OSGIHandler( config ), new OSGIBundler(), 1 );
+        addHandler( new LinkHandler( config ), new LinkBundler(), 10 );
+        addHandler( new RuleHandler( config ), new RuleBundler(), 10 );
         auditAPI = PublishAuditAPI.getInstance();
         this.config = super.init( config );
         return this.config;
@@ -158,22 +220,38 @@ public class BundlePublisher extends Publisher {
         File folderOut = new File( bundlePath + bundleFolder );
         folderOut.mkdir();
 
+        Map<String, Long> handlerDurations = Collections.synchronizedMap( new LinkedHashMap<String, Long>() );
+
         // Extract file to a directory
         InputStream bundleIS;
+        Object bundleXML;
+        long start = System.currentTimeMillis();
         try {
             bundleIS = new FileInputStream( bundlePath + bundleName );
-            untar( bundleIS, folderOut.getAbsolutePath() + File.separator + bundleName, bundleName );
+            bundleXML = untar( bundleIS, folderOut.getAbsolutePath() + File.separator + bundleName, bundleName );
         } catch ( FileNotFoundException e ) {
             throw new DotPublishingException( "Cannot extract the selected archive", e );
         }
+        long extraction = System.currentTimeMillis() - start;
+        handlerDurations.put( "Bundle extraction", extraction );
+        Logger.info( this, "Extracted " + extractedEntries + " entries (" + (extractedBytes / 1024) + " KB) of bundle " + bundleFolder + " in "
+                + extraction + " ms" );
+
+        Map<String, Integer> handlerFileCounts = countHandlerFiles( folderOut );
 
         Map<String, String> assetsDetails = null;
 
         try {
             //Read the bundle to see what kind of configuration we need to apply
-            String finalBundlePath = ConfigUtils.getBundlePath() + File.separator + bundleFolder;
-            File xml = new File( finalBundlePath + File.separator + "bundle.xml" );
-            PushPublisherConfig readConfig = (PushPublisherConfig) BundlerUtil.xmlToObject( xml );
+            PushPublisherConfig readConfig;
+            if ( bundleXML instanceof PushPublisherConfig ) {
+                //Already read from the archive while extracting it
+                readConfig = (PushPublisherConfig) bundleXML;
+            } else {
+                String finalBundlePath = ConfigUtils.getBundlePath() + File.separator + bundleFolder;
+                File xml = new File( finalBundlePath + File.separator + "bundle.xml" );
+                readConfig = (PushPublisherConfig) BundlerUtil.xmlToObject( xml );
+            }
 
             //Get the identifiers on this bundle
             assetsDetails = new HashMap<String, String>();
@@ -189,16 +267,22 @@ public class BundlePublisher extends Publisher {
         }
 
         try {
-        	HibernateUtil.startTransaction();
+            if ( Config.getBooleanProperty( "PUSH_PUBLISHING_PARALLEL_HANDLERS", false ) ) {
+                handleInStages( handlerStages, folderOut, handlerDurations );
+            } else {
+                HibernateUtil.startTransaction();
 
-            //Execute the handlers
-            for ( IHandler handler : handlers ) {
-            	
-                handler.handle( folderOut );
-                
+                //Execute the handlers
+                for ( IHandler handler : handlers ) {
+
+                    long handlerStart = System.currentTimeMillis();
+                    handler.handle( folderOut );
+                    handlerDurations.put( handler.getName(), System.currentTimeMillis() - handlerStart );
+
+                }
+
+                HibernateUtil.commitTransaction();
             }
-            
-            HibernateUtil.commitTransaction();
         } catch ( Exception e ) {
             bundleSuccess = false;
             try {
@@ -217,6 +301,8 @@ public class BundlePublisher extends Publisher {
                 currentStatusHistory.addOrUpdateEndpoint(endPointId, endPointId, detail);
                 currentStatusHistory.setPublishEnd( new Date() );
                 currentStatusHistory.setAssets( assetsDetails );
+                currentStatusHistory.setHandlerDurations( copy( handlerDurations ) );
+                currentStatusHistory.setHandlerFileCounts( handlerFileCounts );
 
                 auditAPI.updatePublishAuditStatus( bundleFolder, PublishAuditStatus.Status.FAILED_TO_PUBLISH, currentStatusHistory );
             } catch ( DotPublisherException e1 ) {
@@ -233,6 +319,8 @@ public class BundlePublisher extends Publisher {
             currentStatusHistory.addOrUpdateEndpoint(endPointId, endPointId, detail);
             currentStatusHistory.setPublishEnd( new Date() );
             currentStatusHistory.setAssets( assetsDetails );
+            currentStatusHistory.setHandlerDurations( copy( handlerDurations ) );
+            currentStatusHistory.setHandlerFileCounts( handlerFileCounts );
             auditAPI.updatePublishAuditStatus( bundleFolder, PublishAuditStatus.Status.SUCCESS, currentStatusHistory );
             HibernateUtil.commitTransaction();
         } catch ( Exception e ) {
@@ -249,6 +337,172 @@ public class BundlePublisher extends Publisher {
         return config;
     }
 
+    /**
+     * Adds a handler to the ones run in order, and to the given stage of the
+     * ones that can run at the same time.
+     *
+     * @param handler
+     * @param bundler
+     *            - The bundler that wrote the files the handler reads, to
+     *            count them, or {@code null} if there is none.
+     * @param stage
+     *            - The first stage whose handlers don't need the content of
+     *            the ones of this handler.
+     */
+    private void addHandler ( IHandler handler, IBundler bundler, int stage ) {
+        handlers.add( handler );
+        if ( bundler != null ) {
+            handlerBundlers.put( handler, bundler );
+        }
+        while ( handlerStages.size() <= stage ) {
+            handlerStages.add( new ArrayList<IHandler>() );
+        }
+        handlerStages.get( stage ).add( handler );
+    }
+
+    /**
+     * Returns the stages of the handlers, see
+     * {@link #addHandler(IHandler, IBundler, int)}.
+     */
+    List<List<IHandler>> getHandlerStages () {
+        return handlerStages;
+    }
+
+    /**
+     * Returns the number of files of the extracted bundle every handler
+     * reads, by handler name, so the audit can show the rate at which a
+     * handler processed them.
+     */
+    Map<String, Integer> countHandlerFiles ( File folderOut ) {
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        List<File> files = new ArrayList<File>();
+        try {
+            for ( File file : FileUtil.listFilesRecursively( folderOut ) ) {
+                if ( file.isFile() ) {
+                    files.add( file );
+                }
+            }
+        } catch ( FileNotFoundException e ) {
+            Logger.warn( this, "Unable to count the files of the bundle: " + e.getMessage() );
+            return counts;
+        }
+        for ( IHandler handler : handlers ) {
+            IBundler bundler = handlerBundlers.get( handler );
+            if ( bundler != null ) {
+                counts.put( handler.getName(), countFiles( files, bundler.getFileFilter() ) );
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of the given files the filter accepts.
+     */
+    static int countFiles ( List<File> files, FileFilter filter ) {
+        int count = 0;
+        for ( File file : files ) {
+            if ( filter.accept( file ) ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs the handlers stage by stage, the handlers of a stage at the same
+     * time on PUSH_PUBLISHING_HANDLER_THREADS threads (4 by default). Every
+     * handler commits its own transaction, so the locks are held only while
+     * it runs, and the reindex of the contentlets of all the handlers is done
+     * in batches at the end, even if a handler fails. The handlers that
+     * finished before a failure are not rolled back.
+     *
+     * @param stages
+     *            - The handlers to run, by stage.
+     * @param folderOut
+     *            - The folder the bundle was extracted to.
+     * @param handlerDurations
+     *            - The milliseconds spent by every handler.
+     * @throws Exception
+     *             The error of the first handler that failed, the handlers of
+     *             the next stages are not run and the ones that finished stay
+     *             committed.
+     */
+    void handleInStages ( List<List<IHandler>> stages, final File folderOut, final Map<String, Long> handlerDurations ) throws Exception {
+        final Map<String, DotRunnable> commitListeners = Collections.synchronizedMap( new LinkedHashMap<String, DotRunnable>() );
+        ExecutorService workers = Executors.newFixedThreadPool( Math.max( 1, Config.getIntProperty( "PUSH_PUBLISHING_HANDLER_THREADS", 4 ) ) );
+        try {
+            for ( List<IHandler> stage : stages ) {
+                List<Future<Void>> futures = new ArrayList<Future<Void>>();
+                for ( final IHandler handler : stage ) {
+                    futures.add( workers.submit( new Callable<Void>() {
+                        @Override
+                        public Void call () throws Exception {
+                            handle( handler, folderOut, handlerDurations, commitListeners );
+                            return null;
+                        }
+                    } ) );
+                }
+
+                Exception error = null;
+                for ( Future<Void> future : futures ) {
+                    try {
+                        future.get();
+                    } catch ( ExecutionException e ) {
+                        if ( error == null ) {
+                            error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                        }
+                    }
+                }
+                if ( error != null ) {
+                    throw error;
+                }
+            }
+        } finally {
+            workers.shutdown();
+            long start = System.currentTimeMillis();
+            try {
+                HibernateUtil.finalizeCommitListeners( new LinkedHashMap<String, DotRunnable>( commitListeners ) );
+            } catch ( Exception e ) {
+                Logger.error( BundlePublisher.class, "Unable to reindex the content of the bundle: " + e.getMessage(), e );
+            } finally {
+                HibernateUtil.closeSession();
+                DbConnectionFactory.closeConnection();
+            }
+            handlerDurations.put( "Reindex", System.currentTimeMillis() - start );
+        }
+    }
+
+    /**
+     * Runs a handler in its own transaction, keeping its commit listeners for
+     * later.
+     */
+    private void handle ( IHandler handler, File folderOut, Map<String, Long> handlerDurations, Map<String, DotRunnable> commitListeners )
+            throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            HibernateUtil.startTransaction();
+            handler.handle( folderOut );
+            HibernateUtil.commitTransaction( commitListeners );
+        } catch ( Exception e ) {
+            HibernateUtil.rollbackTransaction();
+            throw e;
+        } finally {
+            try {
+                HibernateUtil.closeSession();
+            } finally {
+                DbConnectionFactory.closeConnection();
+            }
+        }
+        handlerDurations.put( handler.getName(), System.currentTimeMillis() - start );
+        Logger.info( this, handler.getName() + " done in " + (System.currentTimeMillis() - start) + " ms" );
+    }
+
+    private static Map<String, Long> copy ( Map<String, Long> handlerDurations ) {
+        synchronized ( handlerDurations ) {
+            return new LinkedHashMap<String, Long>( handlerDurations );
+        }
+    }
+
     @SuppressWarnings ("rawtypes")
     @Override
     public List<Class> getBundlers () {
@@ -258,7 +512,8 @@ public class BundlePublisher extends Publisher {
     }
 
 	/**
-	 * Untars the given bundle file in order process its contents.
+	 * Untars the given bundle file in order process its contents. The
+	 * bundle.xml file is deserialized as it is read from the archive.
 	 *
 	 * @param bundle
 	 *            - The {@link InputStream} containing the bundle.
@@ -266,11 +521,16 @@ public class BundlePublisher extends Publisher {
 	 *            - The location where the bundle will be uncompressed.
 	 * @param fileName
 	 *            - The file name of the bundle.
+	 * @return The object of the bundle.xml file, or null if it couldn't be
+	 *         read.
 	 */
-    private void untar ( InputStream bundle, String path, String fileName ) {
+    private Object untar ( InputStream bundle, String path, String fileName ) {
         TarEntry entry;
         TarInputStream inputStream = null;
-        FileOutputStream outputStream = null;
+        OutputStream outputStream = null;
+        Object bundleXML = null;
+        extractedEntries = 0;
+        extractedBytes = 0;
 
         try {
         	//Clean the bundler folder if exist to clean dirty data
@@ -280,17 +540,19 @@ public class BundlePublisher extends Publisher {
         		FileUtils.cleanDirectory(previousFolder);
         	}
             // get a stream to tar file
-            InputStream gstream = new GZIPInputStream( bundle );
+            InputStream gstream = new GZIPInputStream( new BufferedInputStream( bundle, 64 * 1024 ), 64 * 1024 );
             inputStream = new TarInputStream( gstream );
 
+            String pathWithoutName = path.substring( 0,
+                    path.indexOf( fileName ) );
+            byte[] buf = new byte[64 * 1024];
+
             // For each entry in the tar, extract and save the entry to the file
             // system
             while ( null != (entry = inputStream.getNextEntry()) ) {
                 // for each entry to be extracted
                 int bytesRead;
-
-                String pathWithoutName = path.substring( 0,
-                        path.indexOf( fileName ) );
+                extractedEntries++;
 
                 // if the entry is a directory, create the directory
                 if ( entry.isDirectory() ) {
@@ -299,12 +561,20 @@ public class BundlePublisher extends Publisher {
                     continue;
                 }
 
+                // the bundle.xml is kept in memory as well, to deserialize it without reading it again
+                boolean isBundleXML = entry.getName().equals( "bundle.xml" ) || entry.getName().equals( "./bundle.xml" );
+                ByteArrayOutputStream bundleXMLBytes = isBundleXML ? new ByteArrayOutputStream() : null;
+
                 // write to file
-                byte[] buf = new byte[1024];
-                outputStream = new FileOutputStream( pathWithoutName
-                        + entry.getName() );
-                while ( (bytesRead = inputStream.read( buf, 0, 1024 )) > -1 )
+                outputStream = new BufferedOutputStream( new FileOutputStream( pathWithoutName
+                        + entry.getName() ), 64 * 1024 );
+                while ( (bytesRead = inputStream.read( buf, 0, buf.length )) > -1 ) {
                     outputStream.write( buf, 0, bytesRead );
+                    if ( isBundleXML ) {
+                        bundleXMLBytes.write( buf, 0, bytesRead );
+                    }
+                    extractedBytes += bytesRead;
+                }
                 try {
                     if ( null != outputStream ) {
                         outputStream.close();
@@ -312,6 +582,15 @@ public class BundlePublisher extends Publisher {
                 } catch ( Exception e ) {
                     Logger.warn( this.getClass(), "Error Closing Stream.", e );
                 }
+                outputStream = null;
+
+                if ( isBundleXML ) {
+                    try {
+                        bundleXML = BundlerUtil.xmlToObject( new ByteArrayInputStream( bundleXMLBytes.toByteArray() ) );
+                    } catch ( Exception e ) {
+                        Logger.warn( this.getClass(), "Unable to read the bundle.xml from the archive: " + e.getMessage(), e );
+                    }
+                }
             }// while
 
         } catch ( Exception e ) {
@@ -332,6 +611,7 @@ public class BundlePublisher extends Publisher {
                 }
             }
         }
+        return bundleXML;
     }
 
 }
@@ -1,11 +1,18 @@
 package com.dotcms.publisher.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.dotcms.enterprise.rules.RulesAPI;
 import com.dotcms.publisher.business.PublishQueueElement;
@@ -23,6 +30,8 @@ import com.dotmarketing.business.DotIdentifierStateException;
 import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.IdentifierAPI;
 import com.dotmarketing.cache.FieldsCache;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.factories.MultiTreeFactory;
@@ -67,6 +76,12 @@ import com.liferay.portal.model.User;
  * The Dependency Manager analyzes the type of each asset to push and includes
  * dependent information in the bundle. This way, it can be seen by users
  * exactly the same in both the sender and receiver servers.
+ * <p>
+ * The assets of every type are resolved in the same order they always were,
+ * but the assets of a type (and the folders of every level of a folder tree)
+ * can be resolved by a pool of PUSH_PUBLISHING_DEPENDENCY_THREADS workers,
+ * and the contentlets are looked up by identifier in batches. The time spent
+ * on every asset type is logged once the dependencies are set.
  * 
  * @author Daniel Silva
  * @version 1.0
@@ -103,6 +118,9 @@ public class DependencyManager {
 
 	private PushPublisherConfig config;
 
+	private ExecutorService workers;
+	private static final ThreadLocal<Boolean> isWorker = new ThreadLocal<Boolean>();
+
 	/**
 	 * Initializes the list of dependencies that this manager needs to satisfy,
 	 * based on the {@link PushPublisherConfig} specified for the bundle.
@@ -131,16 +149,16 @@ public class DependencyManager {
 		this.rules = new DependencySet(config.getId(), PushPublisherConfig.AssetTypes.RULES.toString(), config.isDownloading(), isPublish);
 
 		// these ones are for being iterated over to solve the asset's dependencies
-		hostsSet = new HashSet<String>();
-		foldersSet = new HashSet<String>();
-		htmlPagesSet = new HashSet<String>();
-		templatesSet = new HashSet<String>();
-		structuresSet = new HashSet<String>();
-		containersSet = new HashSet<String>();
-		contentsSet = new HashSet<String>();
-		linksSet = new HashSet<String>();
-		this.ruleSet = new HashSet<String>();
-		solvedStructures = new HashSet<String>();
+		hostsSet = concurrentSet();
+		foldersSet = concurrentSet();
+		htmlPagesSet = concurrentSet();
+		templatesSet = concurrentSet();
+		structuresSet = concurrentSet();
+		containersSet = concurrentSet();
+		contentsSet = concurrentSet();
+		linksSet = concurrentSet();
+		this.ruleSet = concurrentSet();
+		solvedStructures = concurrentSet();
 
 		this.user = user;
 	}
@@ -160,6 +178,7 @@ public class DependencyManager {
 	 *             An error occurred when generating the bundle data.
 	 */
 	public void setDependencies() throws DotSecurityException, DotDataException, DotBundleException {
+		final long start = System.nanoTime();
 		List<PublishQueueElement> assets = config.getAssets();
 
 		for (PublishQueueElement asset : assets) {
@@ -314,24 +333,44 @@ public class DependencyManager {
 
 		if(UtilMethods.isSet(config.getLuceneQueries())){
             List<String> contentIds = PublisherUtil.getContentIds( config.getLuceneQueries());
-            for(String id : contentIds){
-                List<Contentlet> contentlets = APILocator.getContentletAPI().search("+identifier:"+id, 0, 0, "moddate", user, false);
-                for(Contentlet con : contentlets){
-                    contents.add( con.getIdentifier(), con.getModDate()); 
-                    contentsSet.add(con.getIdentifier());
-                }
+            for(Contentlet con : searchByIdentifiers(contentIds)){
+                contents.add( con.getIdentifier(), con.getModDate()); 
+                contentsSet.add(con.getIdentifier());
             }
         }
-		
-		setHostDependencies();
-        setFolderDependencies();
-        setHTMLPagesDependencies();
-        setTemplateDependencies();
-        setContainerDependencies();
-        setStructureDependencies();
-        setLinkDependencies();
-        setContentDependencies();
-        setRuleDependencies();
+
+		final StringBuilder timings = new StringBuilder();
+		long phaseStart = timing(timings, "queued assets", assets.size(), start);
+		final int threads = Config.getIntProperty("PUSH_PUBLISHING_DEPENDENCY_THREADS", 1);
+		if (threads > 1) {
+			workers = Executors.newFixedThreadPool(threads);
+		}
+		try {
+			setHostDependencies();
+			phaseStart = timing(timings, "hosts", hostsSet.size(), phaseStart);
+			setFolderDependencies();
+			phaseStart = timing(timings, "folders", foldersSet.size(), phaseStart);
+			setHTMLPagesDependencies();
+			phaseStart = timing(timings, "htmlpages", htmlPagesSet.size(), phaseStart);
+			setTemplateDependencies();
+			phaseStart = timing(timings, "templates", templatesSet.size(), phaseStart);
+			setContainerDependencies();
+			phaseStart = timing(timings, "containers", containersSet.size(), phaseStart);
+			setStructureDependencies();
+			phaseStart = timing(timings, "structures", structuresSet.size(), phaseStart);
+			setLinkDependencies();
+			phaseStart = timing(timings, "links", linksSet.size(), phaseStart);
+			setContentDependencies();
+			phaseStart = timing(timings, "contents", contentsSet.size(), phaseStart);
+			setRuleDependencies();
+			timing(timings, "rules", this.rules.size(), phaseStart);
+		} finally {
+			if (workers != null) {
+				workers.shutdown();
+				workers = null;
+			}
+		}
+		Logger.info(this, "Dependencies of bundle " + config.getId() + " set in " + ((System.nanoTime() - start) / 1000000) + " ms" + timings);
 
 		config.setHostSet(hosts);
 		config.setFolders(folders);
@@ -355,50 +394,56 @@ public class DependencyManager {
 	 * </ul>
 	 */
 	private void setLinkDependencies() {
-		for(String linkId : linksSet) {
-			try {
-				Identifier ident=APILocator.getIdentifierAPI().find(linkId);
-				Folder ff = APILocator.getFolderAPI().findFolderByPath(ident.getParentPath(), ident.getHostId(), user, false);
-                folders.addOrClean( ff.getInode(), ff.getModDate());
-				foldersSet.add(ff.getInode());
+		try {
+			resolve(linksSet, linkId -> {
+				try {
+					Identifier ident=APILocator.getIdentifierAPI().find(linkId);
+					Folder ff = APILocator.getFolderAPI().findFolderByPath(ident.getParentPath(), ident.getHostId(), user, false);
+					folders.addOrClean( ff.getInode(), ff.getModDate());
+					foldersSet.add(ff.getInode());
 
-				Host hh=APILocator.getHostAPI().find(ident.getHostId(), user, false);
-                hosts.addOrClean( hh.getIdentifier(), hh.getModDate());
-				hostsSet.add(hh.getIdentifier());
+					Host hh=APILocator.getHostAPI().find(ident.getHostId(), user, false);
+					hosts.addOrClean( hh.getIdentifier(), hh.getModDate());
+					hostsSet.add(hh.getIdentifier());
 
-				Link link = APILocator.getMenuLinkAPI().findWorkingLinkById(linkId, user, false);
+					Link link = APILocator.getMenuLinkAPI().findWorkingLinkById(linkId, user, false);
 
-				if(link!=null) {
+					if(link!=null) {
 
-					if(link.getLinkType().equals(Link.LinkType.INTERNAL.toString())) {
-						Identifier id = APILocator.getIdentifierAPI().find(link.getInternalLinkIdentifier());
+						if(link.getLinkType().equals(Link.LinkType.INTERNAL.toString())) {
+							Identifier id = APILocator.getIdentifierAPI().find(link.getInternalLinkIdentifier());
 
-						// add file/content dependencies. will also work with htmlpages as content
-						if (InodeUtils.isSet(id.getInode()) && id.getAssetType().equals("contentlet")) {
-							List<Contentlet> contentList = APILocator.getContentletAPI().search("+identifier:"+id.getId(), 0, 0, "moddate", user, false);
+							// add file/content dependencies. will also work with htmlpages as content
+							if (InodeUtils.isSet(id.getInode()) && id.getAssetType().equals("contentlet")) {
+								List<Contentlet> contentList = APILocator.getContentletAPI().search("+identifier:"+id.getId(), 0, 0, "moddate", user, false);
 
-							for (Contentlet contentlet : contentList) {
-								contents.addOrClean(contentlet.getIdentifier(), contentlet.getModDate());
-								contentsSet.add(contentlet.getIdentifier());
-							}
+								for (Contentlet contentlet : contentList) {
+									contents.addOrClean(contentlet.getIdentifier(), contentlet.getModDate());
+									contentsSet.add(contentlet.getIdentifier());
+								}
 
-						// add htmlpages dependencies
-						} else if(InodeUtils.isSet(id.getInode()) && id.getAssetType().equals("htmlpage")) {
-							HTMLPage page = APILocator.getHTMLPageAPI().loadLivePageById(id.getId(), user, false);
+							// add htmlpages dependencies
+							} else if(InodeUtils.isSet(id.getInode()) && id.getAssetType().equals("htmlpage")) {
+								HTMLPage page = APILocator.getHTMLPageAPI().loadLivePageById(id.getId(), user, false);
 
-							if(page==null) {
-								page = APILocator.getHTMLPageAPI().loadWorkingPageById(id.getId(), user, false);
-							}
+								if(page==null) {
+									page = APILocator.getHTMLPageAPI().loadWorkingPageById(id.getId(), user, false);
+								}
 
-							htmlPages.addOrClean(id.getId(), page.getModDate());
-							htmlPagesSet.add(id.getId());
+								htmlPages.addOrClean(id.getId(), page.getModDate());
+								htmlPagesSet.add(id.getId());
+							}
 						}
 					}
-				}
 
-			} catch (Exception e) {
-				Logger.error(this, "can't load menuLink deps "+linkId,e);
-			}
+				} catch (Exception e) {
+					Logger.error(this, "can't load menuLink deps "+linkId,e);
+				}
+			});
+		} catch (DotSecurityException e) {
+			Logger.error(this, e.getMessage(),e);
+		} catch (DotDataException e) {
+			Logger.error(this, e.getMessage(),e);
 		}
 	}
 
@@ -416,7 +461,7 @@ public class DependencyManager {
 	 */
 	private void setHostDependencies () {
 		try {
-			for (String id : hostsSet) {
+			resolve(hostsSet, id -> {
 				final Host h = APILocator.getHostAPI().find(id, user, false);
 
 				// Template dependencies
@@ -462,7 +507,7 @@ public class DependencyManager {
 					this.rules.add(rule.getId());
 					this.ruleSet.add(rule.getId());
 				}
-			}
+			});
 		} catch (DotSecurityException e) {
 			Logger.error(this, e.getMessage(),e);
 		} catch (DotDataException e) {
@@ -482,11 +527,11 @@ public class DependencyManager {
 	 */
 	private void setFolderDependencies() {
 		try {
-			List<Folder> folderList = new ArrayList<Folder>();
+			final List<Folder> folderList = Collections.synchronizedList(new ArrayList<Folder>());
 
-			HashSet<String> parentFolders = new HashSet<String>();
+			final Set<String> parentFolders = concurrentSet();
 
-			for (String id : foldersSet) {
+			resolve(foldersSet, id -> {
 				Folder f = APILocator.getFolderAPI().find(id, user, false);
 				// Parent folder
 				Folder parent = APILocator.getFolderAPI().findParentFolder(f, user, false);
@@ -496,7 +541,7 @@ public class DependencyManager {
 				}
 
 				folderList.add(f);
-			}
+			});
 			foldersSet.addAll(parentFolders);
 			setFolderListDependencies(folderList);
 		} catch (DotSecurityException e) {
@@ -509,6 +554,8 @@ public class DependencyManager {
 	}
 
 	/**
+	 * Adds the given folders, their subfolders and their dependencies, one
+	 * level of the folder tree at a time.
 	 * 
 	 * @param folderList
 	 * @throws DotIdentifierStateException
@@ -516,61 +563,66 @@ public class DependencyManager {
 	 * @throws DotSecurityException
 	 */
 	private void setFolderListDependencies(List<Folder> folderList) throws DotIdentifierStateException, DotDataException, DotSecurityException {
-		for (Folder f : folderList) {
+		List<Folder> level = folderList;
+		while (!level.isEmpty()) {
+			final List<Folder> subFolders = Collections.synchronizedList(new ArrayList<Folder>());
+			resolve(level, f -> {
 
-			// Add folder even if empty
-			folders.addOrClean( f.getInode(), f.getModDate());
-			foldersSet.add(f.getInode());
+				// Add folder even if empty
+				folders.addOrClean( f.getInode(), f.getModDate());
+				foldersSet.add(f.getInode());
 
-			// Host dependency
-			Host h = APILocator.getHostAPI().find(f.getHostId(), user, false);
-			hosts.addOrClean( f.getHostId(), h.getModDate());
-			hostsSet.add(f.getHostId());
+				// Host dependency
+				Host h = APILocator.getHostAPI().find(f.getHostId(), user, false);
+				hosts.addOrClean( f.getHostId(), h.getModDate());
+				hostsSet.add(f.getHostId());
 
-			// Content dependencies
-			String luceneQuery = "+conFolder:" + f.getInode();
+				// Content dependencies
+				String luceneQuery = "+conFolder:" + f.getInode();
 
-			List<Contentlet> contentList = APILocator.getContentletAPI().search(luceneQuery, 0, 0, null, user, false);
-			for (Contentlet contentlet : contentList) {
-				contents.addOrClean( contentlet.getIdentifier(), contentlet.getModDate());
-				contentsSet.add(contentlet.getIdentifier());
-			}
+				List<Contentlet> contentList = APILocator.getContentletAPI().search(luceneQuery, 0, 0, null, user, false);
+				for (Contentlet contentlet : contentList) {
+					contents.addOrClean( contentlet.getIdentifier(), contentlet.getModDate());
+					contentsSet.add(contentlet.getIdentifier());
+				}
 
-			// Menu Link dependencies
+				// Menu Link dependencies
 
-			List<Link> linkList = APILocator.getMenuLinkAPI().findFolderMenuLinks(f);
-			for (Link link : linkList) {
-				links.addOrClean( link.getIdentifier(), link.getModDate());
-				linksSet.add(link.getIdentifier());
-			}
+				List<Link> linkList = APILocator.getMenuLinkAPI().findFolderMenuLinks(f);
+				for (Link link : linkList) {
+					links.addOrClean( link.getIdentifier(), link.getModDate());
+					linksSet.add(link.getIdentifier());
+				}
 
-			// Structure dependencies
-			List<Structure> structureList = APILocator.getFolderAPI().getStructures(f, user, false);
+				// Structure dependencies
+				List<Structure> structureList = APILocator.getFolderAPI().getStructures(f, user, false);
 
-			for (Structure structure : structureList) {
-				structures.addOrClean( structure.getInode(), structure.getModDate());
-				structuresSet.add(structure.getInode());
-			}
+				for (Structure structure : structureList) {
+					structures.addOrClean( structure.getInode(), structure.getModDate());
+					structuresSet.add(structure.getInode());
+				}
 
-            //Add the default structure of this folder
-            if ( f.getDefaultFileType() != null ) {
-                Structure defaultStructure = CacheLocator.getContentTypeCache().getStructureByInode( f.getDefaultFileType() );
-                if ( (defaultStructure != null && InodeUtils.isSet( defaultStructure.getInode() ))
-                        && !structuresSet.contains( defaultStructure.getInode() ) ) {
-                    structures.addOrClean( defaultStructure.getInode(), defaultStructure.getModDate() );
-                    structuresSet.add( defaultStructure.getInode() );
-                }
-            }
+				//Add the default structure of this folder
+				if ( f.getDefaultFileType() != null ) {
+					Structure defaultStructure = CacheLocator.getContentTypeCache().getStructureByInode( f.getDefaultFileType() );
+					if ( (defaultStructure != null && InodeUtils.isSet( defaultStructure.getInode() ))
+							&& !structuresSet.contains( defaultStructure.getInode() ) ) {
+						structures.addOrClean( defaultStructure.getInode(), defaultStructure.getModDate() );
+						structuresSet.add( defaultStructure.getInode() );
+					}
+				}
 
-            // HTML Page dependencies
-			List<HTMLPage> pages = APILocator.getFolderAPI().getHTMLPages(f, user, false);
+				// HTML Page dependencies
+				List<HTMLPage> pages = APILocator.getFolderAPI().getHTMLPages(f, user, false);
 
-			for (HTMLPage p : pages) {
-				htmlPages.addOrClean( p.getIdentifier(), p.getModDate());
-				htmlPagesSet.add(p.getIdentifier());
-			}
+				for (HTMLPage p : pages) {
+					htmlPages.addOrClean( p.getIdentifier(), p.getModDate());
+					htmlPagesSet.add(p.getIdentifier());
+				}
 
-			setFolderListDependencies(APILocator.getFolderAPI().findSubFolders(f, user, false));
+				subFolders.addAll(APILocator.getFolderAPI().findSubFolders(f, user, false));
+			});
+			level = subFolders;
 		}
 
 	}
@@ -585,12 +637,10 @@ public class DependencyManager {
 
 			Set<String> idsToWork = new HashSet<>();
 			idsToWork.addAll(htmlPagesSet);
-			for (String contId : contentsSet) {
+			for (Contentlet c : searchByIdentifiers(contentsSet)) {
 
-				List<Contentlet> c = APILocator.getContentletAPI().search("+identifier:" + contId, 0, 0, "moddate", user, false);
-
-				if (c != null && !c.isEmpty() && c.get(0).getStructure().getStructureType() == Structure.STRUCTURE_TYPE_HTMLPAGE) {
-					idsToWork.add(contId);
+				if (c.getStructure().getStructureType() == Structure.STRUCTURE_TYPE_HTMLPAGE) {
+					idsToWork.add(c.getIdentifier());
 				}
 			}
 
@@ -622,11 +672,10 @@ public class DependencyManager {
 
 		try {
 
-			IdentifierAPI idenAPI = APILocator.getIdentifierAPI();
-			FolderAPI folderAPI = APILocator.getFolderAPI();
-			List<Container> containerList = new ArrayList<Container>();
+			final IdentifierAPI idenAPI = APILocator.getIdentifierAPI();
+			final FolderAPI folderAPI = APILocator.getFolderAPI();
 
-			for (String pageId : idsToWork) {
+			resolve(idsToWork, pageId -> {
 				Identifier iden = idenAPI.find(pageId);
 
 				// Host dependency
@@ -700,7 +749,7 @@ public class DependencyManager {
 				}
 
 				// Containers dependencies
-				containerList.clear();
+				List<Container> containerList = new ArrayList<Container>();
 
 				if(workingTemplateWP!=null && InodeUtils.isSet(workingTemplateWP.getInode()))
 					containerList.addAll(APILocator.getTemplateAPI().getContainersInTemplate(workingTemplateWP, user, false));
@@ -741,7 +790,7 @@ public class DependencyManager {
 					this.rules.add(rule.getId());
 					this.ruleSet.add(rule.getId());
 				}
-			}
+			});
 		} catch (DotSecurityException e) {
 			Logger.error(this, e.getMessage(),e);
 		} catch (DotDataException e) {
@@ -758,10 +807,9 @@ public class DependencyManager {
 	 */
 	private void setTemplateDependencies() {
 		try {
-			List<Container> containerList = new ArrayList<Container>();
-			FolderAPI folderAPI = APILocator.getFolderAPI();
+			final FolderAPI folderAPI = APILocator.getFolderAPI();
 			
-			for (String id : templatesSet) {
+			resolve(templatesSet, id -> {
 				Template wkT = APILocator.getTemplateAPI().findWorkingTemplate(id, user, false);
 				Template lvT = APILocator.getTemplateAPI().findLiveTemplate(id, user, false);
 
@@ -769,7 +817,7 @@ public class DependencyManager {
 				Host h = APILocator.getHostAPI().find(APILocator.getTemplateAPI().getTemplateHost(wkT).getIdentifier(), user, false);
 				hosts.addOrClean( APILocator.getTemplateAPI().getTemplateHost( wkT ).getIdentifier(), h.getModDate());
 
-				containerList.clear();
+				List<Container> containerList = new ArrayList<Container>();
 				containerList.addAll(APILocator.getTemplateAPI().getContainersInTemplate(wkT, user, false));
 
 				if(lvT!=null && InodeUtils.isSet(lvT.getInode())) {
@@ -800,7 +848,7 @@ public class DependencyManager {
 						Logger.error(DependencyManager.class, "Error trying to add theme folder for template Id: "+id+". Theme folder ignored because: "+e1.getMessage(),e1);
 					}
 				}				
-			}
+			});
 
 		} catch (DotSecurityException e) {
 
@@ -823,16 +871,14 @@ public class DependencyManager {
 
 		try {
 
-			List<Container> containerList = new ArrayList<Container>();
-
-			for (String id : containersSet) {
+			resolve(containersSet, id -> {
 				Container c = APILocator.getContainerAPI().getWorkingContainerById(id, user, false);
 
 				// Host Dependency
 				Host h = APILocator.getContainerAPI().getParentHost(c, user, false);
 				hosts.addOrClean( APILocator.getContainerAPI().getParentHost( c, user, false ).getIdentifier(), h.getModDate());
 
-				containerList.clear();
+				List<Container> containerList = new ArrayList<Container>();
 
                 Container workingContainer = (Container) APILocator.getVersionableAPI().findWorkingVersion(id, user, false);
                 if ( workingContainer != null ) {
@@ -855,7 +901,7 @@ public class DependencyManager {
 					}
 				}
 
-			}
+			});
 
 		} catch (DotSecurityException e) {
 
@@ -879,9 +925,7 @@ public class DependencyManager {
 
 			  Set<String> s = new HashSet<String>();
 			  s.addAll(structuresSet);
-			  for (String inode : s) {
-			    structureDependencyHelper(inode);
-			  }
+			  resolve(s, inode -> structureDependencyHelper(inode));
 
 		} catch (DotDataException e) {
 			Logger.error(this, e.getMessage(),e);
@@ -941,12 +985,12 @@ public class DependencyManager {
 	 * @throws DotSecurityException
 	 */
 	private void processList(Set<Contentlet> cons) throws DotDataException, DotSecurityException {
-		Set<Contentlet> contentsToProcess = new HashSet<Contentlet>();
-		Set<Contentlet> contentsWithDependenciesToProcess = new HashSet<Contentlet>();
+		final Set<Contentlet> contentsToProcess = Collections.synchronizedSet(new HashSet<Contentlet>());
+		final Set<Contentlet> contentsWithDependenciesToProcess = Collections.synchronizedSet(new HashSet<Contentlet>());
 
 		//Getting all related content
 
-		for (Contentlet con : cons) {
+		resolve(cons, con -> {
 			Host h = APILocator.getHostAPI().find(con.getHost(), user, false);
         	hosts.addOrClean( con.getHost(), h.getModDate()); // add the host dependency
 			contentsToProcess.add(con);
@@ -965,9 +1009,9 @@ public class DependencyManager {
 				if(contentRel.get(rel).size()>0)
                 	 relationships.addOrClean( rel.getInode(), rel.getModDate());
 			}
-		}
+		});
 
-		for (Contentlet con : contentsToProcess) {
+		resolve(contentsToProcess, con -> {
 			Host h = APILocator.getHostAPI().find(con.getHost(), user, false);
         	hosts.addOrClean( con.getHost(), h.getModDate()); // add the host dependency
 			contentsWithDependenciesToProcess.add(con);
@@ -996,10 +1040,10 @@ public class DependencyManager {
 				}
 
 			}
-		}
+		});
 
 		// Adding the Contents (including related) and adding filesAsContent
-		for (Contentlet con : contentsWithDependenciesToProcess) {
+		resolve(contentsWithDependenciesToProcess, con -> {
 			Host h = APILocator.getHostAPI().find(con.getHost(), user, false);
         	hosts.addOrClean( con.getHost(), h.getModDate()); // add the host dependency
         	contents.addOrClean( con.getIdentifier(), con.getModDate()); // adding the content (including related)
@@ -1049,7 +1093,7 @@ public class DependencyManager {
             	structures.addOrClean( con.getStructureInode(), struct.getModDate());
             	structureDependencyHelper(con.getStructureInode());
             }
-        }
+        });
 
 	}
 
@@ -1071,9 +1115,7 @@ public class DependencyManager {
 
 			Set<Contentlet> allContents = new HashSet<Contentlet>(); // we will put here those already added and the ones from lucene queries
 
-			for(String id : cons){
-            	allContents.addAll(APILocator.getContentletAPI().search("+identifier:"+id, 0, 0, "moddate", user, false));
-            }
+			allContents.addAll(searchByIdentifiers(cons));
 
 			processList(allContents);
 
@@ -1129,4 +1171,125 @@ public class DependencyManager {
 		}
 	}
 
+	/**
+	 * Resolves the dependencies of a single asset.
+	 */
+	private interface DependencyResolver<T> {
+		void resolve(T asset) throws DotDataException, DotSecurityException;
+	}
+
+	/**
+	 * Resolves the dependencies of the given assets on the workers, if there
+	 * are, waiting for all of them to finish. The assets found while resolving
+	 * the ones of a worker are resolved by the same worker.
+	 * 
+	 * @param assets
+	 *            - The assets to resolve.
+	 * @param resolver
+	 *            - Resolves the dependencies of an asset.
+	 * @throws DotDataException
+	 *             The first error found resolving the assets, once all of
+	 *             them have been resolved.
+	 * @throws DotSecurityException
+	 */
+	private <T> void resolve(Collection<T> assets, final DependencyResolver<T> resolver) throws DotDataException, DotSecurityException {
+		if (workers == null || assets.size() < 2 || Boolean.TRUE.equals(isWorker.get())) {
+			for (T asset : assets) {
+				resolver.resolve(asset);
+			}
+			return;
+		}
+
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (final T asset : new ArrayList<T>(assets)) {
+			futures.add(workers.submit(() -> {
+				isWorker.set(Boolean.TRUE);
+				try {
+					resolver.resolve(asset);
+				} finally {
+					isWorker.remove();
+					HibernateUtil.closeSession();
+					DbConnectionFactory.closeConnection();
+				}
+				return null;
+			}));
+		}
+
+		Throwable error = null;
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = e.getCause();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DotDataException("Interrupted while resolving the dependencies of bundle " + config.getId(), e);
+			}
+		}
+		if (error instanceof DotDataException) {
+			throw (DotDataException) error;
+		} else if (error instanceof DotSecurityException) {
+			throw (DotSecurityException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			throw new DotDataException(error.getMessage(), (Exception) error);
+		}
+	}
+
+	/**
+	 * Returns all the versions of the contentlets with the given identifiers,
+	 * looked up with a query for every PUSH_PUBLISHING_DEPENDENCY_BATCH_SIZE
+	 * identifiers instead of one query per identifier.
+	 * 
+	 * @param identifiers
+	 * @return
+	 * @throws DotDataException
+	 * @throws DotSecurityException
+	 */
+	private List<Contentlet> searchByIdentifiers(Collection<String> identifiers) throws DotDataException, DotSecurityException {
+		final int batchSize = Math.max(1, Config.getIntProperty("PUSH_PUBLISHING_DEPENDENCY_BATCH_SIZE", 200));
+		final List<String> queries = new ArrayList<String>();
+		StringBuilder query = new StringBuilder();
+		int ids = 0;
+		for (String identifier : identifiers) {
+			if (!UtilMethods.isSet(identifier)) {
+				continue;
+			}
+			query.append(ids == 0 ? "+identifier:(" : " ").append(identifier);
+			if (++ids == batchSize) {
+				queries.add(query.append(')').toString());
+				query = new StringBuilder();
+				ids = 0;
+			}
+		}
+		if (ids > 0) {
+			queries.add(query.append(')').toString());
+		}
+
+		final List<Contentlet> contentlets = Collections.synchronizedList(new ArrayList<Contentlet>());
+		resolve(queries, batchQuery -> contentlets.addAll(APILocator.getContentletAPI().search(batchQuery, 0, 0, "moddate", user, false)));
+		return contentlets;
+	}
+
+	/**
+	 * Adds the time spent since the given start resolving an asset type to the
+	 * timings of the bundle.
+	 * 
+	 * @return The start of the next asset type.
+	 */
+	private long timing(StringBuilder timings, String assetType, int assets, long start) {
+		final long now = System.nanoTime();
+		timings.append(", ").append(assetType).append(": ").append((now - start) / 1000000).append(" ms (").append(assets).append(")");
+		return now;
+	}
+
+	private static Set<String> concurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	}
+
 }
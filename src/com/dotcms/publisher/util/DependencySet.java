@@ -18,12 +18,23 @@ import com.dotmarketing.portlets.languagesmanager.model.Language;
 import com.dotmarketing.util.InodeUtils;
 import com.dotmarketing.util.Logger;
 
+/**
+ * The assets of a type to be included in a bundle. The set can be filled by the concurrent workers of the
+ * {@link DependencyManager}: the checks of the same asset are done one at a time, and the ones of different
+ * assets in parallel.
+ */
 public class DependencySet extends HashSet<String> {
 
 	/**
 	 *
 	 */
 	private static final long serialVersionUID = 3048299770146564147L;
+	private static final Object[] ASSET_LOCKS = new Object[64];
+	static {
+		for (int i = 0; i < ASSET_LOCKS.length; i++) {
+			ASSET_LOCKS[i] = new Object();
+		}
+	}
 	private PushedAssetsCache cache;
 	private List<Environment> envs = new ArrayList<Environment>();
 	private String assetType;
@@ -70,7 +81,23 @@ public class DependencySet extends HashSet<String> {
         return addOrClean( assetId, assetModDate, true );
     }
 
+    @Override
+    public synchronized boolean add ( String assetId ) {
+        return super.add( assetId );
+    }
+
+    @Override
+    public synchronized boolean contains ( Object assetId ) {
+        return super.contains( assetId );
+    }
+
     private boolean addOrClean ( String assetId, Date assetModDate, Boolean cleanForUnpublish ) {
+        synchronized ( ASSET_LOCKS[(assetId == null ? 0 : assetId.hashCode() & 0x7fffffff) % ASSET_LOCKS.length] ) {
+            return addOrCleanAsset( assetId, assetModDate, cleanForUnpublish );
+        }
+    }
+
+    private boolean addOrCleanAsset ( String assetId, Date assetModDate, Boolean cleanForUnpublish ) {
 
         if ( !isPublish ) {
 
@@ -86,7 +113,7 @@ public class DependencySet extends HashSet<String> {
         }
 
 		// check if it was already added to the set
-		if(super.contains(assetId)) {
+		if(contains(assetId)) {
 			return true;
 		}
 
@@ -153,7 +180,7 @@ public class DependencySet extends HashSet<String> {
 		}
 
         if ( isForcePush || isDownload || !isPublish || modifiedOnAtLeastOneEnv ) {
-            super.add( assetId );
+            add( assetId );
             return true;
         }
 
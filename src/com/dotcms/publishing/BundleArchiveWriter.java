@@ -0,0 +1,155 @@
+package com.dotcms.publishing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.dotcms.repackage.org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import com.dotcms.repackage.org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+
+/**
+ * Writes a bundle straight into its tar.gz file, compressed by a
+ * {@link ParallelGZIPOutputStream}. Objects are serialized to XML directly into
+ * their archive entries, so a bundle written this way needs no staging folder,
+ * and the files of an existing bundle folder can be added the same way
+ * {@link com.dotcms.publisher.pusher.PushUtils#compressFiles} always did.
+ * <p>
+ * Usage:
+ * </p>
+ *
+ * <pre>
+ * BundleArchiveWriter writer = new BundleArchiveWriter(new File(bundlesPath, bundleId + &quot;.tar.gz&quot;));
+ * try {
+ * 	writer.addObject(&quot;live/demo.dotcms.com/1/index.content.xml&quot;, wrapper);
+ * 	writer.addObject(&quot;bundle.xml&quot;, config);
+ * } finally {
+ * 	writer.close();
+ * }
+ * </pre>
+ */
+public class BundleArchiveWriter implements Closeable {
+
+	private final TarArchiveOutputStream tar;
+	private final ByteArrayOutputStream entryBuffer = new ByteArrayOutputStream(16 * 1024);
+	private int entries = 0;
+
+	/**
+	 * @param output
+	 *            - The tar.gz file to write.
+	 * @throws IOException
+	 */
+	public BundleArchiveWriter(File output) throws IOException {
+		tar = new TarArchiveOutputStream(new ParallelGZIPOutputStream(new BufferedOutputStream(new FileOutputStream(output), 64 * 1024)));
+		// TAR originally didn't support long file names, so enable the support for it
+		tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+	}
+
+	/**
+	 * Serializes the object to XML, the same as
+	 * {@link BundlerUtil#objectToXML(Object, File)}, into a new entry of the
+	 * archive.
+	 *
+	 * @param path
+	 *            - The path of the entry, relative to the bundle root.
+	 * @param obj
+	 *            - The object to serialize.
+	 * @throws IOException
+	 */
+	public void addObject(String path, Object obj) throws IOException {
+		// a tar entry needs its size before its content
+		entryBuffer.reset();
+		BundlerUtil.objectToXML(obj, entryBuffer);
+		TarArchiveEntry entry = new TarArchiveEntry(path);
+		entry.setSize(entryBuffer.size());
+		tar.putArchiveEntry(entry);
+		entryBuffer.writeTo(tar);
+		tar.closeArchiveEntry();
+		entries++;
+	}
+
+	/**
+	 * Adds a file into a new entry of the archive.
+	 *
+	 * @param path
+	 *            - The path of the entry, relative to the bundle root.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void addFile(String path, File file) throws IOException {
+		tar.putArchiveEntry(new TarArchiveEntry(file, path));
+		copy(file);
+		tar.closeArchiveEntry();
+		entries++;
+	}
+
+	/**
+	 * Adds a file or a folder with all its files, the way the bundle folders
+	 * have always been compressed: the given file goes under
+	 * <code>./</code>, and the files under a folder keep their path relative
+	 * to the bundle root.
+	 *
+	 * @param file
+	 *            - The file or folder to add.
+	 * @param bundleRoot
+	 *            - The absolute path of the bundle root.
+	 * @throws IOException
+	 */
+	public void addFiles(File file, String bundleRoot) throws IOException {
+		addFiles(file, ".", bundleRoot);
+	}
+
+	private void addFiles(File file, String dir, String bundleRoot) throws IOException {
+		if (file.isHidden()) {
+			return;
+		}
+		if (!dir.equals(".") && File.separator.equals("\\")) {
+			dir = dir.replaceAll("\\\\", "/");
+		}
+		tar.putArchiveEntry(new TarArchiveEntry(file, dir + "/" + file.getName()));
+		if (file.isFile()) {
+			copy(file);
+		}
+		tar.closeArchiveEntry();
+		entries++;
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				for (File childFile : children) {
+					addFiles(childFile, file.getPath().substring(bundleRoot.length()), bundleRoot);
+				}
+			}
+		}
+	}
+
+	private void copy(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+		try {
+			IOUtils.copy(in, tar);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the number of entries written so far.
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	/**
+	 * Finishes the archive and its compression.
+	 */
+	@Override
+	public void close() throws IOException {
+		tar.close();
+	}
+
+}
@@ -1,12 +1,15 @@
 package com.dotcms.publishing;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -31,6 +34,12 @@ import com.dotcms.repackage.com.thoughtworks.xstream.io.xml.DomDriver;
 
 public class BundlerUtil {
 
+	/**
+	 * XStream instances are thread safe once configured, and expensive to
+	 * create, so all the bundles are (de)serialized by the same one
+	 */
+	private static final XStream xstream = new XStream(new DomDriver("UTF-8"));
+
 	/**
 	 * does bundle exist
 	 * @param config
@@ -118,8 +127,6 @@ public class BundlerUtil {
         if ( removeFirst && f.exists() )
             f.delete();
 
-        XStream xstream = new XStream( new DomDriver("UTF-8") );
-
         try {
             if ( !f.exists() ){
                 //Lets create the folders if necessary to avoid "No such file or directory" error.
@@ -130,10 +137,12 @@ public class BundlerUtil {
             	f.createNewFile();
             }	
             
-            OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream( f ), "UTF-8");
-            HierarchicalStreamWriter xmlWriter = new DotPrettyPrintWriter(writer);
-            xstream.marshal(obj, xmlWriter);
-            writer.close();
+            OutputStream out = new BufferedOutputStream(new FileOutputStream( f ), 16 * 1024);
+            try {
+                objectToXML( obj, out );
+            } finally {
+                out.close();
+            }
 
         } catch ( FileNotFoundException e ) {
             Logger.error( PublisherUtil.class, e.getMessage(), e );
@@ -142,6 +151,20 @@ public class BundlerUtil {
         }
     }
 
+    /**
+     * Serialize a given object to xml, without closing the stream
+     *
+     * @param obj Object to serialize
+     * @param out Stream to write to
+     * @throws IOException
+     */
+    public static void objectToXML ( Object obj, OutputStream out ) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter( out, "UTF-8" );
+        HierarchicalStreamWriter xmlWriter = new DotPrettyPrintWriter( writer );
+        xstream.marshal( obj, xmlWriter );
+        xmlWriter.flush();
+    }
+
 
     /**
      * Deserialize an object back from XML
@@ -150,12 +173,10 @@ public class BundlerUtil {
      * @return A deserialized object
      */
     public static Object xmlToObject(File f){
-    	XStream xstream = new XStream(new DomDriver("UTF-8"));
-
     	BufferedInputStream input = null;
 		try {
 			input = new BufferedInputStream(new FileInputStream(f));
-			Object ret = xstream.fromXML(input);
+			Object ret = xmlToObject(input);
 			return ret;
 		} catch (FileNotFoundException e) {
 			Logger.error(BundlerUtil.class,e.getMessage(),e);
@@ -171,6 +192,16 @@ public class BundlerUtil {
 
 	}
     
+    /**
+     * Deserialize an object back from XML, without closing the stream
+     *
+     * @param input stream to deserialize
+     * @return A deserialized object
+     */
+    public static Object xmlToObject(InputStream input){
+    	return xstream.fromXML(input);
+    }
+
     public static void publisherConfigToLuceneQuery(StringBuilder bob, PublisherConfig config) {
         
         if(config.getExcludePatterns() != null && config.getExcludePatterns().size()>0){
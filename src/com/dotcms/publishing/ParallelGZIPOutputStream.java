@@ -0,0 +1,237 @@
+package com.dotcms.publishing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.dotmarketing.util.Config;
+
+/**
+ * Writes a GZIP stream compressing blocks of the data in parallel, the same way
+ * pigz does: every block is deflated on its own, using the last 32K of the
+ * previous block as dictionary, and the blocks are written in order as a single
+ * deflate stream. The result is a regular GZIP file that any GZIP reader
+ * (including {@link java.util.zip.GZIPInputStream}) can read.
+ * <p>
+ * The blocks are compressed by a shared pool of
+ * PUSH_PUBLISHING_COMPRESSION_THREADS threads (the number of processors by
+ * default), and only a few blocks per thread are kept in memory.
+ * </p>
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final int GZIP_MAGIC = 0x8b1f;
+
+	private static final int THREADS = Math.max(1,
+			Config.getIntProperty("PUSH_PUBLISHING_COMPRESSION_THREADS", Runtime.getRuntime().availableProcessors()));
+	private static final ExecutorService compressors = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ParallelGZIPCompressor-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final int level;
+	private final int maxPending;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+	private final CRC32 crc = new CRC32();
+	private byte[] block;
+	private int blockLength = 0;
+	private byte[] dictionary = null;
+	private long totalIn = 0;
+	private boolean finished = false;
+
+	/**
+	 * Creates a stream compressing blocks of
+	 * PUSH_PUBLISHING_COMPRESSION_BLOCK_SIZE bytes (128K by default).
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+		this(out, Config.getIntProperty("PUSH_PUBLISHING_COMPRESSION_BLOCK_SIZE", 128 * 1024), Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param out
+	 * @param blockSize
+	 *            - The size of the blocks compressed in parallel, at least
+	 *            32K.
+	 * @param level
+	 *            - The {@link Deflater} compression level.
+	 * @throws IOException
+	 */
+	public ParallelGZIPOutputStream(OutputStream out, int blockSize, int level) throws IOException {
+		super(out);
+		this.block = new byte[Math.max(blockSize, DICTIONARY_SIZE)];
+		this.level = level;
+		this.maxPending = THREADS * 2;
+		writeHeader();
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		block[blockLength++] = (byte) b;
+		if (blockLength == block.length) {
+			submitBlock(false);
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			int count = Math.min(len, block.length - blockLength);
+			System.arraycopy(b, off, block, blockLength, count);
+			blockLength += count;
+			off += count;
+			len -= count;
+			if (blockLength == block.length) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * Writes the blocks already compressed. A block is only compressed once it
+	 * is full, or when the stream is finished.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+			writeBlock();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Compresses the rest of the data and writes the GZIP trailer, without
+	 * closing the underlying stream.
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		submitBlock(true);
+		while (!pending.isEmpty()) {
+			writeBlock();
+		}
+		writeInt((int) crc.getValue());
+		writeInt((int) totalIn);
+		finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void submitBlock(boolean last) throws IOException {
+		final byte[] data = new byte[blockLength];
+		System.arraycopy(block, 0, data, 0, blockLength);
+		crc.update(data);
+		totalIn += blockLength;
+		blockLength = 0;
+
+		pending.addLast(compressors.submit(new BlockCompressor(data, dictionary, last, level)));
+		if (data.length >= DICTIONARY_SIZE) {
+			dictionary = new byte[DICTIONARY_SIZE];
+			System.arraycopy(data, data.length - DICTIONARY_SIZE, dictionary, 0, DICTIONARY_SIZE);
+		}
+
+		// keeps the compressed blocks waiting to be written under control
+		while (pending.size() >= maxPending) {
+			writeBlock();
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		try {
+			out.write(pending.removeFirst().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Error compressing: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		out.write(new byte[] { (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff });
+	}
+
+	private void writeInt(int i) throws IOException {
+		out.write(i & 0xff);
+		out.write((i >> 8) & 0xff);
+		out.write((i >> 16) & 0xff);
+		out.write((i >> 24) & 0xff);
+	}
+
+	/**
+	 * Deflates a block, ending it on a byte boundary so the next block can be
+	 * appended to it, or with the final deflate block if it is the last one.
+	 */
+	private static class BlockCompressor implements Callable<byte[]> {
+
+		private final byte[] data;
+		private final byte[] dictionary;
+		private final boolean last;
+		private final int level;
+
+		private BlockCompressor(byte[] data, byte[] dictionary, boolean last, int level) {
+			this.data = data;
+			this.dictionary = dictionary;
+			this.last = last;
+			this.level = level;
+		}
+
+		@Override
+		public byte[] call() {
+			Deflater deflater = new Deflater(level, true);
+			try {
+				if (dictionary != null) {
+					deflater.setDictionary(dictionary);
+				}
+				deflater.setInput(data);
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+				byte[] buffer = new byte[64 * 1024];
+				if (last) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						compressed.write(buffer, 0, deflater.deflate(buffer));
+					}
+				} else {
+					int count;
+					do {
+						count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+						compressed.write(buffer, 0, count);
+					} while (count == buffer.length);
+				}
+				return compressed.toByteArray();
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+}
@@ -169,8 +169,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getSubdivisionIsoCode(String ipAddress)
 			throws UnknownHostException, IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		CityResponse city = getCityResponse(ipAddress);
 		Subdivision subdivision = city.getMostSpecificSubdivision();
 		return subdivision.getIsoCode();
 	}
@@ -193,8 +192,17 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getCountryIsoCode(String ipAddress)
 			throws UnknownHostException, IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		return getCountryIsoCode(getCityResponse(ipAddress));
+	}
+
+	/**
+	 * Returns the ISO code of the country of a GeoIP2 City Database response.
+	 * 
+	 * @param city
+	 *            - The response, see {@link #getCityResponse(String)}.
+	 * @return The ISO code representing the country.
+	 */
+	public String getCountryIsoCode(CityResponse city) {
 		Country country = city.getCountry();
 		return country.getIsoCode();
 	}
@@ -209,12 +217,44 @@ public class GeoIp2CityDbUtil {
      */
 	public Location getLocationByIp(String ipAddress)
 			throws IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		return getLocation(getCityResponse(ipAddress));
+	}
+
+	/**
+	 * Returns the {@code Location} of a GeoIP2 City Database response.
+	 * 
+	 * @param city
+	 *            - The response, see {@link #getCityResponse(String)}.
+	 * @return The location.
+	 */
+	public Location getLocation(CityResponse city) {
 		com.dotcms.repackage.com.maxmind.geoip2.record.Location location = city.getLocation();
 		return new Location(location.getLatitude(), location.getLongitude());
 	}
 
+	/**
+	 * Returns all the information the GeoIP2 City Database has about the
+	 * specified IP address. Every other method of this class reads one of the
+	 * values of this response, so a caller that needs several of them can look
+	 * the address up only once.
+	 * 
+	 * @param ipAddress
+	 *            - The IP address to get information from.
+	 * @return The GeoIP2 City Database response.
+	 * @throws UnknownHostException
+	 *             If the IP address of a host could not be determined.
+	 * @throws IOException
+	 *             If the connection to the GeoIP2 service could not be
+	 *             established, or the result object could not be created.
+	 * @throws GeoIp2Exception
+	 *             If the IP address is not present in the service database.
+	 */
+	public CityResponse getCityResponse(String ipAddress) throws UnknownHostException,
+			IOException, GeoIp2Exception {
+		InetAddress inetAddress = InetAddress.getByName(ipAddress);
+		return getDatabaseReader().city(inetAddress);
+	}
+
 	/**
 	 * Returns the name of the city the specified IP address belongs to.
 	 * 
@@ -231,8 +271,7 @@ public class GeoIp2CityDbUtil {
 	 */
 	public String getCityName(String ipAddress) throws UnknownHostException,
 			IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse cityResponse = getDatabaseReader().city(inetAddress);
+		CityResponse cityResponse = getCityResponse(ipAddress);
 		City city = cityResponse.getCity();
 		return city.getName();
 	}
@@ -255,8 +294,17 @@ public class GeoIp2CityDbUtil {
 	 */
 	public TimeZone getTimeZone(String ipAddress) throws UnknownHostException,
 			IOException, GeoIp2Exception {
-		InetAddress inetAddress = InetAddress.getByName(ipAddress);
-		CityResponse city = getDatabaseReader().city(inetAddress);
+		return getTimeZone(getCityResponse(ipAddress));
+	}
+
+	/**
+	 * Returns the {@link TimeZone} of a GeoIP2 City Database response.
+	 * 
+	 * @param city
+	 *            - The response, see {@link #getCityResponse(String)}.
+	 * @return The associated {@link TimeZone} object.
+	 */
+	public TimeZone getTimeZone(CityResponse city) {
 		String zone = city.getLocation().getTimeZone();
 		return TimeZone.getTimeZone(zone);
 	}
@@ -279,7 +327,17 @@ public class GeoIp2CityDbUtil {
 	 */
 	public Calendar getDateTime(String ipAddress) throws UnknownHostException,
 			IOException, GeoIp2Exception {
-		TimeZone timeZone = getTimeZone(ipAddress);
+		return getDateTime(getTimeZone(ipAddress));
+	}
+
+	/**
+	 * Returns the current {@link Date} in the specified time zone.
+	 * 
+	 * @param timeZone
+	 *            - The time zone the user is in.
+	 * @return The client's current {@link Date}.
+	 */
+	public Calendar getDateTime(TimeZone timeZone) {
 		Calendar calendar = Calendar.getInstance(timeZone);
 		int year = calendar.get(Calendar.YEAR);
 		int month = calendar.get(Calendar.MONTH);
@@ -261,7 +261,8 @@ public class XMLSitemapJob implements Job, StatefulJob {
 					String hostQuery = "+(conhost:" + host.getIdentifier() + " conhost:SYSTEM_HOST)";
 					String query = hostQuery + " +structureName:" + st.getVelocityVarName() + " +deleted:false +live:true";
 
-					List<Contentlet> hits = conAPI.search( query, -1, 0, "", systemUser, true );
+					//Read in batches, the contentlets of the structure are not all held in memory
+					Iterable<Contentlet> hits = conAPI.scroll( query, Config.getIntProperty( "org.dotcms.XMLSitemap.BATCH_SIZE", 500 ), systemUser, true );
 					String structureURLMap = st.getUrlMapPattern();
 
 					List<RegExMatch> matches = null;
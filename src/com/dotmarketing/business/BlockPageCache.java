@@ -116,4 +116,28 @@ public abstract class BlockPageCache implements Cachable {
 	 */
 	abstract public void remove(IHTMLPage page);
 
+	/**
+	 * Returns the number of lookups that found a valid cached version of a
+	 * page.
+	 * 
+	 * @return The number of cache hits.
+	 */
+	abstract public long getHitCount();
+
+	/**
+	 * Returns the number of lookups that did not find a valid cached version
+	 * of a page.
+	 * 
+	 * @return The number of cache misses.
+	 */
+	abstract public long getMissCount();
+
+	/**
+	 * Returns the number of times two or more threads raced to add the first
+	 * version of the same page.
+	 * 
+	 * @return The number of contended additions.
+	 */
+	abstract public long getContentionCount();
+
 }
@@ -1,9 +1,8 @@
 package com.dotmarketing.business;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.enterprise.LicenseUtil;
 import com.dotmarketing.portlets.htmlpageasset.model.IHTMLPage;
@@ -32,6 +31,11 @@ import com.dotmarketing.util.Logger;
  * 		</ul>
  *  </li>
  * </ul>
+ * The versions of a page are kept in a {@link ConcurrentMap} indexed by the
+ * subkey, so reads never take a lock. Creating the variant map for a new main
+ * key is guarded by a small array of striped locks, which means that only
+ * threads adding the very first version of the same page can ever wait for
+ * each other.
  * 
  * @author Jose Castro
  * @version 1.0
@@ -40,16 +44,26 @@ import com.dotmarketing.util.Logger;
  */
 public class BlockPageCacheImpl extends BlockPageCache {
 
+	private static final int LOCK_STRIPES = 64;
+
 	private boolean canCache = false;
 	private DotCacheAdministrator cache = null;
 	private static String primaryCacheGroup = "BlockDirectiveHTMLPageCache";
 
+	private final Object[] locks = new Object[LOCK_STRIPES];
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong contentions = new AtomicLong();
+
 	/**
 	 * Default constructor. Initializes the internal caching structures.
 	 */
 	public BlockPageCacheImpl() {
 		this.cache = CacheLocator.getCacheAdministrator();
 		this.canCache = LicenseUtil.getLevel() > 99;
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			this.locks[i] = new Object();
+		}
 	}
 
 	@Override
@@ -71,103 +85,129 @@ public class BlockPageCacheImpl extends BlockPageCache {
 	@Override
 	public void add(IHTMLPage page, String value,
 			PageCacheParameters pageChacheParams) {
-		if (page == null || pageChacheParams == null
-				|| pageChacheParams == null) {
+		if (page == null || pageChacheParams == null) {
 			return;
 		}
-		StringBuilder key = new StringBuilder();
-		key.append(page.getInode());
-		key.append("_" + page.getModDate().getTime());
+		String key = getKey(page);
 		String subkey = pageChacheParams.getKey();
 		BlockDirectiveCacheObject cto = new BlockDirectiveCacheObject(value,
 				(int) page.getCacheTTL());
-		synchronized (cache) {
-			try {
-				// Lookup the cached versions of a page
-				List<Map<String, Object>> cachedPages = (List<Map<String, Object>>) this.cache
-						.get(key.toString(), primaryCacheGroup);
-				if (cachedPages != null) {
-					boolean updatedEntry = false;
-					// Update version of page based on userid, language and
-					// urlmap
-					for (Map<String, Object> pageInfo : cachedPages) {
-						if (pageInfo.containsKey(subkey)) {
-							pageInfo.put(subkey, cto);
-							updatedEntry = true;
-							break;
-						}
-					}
-					// Or add a new one
-					if (!updatedEntry) {
-						Map<String, Object> pageInfo = new HashMap<String, Object>();
-						pageInfo.put(subkey, cto);
-						cachedPages.add(pageInfo);
-					}
+		ConcurrentMap<String, BlockDirectiveCacheObject> versions = lookup(key);
+		if (versions == null) {
+			synchronized (lockFor(key)) {
+				// Another thread may have created the versions of this page
+				// while we were waiting for the lock
+				versions = lookup(key);
+				if (versions == null) {
+					versions = new ConcurrentHashMap<String, BlockDirectiveCacheObject>();
+					versions.put(subkey, cto);
+					this.cache.put(key, versions, primaryCacheGroup);
+					return;
 				}
-			} catch (DotCacheException e) {
-				// Key does not exist in cache, then add it
+				contentions.incrementAndGet();
 			}
-			List<Map<String, Object>> versions = new ArrayList<Map<String, Object>>();
-			Map<String, Object> pageInfo = new HashMap<String, Object>();
-			pageInfo.put(subkey, cto);
-			versions.add(pageInfo);
-			this.cache.put(key.toString(), versions, primaryCacheGroup);
 		}
+		// Add or update the version of page based on userid, language and
+		// urlmap
+		versions.put(subkey, cto);
 	}
 
 	@Override
 	public String get(IHTMLPage page, PageCacheParameters pageChacheParams) {
-		if (!canCache || page == null || pageChacheParams == null
-				|| pageChacheParams == null) {
+		if (!canCache || page == null || pageChacheParams == null) {
 			return null;
 		}
-		StringBuilder key = new StringBuilder();
-		key.append(page.getInode());
-		key.append("_" + page.getModDate().getTime());
+		String key = getKey(page);
 		String subkey = pageChacheParams.getKey();
-		synchronized (cache) {
-			// Lookup the cached versions of the page based on inode and moddate
-			try {
-				List<Map<String, Object>> cachedPages = (List<Map<String, Object>>) this.cache
-						.get(key.toString(), primaryCacheGroup);
-				BlockDirectiveCacheObject cto = null;
-				if (cachedPages != null) {
-					for (Map<String, Object> pageInfo : cachedPages) {
-						// Lookup specific page with userid, language and urlmap
-						if (pageInfo.containsKey(subkey)) {
-							cto = (BlockDirectiveCacheObject) pageInfo
-									.get(subkey);
-							break;
-						}
-					}
-					if (cto != null
-							&& cto.getCreated()
-									+ ((int) page.getCacheTTL() * 1000) > System
-										.currentTimeMillis()) {
-						return cto.getValue();
-					} else {
-						// Remove page from cache if expired and get new version
-						remove(page);
-					}
+		// Lookup the cached versions of the page based on inode and moddate
+		ConcurrentMap<String, BlockDirectiveCacheObject> versions = lookup(key);
+		if (versions != null) {
+			// Lookup specific page with userid, language and urlmap
+			BlockDirectiveCacheObject cto = versions.get(subkey);
+			if (cto != null) {
+				if (cto.getCreated() + ((int) page.getCacheTTL() * 1000) > System
+						.currentTimeMillis()) {
+					hits.incrementAndGet();
+					return cto.getValue();
 				}
-			} catch (DotCacheException e) {
-				Logger.error(this.getClass(), "cache entry :" + key.toString()
-						+ " not found");
+				// Remove the expired version so a new one gets generated
+				versions.remove(subkey, cto);
 			}
 		}
+		misses.incrementAndGet();
 		return null;
 	}
 
 	@Override
 	public void remove(IHTMLPage page) {
 		try {
-			StringBuilder key = new StringBuilder();
-			key.append(page.getInode());
-			key.append("_" + page.getModDate().getTime());
-			this.cache.remove(key.toString(), primaryCacheGroup);
+			this.cache.remove(getKey(page), primaryCacheGroup);
 		} catch (Exception e) {
 			Logger.debug(this, "Cache not able to be removed", e);
 		}
 	}
 
+	@Override
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	@Override
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	@Override
+	public long getContentionCount() {
+		return contentions.get();
+	}
+
+	/**
+	 * Returns the main key of a page, composed of its Inode and modification
+	 * date.
+	 * 
+	 * @param page
+	 *            - The {@link IHTMLPage} object.
+	 * @return The main cache key.
+	 */
+	private String getKey(IHTMLPage page) {
+		StringBuilder key = new StringBuilder();
+		key.append(page.getInode());
+		key.append("_").append(page.getModDate().getTime());
+		return key.toString();
+	}
+
+	/**
+	 * Returns the lock that guards the creation of the versions map for the
+	 * given main key.
+	 * 
+	 * @param key
+	 *            - The main cache key.
+	 * @return The lock object of the stripe the key belongs to.
+	 */
+	private Object lockFor(String key) {
+		return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+	}
+
+	/**
+	 * Looks up the cached versions of a page.
+	 * 
+	 * @param key
+	 *            - The main cache key.
+	 * @return The versions of the page, or {@code null} if the page is not
+	 *         cached.
+	 */
+	@SuppressWarnings("unchecked")
+	private ConcurrentMap<String, BlockDirectiveCacheObject> lookup(String key) {
+		try {
+			Object cached = this.cache.get(key, primaryCacheGroup);
+			if (cached instanceof ConcurrentMap) {
+				return (ConcurrentMap<String, BlockDirectiveCacheObject>) cached;
+			}
+		} catch (DotCacheException e) {
+			Logger.debug(this.getClass(), "cache entry :" + key + " not found");
+		}
+		return null;
+	}
+
 }
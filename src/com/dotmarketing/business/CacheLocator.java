@@ -20,10 +20,14 @@ import com.dotmarketing.cache.ContentTypeCache;
 import com.dotmarketing.cache.FolderCache;
 import com.dotmarketing.cache.FolderCacheImpl;
 import com.dotmarketing.cache.ContentTypeCacheImpl;
+import com.dotmarketing.cms.urlmap.URLMapCache;
+import com.dotmarketing.cms.urlmap.URLMapCacheImpl;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.FlushCacheRunnable;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotRuntimeException;
+import com.dotmarketing.filters.CmsUrlCache;
+import com.dotmarketing.filters.CmsUrlCacheImpl;
 import com.dotmarketing.logConsole.model.LogMapperCache;
 import com.dotmarketing.logConsole.model.LogMapperCacheImpl;
 import com.dotmarketing.plugin.business.PluginCache;
@@ -68,6 +72,8 @@ import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.WebKeys;
 import com.dotmarketing.velocity.DotResourceCache;
+import com.dotmarketing.viewtools.content.util.ContentQueryCache;
+import com.dotmarketing.viewtools.content.util.ContentQueryCacheImpl;
 import com.dotmarketing.viewtools.navigation.NavToolCache;
 import com.dotmarketing.viewtools.navigation.NavToolCacheImpl;
 
@@ -287,6 +293,18 @@ public class CacheLocator extends Locator<CacheIndex>{
 	    return (CSSCache)getInstance(CacheIndex.CSSCache);
 	}
 
+	public static URLMapCache getURLMapCache() {
+	    return (URLMapCache)getInstance(CacheIndex.URLMapCache);
+	}
+
+	public static CmsUrlCache getCmsUrlCache() {
+	    return (CmsUrlCache)getInstance(CacheIndex.CmsUrlCache);
+	}
+
+	public static ContentQueryCache getContentQueryCache() {
+	    return (ContentQueryCache)getInstance(CacheIndex.ContentQueryCache);
+	}
+
 	public static NewNotificationCache getNewNotificationCache() {
 		return (NewNotificationCache)getInstance(CacheIndex.NewNotification);
 	}
@@ -391,7 +409,10 @@ enum CacheIndex
 	RulesCache("Rules Cache"),
 	SiteVisitCache("Rules Engine - Site Visits"),
 	NewNotification("NewNotification Cache"),
-	ContentTypeCache("Content Type Cache");
+	ContentTypeCache("Content Type Cache"),
+	URLMapCache("URL Map Cache"),
+	CmsUrlCache("CMS URL Cache"),
+	ContentQueryCache("Content Query Cache");
 
 	Cachable create() {
 		switch(this) {
@@ -434,6 +455,9 @@ enum CacheIndex
       	case RulesCache : return new RulesCacheImpl();
       	case SiteVisitCache : return new SiteVisitCacheImpl();
       	case ContentTypeCache: return new ContentTypeCacheImpl();
+      	case URLMapCache: return new URLMapCacheImpl();
+      	case CmsUrlCache: return new CmsUrlCacheImpl();
+      	case ContentQueryCache: return new ContentQueryCacheImpl();
 		}
 		throw new AssertionError("Unknown Cache index: " + this);
 	}
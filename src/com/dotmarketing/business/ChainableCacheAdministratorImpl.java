@@ -10,6 +10,7 @@ import com.dotcms.enterprise.cache.provider.CacheProviderAPI;
 import com.dotcms.enterprise.cluster.ClusterFactory;
 import com.dotcms.repackage.com.google.common.cache.RemovalListener;
 import com.dotcms.repackage.com.google.common.cache.RemovalNotification;
+import com.dotmarketing.business.cache.transport.CacheInvalidationBatcher;
 import com.dotmarketing.business.cache.transport.CacheTransport;
 import com.dotmarketing.business.cache.transport.CacheTransportException;
 import com.dotmarketing.common.business.journal.DistributedJournalAPI;
@@ -36,6 +37,7 @@ import java.util.*;
 public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 
 	CacheTransport cacheTransport;
+	private CacheInvalidationBatcher invalidationBatcher;
 
 	private DistributedJournalAPI journalAPI;
 	private CacheProviderAPI cacheProviderAPI;
@@ -59,6 +61,7 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 		}
 
 		this.cacheTransport = transport;
+		initInvalidationBatcher();
 	}
 
 	public ChainableCacheAdministratorImpl () {
@@ -73,10 +76,59 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 		} else {
 			useTransportChannel = false;
 		}
+		initInvalidationBatcher();
 
 		journalAPI = APILocator.getDistributedJournalAPI();
 	}
 
+	/**
+	 * Creates the batcher used to group the cache invalidations sent through the transport channel, the batching
+	 * can be disabled using the <strong>CACHE_INVALIDATION_BATCHING</strong> property
+	 */
+	private void initInvalidationBatcher () {
+
+		if ( invalidationBatcher != null ) {
+			invalidationBatcher.shutdown();
+			invalidationBatcher = null;
+		}
+
+		if ( cacheTransport != null && Config.getBooleanProperty("CACHE_INVALIDATION_BATCHING", true) ) {
+			invalidationBatcher = new CacheInvalidationBatcher(cacheTransport);
+		}
+	}
+
+	/**
+	 * Sends to the cluster the invalidation of a given key for a given group
+	 *
+	 * @param key
+	 * @param group
+	 */
+	private void sendInvalidation ( String key, String group ) {
+
+		if ( getTransport() == null ) {
+			throw new CacheTransportException("No Cache transport implementation is defined");
+		}
+
+		if ( invalidationBatcher != null ) {
+			invalidationBatcher.add(key, group);
+		} else {
+			try {
+				getTransport().send(key + ":" + group);
+			} catch ( Exception e ) {
+				Logger.error(ChainableCacheAdministratorImpl.class, "Unable to send invalidation to cluster : " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns stats information about the cache invalidations sent to the cluster, or null if they are not batched
+	 *
+	 * @return
+	 */
+	public Map<String, Object> getInvalidationStats () {
+		return invalidationBatcher != null ? invalidationBatcher.getStats() : null;
+	}
+
 	public void initProviders () {
 
 		try {
@@ -230,17 +282,7 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 			if (Config.getBooleanProperty("CACHE_CLUSTER_THROUGH_DB", false)) {
 				journalAPI.addCacheEntry("0", ROOT_GOUP);
 			} else if ( useTransportChannel ) {
-
-				if ( getTransport() != null ) {
-					try {
-						getTransport().send("0:" + ROOT_GOUP);
-					} catch ( Exception e ) {
-						Logger.error(ChainableCacheAdministratorImpl.class, "Unable to send invalidation to cluster : " + e.getMessage(), e);
-					}
-				} else {
-					throw new CacheTransportException("No Cache transport implementation is defined");
-				}
-
+				sendInvalidation("0", ROOT_GOUP);
 			}
 		} catch (DotDataException e) {
 			Logger.error(this, "Unable to add journal entry for cluster", e);
@@ -268,13 +310,7 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 			if (Config.getBooleanProperty("CACHE_CLUSTER_THROUGH_DB", false)) {
 				journalAPI.addCacheEntry("0", group);
 			} else if ( useTransportChannel ) {
-
-				try {
-					cacheTransport.send("0:" + group);
-				} catch (Exception e) {
-					Logger.error(ChainableCacheAdministratorImpl.class, "Unable to send invalidation to cluster : " + e.getMessage(), e);
-				}
-
+				sendInvalidation("0", group);
 			}
 		} catch (DotDataException e) {
 			Logger.error(this, "Unable to add journal entry for cluster", e);
@@ -355,17 +391,7 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 					if (Config.getBooleanProperty("CACHE_CLUSTER_THROUGH_DB", false)) {
 						journalAPI.addCacheEntry(k, g);
 					} else if ( useTransportChannel ) {
-
-						if ( getTransport() != null ) {
-							try {
-								getTransport().send(k + ":" + g);
-							} catch ( Exception e ) {
-								Logger.error(ChainableCacheAdministratorImpl.class, "Unable to send invalidation to cluster : " + e.getMessage(), e);
-							}
-						} else {
-							throw new CacheTransportException("No Cache transport implementation is defined");
-						}
-
+						sendInvalidation(k, g);
 					}
 				} catch (DotDataException e) {
 					Logger.error(this, "Unable to add journal entry for cluster", e);
@@ -416,6 +442,10 @@ public class ChainableCacheAdministratorImpl implements DotCacheAdministrator {
 	public void shutdownChannel () {
 
 		if ( getTransport() != null ) {
+			if ( invalidationBatcher != null ) {
+				invalidationBatcher.shutdown();
+				invalidationBatcher = null;
+			}
 			getTransport().shutdown();
 			useTransportChannel = false;
 		} else {
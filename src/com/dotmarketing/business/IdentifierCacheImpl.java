@@ -167,6 +167,7 @@ public class IdentifierCacheImpl extends IdentifierCache {
     		final String key = getPrimaryGroup() + id.getHostId() + "-" + uri;
     		cache.remove(key, getPrimaryGroup());
     		cache.remove(key, get404Group());
+    		CacheLocator.getCmsUrlCache().remove(id.getHostId(), uri);
 		}
 		
 		if(UtilMethods.isSet(id.getAssetType()) && id.getAssetType().equals("folder")) {
@@ -201,6 +202,7 @@ public class IdentifierCacheImpl extends IdentifierCache {
     		String key = getPrimaryGroup() + hostId + "-" + URI;
     		cache.remove(key, getPrimaryGroup());
     		cache.remove(key, get404Group());
+    		CacheLocator.getCmsUrlCache().remove(hostId, URI);
 		}
 		else {
 		    removeFromCacheByIdentifier(id);
@@ -267,6 +269,17 @@ public class IdentifierCacheImpl extends IdentifierCache {
     public void removeContentletVersionInfoToCache(String identifier, long lang) {
         String key=identifier+"-lang:"+lang;
         cache.remove(getVersionInfoGroup()+key, getVersionInfoGroup());
+
+        // whether the URI is a file or a page in a language depends on its versions
+        try {
+            Identifier id = APILocator.getIdentifierAPI().find(identifier);
+            if(id!=null && UtilMethods.isSet(id.getId())) {
+                CacheLocator.getCmsUrlCache().remove(id.getHostId(), id.getURI());
+            }
+        }
+        catch(Exception ex) {
+            Logger.warn(this, "Unable to clear the cms url cache for identifier "+identifier, ex);
+        }
     }
 
     @Override
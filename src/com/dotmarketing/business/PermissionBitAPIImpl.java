@@ -584,6 +584,10 @@ public class PermissionBitAPIImpl implements PermissionAPI {
         permissionFactory.addPermissionsToCache( permissionable );
     }
 
+    public void addPermissionsToCache ( List<? extends Permissionable> permissionables ) throws DotDataException {
+        permissionFactory.addPermissionsToCache( permissionables );
+    }
+
 	/**
 	 * @param Permission to save
 	 * Saves passed in permission
@@ -1087,6 +1091,9 @@ public class PermissionBitAPIImpl implements PermissionAPI {
 			return permissionables;
 		}
 
+		// loads the permissions of the whole list at once instead of one by one on every check
+		permissionFactory.addPermissionsToCache(permissionables);
+
 		Permissionable permissionable;
 		int i = 0;
 
@@ -53,6 +53,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +70,9 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
 
     private static final int MAX_IDS_CLEAR=200;
 
+    // permissionables loaded per query by addPermissionsToCache(List), their references are added to the same IN clause
+    private static final int MAX_IDS_LOAD=200;
+
 	private PermissionCache permissionCache;
 	private static final Map<String, Integer> PERMISION_TYPES = new HashMap<String, Integer>();
 
@@ -90,6 +94,18 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
         "    on (inode_id = reference_id and permission.permission_type = permission_reference.permission_type) "+
         "    where asset_id = ?";
 
+	/*
+	 * Set based versions of the previous query, first the references of a list of permissionables and then
+	 * the permissions of those permissionables and of the assets they reference
+	 *
+	 * Parameters
+	 * A list of permisionable ids
+	 */
+	private final String loadPermissionReferencesByAssetIdsSQL =
+		"select asset_id, reference_id, permission_type from permission_reference where asset_id in (";
+	private final String loadPermissionsByInodeIdsSQL =
+		"select {permission.*} from permission where inode_id in (";
+
 	/*
 	 * To load permission references objects based on the reference they are pointing to
 	 * Parameters
@@ -1444,6 +1460,40 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
         }
     }
 
+    @Override
+    void addPermissionsToCache ( List<? extends Permissionable> permissionables ) throws DotDataException {
+
+        //Only the ones not in cache yet
+        Map<String, Permissionable> notCached = new LinkedHashMap<String, Permissionable>();
+        for ( Permissionable permissionable : permissionables ) {
+            if ( permissionable == null || !InodeUtils.isSet( permissionable.getPermissionId() ) ) {
+                continue;
+            }
+            String permissionId = permissionable.getPermissionId();
+            if ( !notCached.containsKey( permissionId ) && permissionCache.getPermissionsFromCache( permissionId ) == null ) {
+                notCached.put( permissionId, permissionable );
+            }
+        }
+
+        List<String> permissionIds = new ArrayList<String>( notCached.keySet() );
+        for ( int i = 0; i < permissionIds.size(); i += MAX_IDS_LOAD ) {
+            List<String> chunk = permissionIds.subList( i, Math.min( i + MAX_IDS_LOAD, permissionIds.size() ) );
+            Map<String, List<Permission>> loaded = loadPermissions( chunk );
+
+            Map<String, List<Permission>> toCache = new HashMap<String, List<Permission>>();
+            for ( String permissionId : chunk ) {
+                List<Permission> bitPermissionsList = loaded.get( permissionId );
+                if ( bitPermissionsList.isEmpty() ) {
+                    //No permissions nor reference yet, the parent it inherits from must be looked up one by one
+                    addPermissionsToCache( notCached.get( permissionId ) );
+                } else {
+                    toCache.put( permissionId, bitPermissionsList );
+                }
+            }
+            permissionCache.addToPermissionCache( toCache );
+        }
+    }
+
 	/* (non-Javadoc)
 	 * @see com.dotmarketing.business.PermissionFactory#getPermissions(com.dotmarketing.beans.Inode)
 	 */
@@ -2010,32 +2060,41 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
 				referenceReplacement.put(type, defaultReplacement.getPermissionId());
 			}
 
-		List<Map<String, String>> toClear = new ArrayList<Map<String,String>>();
+		final List<String> toClear = new ArrayList<String>();
+		DotConnect selectDc = new DotConnect();
+		//All the references get updated through a single batched statement
+		dc.setSQL(updatePermissionReferenceByReferenceIdSQL);
 		for(String type: referenceReplacement.keySet()) {
 
 		    if(toClear.size()<MAX_IDS_CLEAR) {
-    			dc.setSQL(selectPermissionReferenceSQL, MAX_IDS_CLEAR-toClear.size());
-    			dc.addParam(permissionable.getPermissionId());
-    			dc.addParam(type);
-    			toClear.addAll(dc.loadResults());
+    			selectDc.setSQL(selectPermissionReferenceSQL, MAX_IDS_CLEAR-toClear.size());
+    			selectDc.addParam(permissionable.getPermissionId());
+    			selectDc.addParam(type);
+    			selectDc.loadObjectResults(new DotConnect.RowHandler() {
+    				@Override
+    				public boolean handle(Map<String, Object> row) {
+    					toClear.add((String) row.get("asset_id"));
+    					return true;
+    				}
+    			});
 		    }
 
 			String replacement = referenceReplacement.get(type);
 			if(!replacement.equals(permissionable.getPermissionId())) {
 
-				dc.setSQL(updatePermissionReferenceByReferenceIdSQL);
 				dc.addParam(replacement);
 				dc.addParam(type);
 				dc.addParam(permissionable.getPermissionId());
-				dc.loadResult();
+				dc.addBatch();
 
 			}
 
 		}
+		dc.executeBatch();
 
 		if(toClear.size() < MAX_IDS_CLEAR)
-			for(Map<String, String> entry : toClear)
-				permissionCache.remove(entry.get("asset_id"));
+			for(String assetId : toClear)
+				permissionCache.remove(assetId);
 	    else
 			permissionCache.clearCache();
 	}
@@ -2426,6 +2485,7 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
 
 		Map<Permissionable, List<Permission>> result = new HashMap<Permissionable, List<Permission>>();
 
+		addPermissionsToCache(permissionables);
 		for(Permissionable p : permissionables) {
 			List<Permission> permission = getPermissions(p, bitPermission);
 			result.put(p, permission);
@@ -2695,6 +2755,84 @@ public class PermissionBitFactoryImpl extends PermissionFactory {
 		}
 	}
 
+	/**
+	 * Set based version of {@link #loadPermissions(Permissionable)}, returns for every given permissionable id
+	 * its own permissions plus the ones it inherits through its permission references. The permissionables
+	 * without any of them get an empty list, their references are not built here.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, List<Permission>> loadPermissions(List<String> permissionIds) throws DotDataException {
+
+		Map<String, List<Permission>> result = new HashMap<String, List<Permission>>();
+		if(permissionIds.isEmpty()) {
+			return result;
+		}
+
+		DotConnect dc = new DotConnect();
+		dc.setSQL(loadPermissionReferencesByAssetIdsSQL + placeholders(permissionIds.size()) + ")");
+		for(String permissionId : permissionIds) {
+			dc.addParam(permissionId);
+		}
+		List<Map<String, Object>> references = dc.loadObjectResults();
+
+		Set<String> inodes = new LinkedHashSet<String>(permissionIds);
+		for(Map<String, Object> reference : references) {
+			inodes.add((String) reference.get("reference_id"));
+		}
+
+		HibernateUtil persistenceService = new HibernateUtil(Permission.class);
+		persistenceService.setSQLQuery(loadPermissionsByInodeIdsSQL + placeholders(inodes.size()) + ")");
+		for(String inode : inodes) {
+			persistenceService.setParam(inode);
+		}
+		Map<String, List<Permission>> permissionsByInode = new HashMap<String, List<Permission>>();
+		for(Permission p : (List<Permission>) persistenceService.list()) {
+			p.setBitPermission(true);
+			List<Permission> inodePermissions = permissionsByInode.get(p.getInode());
+			if(inodePermissions == null) {
+				inodePermissions = new ArrayList<Permission>();
+				permissionsByInode.put(p.getInode(), inodePermissions);
+			}
+			inodePermissions.add(p);
+		}
+
+		for(String permissionId : permissionIds) {
+			List<Permission> bitPermissionsList = new ArrayList<Permission>();
+			if(permissionsByInode.containsKey(permissionId)) {
+				bitPermissionsList.addAll(permissionsByInode.get(permissionId));
+			}
+			result.put(permissionId, bitPermissionsList);
+		}
+
+		//Same as the join on permission_type of loadPermissionSQL
+		for(Map<String, Object> reference : references) {
+			List<Permission> referencedPermissions = permissionsByInode.get(reference.get("reference_id"));
+			if(referencedPermissions == null) {
+				continue;
+			}
+			String type = (String) reference.get("permission_type");
+			List<Permission> bitPermissionsList = result.get(reference.get("asset_id"));
+			if(bitPermissionsList == null) {
+				continue;
+			}
+			for(Permission p : referencedPermissions) {
+				if(p.getType().equals(type)) {
+					bitPermissionsList.add(p);
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private String placeholders(int count) {
+		StringBuilder sql = new StringBuilder();
+		for(int i = 0; i < count; i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		return sql.toString();
+	}
+
 	@SuppressWarnings("unchecked")
 	private List<Permission> loadPermissions(Permissionable permissionable) throws DotDataException {
 
@@ -1,6 +1,7 @@
 package com.dotmarketing.business;
 
 import java.util.List;
+import java.util.Map;
 
 import com.dotmarketing.beans.Permission;
 
@@ -16,4 +17,14 @@ public abstract class PermissionCache implements Cachable{
 
 	abstract protected void remove(String key);
 
+	/**
+	 * Adds the permissions of many permissionables at once, keyed by their permission id
+	 * @param permissions
+	 */
+	protected void addToPermissionCache(Map<String, List<Permission>> permissions) {
+		for(Map.Entry<String, List<Permission>> entry : permissions.entrySet()) {
+			addToPermissionCache(entry.getKey(), entry.getValue());
+		}
+	}
+
 }
\ No newline at end of file
@@ -127,6 +127,15 @@ public abstract class PermissionFactory {
      */
     abstract void addPermissionsToCache ( Permissionable permissionable ) throws DotDataException;
 
+    /**
+     * Loads into the cache the permissions of all the given Permissionables that are not cached yet, using a few
+     * queries for the whole list instead of a few queries per Permissionable.
+     *
+     * @param permissionables
+     * @throws DotDataException
+     */
+    abstract void addPermissionsToCache ( List<? extends Permissionable> permissionables ) throws DotDataException;
+
     /**
 	 * This method returns a list permission of all the permissionables passed as parameter,
 	 * it returns the compressed bit version of permissions, this method returns either the 
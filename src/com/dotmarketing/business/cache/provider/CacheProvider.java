@@ -1,5 +1,10 @@
 package com.dotmarketing.business.cache.provider;
 
+import com.dotmarketing.business.cache.provider.codec.BinaryCacheCodec;
+import com.dotmarketing.business.cache.provider.codec.CacheCodec;
+import com.dotmarketing.business.cache.provider.codec.JavaSerializationCodec;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
 import com.dotmarketing.velocity.DotResourceCache;
 
 import java.io.Serializable;
@@ -29,6 +34,9 @@ import java.util.Set;
  * <li>cache.velocitymemoryonlycache.chain=com.dotmarketing.business.cache.provider.guava.GuavaCache</li>
  * <li>cache.velocityuservtlcache.chain=com.dotmarketing.business.cache.provider.redis.RedisProvider,com.dotmarketing.business.cache.provider.h2.H2CacheLoader</li>
  * </ul>
+ * <p/>
+ * Providers that keep their content outside the heap should turn it into bytes using the {@link CacheCodec} returned
+ * by {@link #getCodec()}, set with the <strong>cache.codec</strong> property.
  *
  * @author Jonathan Gamba
  *         Date: 8/31/15
@@ -131,4 +139,29 @@ public abstract class CacheProvider implements Serializable {
      */
     public abstract void shutdown ();
 
+    /**
+     * Returns the codec used to turn the cached objects into bytes
+     *
+     * @return
+     */
+    protected CacheCodec getCodec () {
+        return CodecHolder.CODEC;
+    }
+
+    private static class CodecHolder {
+
+        static final CacheCodec CODEC = createCodec();
+
+        private static CacheCodec createCodec () {
+
+            String className = Config.getStringProperty("cache.codec", BinaryCacheCodec.class.getName());
+            try {
+                return (CacheCodec) Class.forName(className).newInstance();
+            } catch ( Exception e ) {
+                Logger.error(CacheProvider.class, "Unable to create cache codec [" + className + "], using java serialization.", e);
+                return new JavaSerializationCodec();
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,401 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.beans.Identifier;
+import com.dotmarketing.beans.Permission;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.folders.model.Folder;
+import com.dotmarketing.util.Config;
+
+/**
+ * {@link CacheCodec} that writes the most cached classes ({@link Contentlet}, {@link Host}, {@link Identifier},
+ * {@link Folder} and lists of {@link Permission}s) field by field in a compact binary format, instead of going
+ * through java serialization and its class descriptors. Any other object is written with java serialization.
+ * <p/>
+ * Values bigger than <strong>cache.codec.compression.threshold</strong> bytes (default 4096, 0 disables it) are
+ * compressed with a fast deflate, as long as the result is smaller.
+ * <p/>
+ * The first byte tells the format of the data, so the values written with java serialization by previous versions
+ * are still read.
+ */
+public class BinaryCacheCodec implements CacheCodec {
+
+	private static final byte FORMAT_BINARY = 0x01;
+	private static final byte FORMAT_DEFLATED = 0x02;
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_STRING = 1;
+	private static final byte TAG_LONG = 2;
+	private static final byte TAG_INTEGER = 3;
+	private static final byte TAG_TRUE = 4;
+	private static final byte TAG_FALSE = 5;
+	private static final byte TAG_FLOAT = 6;
+	private static final byte TAG_DOUBLE = 7;
+	private static final byte TAG_DATE = 8;
+	private static final byte TAG_TIMESTAMP = 9;
+	private static final byte TAG_LIST = 10;
+	private static final byte TAG_REGISTERED = 11;
+	private static final byte TAG_JAVA = 12;
+
+	private final JavaSerializationCodec javaCodec = new JavaSerializationCodec();
+	private final Map<Class<?>, Registration<?>> byClass = new ConcurrentHashMap<Class<?>, Registration<?>>();
+	private final Map<Integer, Registration<?>> byId = new ConcurrentHashMap<Integer, Registration<?>>();
+	private final int compressionThreshold;
+
+	public BinaryCacheCodec() {
+		this(Config.getIntProperty("cache.codec.compression.threshold", 4096));
+	}
+
+	public BinaryCacheCodec(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+
+		register(1, Contentlet.class, new CacheTypeEncoders.ContentletEncoder());
+		register(2, Host.class, new CacheTypeEncoders.HostEncoder());
+		register(3, Identifier.class, new CacheTypeEncoders.IdentifierEncoder());
+		register(4, Folder.class, new CacheTypeEncoders.FolderEncoder());
+		register(5, Permission.class, new CacheTypeEncoders.PermissionEncoder());
+	}
+
+	/**
+	 * Registers the encoder of a class, the id is written with every object of the class so it must never change
+	 * once there is data written with it. Only objects of exactly that class are written with the encoder, not its
+	 * subclasses.
+	 *
+	 * @param id
+	 * @param clazz
+	 * @param encoder
+	 */
+	public <T> void register(int id, Class<T> clazz, CacheTypeEncoder<T> encoder) {
+		Registration<?> registered = byId.get(id);
+		if (registered != null && registered.clazz != clazz) {
+			throw new IllegalArgumentException("Cache codec id " + id + " already used by " + registered.clazz.getName());
+		}
+		Registration<T> registration = new Registration<T>(id, clazz, encoder);
+		byId.put(id, registration);
+		byClass.put(clazz, registration);
+	}
+
+	@Override
+	public byte[] serialize(Object object) throws IOException {
+		byte[] data;
+		if (canEncode(object)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(FORMAT_BINARY);
+			writeValue(out, object);
+			out.flush();
+			data = bytes.toByteArray();
+		} else {
+			data = javaCodec.serialize(object);
+		}
+
+		if (compressionThreshold > 0 && data.length >= compressionThreshold) {
+			byte[] deflated = deflate(data);
+			if (deflated.length < data.length) {
+				return deflated;
+			}
+		}
+		return data;
+	}
+
+	@Override
+	public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+		if (data == null || data.length == 0) {
+			return null;
+		}
+		switch (data[0]) {
+			case FORMAT_BINARY:
+				return readValue(new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1)));
+			case FORMAT_DEFLATED:
+				return deserialize(inflate(data));
+			default:
+				return javaCodec.deserialize(data);
+		}
+	}
+
+	/**
+	 * Returns true if the given value can be written without java serialization
+	 *
+	 * @param value
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public boolean canEncode(Object value) {
+		if (value == null) {
+			return true;
+		}
+		Class<?> clazz = value.getClass();
+		if (clazz == String.class || clazz == Long.class || clazz == Integer.class || clazz == Boolean.class
+				|| clazz == Float.class || clazz == Double.class || clazz == Date.class || clazz == Timestamp.class) {
+			return true;
+		}
+		if (clazz == ArrayList.class) {
+			for (Object element : (List<?>) value) {
+				if (!canEncode(element)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		Registration registration = byClass.get(clazz);
+		return registration != null && registration.encoder.canEncode(value);
+	}
+
+	/**
+	 * Writes any value, values that can't be encoded are written with java serialization
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(TAG_NULL);
+			return;
+		}
+		Class<?> clazz = value.getClass();
+		if (clazz == String.class) {
+			out.writeByte(TAG_STRING);
+			writeString(out, (String) value);
+		} else if (clazz == Long.class) {
+			out.writeByte(TAG_LONG);
+			out.writeLong((Long) value);
+		} else if (clazz == Integer.class) {
+			out.writeByte(TAG_INTEGER);
+			out.writeInt((Integer) value);
+		} else if (clazz == Boolean.class) {
+			out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+		} else if (clazz == Float.class) {
+			out.writeByte(TAG_FLOAT);
+			out.writeFloat((Float) value);
+		} else if (clazz == Double.class) {
+			out.writeByte(TAG_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (clazz == Date.class) {
+			out.writeByte(TAG_DATE);
+			out.writeLong(((Date) value).getTime());
+		} else if (clazz == Timestamp.class) {
+			out.writeByte(TAG_TIMESTAMP);
+			out.writeLong(((Timestamp) value).getTime());
+			out.writeInt(((Timestamp) value).getNanos());
+		} else if (clazz == ArrayList.class && canEncode(value)) {
+			List<?> list = (List<?>) value;
+			out.writeByte(TAG_LIST);
+			writeVarInt(out, list.size());
+			for (Object element : list) {
+				writeValue(out, element);
+			}
+		} else {
+			Registration registration = byClass.get(clazz);
+			if (registration != null && registration.encoder.canEncode(value)) {
+				out.writeByte(TAG_REGISTERED);
+				writeVarInt(out, registration.id);
+				registration.encoder.write(this, out, value);
+			} else {
+				byte[] data = javaCodec.serialize(value);
+				out.writeByte(TAG_JAVA);
+				writeVarInt(out, data.length);
+				out.write(data);
+			}
+		}
+	}
+
+	/**
+	 * Reads a value written by {@link #writeValue(DataOutputStream, Object)}
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	public Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case TAG_NULL:
+				return null;
+			case TAG_STRING:
+				return readString(in);
+			case TAG_LONG:
+				return in.readLong();
+			case TAG_INTEGER:
+				return in.readInt();
+			case TAG_TRUE:
+				return Boolean.TRUE;
+			case TAG_FALSE:
+				return Boolean.FALSE;
+			case TAG_FLOAT:
+				return in.readFloat();
+			case TAG_DOUBLE:
+				return in.readDouble();
+			case TAG_DATE:
+				return new Date(in.readLong());
+			case TAG_TIMESTAMP:
+				Timestamp timestamp = new Timestamp(in.readLong());
+				timestamp.setNanos(in.readInt());
+				return timestamp;
+			case TAG_LIST:
+				int size = readVarInt(in);
+				List<Object> list = new ArrayList<Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue(in));
+				}
+				return list;
+			case TAG_REGISTERED:
+				int id = readVarInt(in);
+				Registration<?> registration = byId.get(id);
+				if (registration == null) {
+					throw new ClassNotFoundException("No class registered in the cache codec with id " + id);
+				}
+				return registration.encoder.read(this, in);
+			case TAG_JAVA:
+				byte[] data = new byte[readVarInt(in)];
+				in.readFully(data);
+				return javaCodec.deserialize(data);
+			default:
+				throw new IOException("Unknown cache codec tag " + tag);
+		}
+	}
+
+	/**
+	 * Writes a string that can be null
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	public void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length + 1);
+		out.write(bytes);
+	}
+
+	public String readString(DataInputStream in) throws IOException {
+		int length = readVarInt(in);
+		if (length == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length - 1];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a date that can be null
+	 *
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	public void writeDate(DataOutputStream out, Date value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value.getTime());
+		}
+	}
+
+	public Date readDate(DataInputStream in) throws IOException {
+		return in.readBoolean() ? new Date(in.readLong()) : null;
+	}
+
+	public void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	public int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed cache codec varint");
+	}
+
+	private byte[] deflate(byte[] data) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(FORMAT_DEFLATED);
+		writeVarInt(out, data.length);
+		out.flush();
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			DeflaterOutputStream deflaterOut = new DeflaterOutputStream(bytes, deflater, 8192);
+			deflaterOut.write(data);
+			deflaterOut.finish();
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+
+	private byte[] inflate(byte[] data) throws IOException {
+		ByteArrayInputStream bytes = new ByteArrayInputStream(data, 1, data.length - 1);
+		int length = readVarInt(new DataInputStream(bytes));
+		int offset = data.length - bytes.available();
+
+		byte[] inflated = new byte[length];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data, offset, data.length - offset);
+			int read = 0;
+			while (read < length && !inflater.finished()) {
+				int n = inflater.inflate(inflated, read, length - read);
+				if (n == 0 && inflater.needsInput()) {
+					break;
+				}
+				read += n;
+			}
+			if (read != length) {
+				throw new IOException("Truncated cache entry, expected " + length + " bytes and got " + read);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupted cache entry: " + e.getMessage(), e);
+		} finally {
+			inflater.end();
+		}
+		return inflated;
+	}
+
+	private static class Registration<T> {
+
+		final int id;
+		final Class<T> clazz;
+		final CacheTypeEncoder<T> encoder;
+
+		Registration(int id, Class<T> clazz, CacheTypeEncoder<T> encoder) {
+			this.id = id;
+			this.clazz = clazz;
+			this.encoder = encoder;
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import java.io.IOException;
+
+/**
+ * Turns the objects stored by the {@link com.dotmarketing.business.cache.provider.CacheProvider}s that keep their
+ * content outside the heap (disk, network) into bytes and back.
+ * <p/>
+ * The codec used by the providers is set with the <strong>cache.codec</strong> property of the
+ * <strong>dotmarketing-config.properties</strong> file, its default is the {@link BinaryCacheCodec}.
+ */
+public interface CacheCodec {
+
+	/**
+	 * Encodes the given object
+	 *
+	 * @param object
+	 * @return
+	 * @throws IOException
+	 */
+	byte[] serialize(Object object) throws IOException;
+
+	/**
+	 * Decodes an object encoded by {@link #serialize(Object)}
+	 *
+	 * @param data
+	 * @return
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	Object deserialize(byte[] data) throws IOException, ClassNotFoundException;
+
+}
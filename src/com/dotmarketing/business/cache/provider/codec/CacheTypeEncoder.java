@@ -0,0 +1,44 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes and reads the fields of one of the classes registered in the {@link BinaryCacheCodec}.
+ *
+ * @param <T> the registered class
+ */
+public interface CacheTypeEncoder<T> {
+
+	/**
+	 * Returns true if the given object can be written by this encoder, objects that can't are written with java
+	 * serialization instead
+	 *
+	 * @param object
+	 * @return
+	 */
+	boolean canEncode(T object);
+
+	/**
+	 * Writes the fields of the given object, nested values can be written with the methods of the given codec
+	 *
+	 * @param codec
+	 * @param out
+	 * @param object
+	 * @throws IOException
+	 */
+	void write(BinaryCacheCodec codec, DataOutputStream out, T object) throws IOException;
+
+	/**
+	 * Reads an object written by {@link #write(BinaryCacheCodec, DataOutputStream, Object)}
+	 *
+	 * @param codec
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	T read(BinaryCacheCodec codec, DataInputStream in) throws IOException, ClassNotFoundException;
+
+}
@@ -0,0 +1,197 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.beans.Identifier;
+import com.dotmarketing.beans.Permission;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.folders.model.Folder;
+import com.dotmarketing.util.InodeUtils;
+
+/**
+ * The {@link CacheTypeEncoder}s of the classes registered by default in the {@link BinaryCacheCodec}.
+ */
+class CacheTypeEncoders {
+
+	private CacheTypeEncoders() {
+	}
+
+	/**
+	 * Writes the map of a contentlet. Contentlets with fields still to be loaded from the db are left to java
+	 * serialization, as reading their map would load them.
+	 */
+	static class ContentletEncoder implements CacheTypeEncoder<Contentlet> {
+
+		@Override
+		public boolean canEncode(Contentlet contentlet) {
+			return !contentlet.hasLazyFields();
+		}
+
+		@Override
+		public void write(BinaryCacheCodec codec, DataOutputStream out, Contentlet contentlet) throws IOException {
+			writeContentlet(codec, out, contentlet);
+		}
+
+		@Override
+		public Contentlet read(BinaryCacheCodec codec, DataInputStream in) throws IOException, ClassNotFoundException {
+			return readContentlet(codec, in, new Contentlet());
+		}
+	}
+
+	static class HostEncoder implements CacheTypeEncoder<Host> {
+
+		@Override
+		public boolean canEncode(Host host) {
+			return !host.hasLazyFields();
+		}
+
+		@Override
+		public void write(BinaryCacheCodec codec, DataOutputStream out, Host host) throws IOException {
+			writeContentlet(codec, out, host);
+		}
+
+		@Override
+		public Host read(BinaryCacheCodec codec, DataInputStream in) throws IOException, ClassNotFoundException {
+			// new Host() looks up the Host structure, this constructor doesn't
+			return readContentlet(codec, in, new Host(new Contentlet()));
+		}
+	}
+
+	private static void writeContentlet(BinaryCacheCodec codec, DataOutputStream out, Contentlet contentlet) throws IOException {
+		out.writeBoolean(contentlet.isLowIndexPriority());
+		Map<String, Object> map = contentlet.getMap();
+		codec.writeVarInt(out, map.size());
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			codec.writeString(out, entry.getKey());
+			codec.writeValue(out, entry.getValue());
+		}
+	}
+
+	private static <T extends Contentlet> T readContentlet(BinaryCacheCodec codec, DataInputStream in, T contentlet) throws IOException, ClassNotFoundException {
+		contentlet.setLowIndexPriority(in.readBoolean());
+		// straight into the map, the lazy metadata marker must not flag the contentlet as lazy
+		Map<String, Object> map = contentlet.getMap();
+		map.clear();
+		int size = codec.readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			String key = codec.readString(in);
+			map.put(key, codec.readValue(in));
+		}
+		return contentlet;
+	}
+
+	static class IdentifierEncoder implements CacheTypeEncoder<Identifier> {
+
+		@Override
+		public boolean canEncode(Identifier identifier) {
+			return true;
+		}
+
+		@Override
+		public void write(BinaryCacheCodec codec, DataOutputStream out, Identifier identifier) throws IOException {
+			codec.writeString(out, identifier.getId());
+			codec.writeString(out, identifier.getAssetName());
+			codec.writeString(out, identifier.getAssetType());
+			codec.writeString(out, identifier.getParentPath());
+			codec.writeString(out, identifier.getHostId());
+			codec.writeDate(out, identifier.getSysPublishDate());
+			codec.writeDate(out, identifier.getSysExpireDate());
+		}
+
+		@Override
+		public Identifier read(BinaryCacheCodec codec, DataInputStream in) throws IOException {
+			Identifier identifier = new Identifier();
+			identifier.setId(codec.readString(in));
+			identifier.setAssetName(codec.readString(in));
+			identifier.setAssetType(codec.readString(in));
+			identifier.setParentPath(codec.readString(in));
+			identifier.setHostId(codec.readString(in));
+			identifier.setSysPublishDate(codec.readDate(in));
+			identifier.setSysExpireDate(codec.readDate(in));
+			return identifier;
+		}
+	}
+
+	/**
+	 * Folders without a host are left to java serialization, setting their identifier would look the host up
+	 */
+	static class FolderEncoder implements CacheTypeEncoder<Folder> {
+
+		@Override
+		public boolean canEncode(Folder folder) {
+			return InodeUtils.isSet(folder.getHostId());
+		}
+
+		@Override
+		public void write(BinaryCacheCodec codec, DataOutputStream out, Folder folder) throws IOException {
+			codec.writeString(out, folder.getInode());
+			codec.writeString(out, folder.getIdentifier());
+			codec.writeString(out, folder.getType());
+			codec.writeString(out, folder.getOwner());
+			codec.writeDate(out, folder.getIDate());
+			codec.writeString(out, folder.getName());
+			codec.writeString(out, folder.getTitle());
+			codec.writeString(out, folder.getHostId());
+			codec.writeString(out, folder.getFilesMasks());
+			codec.writeString(out, folder.getDefaultFileType());
+			out.writeInt(folder.getSortOrder());
+			out.writeBoolean(folder.isShowOnMenu());
+			codec.writeDate(out, folder.getModDate());
+		}
+
+		@Override
+		public Folder read(BinaryCacheCodec codec, DataInputStream in) throws IOException {
+			Folder folder = new Folder();
+			folder.setInode(codec.readString(in));
+			String identifier = codec.readString(in);
+			folder.setType(codec.readString(in));
+			folder.setOwner(codec.readString(in));
+			folder.setIDate(codec.readDate(in));
+			folder.setName(codec.readString(in));
+			folder.setTitle(codec.readString(in));
+			folder.setHostId(codec.readString(in));
+			folder.setIdentifier(identifier);
+			folder.setFilesMasks(codec.readString(in));
+			folder.setDefaultFileType(codec.readString(in));
+			folder.setSortOrder(in.readInt());
+			folder.setShowOnMenu(in.readBoolean());
+			folder.setModDate(codec.readDate(in));
+			return folder;
+		}
+	}
+
+	static class PermissionEncoder implements CacheTypeEncoder<Permission> {
+
+		@Override
+		public boolean canEncode(Permission permission) {
+			return true;
+		}
+
+		@Override
+		public void write(BinaryCacheCodec codec, DataOutputStream out, Permission permission) throws IOException {
+			out.writeLong(permission.getId());
+			codec.writeString(out, permission.getInode());
+			codec.writeString(out, permission.getRoleId());
+			codec.writeString(out, permission.getType());
+			out.writeInt(permission.getPermission());
+			out.writeBoolean(permission.isBitPermission());
+		}
+
+		@Override
+		public Permission read(BinaryCacheCodec codec, DataInputStream in) throws IOException {
+			Permission permission = new Permission();
+			permission.setId(in.readLong());
+			permission.setInode(codec.readString(in));
+			permission.setRoleId(codec.readString(in));
+			permission.setType(codec.readString(in));
+			permission.setPermission(in.readInt());
+			permission.setBitPermission(in.readBoolean());
+			return permission;
+		}
+	}
+
+}
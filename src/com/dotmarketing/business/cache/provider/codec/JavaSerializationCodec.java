@@ -0,0 +1,39 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * {@link CacheCodec} based on the plain java serialization, this is what the cache providers always used and what
+ * the {@link BinaryCacheCodec} falls back to for the types it does not know.
+ */
+public class JavaSerializationCodec implements CacheCodec {
+
+	@Override
+	public byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(os, 8192));
+		try {
+			output.writeObject(object);
+		} finally {
+			output.close();
+		}
+		return os.toByteArray();
+	}
+
+	@Override
+	public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+		// ByteArrayInputStream doesn't need any buffering
+		ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(data));
+		try {
+			return input.readObject();
+		} finally {
+			input.close();
+		}
+	}
+
+}
@@ -1,16 +1,7 @@
 package com.dotmarketing.business.cache.provider.h22;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -471,15 +462,7 @@ public class H22Cache extends CacheProvider {
 			upsertStmt = c.prepareStatement(upsertSQL);
 			upsertStmt.setString(1, fqn.id);
 			upsertStmt.setString(2, fqn.group);
-			ObjectOutputStream output = null;
-			OutputStream bout;
-			ByteArrayOutputStream os = new ByteArrayOutputStream();
-			bout = new BufferedOutputStream(os, 8192);
-
-			output = new ObjectOutputStream(bout);
-			output.writeObject(obj);
-			output.flush();
-			byte[] data = os.toByteArray();
+			byte[] data = getCodec().serialize(obj);
 			bytes = data.length;
 			upsertStmt.setBytes(3, data);
 
@@ -501,9 +484,6 @@ public class H22Cache extends CacheProvider {
 			return null;
 		}
 
-		ObjectInputStream input=null;
-		InputStream bin=null;
-		InputStream is=null;
 		Optional<Connection> opt = createConnection(true, db(fqn));
 		if (!opt.isPresent()) {
 			return null;
@@ -519,38 +499,12 @@ public class H22Cache extends CacheProvider {
 			if (!rs.next()) {
 				return null;
 			}
-			is = new ByteArrayInputStream(rs.getBytes(1));
-			bin = new BufferedInputStream(is, 8192);
-
-			input = new ObjectInputStream(bin);
-			return input.readObject();
+			return getCodec().deserialize(rs.getBytes(1));
 
 		} finally {
 
 			if (stmt != null) stmt.close();
 			c.close();
-			if (input != null){
-				try {
-					input.close();
-				} catch (IOException e) {
-					Logger.warn(getClass(), "should not be here:" + e.getMessage(),e);
-				}
-			}
-			if (bin != null){
-				try {
-					bin.close();
-				} catch (IOException e) {
-					Logger.warn(getClass(), "should not be here:" + e.getMessage(),e);
-				}
-			}
-			
-			if (is != null){
-				try {
-					is.close();
-				} catch (IOException e) {
-					Logger.warn(getClass(), "should not be here:" + e.getMessage(),e);
-				}
-			}
 		}
 	}
 
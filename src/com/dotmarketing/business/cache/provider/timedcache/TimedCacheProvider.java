@@ -281,6 +281,7 @@ public class TimedCacheProvider extends CacheProvider {
 								.newBuilder()
 								.maximumSize(size)
 								.expireAfterWrite(seconds, TimeUnit.SECONDS)
+								.recordStats()
 								.concurrencyLevel(
 										Config.getIntProperty(
 												"cache.concurrencylevel", 32));
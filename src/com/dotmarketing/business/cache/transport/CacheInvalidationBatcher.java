@@ -0,0 +1,162 @@
+package com.dotmarketing.business.cache.transport;
+
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the cache invalidations that must be sent to the cluster during a short time window and sends them
+ * through the {@link CacheTransport} as a single {@link CacheInvalidationFrame}, instead of sending one message
+ * per removed key.
+ * <p/>
+ * The following properties of the <strong>dotmarketing-config.properties</strong> file control the batching:
+ * <ul>
+ * <li><strong>CACHE_INVALIDATION_BATCH_WINDOW_MS</strong>: time to wait collecting invalidations before sending them (default 50).</li>
+ * <li><strong>CACHE_INVALIDATION_BATCH_MAX_KEYS</strong>: number of invalidations that triggers an immediate send (default 5000).</li>
+ * <li><strong>CACHE_INVALIDATION_GROUP_FLUSH_THRESHOLD</strong>: number of keys of a single group after which the whole group is flushed instead (default 500).</li>
+ * </ul>
+ */
+public class CacheInvalidationBatcher {
+
+    private final CacheTransport transport;
+    private final long windowMillis;
+    private final int maxKeys;
+    private final int groupFlushThreshold;
+
+    private final Object lock = new Object();
+    private final ScheduledExecutorService scheduler;
+    private CacheInvalidationFrame pending = new CacheInvalidationFrame();
+    private boolean scheduled = false;
+
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong keysReceived = new AtomicLong();
+    private final AtomicLong keysSent = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+
+    public CacheInvalidationBatcher ( CacheTransport transport ) {
+
+        this.transport = transport;
+        this.windowMillis = Config.getIntProperty("CACHE_INVALIDATION_BATCH_WINDOW_MS", 50);
+        this.maxKeys = Config.getIntProperty("CACHE_INVALIDATION_BATCH_MAX_KEYS", 5000);
+        this.groupFlushThreshold = Config.getIntProperty("CACHE_INVALIDATION_GROUP_FLUSH_THRESHOLD", 500);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread ( Runnable runnable ) {
+                Thread thread = new Thread(runnable, "CacheInvalidationBatcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the invalidation of a given key for a given group, a key equals to <strong>0</strong> invalidates the
+     * whole group.
+     *
+     * @param key
+     * @param group
+     */
+    public void add ( String key, String group ) {
+
+        keysReceived.incrementAndGet();
+
+        CacheInvalidationFrame toSend = null;
+        synchronized ( lock ) {
+            pending.add(key, group, groupFlushThreshold);
+
+            if ( pending.size() >= maxKeys ) {
+                toSend = pending;
+                pending = new CacheInvalidationFrame();
+            } else if ( !scheduled ) {
+                scheduled = true;
+                scheduler.schedule(new Runnable() {
+                    public void run () {
+                        flush();
+                    }
+                }, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if ( toSend != null ) {
+            send(toSend);
+        }
+    }
+
+    /**
+     * Sends right away all the pending invalidations
+     */
+    public void flush () {
+
+        CacheInvalidationFrame toSend;
+        synchronized ( lock ) {
+            toSend = pending;
+            pending = new CacheInvalidationFrame();
+            scheduled = false;
+        }
+
+        send(toSend);
+    }
+
+    private void send ( CacheInvalidationFrame frame ) {
+
+        if ( frame.isEmpty() ) {
+            return;
+        }
+
+        try {
+            transport.send(frame.toBytes());
+            messagesSent.incrementAndGet();
+            keysSent.addAndGet(frame.size());
+        } catch ( Exception e ) {
+            sendErrors.incrementAndGet();
+            Logger.error(CacheInvalidationBatcher.class, "Unable to send invalidation to cluster : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends the pending invalidations and stops the batching thread
+     */
+    public void shutdown () {
+
+        flush();
+        scheduler.shutdown();
+    }
+
+    public double getMessagesPerSecond () {
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        return elapsed > 0 ? messagesSent.get() * 1000d / elapsed : 0;
+    }
+
+    public double getKeysPerMessage () {
+
+        long messages = messagesSent.get();
+        return messages > 0 ? (double) keysSent.get() / messages : 0;
+    }
+
+    /**
+     * Returns stats information about the invalidations handled by this batcher
+     *
+     * @return
+     */
+    public Map<String, Object> getStats () {
+
+        Map<String, Object> stats = new LinkedHashMap<String, Object>();
+        stats.put("messagesSent", messagesSent.get());
+        stats.put("keysReceived", keysReceived.get());
+        stats.put("keysSent", keysSent.get());
+        stats.put("sendErrors", sendErrors.get());
+        stats.put("messagesPerSecond", getMessagesPerSecond());
+        stats.put("keysPerMessage", getKeysPerMessage());
+        return stats;
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.dotmarketing.business.cache.transport;
+
+import com.dotmarketing.business.DotCacheAdministrator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collection of cache invalidations that travels through the {@link CacheTransport} as a single binary message.
+ * <br/>
+ * Keys are de-duplicated per group, and once a group collects more keys than the given threshold the keys are
+ * dropped and the whole group is flushed instead. A flush of the {@link DotCacheAdministrator#ROOT_GOUP} group
+ * makes every other entry of the frame redundant.
+ * <p/>
+ * <strong>Wire format:</strong>
+ * <pre>
+ * magic (4 bytes) | version (1 byte) | flushAll (1 byte) | groups (int)
+ *     group (UTF) | flushGroup (1 byte) | keys (int) | key (UTF) ...
+ * </pre>
+ */
+public class CacheInvalidationFrame {
+
+    private static final byte[] MAGIC = { (byte) 0x7F, 'D', 'C', 'I' };
+    private static final byte VERSION = 1;
+
+    private final Map<String, Set<String>> keysByGroup = new LinkedHashMap<String, Set<String>>();
+    private final Set<String> flushedGroups = new LinkedHashSet<String>();
+    private boolean flushAll = false;
+    private int keyCount = 0;
+
+    /**
+     * Adds an invalidation to this frame, a key equals to <strong>0</strong> means the whole group must be flushed
+     *
+     * @param key
+     * @param group
+     * @param groupFlushThreshold number of keys of a group after which the group is flushed instead
+     */
+    public void add ( String key, String group, int groupFlushThreshold ) {
+
+        if ( flushAll || flushedGroups.contains(group) ) {
+            return;
+        }
+
+        if ( "0".equals(key) ) {
+            if ( DotCacheAdministrator.ROOT_GOUP.equalsIgnoreCase(group) ) {
+                flushAll = true;
+                flushedGroups.clear();
+                keysByGroup.clear();
+                keyCount = 0;
+            } else {
+                flushGroup(group);
+            }
+            return;
+        }
+
+        Set<String> keys = keysByGroup.get(group);
+        if ( keys == null ) {
+            keys = new LinkedHashSet<String>();
+            keysByGroup.put(group, keys);
+        }
+
+        if ( keys.add(key) ) {
+            keyCount++;
+            if ( groupFlushThreshold > 0 && keys.size() > groupFlushThreshold ) {
+                flushGroup(group);
+            }
+        }
+    }
+
+    private void flushGroup ( String group ) {
+
+        Set<String> keys = keysByGroup.remove(group);
+        if ( keys != null ) {
+            keyCount -= keys.size();
+        }
+        flushedGroups.add(group);
+    }
+
+    public boolean isEmpty () {
+        return !flushAll && flushedGroups.isEmpty() && keysByGroup.isEmpty();
+    }
+
+    public boolean isFlushAll () {
+        return flushAll;
+    }
+
+    public Set<String> getFlushedGroups () {
+        return Collections.unmodifiableSet(flushedGroups);
+    }
+
+    public Map<String, Set<String>> getKeysByGroup () {
+        return Collections.unmodifiableMap(keysByGroup);
+    }
+
+    /**
+     * Returns the number of invalidations this frame carries, every flushed group counts as a single one
+     *
+     * @return
+     */
+    public int size () {
+        return keyCount + flushedGroups.size() + (flushAll ? 1 : 0);
+    }
+
+    /**
+     * Returns the invalidations of this frame as the <strong>key:group</strong> text messages sent before the
+     * invalidations were batched, where a key equals to <strong>0</strong> flushes the whole group
+     *
+     * @return
+     */
+    public List<String> toMessages () {
+
+        List<String> messages = new ArrayList<String>(size());
+        if ( flushAll ) {
+            messages.add("0:" + DotCacheAdministrator.ROOT_GOUP);
+        }
+        for ( String group : flushedGroups ) {
+            messages.add("0:" + group);
+        }
+        for ( Map.Entry<String, Set<String>> entry : keysByGroup.entrySet() ) {
+            for ( String key : entry.getValue() ) {
+                messages.add(key + ":" + entry.getKey());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Encodes this frame into its binary representation
+     *
+     * @return
+     */
+    public byte[] toBytes () {
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + keyCount * 32);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeBoolean(flushAll);
+            out.writeInt(flushedGroups.size() + keysByGroup.size());
+
+            for ( String group : flushedGroups ) {
+                out.writeUTF(group);
+                out.writeBoolean(true);
+                out.writeInt(0);
+            }
+            for ( Map.Entry<String, Set<String>> entry : keysByGroup.entrySet() ) {
+                out.writeUTF(entry.getKey());
+                out.writeBoolean(false);
+                out.writeInt(entry.getValue().size());
+                for ( String key : entry.getValue() ) {
+                    out.writeUTF(key);
+                }
+            }
+
+            out.flush();
+            return bytes.toByteArray();
+        } catch ( IOException e ) {
+            throw new CacheTransportException("Unable to encode cache invalidation frame", e);
+        }
+    }
+
+    /**
+     * Verifies if the given buffer contains an encoded frame
+     *
+     * @param buffer
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static boolean isFrame ( byte[] buffer, int offset, int length ) {
+
+        if ( buffer == null || length < MAGIC.length + 1 ) {
+            return false;
+        }
+        for ( int i = 0; i < MAGIC.length; i++ ) {
+            if ( buffer[offset + i] != MAGIC[i] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a frame previously encoded with {@link #toBytes()}
+     *
+     * @param buffer
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static CacheInvalidationFrame fromBytes ( byte[] buffer, int offset, int length ) {
+
+        if ( !isFrame(buffer, offset, length) ) {
+            throw new CacheTransportException("The given buffer is not a cache invalidation frame");
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer, offset + MAGIC.length, length - MAGIC.length));
+
+            byte version = in.readByte();
+            if ( version != VERSION ) {
+                throw new CacheTransportException("Unsupported cache invalidation frame version: " + version);
+            }
+
+            CacheInvalidationFrame frame = new CacheInvalidationFrame();
+            frame.flushAll = in.readBoolean();
+
+            int groups = in.readInt();
+            for ( int i = 0; i < groups; i++ ) {
+                String group = in.readUTF();
+                boolean flushGroup = in.readBoolean();
+                int keys = in.readInt();
+                if ( flushGroup ) {
+                    frame.flushedGroups.add(group);
+                }
+                for ( int j = 0; j < keys; j++ ) {
+                    frame.add(in.readUTF(), group, 0);
+                }
+            }
+
+            return frame;
+        } catch ( IOException e ) {
+            throw new CacheTransportException("Unable to decode cache invalidation frame", e);
+        }
+    }
+
+}
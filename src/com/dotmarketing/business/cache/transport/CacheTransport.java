@@ -20,6 +20,22 @@ public interface CacheTransport {
      */
     void send ( String message ) throws CacheTransportException;
 
+    /**
+     * Sends a binary message to the transport channel, used to send batches of cache invalidations encoded
+     * by {@link CacheInvalidationFrame}.
+     * <br/>
+     * Transports that do not read frames can leave this method as it is: every invalidation of the frame is
+     * sent as a separate <strong>key:group</strong> message through {@link #send(String)}
+     *
+     * @param message
+     * @throws CacheTransportException
+     */
+    default void send ( byte[] message ) throws CacheTransportException {
+        for ( String invalidation : CacheInvalidationFrame.fromBytes(message, 0, message.length).toMessages() ) {
+            send(invalidation);
+        }
+    }
+
     /**
      * Tests the cluster transport channel
      *
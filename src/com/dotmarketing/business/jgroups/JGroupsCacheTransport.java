@@ -6,19 +6,23 @@ import com.dotcms.repackage.org.apache.commons.collections.map.LRUMap;
 import com.dotcms.repackage.org.apache.struts.Globals;
 import com.dotcms.repackage.org.jgroups.*;
 import com.dotmarketing.business.*;
+import com.dotmarketing.business.cache.transport.CacheInvalidationFrame;
 import com.dotmarketing.business.cache.transport.CacheTransport;
 import com.dotmarketing.business.cache.transport.CacheTransportException;
+import com.dotmarketing.common.reindex.ReindexQueue;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.menubuilders.RefreshMenus;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduler;
 import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
-import com.dotmarketing.velocity.DotResourceCache;
 import com.liferay.portal.struts.MultiMessageResources;
 
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Jonathan Gamba
@@ -29,6 +33,9 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
     private Map<String, Map<String, Boolean>> cacheStatus;
     private JChannel channel;
 
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong keysReceived = new AtomicLong();
+
     @Override
     public void init ( Server localServer ) throws CacheTransportException {
 
@@ -91,6 +98,18 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
         }
     }
 
+    @Override
+    public void send ( byte[] message ) throws CacheTransportException {
+
+        Message msg = new Message(null, message);
+        try {
+            channel.send(msg);
+        } catch ( Exception e ) {
+            Logger.error(JGroupsCacheTransport.class, "Unable to send message: " + e.getMessage(), e);
+            throw new CacheTransportException("Unable to send message", e);
+        }
+    }
+
     @Override
     public void testCluster () throws CacheTransportException {
 
@@ -140,6 +159,12 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
             return;
         }
 
+        //Batches of invalidations are sent as raw binary frames
+        if ( CacheInvalidationFrame.isFrame(msg.getRawBuffer(), msg.getOffset(), msg.getLength()) ) {
+            invalidateCacheFromCluster(CacheInvalidationFrame.fromBytes(msg.getRawBuffer(), msg.getOffset(), msg.getLength()));
+            return;
+        }
+
         Object v = msg.getObject();
         if ( v == null ) {
             return;
@@ -206,6 +231,10 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
         } else if ( v.toString().equals("MultiMessageResources.reload") ) {
             MultiMessageResources messages = (MultiMessageResources) Config.CONTEXT.getAttribute(Globals.MESSAGES_KEY);
             messages.reloadLocally();
+        } else if ( v.toString().equals(ReindexQueue.WAKE_MESSAGE) ) {
+            ReindexQueue.getInstance().wake(false);
+        } else if ( v.toString().startsWith(PublishExpireScheduler.SCHEDULE_MESSAGE) ) {
+            PublishExpireScheduler.getInstance().reload(v.toString().substring(PublishExpireScheduler.SCHEDULE_MESSAGE.length()));
         } else if ( v.toString().equals(ChainableCacheAdministratorImpl.DUMMY_TEXT_TO_SEND) ) {
             //Don't do anything is we are only checking sending.
         } else {
@@ -215,48 +244,96 @@ public class JGroupsCacheTransport extends ReceiverAdapter implements CacheTrans
 
     private void invalidateCacheFromCluster ( String k ) {
 
-        boolean flushMenus = false;
-        DotResourceCache vc = CacheLocator.getVeloctyResourceCache();
-        String menuGroup = vc.getMenuGroup();
-
         int i = k.lastIndexOf(":");
         if ( i > 0 ) {
 
             String key = k.substring(0, i);
             String group = k.substring(i + 1, k.length());
 
-            key = key.toLowerCase();
-            group = group.toLowerCase();
-
-            if ( key.contains("dynamic") ) {
-                if ( group.equals(menuGroup) ) {
-                    flushMenus = true;
-                }
-            }
-            if ( !flushMenus ) {
-                if ( key.equals("0") ) {
-
-                    if ( group.equalsIgnoreCase(DotCacheAdministrator.ROOT_GOUP) ) {
-                        CacheLocator.getCacheAdministrator().flushAlLocalOnly();
-                    } else if ( group.equalsIgnoreCase(menuGroup) ) {
-                        flushMenus = true;
-                    } else {
-                        CacheLocator.getCacheAdministrator().flushGroupLocalOnly(group);
-                    }
-
-                } else {
-                    CacheLocator.getCacheAdministrator().removeLocalOnly(key, group);
-                }
+            if ( invalidateCacheFromCluster(key.toLowerCase(), group.toLowerCase()) ) {
+                flushMenus();
             }
         } else {
             Logger.error(this, "The cache to locally remove key is invalid. The value was " + k);
         }
+    }
+
+    /**
+     * Applies all the invalidations of a batch received from the cluster
+     *
+     * @param frame
+     */
+    private void invalidateCacheFromCluster ( CacheInvalidationFrame frame ) {
+
+        framesReceived.incrementAndGet();
+        keysReceived.addAndGet(frame.size());
+
+        if ( frame.isFlushAll() ) {
+            invalidateCacheFromCluster("0", DotCacheAdministrator.ROOT_GOUP);
+            return;
+        }
+
+        boolean flushMenus = false;
+        for ( String group : frame.getFlushedGroups() ) {
+            flushMenus |= invalidateCacheFromCluster("0", group.toLowerCase());
+        }
+        for ( Map.Entry<String, Set<String>> entry : frame.getKeysByGroup().entrySet() ) {
+            String group = entry.getKey().toLowerCase();
+            for ( String key : entry.getValue() ) {
+                flushMenus |= invalidateCacheFromCluster(key.toLowerCase(), group);
+            }
+        }
 
+        //The menus are flushed only once per batch
         if ( flushMenus ) {
-            RefreshMenus.deleteMenusOnFileSystemOnly();
-            CacheLocator.getCacheAdministrator().flushGroupLocalOnly(menuGroup);
+            flushMenus();
+        }
+    }
+
+    /**
+     * Invalidates locally a given key for a given group
+     *
+     * @param key
+     * @param group
+     * @return true if the menus must be flushed
+     */
+    private boolean invalidateCacheFromCluster ( String key, String group ) {
+
+        String menuGroup = CacheLocator.getVeloctyResourceCache().getMenuGroup();
+
+        if ( key.contains("dynamic") && group.equals(menuGroup) ) {
+            return true;
+        }
+
+        if ( key.equals("0") ) {
+
+            if ( group.equalsIgnoreCase(DotCacheAdministrator.ROOT_GOUP) ) {
+                CacheLocator.getCacheAdministrator().flushAlLocalOnly();
+            } else if ( group.equalsIgnoreCase(menuGroup) ) {
+                return true;
+            } else {
+                CacheLocator.getCacheAdministrator().flushGroupLocalOnly(group);
+            }
+
+        } else {
+            CacheLocator.getCacheAdministrator().removeLocalOnly(key, group);
         }
 
+        return false;
+    }
+
+    private void flushMenus () {
+
+        RefreshMenus.deleteMenusOnFileSystemOnly();
+        CacheLocator.getCacheAdministrator().flushGroupLocalOnly(CacheLocator.getVeloctyResourceCache().getMenuGroup());
+    }
+
+    public long getFramesReceived () {
+        return framesReceived.get();
+    }
+
+    public long getKeysReceived () {
+        return keysReceived.get();
     }
 
     public Map<String, Boolean> validateCacheInCluster ( String dateInMillis, int numberServers, int maxWaitSeconds ) throws CacheTransportException {
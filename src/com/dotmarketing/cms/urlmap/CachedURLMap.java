@@ -0,0 +1,21 @@
+package com.dotmarketing.cms.urlmap;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * The content a URL map request resolved to, see {@link URLMapCache}.
+ */
+public class CachedURLMap implements Serializable {
+    private static final long serialVersionUID = -4372184526395870412L;
+
+    public String structureInode;
+    public String identifier;
+    public String inode;
+    public long languageId;
+    /**
+     * Generation of every structure whose pattern was tried to resolve the
+     * URL, the entry is stale once any of them changes
+     */
+    public Map<String, String> generations;
+}
@@ -0,0 +1,31 @@
+package com.dotmarketing.cms.urlmap;
+
+import com.dotmarketing.business.Cachable;
+
+/**
+ * Cache of the content URL map requests resolve to, keyed by host, language,
+ * user and URL. The entries of a structure are invalidated as a whole when
+ * content of that structure changes, see {@link #removeStructure(String)}.
+ */
+public abstract class URLMapCache implements Cachable {
+
+    /**
+     * Returns the content the key resolved to, or null if it is not cached or
+     * any of the structures tried to resolve it changed since.
+     */
+    public abstract CachedURLMap get(String key);
+
+    public abstract void add(String key, CachedURLMap urlMap);
+
+    /**
+     * Returns the current generation of a structure, it changes every time
+     * {@link #removeStructure(String)} is called for it.
+     */
+    public abstract String getGeneration(String structureInode);
+
+    /**
+     * Invalidates all the entries resolved with the URL map of the given
+     * structure.
+     */
+    public abstract void removeStructure(String structureInode);
+}
@@ -0,0 +1,88 @@
+package com.dotmarketing.cms.urlmap;
+
+import java.util.Map;
+
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.business.DotCacheException;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class URLMapCacheImpl extends URLMapCache {
+
+    protected final DotCacheAdministrator cache;
+    protected final String group="URLMapCache";
+    protected final String[] groups={group};
+
+    public URLMapCacheImpl() {
+        cache = CacheLocator.getCacheAdministrator();
+    }
+
+    @Override
+    public String getPrimaryGroup() {
+        return group;
+    }
+
+    @Override
+    public String[] getGroups() {
+        return groups;
+    }
+
+    @Override
+    public void clearCache() {
+        cache.flushGroup(group);
+    }
+
+    protected String buildGenerationKey(String structureInode) {
+        return "generation:"+structureInode;
+    }
+
+    @Override
+    public CachedURLMap get(String key) {
+        CachedURLMap urlMap=null;
+        try {
+            urlMap = (CachedURLMap)cache.get(key, group);
+            if(urlMap!=null) {
+                for(Map.Entry<String, String> generation : urlMap.generations.entrySet()) {
+                    if(!generation.getValue().equals(getGeneration(generation.getKey()))) {
+                        cache.removeLocalOnly(key, group);
+                        return null;
+                    }
+                }
+            }
+        }
+        catch(DotCacheException ex) {
+            Logger.debug(this, "cache entry not found: "+key, ex);
+        }
+        return urlMap;
+    }
+
+    @Override
+    public void add(String key, CachedURLMap urlMap) {
+        cache.put(key, urlMap, group);
+    }
+
+    @Override
+    public String getGeneration(String structureInode) {
+        String key=buildGenerationKey(structureInode);
+        String generation=null;
+        try {
+            generation = (String)cache.get(key, group);
+        }
+        catch(DotCacheException ex) {
+            Logger.debug(this, "cache entry not found: "+key, ex);
+        }
+        if(generation==null) {
+            generation=UUIDGenerator.generateUuid();
+            cache.put(key, generation, group);
+        }
+        return generation;
+    }
+
+    @Override
+    public void removeStructure(String structureInode) {
+        // the entries of the structure are left to expire, they no longer match its generation
+        cache.remove(buildGenerationKey(structureInode), group);
+    }
+
+}
@@ -0,0 +1,231 @@
+package com.dotmarketing.cms.urlmap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.dotmarketing.portlets.structure.StructureUtil;
+import com.dotmarketing.portlets.structure.model.SimpleStructureURLMap;
+import com.dotmarketing.util.UtilMethods;
+
+/**
+ * Immutable router over the URL map patterns of the content structures. The
+ * patterns are compiled once and indexed by the literal first folder of the
+ * pattern, so a URL is only matched against the patterns that can start with
+ * its first folder, plus the patterns starting with a field, e.g.
+ * <code>/{urlTitle}</code>.
+ * <p>
+ * Matching follows the order the {@link com.dotmarketing.cms.urlmap.filters.URLMapFilter}
+ * always used: patterns with more folders are tried first.
+ * </p>
+ */
+public class URLMapRouter {
+
+	private static final Pattern FIELD_PATTERN = Pattern.compile("\\{([^{}]+)\\}");
+	private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
+	private final List<Route> routes;
+	private final Map<String, List<Route>> routesByFolder;
+	private final List<Route> fieldRoutes;
+	private final String masterRegEx;
+
+	/**
+	 * Builds a router for the given URL map patterns, patterns that don't
+	 * generate a valid regular expression are left out.
+	 *
+	 * @param urlMaps
+	 */
+	public URLMapRouter(List<SimpleStructureURLMap> urlMaps) {
+		List<Route> routes = new ArrayList<Route>();
+		StringBuilder masterRegEx = new StringBuilder();
+		for (SimpleStructureURLMap urlMap : urlMaps) {
+			String regEx = StructureUtil.generateRegExForURLMap(urlMap.getURLMapPattern());
+			// if we have an empty string, move on
+			if (!UtilMethods.isSet(regEx) || regEx.trim().length() < 3) {
+				continue;
+			}
+			Pattern pattern;
+			try {
+				pattern = Pattern.compile(regEx);
+			} catch (PatternSyntaxException e) {
+				continue;
+			}
+			List<String> fields = new ArrayList<String>();
+			Matcher fieldMatcher = FIELD_PATTERN.matcher(urlMap.getURLMapPattern());
+			while (fieldMatcher.find()) {
+				fields.add(fieldMatcher.group(1));
+			}
+			routes.add(new Route(urlMap.getInode(), urlMap.getURLMapPattern(), regEx, pattern, fields));
+			if (masterRegEx.length() > 0) {
+				masterRegEx.append("|");
+			}
+			masterRegEx.append(regEx);
+		}
+
+		// stable sort, the patterns with more folders first
+		Collections.sort(routes, new Comparator<Route>() {
+			public int compare(Route o1, Route o2) {
+				return getSlashCount(o2.regEx) - getSlashCount(o1.regEx);
+			}
+		});
+
+		List<Route> fieldRoutes = new ArrayList<Route>();
+		Map<String, List<Route>> routesByFolder = new HashMap<String, List<Route>>();
+		for (Route route : routes) {
+			String folder = literalFolder(route.regEx);
+			if (folder == null) {
+				fieldRoutes.add(route);
+			} else if (!routesByFolder.containsKey(folder)) {
+				routesByFolder.put(folder, new ArrayList<Route>());
+			}
+		}
+		// every folder gets its own routes merged with the field routes, keeping the global order
+		for (Map.Entry<String, List<Route>> entry : routesByFolder.entrySet()) {
+			for (Route route : routes) {
+				String folder = literalFolder(route.regEx);
+				if (folder == null || folder.equals(entry.getKey())) {
+					entry.getValue().add(route);
+				}
+			}
+		}
+
+		this.routes = Collections.unmodifiableList(routes);
+		this.routesByFolder = routesByFolder;
+		this.fieldRoutes = fieldRoutes;
+		this.masterRegEx = masterRegEx.toString();
+	}
+
+	/**
+	 * Returns the patterns matching the beginning of the given URL, in the
+	 * order they have to be tried.
+	 *
+	 * @param url
+	 *            - The URL, with a trailing slash.
+	 * @return The matches, an empty list if the URL is not a URL map.
+	 */
+	public List<URLMapMatch> route(String url) {
+		List<Route> candidates = routesByFolder.get(firstFolder(url));
+		if (candidates == null) {
+			candidates = fieldRoutes;
+		}
+		List<URLMapMatch> matches = null;
+		for (Route route : candidates) {
+			Matcher matcher = route.pattern.matcher(url);
+			if (matcher.lookingAt()) {
+				List<String> values = new ArrayList<String>(matcher.groupCount());
+				for (int group = 1; group <= matcher.groupCount(); group++) {
+					values.add(matcher.group(group));
+				}
+				if (matches == null) {
+					matches = new ArrayList<URLMapMatch>(1);
+				}
+				matches.add(new URLMapMatch(route.structureInode, route.urlMapPattern, route.fieldMatches, values));
+			}
+		}
+		return matches == null ? Collections.<URLMapMatch> emptyList() : matches;
+	}
+
+	/**
+	 * Returns the regular expression matching any of the URL map patterns.
+	 */
+	public String getMasterRegEx() {
+		return masterRegEx;
+	}
+
+	public boolean isEmpty() {
+		return routes.isEmpty();
+	}
+
+	/**
+	 * Returns the first folder of a generated regular expression, or null if
+	 * it starts with a field or has regular expression characters.
+	 */
+	private static String literalFolder(String regEx) {
+		String folder = firstFolder(regEx);
+		for (int i = 0; i < folder.length(); i++) {
+			if (REGEX_META_CHARS.indexOf(folder.charAt(i)) >= 0) {
+				return null;
+			}
+		}
+		return folder;
+	}
+
+	private static String firstFolder(String url) {
+		int start = url.startsWith("/") ? 1 : 0;
+		int end = url.indexOf('/', start);
+		return end < 0 ? url.substring(start) : url.substring(start, end);
+	}
+
+	private static int getSlashCount(String regEx) {
+		int ret = regEx.endsWith("/") ? 0 : 1;
+		for (int i = 0; i < regEx.length(); i++) {
+			if (regEx.charAt(i) == '/') {
+				ret += 1;
+			}
+		}
+		return ret;
+	}
+
+	private static class Route {
+		private final String structureInode;
+		private final String urlMapPattern;
+		private final String regEx;
+		private final Pattern pattern;
+		private final List<String> fieldMatches;
+
+		private Route(String structureInode, String urlMapPattern, String regEx, Pattern pattern, List<String> fieldMatches) {
+			this.structureInode = structureInode;
+			this.urlMapPattern = urlMapPattern;
+			this.regEx = regEx;
+			this.pattern = pattern;
+			this.fieldMatches = Collections.unmodifiableList(fieldMatches);
+		}
+	}
+
+	/**
+	 * A URL map pattern matching a URL, with the values of its fields.
+	 */
+	public static class URLMapMatch {
+		private final String structureInode;
+		private final String urlMapPattern;
+		private final List<String> fieldMatches;
+		private final List<String> values;
+
+		private URLMapMatch(String structureInode, String urlMapPattern, List<String> fieldMatches, List<String> values) {
+			this.structureInode = structureInode;
+			this.urlMapPattern = urlMapPattern;
+			this.fieldMatches = fieldMatches;
+			this.values = values;
+		}
+
+		public String getStructureInode() {
+			return structureInode;
+		}
+
+		public String getURLMapPattern() {
+			return urlMapPattern;
+		}
+
+		/**
+		 * Returns the velocity var names of the fields of the pattern.
+		 */
+		public List<String> getFieldMatches() {
+			return fieldMatches;
+		}
+
+		/**
+		 * Returns the values the URL has for the fields of the pattern, in
+		 * the same order as {@link #getFieldMatches()}.
+		 */
+		public List<String> getValues() {
+			return values;
+		}
+	}
+
+}
@@ -11,10 +11,10 @@ package com.dotmarketing.cms.urlmap.filters;
 
 import java.io.IOException;
 import java.net.URLDecoder;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -36,6 +36,10 @@ import com.dotmarketing.business.web.WebAPILocator;
 import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.cache.ContentTypeCacheImpl;
 import com.dotmarketing.cache.VirtualLinksCache;
+import com.dotmarketing.cms.urlmap.CachedURLMap;
+import com.dotmarketing.cms.urlmap.URLMapCache;
+import com.dotmarketing.cms.urlmap.URLMapRouter;
+import com.dotmarketing.cms.urlmap.URLMapRouter.URLMapMatch;
 import com.dotmarketing.common.model.ContentletSearch;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
@@ -44,10 +48,8 @@ import com.dotmarketing.filters.CMSFilter;
 import com.dotmarketing.filters.CmsUrlUtil;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
-import com.dotmarketing.portlets.structure.StructureUtil;
 import com.dotmarketing.portlets.structure.factories.StructureFactory;
 import com.dotmarketing.portlets.structure.model.Field;
-import com.dotmarketing.portlets.structure.model.SimpleStructureURLMap;
 import com.dotmarketing.portlets.structure.model.Structure;
 import com.dotmarketing.tag.model.Tag;
 import com.dotmarketing.util.*;
@@ -64,7 +66,12 @@ import com.liferay.portal.model.User;
  */
 public class URLMapFilter implements Filter {
 
-	private List<PatternCache> patternsCache = new ArrayList<>();
+	private static final AtomicLong routedRequests = new AtomicLong();
+	private static final AtomicLong routingNanos = new AtomicLong();
+	private static final AtomicLong cacheHits = new AtomicLong();
+	private static final AtomicLong cacheMisses = new AtomicLong();
+
+	private volatile URLMapRouter router;
 	private ContentletAPI conAPI;
 	private UserWebAPI wuserAPI;
 	private HostWebAPI whostAPI;
@@ -127,16 +134,18 @@ public class URLMapFilter implements Filter {
 		long languageId = WebAPILocator.getLanguageWebAPI().getLanguage(request).getId();
 		
 		String mastRegEx = null;
-		StringBuilder query;
+		StringBuilder query = null;
 		try {
 			mastRegEx = CacheLocator.getContentTypeCache().getURLMasterPattern();
 		} catch (DotCacheException e2) {
 			Logger.error(URLMapFilter.class, e2.getMessage(), e2);
 		}
-		if (mastRegEx == null || patternsCache.isEmpty()) {
+		URLMapRouter urlMapRouter = router;
+		if (mastRegEx == null || urlMapRouter == null) {
 			synchronized (ContentTypeCacheImpl.MASTER_STRUCTURE) {
 				try {
-					mastRegEx = buildCacheObjects();
+					urlMapRouter = buildCacheObjects();
+					mastRegEx = urlMapRouter.getMasterRegEx();
 				} catch (DotDataException e) {
 					Logger.error(URLMapFilter.class, e.getMessage(), e);
 					throw new ServletException("Unable to build URLMap patterns", e);
@@ -152,9 +161,12 @@ public class URLMapFilter implements Filter {
 			chain.doFilter(req, res);
 			return;
 		}
-		if (RegEX.contains(url, mastRegEx)) {
+		long routingStart = System.nanoTime();
+		List<URLMapMatch> urlMapMatches = urlMapRouter.route(url);
+		if (!urlMapMatches.isEmpty()) {
 			boolean ADMIN_MODE = (optSession!=null && optSession.getAttribute(com.dotmarketing.util.WebKeys.ADMIN_MODE_SESSION) != null);
 			boolean EDIT_MODE = ((optSession!=null && optSession.getAttribute(com.dotmarketing.util.WebKeys.EDIT_MODE_SESSION) != null) && ADMIN_MODE);
+			boolean preview = (EDIT_MODE || ADMIN_MODE) && UtilMethods.isSet(previewPage);
 
 			Structure structure = null;
 			User user = null;
@@ -163,125 +175,142 @@ public class URLMapFilter implements Filter {
 			} catch (Exception e1) {
 				Logger.error(URLMapFilter.class, e1.getMessage(), e1);
 			}
+
+			// only the live content is cached
+			URLMapCache urlMapCache = CacheLocator.getURLMapCache();
+			String cacheKey = (preview || host == null) ? null : host.getIdentifier() + ":" + languageId + ":"
+					+ (request.getParameter("language_id") != null) + ":" + (user != null ? user.getUserId() : "anonymous") + ":" + url;
+			CachedURLMap cached = cacheKey != null ? urlMapCache.get(cacheKey) : null;
+			Map<String, String> generations = new HashMap<String, String>();
 	
 			List<ContentletSearch> cons = null;
-			for (PatternCache pc : patternsCache) {
-				List<RegExMatch> matches = RegEX.findForUrlMap(url, pc.getRegEx());
-				if (matches != null && matches.size() > 0) {
-					query = new StringBuilder();
-					List<RegExMatch> groups = matches.get(0).getGroups();
-					List<String> fieldMatches = pc.getFieldMatches();
-					structure = CacheLocator.getContentTypeCache().getStructureByInode(pc.getStructureInode());
-					List<Field> fields = FieldsCache.getFieldsByStructureInode(structure.getInode());
-					query.append("+structureName:").append(structure.getVelocityVarName()).append(" +deleted:false ");
-					if ((EDIT_MODE || ADMIN_MODE) && UtilMethods.isSet(previewPage)) {
-						query.append("+working:true ");
-					} else {
-						query.append("+live:true ");
-					}
+			if (cached != null) {
+				cacheHits.incrementAndGet();
+				structure = CacheLocator.getContentTypeCache().getStructureByInode(cached.structureInode);
+				try {
+					setURLMapAttributes(request, optSession, url, cached.identifier, cached.inode, cached.languageId);
+				} catch (DotDataException e) {
+					Logger.warn(this, "DotDataException", e);
+				}
+			}
+			for (URLMapMatch match : urlMapMatches) {
+				if (cached != null) {
+					break;
+				}
+				if (cacheKey != null) {
+					// taken before searching, a publish in the meantime makes the entry stale
+					generations.put(match.getStructureInode(), urlMapCache.getGeneration(match.getStructureInode()));
+				}
+				query = new StringBuilder();
+				List<String> values = match.getValues();
+				List<String> fieldMatches = match.getFieldMatches();
+				structure = CacheLocator.getContentTypeCache().getStructureByInode(match.getStructureInode());
+				List<Field> fields = FieldsCache.getFieldsByStructureInode(structure.getInode());
+				query.append("+structureName:").append(structure.getVelocityVarName()).append(" +deleted:false ");
+				if (preview) {
+					query.append("+working:true ");
+				} else {
+					query.append("+live:true ");
+				}
 
-					// Set Host Stuff
-					boolean hasHostField = false;
-					Boolean hostIsRequired = false;
-					for (Field field : fields) {
-						if (field.getFieldType().equals(Field.FieldType.HOST_OR_FOLDER.toString())) {
-							hasHostField = true;
-							if (field.isRequired()) {
-								hostIsRequired = true;
-							}
-							break;
+				// Set Host Stuff
+				boolean hasHostField = false;
+				Boolean hostIsRequired = false;
+				for (Field field : fields) {
+					if (field.getFieldType().equals(Field.FieldType.HOST_OR_FOLDER.toString())) {
+						hasHostField = true;
+						if (field.isRequired()) {
+							hostIsRequired = true;
 						}
+						break;
 					}
-					if (hasHostField) {
-						if (host != null) {
-							//if (hostIsRequired) {
-							//query.append("+conhost:" + host.getIdentifier() + " ");
-							//} else {
-							try {
-								query.append("+(conhost:").append(host.getIdentifier()).append(" ")
-								     .append("conhost:").append(whostAPI.findSystemHost(wuserAPI.getSystemUser(), true).getIdentifier()).append(") ");
-							} catch (Exception e) {
-								Logger.error(URLMapFilter.class, e.getMessage()
-										+ " : Unable to build host in query : ", e);
-							}
-							//}
+				}
+				if (hasHostField) {
+					if (host != null) {
+						//if (hostIsRequired) {
+						//query.append("+conhost:" + host.getIdentifier() + " ");
+						//} else {
+						try {
+							query.append("+(conhost:").append(host.getIdentifier()).append(" ")
+							     .append("conhost:").append(whostAPI.findSystemHost(wuserAPI.getSystemUser(), true).getIdentifier()).append(") ");
+						} catch (Exception e) {
+							Logger.error(URLMapFilter.class, e.getMessage()
+									+ " : Unable to build host in query : ", e);
 						}
+						//}
 					}
+				}
 
-					// build fields
-					int counter = 0;
-					for (RegExMatch regExMatch : groups) {
-						String value = regExMatch.getMatch();
-						if (value.endsWith("/")) {
-							value = value.substring(0, value.length() - 1);
-						}
-						query.append("+").append(structure.getVelocityVarName()).append(".").append(fieldMatches.get(counter)).append(":")
-								.append(value).append(" ");
-						counter++;
+				// build fields
+				int counter = 0;
+				for (String value : values) {
+					if (value.endsWith("/")) {
+						value = value.substring(0, value.length() - 1);
 					}
-					
-					try {
-					    long sessionLang=WebAPILocator.getLanguageWebAPI().getLanguage(request).getId();
-					    long defaultLang=APILocator.getLanguageAPI().getDefaultLanguage().getId();
-					    boolean checkIndex=false;
-					  
-                        if(request.getParameter("language_id")==null && Config.getBooleanProperty("DEFAULT_CONTENT_TO_DEFAULT_LANGUAGE",false)) {
-                            // consider default language. respecting language_id in parameters
-                            query.append(" +(languageId:").append(defaultLang).append(" languageId:").append(sessionLang).append(") ");
-                            checkIndex=true;
-                        }else if(request.getParameter("language_id")!=null){
-                        	query.append(" +languageId:").append(languageId).append(" ");
-                        }else {
-                            // respect session language
-                            query.append(" +languageId:").append(sessionLang).append(" ");
-                        }
-					    
-						cons = conAPI.searchIndex(query.toString(), 2, 0, (hostIsRequired?"conhost, modDate": "modDate"), user, true);
-						int idx = 0;
-						if(checkIndex && cons.size()==2) {
-						    // prefer session setting
-						    Contentlet second=conAPI.find(cons.get(1).getInode(), user, true);
-						    if(second.getLanguageId()==sessionLang)
-						        idx=1;
-						}
-						ContentletSearch c = cons.get(idx);
-						if(optSession !=null){
-							optSession.setAttribute(com.dotmarketing.util.WebKeys.HTMLPAGE_LANGUAGE,String.valueOf(conAPI.find(c.getInode(), user, true).getLanguageId()));
-						}
-						request.setAttribute(WebKeys.WIKI_CONTENTLET, c.getIdentifier());
-						request.setAttribute(WebKeys.WIKI_CONTENTLET_INODE, c.getInode());
-						request.setAttribute(WebKeys.CLICKSTREAM_IDENTIFIER_OVERRIDE, c.getIdentifier());
-						request.setAttribute(WebKeys.WIKI_CONTENTLET_URL, url);
-						String[] x = url.split("/");
-						for(int i=0;i<x.length;i++){
-							if(UtilMethods.isSet(x[i])){
-								request.setAttribute("URL_ARG" + i, x[i]);
-							}
-						}
-
-						//Check if we want to accrue the tags of URL maps
-						if ( Config.getBooleanProperty("ACCRUE_TAGS_IN_URLMAPS", true) ) {
-
-							//Search for the tags asocciated to this contentlet inode
-							List<Tag> contentletFoundTags = APILocator.getTagAPI().getTagsByInode(c.getInode());
-							if ( contentletFoundTags != null ) {
-								//Accrue the found tags
-								TagUtil.accrueTags(request, contentletFoundTags);
-							}
-						}
-
-						break;
-					} catch (DotDataException e) {
-						Logger.warn(this, "DotDataException", e);
-					} catch (DotSecurityException e) {
-						Logger.warn(this, "DotSecurityException", e);
-					} catch(java.lang.IndexOutOfBoundsException iob){
-						Logger.warn(this, "No urlmap contentlent found uri:" + url + " query:" + query.toString());
-					}catch(Exception e){
-						Logger.warn(this, "No index?" + e.getMessage());
+					query.append("+").append(structure.getVelocityVarName()).append(".").append(fieldMatches.get(counter)).append(":")
+							.append(value).append(" ");
+					counter++;
+				}
+				
+				try {
+				    long sessionLang=WebAPILocator.getLanguageWebAPI().getLanguage(request).getId();
+				    long defaultLang=APILocator.getLanguageAPI().getDefaultLanguage().getId();
+				    boolean checkIndex=false;
+				  
+                    if(request.getParameter("language_id")==null && Config.getBooleanProperty("DEFAULT_CONTENT_TO_DEFAULT_LANGUAGE",false)) {
+                        // consider default language. respecting language_id in parameters
+                        query.append(" +(languageId:").append(defaultLang).append(" languageId:").append(sessionLang).append(") ");
+                        checkIndex=true;
+                    }else if(request.getParameter("language_id")!=null){
+                    	query.append(" +languageId:").append(languageId).append(" ");
+                    }else {
+                        // respect session language
+                        query.append(" +languageId:").append(sessionLang).append(" ");
+                    }
+				    
+					cons = conAPI.searchIndex(query.toString(), 2, 0, (hostIsRequired?"conhost, modDate": "modDate"), user, true);
+					int idx = 0;
+					Contentlet found = null;
+					if(checkIndex && cons.size()==2) {
+					    // prefer session setting
+					    Contentlet second=conAPI.find(cons.get(1).getInode(), user, true);
+					    if(second.getLanguageId()==sessionLang) {
+					        idx=1;
+					        found=second;
+					    }
 					}
+					ContentletSearch c = cons.get(idx);
+					if(found==null) {
+						found=conAPI.find(c.getInode(), user, true);
+					}
+					setURLMapAttributes(request, optSession, url, c.getIdentifier(), c.getInode(), found.getLanguageId());
+
+					if (cacheKey != null) {
+						CachedURLMap urlMap = new CachedURLMap();
+						urlMap.structureInode = structure.getInode();
+						urlMap.identifier = c.getIdentifier();
+						urlMap.inode = c.getInode();
+						urlMap.languageId = found.getLanguageId();
+						urlMap.generations = generations;
+						urlMapCache.add(cacheKey, urlMap);
+					}
+
+					break;
+				} catch (DotDataException e) {
+					Logger.warn(this, "DotDataException", e);
+				} catch (DotSecurityException e) {
+					Logger.warn(this, "DotSecurityException", e);
+				} catch(java.lang.IndexOutOfBoundsException iob){
+					Logger.warn(this, "No urlmap contentlent found uri:" + url + " query:" + query.toString());
+				}catch(Exception e){
+					Logger.warn(this, "No index?" + e.getMessage());
 				}
 			}
+			if (cacheKey != null && cached == null) {
+				cacheMisses.incrementAndGet();
+			}
+			routedRequests.incrementAndGet();
+			routingNanos.addAndGet(System.nanoTime() - routingStart);
 			
 		
 			if (structure != null && UtilMethods.isSet(structure.getDetailPage())) {
@@ -293,7 +322,7 @@ public class URLMapFilter implements Filter {
 					}
 
 					
-					if((cons != null && cons.size() > 0) || !urlFallthrough){
+					if(cached != null || (cons != null && cons.size() > 0) || !urlFallthrough){
 						
 						request.setAttribute(CMSFilter.CMS_FILTER_URI_OVERRIDE, ident.getURI());
 
@@ -320,120 +349,69 @@ public class URLMapFilter implements Filter {
 	}
 
 	/**
-	 * Builds the list of URL maps and sorts them by the number of slashes in
-	 * the URL (highest to lowest). This method is called only when a new URL 
-	 * map is added, and is marked as <code>synchronized</code> to avoid data 
-	 * inconsistency.
-	 * 
-	 * @return A <code>String</code> containing a Regex, which contains all the
-	 *         URL maps in the system.
-	 * @throws DotDataException
-	 *             An error occurred when retrieving information from the
-	 *             database.
+	 * Sets the request attributes of the content a URL map resolved to.
 	 */
-	private synchronized String buildCacheObjects() throws DotDataException {
-		List<SimpleStructureURLMap> urlMaps = StructureFactory.findStructureURLMapPatterns();
-		StringBuilder masterRegEx = new StringBuilder();
-		boolean first = true;
-		patternsCache.clear();
-		for (SimpleStructureURLMap urlMap : urlMaps) {
-			PatternCache pc = new PatternCache();
-			String regEx = StructureUtil.generateRegExForURLMap(urlMap.getURLMapPattern());
-			// if we have an empty string, move on
-			if (!UtilMethods.isSet(regEx) || regEx.trim().length() < 3) {
-				continue;
-
-			}
-			pc.setRegEx(regEx);
-			pc.setStructureInode(urlMap.getInode());
-			pc.setURLpattern(urlMap.getURLMapPattern());
-			List<RegExMatch> fieldMathed = RegEX.find(urlMap.getURLMapPattern(), "{([^{}]+)}");
-			List<String> fields = new ArrayList<String>();
-			for (RegExMatch regExMatch : fieldMathed) {
-				fields.add(regExMatch.getGroups().get(0).getMatch());
-			}
-			pc.setFieldMatches(fields);
-			patternsCache.add(pc);
-			if (!first) {
-				masterRegEx.append("|");
-			}
-			masterRegEx.append(regEx);
-			first = false;
+	private void setURLMapAttributes(HttpServletRequest request, HttpSession optSession, String url, String identifier,
+			String inode, long contentLanguageId) throws DotDataException {
+		if(optSession !=null){
+			optSession.setAttribute(com.dotmarketing.util.WebKeys.HTMLPAGE_LANGUAGE,String.valueOf(contentLanguageId));
 		}
-		Collections.sort(this.patternsCache, new Comparator<PatternCache>() {
-			public int compare(PatternCache o1, PatternCache o2) {
-				String regex1 = o1.getRegEx();
-				String regex2 = o2.getRegEx();
-				if (!regex1.endsWith("/")) {
-					regex1 += "/";
-				}
-				if (!regex2.endsWith("/")) {
-					regex2 += "/";
-				}
-				int regExLength1 = getSlashCount(regex1);
-				int regExLength2 = getSlashCount(regex2);
-				if (regExLength1 < regExLength2) {
-					return 1;
-				} else if (regExLength1 > regExLength2) {
-					return -1;
-				} else {
-					return 0;
-				}
+		request.setAttribute(WebKeys.WIKI_CONTENTLET, identifier);
+		request.setAttribute(WebKeys.WIKI_CONTENTLET_INODE, inode);
+		request.setAttribute(WebKeys.CLICKSTREAM_IDENTIFIER_OVERRIDE, identifier);
+		request.setAttribute(WebKeys.WIKI_CONTENTLET_URL, url);
+		String[] x = url.split("/");
+		for(int i=0;i<x.length;i++){
+			if(UtilMethods.isSet(x[i])){
+				request.setAttribute("URL_ARG" + i, x[i]);
 			}
-		});
-		CacheLocator.getContentTypeCache().addURLMasterPattern(masterRegEx.toString());
-		return masterRegEx.toString();
-	}
-
-	private class PatternCache {
-		private String regEx;
-		private String structureInode;
-		private String URLpattern;
-		private List<String> fieldMatches;
-
-		public void setRegEx(String regEx) {
-			this.regEx = regEx;
-		}
-
-		public String getRegEx() {
-			return regEx;
-		}
-
-		public void setStructureInode(String structureInode) {
-			this.structureInode = structureInode;
-		}
-
-		public String getStructureInode() {
-			return structureInode;
-		}
-
-		public void setURLpattern(String uRLpattern) {
-			URLpattern = uRLpattern;
 		}
 
-		@SuppressWarnings("unused")
-		public String getURLpattern() {
-			return URLpattern;
-		}
+		//Check if we want to accrue the tags of URL maps
+		if ( Config.getBooleanProperty("ACCRUE_TAGS_IN_URLMAPS", true) ) {
 
-		public void setFieldMatches(List<String> fieldMatches) {
-			this.fieldMatches = fieldMatches;
+			//Search for the tags asocciated to this contentlet inode
+			List<Tag> contentletFoundTags = APILocator.getTagAPI().getTagsByInode(inode);
+			if ( contentletFoundTags != null ) {
+				//Accrue the found tags
+				TagUtil.accrueTags(request, contentletFoundTags);
+			}
 		}
+	}
 
-		public List<String> getFieldMatches() {
-			return fieldMatches;
-		}
+	/**
+	 * Builds the router of the URL maps. This method is called only when a
+	 * URL map is added or changed, and is marked as <code>synchronized</code>
+	 * to avoid data inconsistency. The URLs resolved with the previous
+	 * patterns are flushed from the {@link URLMapCache}.
+	 * 
+	 * @return The router, its master regex contains all the URL maps in the
+	 *         system.
+	 * @throws DotDataException
+	 *             An error occurred when retrieving information from the
+	 *             database.
+	 */
+	private synchronized URLMapRouter buildCacheObjects() throws DotDataException {
+		URLMapRouter urlMapRouter = new URLMapRouter(StructureFactory.findStructureURLMapPatterns());
+		router = urlMapRouter;
+		CacheLocator.getURLMapCache().clearCache();
+		CacheLocator.getContentTypeCache().addURLMasterPattern(urlMapRouter.getMasterRegEx());
+		return urlMapRouter;
 	}
-	
-	private int getSlashCount(String string){
-		int ret = 0;
-		if(UtilMethods.isSet(string)){
-			for(int i=0;i<string.length();i++){
-				if(string.charAt(i)=='/'){
-					ret+=1;
-				}
-			}
-		}
-		return ret;
+
+	/**
+	 * Returns the number of requests resolved through a URL map, their
+	 * average routing time and the hit ratio of the {@link URLMapCache}.
+	 */
+	public static Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<String, Object>();
+		long requests = routedRequests.get();
+		long hits = cacheHits.get();
+		long lookups = hits + cacheMisses.get();
+		stats.put("requests", requests);
+		stats.put("avgRoutingMicros", requests == 0 ? 0 : routingNanos.get() / requests / 1000);
+		stats.put("cacheHits", hits);
+		stats.put("cacheHitRatio", lookups == 0 ? 0d : (double) hits / lookups);
+		return stats;
 	}
 }
@@ -55,6 +55,39 @@ public interface DistributedJournalAPI<T> {
 	 *             An error occurred when interacting with the database.
 	 */
 	public List<IndexJournal<T>> findContentReindexEntriesToReindex(boolean includeFailedRecords) throws DotDataException;
+
+	/**
+	 * Claims up to the given number of re-index entries for the server the
+	 * code is executed on, without locking the table or calling the
+	 * {@code load_records_to_index} procedure: the entries are selected and
+	 * then assigned to the server only if no other server took them in the
+	 * meantime, so several servers can claim at the same time.
+	 * 
+	 * @param includeFailedRecords
+	 *            - If {@code true}, the records that failed to be re-indexed
+	 *            are claimed too.
+	 * @param recordsToFetch
+	 *            - The maximum number of records to claim.
+	 * @param identifierPrefixes
+	 *            - If set, only the records whose identifier starts with one
+	 *            of the prefixes are claimed.
+	 * @return The records claimed, with the time they were entered.
+	 * @throws DotDataException
+	 *             An error occurred when interacting with the database.
+	 */
+	public List<IndexJournal<T>> claimContentReindexEntries(boolean includeFailedRecords, int recordsToFetch, List<String> identifierPrefixes)
+			throws DotDataException;
+
+	/**
+	 * Makes the re-index entries claimed by the given server available again,
+	 * so the entries a server claimed but never indexed (e.g., because it
+	 * stopped before indexing them) are not lost.
+	 * 
+	 * @param serverId
+	 * @return The number of entries released.
+	 * @throws DotDataException
+	 */
+	public int releaseReindexEntriesForServer(String serverId) throws DotDataException;
 	
 	/**
 	 * Moves/process records from the dist_process table to the dist_journal table for all servers
@@ -8,6 +8,7 @@ import java.util.List;
 
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.business.FactoryLocator;
+import com.dotmarketing.common.reindex.ReindexQueue;
 import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
@@ -44,10 +45,12 @@ public class DistributedJournalAPIImpl<T> implements DistributedJournalAPI<T> {
 	
 	public void addStructureReindexEntries(T structureInode) throws DotDataException {
 		distFac.addStructureReindexEntries(structureInode);
+		ReindexQueue.getInstance().entriesAdded();
 	}
 	
 	public synchronized void addBuildNewIndexEntries() throws DotDataException {
 		distFac.addBuildNewIndexEntries();
+		ReindexQueue.getInstance().entriesAdded();
 	}
 	
 	public List<IndexJournal<T>> findContentReindexEntriesToReindex() throws DotDataException {
@@ -57,6 +60,15 @@ public class DistributedJournalAPIImpl<T> implements DistributedJournalAPI<T> {
 	public List<IndexJournal<T>> findContentReindexEntriesToReindex(boolean includeFailedRecords) throws DotDataException {
 		return distFac.findContentReindexEntriesToReindex(includeFailedRecords);
 	}
+
+	public List<IndexJournal<T>> claimContentReindexEntries(boolean includeFailedRecords, int recordsToFetch, List<String> identifierPrefixes)
+			throws DotDataException {
+		return distFac.claimContentReindexEntries(includeFailedRecords, recordsToFetch, identifierPrefixes);
+	}
+
+	public int releaseReindexEntriesForServer(String serverId) throws DotDataException {
+		return distFac.releaseReindexEntriesForServer(serverId);
+	}
 	
 	public void processJournalEntries() throws DotDataException {
 		distFac.processJournalEntries();
@@ -109,14 +121,17 @@ public class DistributedJournalAPIImpl<T> implements DistributedJournalAPI<T> {
 
 	public void refreshContentUnderHost(Host host) throws DotDataException {
 		distFac.refreshContentUnderHost(host);		
+		ReindexQueue.getInstance().entriesAdded();
 	}	
 	
 	public void refreshContentUnderFolder(Folder folder) throws DotDataException {
 		distFac.refreshContentUnderFolder(folder);
+		ReindexQueue.getInstance().entriesAdded();
 	}
 
 	public void refreshContentUnderFolderPath ( String hostId, String folderPath ) throws DotDataException {
 		distFac.refreshContentUnderFolderPath(hostId, folderPath);
+		ReindexQueue.getInstance().entriesAdded();
 	}
 
     public void deleteReindexEntryForServer(List<IndexJournal<T>> recordsToDelete) throws DotDataException {
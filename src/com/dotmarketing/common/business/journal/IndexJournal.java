@@ -1,5 +1,7 @@
 package com.dotmarketing.common.business.journal;
 
+import java.util.Date;
+
 public class IndexJournal<T> {
 
 	private long id;
@@ -9,6 +11,7 @@ public class IndexJournal<T> {
 	private boolean delete;
 	private String serverId;
 	private int count;
+	private Date timeEntered;
 	
 	public IndexJournal() {
 	}
@@ -116,7 +119,17 @@ public class IndexJournal<T> {
 	public void setCount(int count) {
 		this.count = count;
 	}
-	
-	
-	
+	/**
+	 * @return the time the record was entered in the journal
+	 */
+	public Date getTimeEntered() {
+		return timeEntered;
+	}
+	/**
+	 * @param timeEntered the time the record was entered in the journal
+	 */
+	public void setTimeEntered(Date timeEntered) {
+		this.timeEntered = timeEntered;
+	}
+
 }
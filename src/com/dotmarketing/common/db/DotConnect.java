@@ -15,6 +15,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.repackage.org.apache.commons.collections.map.LRUMap;
 import com.dotcms.repackage.org.apache.commons.lang.StringUtils;
@@ -34,9 +37,15 @@ import com.dotmarketing.util.Logger;
 public class DotConnect {
     
 	private static Map<Connection, Map<String, PreparedStatement>> stmts = new LRUMap(200);
+
+	private static final String[] STATEMENT_TYPES = { "select", "insert", "update", "delete", "call" };
+
+	private static final ConcurrentMap<String, StatementStats> statementStats = new ConcurrentHashMap<String, StatementStats>();
 	
 	ArrayList<Object> paramList;
 
+    List<List<Object>> batchParams;
+
     ArrayList<Object> results;
     
     List<Map<String, Object>> objectResults;
@@ -258,6 +267,7 @@ public class DotConnect {
         cursor = 0;
         gotResult = false;
         paramList = new ArrayList<Object>();
+        batchParams = null;
         SQL = x;
         startRow = 0;
         maxRows = -1;
@@ -601,6 +611,7 @@ public class DotConnect {
 	        }
 
 			long after = System.nanoTime();
+			recordExecution(SQL, after - before);
 			if((float)((after - before) / 1000000F) > 1000F) {
 				Logger.debug(this, "Somewhat slow query, " +
 						"total time: " + ((float)(after - before) / 1000000F) +
@@ -629,45 +640,7 @@ public class DotConnect {
 	            while (rs.next() && (maxRows <= 0 || i < maxRows)) {
 	                HashMap<String,String> vars = new HashMap<String,String>();
 	                HashMap<String,Object> objvars=new HashMap<String,Object>();
-	
-	                for (int j = 1; j <= rsmd.getColumnCount(); j++) {
-	                    String x = rsmd.getColumnLabel(j) + "";
-	                    try{
-		                    if ((rs.getString(x) == null) || rs.getString(x).equals("null")) {
-		                    	x=x.toLowerCase();
-		                    	vars.put(x, "");
-		                    	
-		                    	if(rs.getObject(x) instanceof java.sql.Clob){
-		                    		objvars.put(x, rs.getString(x));
-		                    	}else if( hasOracleDriver () && rs.getObject(x) instanceof oracle.sql.TIMESTAMP){
-		                    		objvars.put(x,new Date(((oracle.sql.TIMESTAMP) rs.getObject(x)).timeValue().getTime()));
-		                    	}
-		                    	else{
-		                    		objvars.put(x, rs.getObject(x));
-		                    	}
-		                    } else {
-		                    	x=x.toLowerCase();
-		                        vars.put(x, rs.getString(x) + "");
-		                        
-		                    	if(rs.getObject(x) instanceof java.sql.Clob){
-		                    		objvars.put(x, rs.getString(x));
-		                    	}else if( hasOracleDriver () && rs.getObject(x) instanceof oracle.sql.TIMESTAMP){
-		                    		objvars.put(x,new Date(((oracle.sql.TIMESTAMP) rs.getObject(x)).timestampValue().getTime()));
-		                    	}
-		                    	else{
-		                    		objvars.put(x, rs.getObject(x));
-		                    	}
-		                        
-		                        
-		                        //objvars.put(x, rs.getObject(x));
-		                    }
-	                    }catch (SQLException e) {
-							Logger.error(this, "This is usually caused by bad data in the db Setting RS column value to empty: " + e.getMessage(), e);
-							x=x.toLowerCase();
-							vars.put(x, "");
-							objvars.put(x,null);
-						}
-	                }
+	                readRow(rs, rsmd, vars, objvars);
 	                vars.put("rownumber", Integer.toString(i));
 	                objvars.put("rownumber", i);
 	                vars.put("oddoreven", Integer.toString((i % 2)));
@@ -686,6 +659,243 @@ public class DotConnect {
     }
     
     
+    /**
+     * Reads the columns of the current row of the result set, keyed by their
+     * lower cased label. The string values are only read when vars is given.
+     */
+    private void readRow(ResultSet rs, ResultSetMetaData rsmd, Map<String, String> vars, Map<String, Object> objvars) throws SQLException {
+        for (int j = 1; j <= rsmd.getColumnCount(); j++) {
+            String x = rsmd.getColumnLabel(j) + "";
+            try{
+                if ((rs.getString(x) == null) || rs.getString(x).equals("null")) {
+                	x=x.toLowerCase();
+                	if(vars != null) vars.put(x, "");
+
+                	if(rs.getObject(x) instanceof java.sql.Clob){
+                		objvars.put(x, rs.getString(x));
+                	}else if( hasOracleDriver () && rs.getObject(x) instanceof oracle.sql.TIMESTAMP){
+                		objvars.put(x,new Date(((oracle.sql.TIMESTAMP) rs.getObject(x)).timeValue().getTime()));
+                	}
+                	else{
+                		objvars.put(x, rs.getObject(x));
+                	}
+                } else {
+                	x=x.toLowerCase();
+                	if(vars != null) vars.put(x, rs.getString(x) + "");
+
+                	if(rs.getObject(x) instanceof java.sql.Clob){
+                		objvars.put(x, rs.getString(x));
+                	}else if( hasOracleDriver () && rs.getObject(x) instanceof oracle.sql.TIMESTAMP){
+                		objvars.put(x,new Date(((oracle.sql.TIMESTAMP) rs.getObject(x)).timestampValue().getTime()));
+                	}
+                	else{
+                		objvars.put(x, rs.getObject(x));
+                	}
+                }
+            }catch (SQLException e) {
+				Logger.error(this, "This is usually caused by bad data in the db Setting RS column value to empty: " + e.getMessage(), e);
+				x=x.toLowerCase();
+				if(vars != null) vars.put(x, "");
+				objvars.put(x,null);
+			}
+        }
+    }
+
+    /**
+     * Receives the rows of a query one at a time, see {@link DotConnect#loadObjectResults(RowHandler)}
+     */
+    public interface RowHandler {
+
+        /**
+         * @param row
+         *            - The columns of the row keyed by their lower cased name,
+         *            the same as in {@link DotConnect#loadObjectResults()}
+         * @return false to stop reading rows
+         */
+        boolean handle(Map<String, Object> row) throws DotDataException;
+    }
+
+    /**
+     * Runs the query and hands its rows to the handler as they are read,
+     * instead of loading all of them in memory. The driver fetches
+     * DOTCONNECT_FETCH_SIZE rows (500 by default) per round trip, keep in mind
+     * postgres only honors the fetch size when the connection is not in
+     * auto-commit mode. The start row and max rows are not applied, limit the
+     * query itself or stop from the handler.
+     *
+     * @param handler
+     * @return The number of rows handled
+     * @throws DotDataException
+     */
+    public int loadObjectResults(RowHandler handler) throws DotDataException {
+        return loadObjectResults(DbConnectionFactory.getConnection(), handler);
+    }
+
+    /**
+     * Same as {@link #loadObjectResults(RowHandler)} using the given connection.
+     */
+    public int loadObjectResults(Connection conn, RowHandler handler) throws DotDataException {
+        gotResult = true;
+        PreparedStatement statement = null;
+        ResultSet rs = null;
+        int rows = 0;
+        long before = System.nanoTime();
+        try {
+            statement = conn.prepareStatement(SQL);
+            statement.setFetchSize(Config.getIntProperty("DOTCONNECT_FETCH_SIZE", 500));
+            for (int i = 0; i < paramList.size(); i++) {
+                statement.setObject(i + 1, paramList.get(i));
+            }
+            rs = statement.executeQuery();
+            ResultSetMetaData rsmd = rs.getMetaData();
+            boolean more = true;
+            while (more && rs.next()) {
+                Map<String, Object> row = new HashMap<String, Object>();
+                readRow(rs, rsmd, null, row);
+                row.put("rownumber", rows);
+                row.put("oddoreven", (rows % 2));
+                rows++;
+                more = handler.handle(row);
+            }
+        } catch (SQLException e) {
+            throw new DotDataException(e.getMessage(), e);
+        } finally {
+            try { if (rs != null) rs.close(); } catch (Exception e) { }
+            try { if (statement != null) statement.close(); } catch (Exception e) { }
+            recordExecution(SQL, System.nanoTime() - before);
+        }
+        return rows;
+    }
+
+    /**
+     * Adds the params added since the last call as one more execution of the
+     * current SQL, to be run together by {@link #executeBatch()}.
+     */
+    public void addBatch() {
+        if (batchParams == null) {
+            batchParams = new ArrayList<List<Object>>();
+        }
+        batchParams.add(paramList);
+        paramList = new ArrayList<Object>();
+    }
+
+    /**
+     * Runs every execution added with {@link #addBatch()} through a single
+     * prepared statement, sending them to the database in JDBC batches of
+     * DOTCONNECT_BATCH_SIZE executions (500 by default).
+     *
+     * @return The update counts of the executions, in the order they were
+     *         added
+     * @throws DotDataException
+     */
+    public int[] executeBatch() throws DotDataException {
+        return executeBatch(DbConnectionFactory.getConnection());
+    }
+
+    /**
+     * Same as {@link #executeBatch()} using the given connection.
+     */
+    public int[] executeBatch(Connection conn) throws DotDataException {
+        List<List<Object>> executions = (batchParams != null) ? batchParams : new ArrayList<List<Object>>();
+        batchParams = null;
+        int[] counts = new int[executions.size()];
+        if (executions.isEmpty()) {
+            return counts;
+        }
+        int batchSize = Math.max(1, Config.getIntProperty("DOTCONNECT_BATCH_SIZE", 500));
+        PreparedStatement statement = null;
+        long before = System.nanoTime();
+        try {
+            statement = conn.prepareStatement(SQL);
+            int done = 0;
+            for (int i = 0; i < executions.size(); i++) {
+                List<Object> params = executions.get(i);
+                for (int j = 0; j < params.size(); j++) {
+                    statement.setObject(j + 1, params.get(j));
+                }
+                statement.addBatch();
+                if (i - done + 1 == batchSize || i == executions.size() - 1) {
+                    int[] batchCounts = statement.executeBatch();
+                    System.arraycopy(batchCounts, 0, counts, done, batchCounts.length);
+                    done = i + 1;
+                }
+            }
+        } catch (SQLException e) {
+            throw new DotDataException(e.getMessage(), e);
+        } finally {
+            try { if (statement != null) statement.close(); } catch (Exception e) { }
+            recordExecution(SQL, System.nanoTime() - before);
+        }
+        return counts;
+    }
+
+    private static void recordExecution(String sql, long nanos) {
+        String type = statementType(sql);
+        StatementStats typeStats = statementStats.get(type);
+        if (typeStats == null) {
+            StatementStats newStats = new StatementStats();
+            typeStats = statementStats.putIfAbsent(type, newStats);
+            if (typeStats == null) {
+                typeStats = newStats;
+            }
+        }
+        typeStats.record(nanos);
+    }
+
+    private static String statementType(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        String trimmed = sql.trim().toLowerCase();
+        for (String type : STATEMENT_TYPES) {
+            if (trimmed.startsWith(type)) {
+                return type;
+            }
+        }
+        return "other";
+    }
+
+    /**
+     * Returns the number of statements run through DotConnect and the time
+     * they took, by statement type (select, insert, update, delete, call,
+     * other). They are published as the org.dotcms:type=SqlStatements MBean.
+     */
+    public static Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new HashMap<String, Map<String, Object>>();
+        for (Map.Entry<String, StatementStats> entry : statementStats.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return stats;
+    }
+
+    private static class StatementStats {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        private Map<String, Object> toMap() {
+            long executions = count.get();
+            long total = totalNanos.get();
+            Map<String, Object> map = new HashMap<String, Object>();
+            map.put("count", executions);
+            map.put("totalMillis", total / 1000000F);
+            map.put("averageMillis", executions > 0 ? (total / executions) / 1000000F : 0F);
+            map.put("maxMillis", maxNanos.get() / 1000000F);
+            return map;
+        }
+    }
+    
+    
     /**
      * Returns the correct Concatenation SQL syntax for a particular RDBMS
      * @param elements
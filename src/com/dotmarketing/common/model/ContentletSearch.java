@@ -4,6 +4,7 @@ package com.dotmarketing.common.model;
 public class  ContentletSearch {
 	private String inode;
 	private String identifier;
+	private String hydrationSource;
 	float score;
 	public float getScore() {
 		return score;
@@ -23,5 +24,15 @@ public class  ContentletSearch {
 	public String getInode() {
 		return inode;
 	}
+	/**
+	 * Values of the contentlet kept in the index, when the index hydration is
+	 * enabled and the document was indexed with them
+	 */
+	public String getHydrationSource() {
+		return hydrationSource;
+	}
+	public void setHydrationSource(String hydrationSource) {
+		this.hydrationSource = hydrationSource;
+	}
 
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+package com.dotmarketing.common.reindex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import com.dotcms.content.elasticsearch.util.ESClient;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.common.business.journal.IndexJournal;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Pipelined processing of the records of the {@code dist_reindex_journal}
+ * table used by the {@link ReindexThread}. The records are split in chunks and
+ * the documents of every chunk are built on a pool of threads, each chunk is
+ * then sent to the index as a bulk request without waiting for the previous
+ * ones to finish.
+ * <p>
+ * The number of bulk requests in flight is bounded, and that limit is lowered
+ * every time Elasticsearch rejects a bulk request because its queues are full.
+ * It grows back, one request at a time, as bulk requests succeed. The records
+ * are handled exactly as in the sequential mode: they are deleted from the
+ * journal table only after they were indexed, and failed records get their
+ * priority bumped to be retried later.
+ * </p>
+ * <p>
+ * The pipeline is configured through the following properties:
+ * <ul>
+ * <li>{@code reindex.thread.pipelined}: enables the pipeline (default
+ * {@code false}).</li>
+ * <li>{@code reindex.thread.builders}: number of threads building documents
+ * (default is the number of processors).</li>
+ * <li>{@code reindex.thread.bulksize}: number of records per bulk request
+ * (default 50).</li>
+ * <li>{@code reindex.thread.maxbulkinflight}: maximum number of concurrent
+ * bulk requests (default 4).</li>
+ * <li>{@code reindex.thread.maxbackoff}: maximum milliseconds to wait
+ * before sending new bulk requests after the index rejected some (default
+ * 30000).</li>
+ * </ul>
+ * </p>
+ */
+public class ReindexPipeline {
+
+	private final ReindexThread reindexThread;
+	private final ExecutorService builders;
+	private final int bulkSize;
+	private final int builderCount;
+	private final int maxInFlight;
+	private final int delayOnError;
+	private final int maxBackoff;
+
+	private int inFlight = 0;
+	private int inFlightLimit;
+	private int successesSinceAdjust = 0;
+	private long backoffUntil = 0;
+	private final AtomicInteger rejections = new AtomicInteger();
+
+	public ReindexPipeline(ReindexThread reindexThread) {
+		this.reindexThread = reindexThread;
+		this.builderCount = Math.max(1, Config.getIntProperty("reindex.thread.builders", Runtime.getRuntime().availableProcessors()));
+		this.bulkSize = Math.max(1, Config.getIntProperty("reindex.thread.bulksize", 50));
+		this.maxInFlight = Math.max(1, Config.getIntProperty("reindex.thread.maxbulkinflight", 4));
+		this.delayOnError = Config.getIntProperty("reindex.thread.delayonerror", 500);
+		this.maxBackoff = Config.getIntProperty("reindex.thread.maxbackoff", 30000);
+		this.inFlightLimit = maxInFlight;
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.builders = Executors.newFixedThreadPool(builderCount, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "ReindexDocumentBuilder-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Returns the number of records that should be claimed from the journal
+	 * table on every cycle in order to keep all the document builders busy.
+	 *
+	 * @return The number of records per cycle.
+	 */
+	public int getRecordsPerCycle() {
+		return builderCount * bulkSize;
+	}
+
+	/**
+	 * Builds and sends to the index the documents of the given journal
+	 * records. This method returns once all the documents have been built and
+	 * their bulk requests sent, the responses are handled asynchronously.
+	 *
+	 * @param records
+	 *            - The records claimed from the journal table.
+	 */
+	public void process(List<IndexJournal<String>> records) {
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int i = 0; i < records.size(); i += bulkSize) {
+			final List<IndexJournal<String>> chunk = new ArrayList<IndexJournal<String>>(
+					records.subList(i, Math.min(i + bulkSize, records.size())));
+			futures.add(builders.submit(new Runnable() {
+				public void run() {
+					buildAndSend(chunk);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				Logger.error(this, "Interrupted while waiting for the document builders", e);
+				return;
+			} catch (ExecutionException e) {
+				Logger.error(this, "Unable to index records", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Builds the documents of a chunk of records in the current thread and
+	 * sends them as one bulk request.
+	 *
+	 * @param chunk
+	 *            - The records to index.
+	 */
+	private void buildAndSend(List<IndexJournal<String>> chunk) {
+		BulkRequestBuilder bulk = new ESClient().getClient().prepareBulk();
+		final List<IndexJournal<String>> recordsToDelete = new ArrayList<IndexJournal<String>>();
+		try {
+			List<IndexJournal<String>> batched = reindexThread.writeDocumentsToIndex(bulk, chunk);
+			recordsToDelete.addAll(batched);
+			for (IndexJournal<String> idx : chunk) {
+				if (batched.contains(idx)) {
+					continue;
+				}
+				try {
+					reindexThread.writeDocumentToIndex(bulk, idx);
+				} catch (Exception e) {
+					reindexThread.handleFailedRecord(idx, e);
+					continue;
+				}
+				recordsToDelete.add(idx);
+				reindexThread.sleepDuringIndex();
+			}
+		} finally {
+			try {
+				HibernateUtil.closeSession();
+			} catch (Exception e) {
+				Logger.debug(this, "Unable to close session : " + e.getMessage(), e);
+			}
+			try {
+				DbConnectionFactory.closeConnection();
+			} catch (Exception e) {
+				Logger.debug(this, "Unable to close connection : " + e.getMessage(), e);
+			}
+		}
+
+		if (bulk.numberOfActions() == 0) {
+			if (!recordsToDelete.isEmpty()) {
+				reindexThread.addRecordsToDelete(recordsToDelete);
+			}
+			return;
+		}
+
+		try {
+			acquireSlot();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			try {
+				// Make the records available again for the re-index process
+				APILocator.getDistributedJournalAPI().resetServerForReindexEntry(recordsToDelete);
+			} catch (DotDataException dataException) {
+				Logger.error(this, "Error adding back records to reindex queue", dataException);
+			}
+			return;
+		}
+
+		bulk.execute(reindexThread.createBulkListener(recordsToDelete, new ActionListener<BulkResponse>() {
+			public void onResponse(BulkResponse resp) {
+				releaseSlot(isRejected(resp));
+			}
+
+			public void onFailure(Throwable ex) {
+				releaseSlot(ExceptionsHelper.unwrapCause(ex) instanceof EsRejectedExecutionException);
+			}
+		}));
+	}
+
+	/**
+	 * Waits until a new bulk request can be sent to the index. A back-off that
+	 * starts while waiting for a free slot is waited for too.
+	 *
+	 * @throws InterruptedException
+	 *             The thread was interrupted while waiting.
+	 */
+	synchronized void acquireSlot() throws InterruptedException {
+		while (true) {
+			long wait = backoffUntil - System.currentTimeMillis();
+			if (wait > 0) {
+				wait(wait);
+			} else if (inFlight >= inFlightLimit) {
+				wait();
+			} else {
+				break;
+			}
+		}
+		inFlight++;
+	}
+
+	/**
+	 * Releases the slot of a finished bulk request, adapting the number of
+	 * allowed concurrent requests to the response of the index.
+	 *
+	 * @param rejected
+	 *            - {@code true} if the index rejected the request because it is
+	 *            overloaded.
+	 */
+	synchronized void releaseSlot(boolean rejected) {
+		inFlight--;
+		if (rejected) {
+			inFlightLimit = Math.max(1, inFlightLimit / 2);
+			successesSinceAdjust = 0;
+			// the delay grows with every rejection in a row, up to reindex.thread.maxbackoff
+			backoffUntil = System.currentTimeMillis() + Math.min(maxBackoff, delayOnError * (long) rejections.incrementAndGet());
+			Logger.warn(this, "Bulk request rejected by the index, reducing concurrent bulk requests to " + inFlightLimit);
+		} else {
+			rejections.set(0);
+			if (inFlightLimit < maxInFlight && ++successesSinceAdjust >= inFlightLimit) {
+				inFlightLimit++;
+				successesSinceAdjust = 0;
+			}
+		}
+		notifyAll();
+	}
+
+	boolean isRejected(BulkResponse resp) {
+		if (resp.hasFailures()) {
+			for (BulkItemResponse item : resp.getItems()) {
+				if (item.isFailed() && item.getFailureMessage() != null
+						&& item.getFailureMessage().contains(EsRejectedExecutionException.class.getSimpleName())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of bulk requests in flight.
+	 */
+	synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * Returns the number of concurrent bulk requests currently allowed.
+	 */
+	synchronized int getInFlightLimit() {
+		return inFlightLimit;
+	}
+
+	/**
+	 * Returns the milliseconds left before new bulk requests can be sent.
+	 */
+	synchronized long getBackoff() {
+		return Math.max(0, backoffUntil - System.currentTimeMillis());
+	}
+
+	/**
+	 * Stops the document builders.
+	 */
+	public void shutdown() {
+		builders.shutdown();
+	}
+
+}
@@ -0,0 +1,270 @@
+package com.dotmarketing.common.reindex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.ChainableCacheAdministratorImpl;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.common.business.journal.DistributedJournalAPI;
+import com.dotmarketing.common.business.journal.IndexJournal;
+import com.dotmarketing.db.FlushCacheRunnable;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Event driven access to the {@code dist_reindex_journal} table for the
+ * {@link ReindexThread}. Instead of polling the table, the thread waits on
+ * this queue and is woken up as soon as entries are added to the journal on
+ * this server, or on any other server of the cluster, which sends a
+ * {@link #WAKE_MESSAGE} through the cache transport. Polling is only kept, at
+ * the {@code reindex.thread.delay} rate, as a fallback for a missed message.
+ * <p>
+ * The entries are claimed in batches of {@code reindex.queue.batchsize}
+ * records (default 500) without any table lock or stored procedure. The work
+ * is partitioned across the servers of the cluster by the first character of
+ * the identifier (the identifiers being UUIDs, it works as a hash), so the
+ * servers don't compete for the same rows, and a server whose partition is
+ * empty takes entries from the rest, so the entries of a server that is gone
+ * are not left behind.
+ * </p>
+ * <p>
+ * The journal table is still the durable copy of the queue: entries are only
+ * deleted once indexed, and the entries a server claimed but never indexed
+ * are released when it starts again. {@code reindex.queue.enabled=false}
+ * brings back the {@code load_records_to_index} polling.
+ * </p>
+ */
+public class ReindexQueue {
+
+	public static final String WAKE_MESSAGE = "ReindexQueue.wake";
+
+	private static final List<String> HEX_DIGITS = Arrays.asList("0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "a", "b", "c",
+			"d", "e", "f");
+	private static final long SERVERS_REFRESH_MILLIS = 60 * 1000;
+	private static final ReindexQueue instance = new ReindexQueue();
+
+	private final Object signal = new Object();
+	private boolean signaled = false;
+	private final AtomicLong lastBroadcast = new AtomicLong();
+
+	private List<String> partition = null;
+	private long partitionTime = 0;
+
+	private final AtomicLong indexedRecords = new AtomicLong();
+	private volatile long lastLatency = 0;
+	private volatile long averageLatency = 0;
+	private volatile long maxLatency = 0;
+
+	public static ReindexQueue getInstance() {
+		return instance;
+	}
+
+	public boolean isEnabled() {
+		return Config.getBooleanProperty("reindex.queue.enabled", true);
+	}
+
+	public int getBatchSize() {
+		return Config.getIntProperty("reindex.queue.batchsize", 500);
+	}
+
+	/**
+	 * Wakes up the re-index thread of every server once the current
+	 * transaction commits, so the entries just added to the journal are
+	 * visible when they look for them.
+	 */
+	public void entriesAdded() {
+		if (!isEnabled()) {
+			return;
+		}
+		try {
+			HibernateUtil.addCommitListener(WAKE_MESSAGE, new FlushCacheRunnable() {
+				public void run() {
+					wake(true);
+				}
+			});
+		} catch (Exception e) {
+			Logger.debug(this, "Unable to wait for the commit, waking up the reindex thread now: " + e.getMessage(), e);
+			wake(true);
+		}
+	}
+
+	/**
+	 * Wakes up the re-index thread of this server.
+	 *
+	 * @param broadcast
+	 *            - If the rest of the servers of the cluster have to be woken
+	 *            up too. The messages are sent at most every
+	 *            {@code reindex.queue.broadcastinterval} milliseconds (250 by
+	 *            default): the entries added in between are taken by this
+	 *            server if the rest are already idle.
+	 */
+	public void wake(boolean broadcast) {
+		synchronized (signal) {
+			signaled = true;
+			signal.notifyAll();
+		}
+		if (broadcast) {
+			long now = System.currentTimeMillis();
+			long last = lastBroadcast.get();
+			if (now - last >= Config.getIntProperty("reindex.queue.broadcastinterval", 250) && lastBroadcast.compareAndSet(last, now)) {
+				DotCacheAdministrator cache = CacheLocator.getCacheAdministrator().getImplementationObject();
+				if (cache instanceof ChainableCacheAdministratorImpl && ((ChainableCacheAdministratorImpl) cache).isClusteringEnabled()) {
+					((ChainableCacheAdministratorImpl) cache).send(WAKE_MESSAGE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until entries are added to the journal or the timeout expires.
+	 *
+	 * @param timeout
+	 *            - The maximum time to wait, in milliseconds.
+	 * @throws InterruptedException
+	 */
+	public void await(long timeout) throws InterruptedException {
+		synchronized (signal) {
+			if (!signaled && timeout > 0) {
+				signal.wait(timeout);
+			}
+			signaled = false;
+		}
+	}
+
+	/**
+	 * Claims the next batch of entries for this server, the ones of its own
+	 * partition first.
+	 *
+	 * @param includeFailedRecords
+	 *            - If the records that failed to be re-indexed are claimed too.
+	 * @param recordsToFetch
+	 * @return The claimed records.
+	 * @throws DotDataException
+	 */
+	public List<IndexJournal<String>> claim(boolean includeFailedRecords, int recordsToFetch) throws DotDataException {
+		DistributedJournalAPI<String> jAPI = APILocator.getDistributedJournalAPI();
+		List<String> prefixes = getPartition();
+		List<IndexJournal<String>> records = new ArrayList<IndexJournal<String>>();
+		if (prefixes != null) {
+			records.addAll(jAPI.claimContentReindexEntries(includeFailedRecords, recordsToFetch, prefixes));
+		}
+		if (records.size() < recordsToFetch) {
+			records.addAll(jAPI.claimContentReindexEntries(includeFailedRecords, recordsToFetch - records.size(), null));
+		}
+		return records;
+	}
+
+	/**
+	 * Makes the entries this server claimed before it was stopped available
+	 * again.
+	 */
+	public void recover() {
+		try {
+			int released = APILocator.getDistributedJournalAPI().releaseReindexEntriesForServer(ConfigUtils.getServerId());
+			if (released > 0) {
+				Logger.info(this, "Released " + released + " reindex entries claimed by this server before it was stopped");
+				wake(true);
+			}
+		} catch (DotDataException e) {
+			Logger.error(this, "Unable to release the reindex entries of this server: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the identifier prefixes this server takes care of, or null if it
+	 * is the only server of the cluster.
+	 */
+	private synchronized List<String> getPartition() {
+		long now = System.currentTimeMillis();
+		if (now - partitionTime > SERVERS_REFRESH_MILLIS) {
+			partitionTime = now;
+			partition = null;
+			try {
+				List<String> servers = new ArrayList<String>(Arrays.asList(APILocator.getServerAPI().getAliveServersIds()));
+				Collections.sort(servers);
+				int index = servers.indexOf(ConfigUtils.getServerId());
+				if (servers.size() > 1 && index >= 0) {
+					partition = new ArrayList<String>();
+					for (int i = index; i < HEX_DIGITS.size(); i += servers.size()) {
+						partition.add(HEX_DIGITS.get(i));
+					}
+				}
+			} catch (DotDataException e) {
+				Logger.warn(this, "Unable to read the servers of the cluster, claiming reindex entries of any server: " + e.getMessage());
+			}
+		}
+		return partition;
+	}
+
+	/**
+	 * Records the time it took to index the given records since they were
+	 * added to the journal.
+	 *
+	 * @param records
+	 */
+	void recordsIndexed(List<IndexJournal<String>> records) {
+		long now = System.currentTimeMillis();
+		for (IndexJournal<String> record : records) {
+			if (record.getTimeEntered() == null) {
+				continue;
+			}
+			long latency = Math.max(0, now - record.getTimeEntered().getTime());
+			lastLatency = latency;
+			averageLatency = indexedRecords.getAndIncrement() == 0 ? latency : (averageLatency * 15 + latency) / 16;
+			if (latency > maxLatency) {
+				maxLatency = latency;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of entries waiting in the journal to be indexed,
+	 * including the ones being indexed.
+	 *
+	 * @throws DotDataException
+	 */
+	public long getDepth() throws DotDataException {
+		return APILocator.getDistributedJournalAPI().recordsLeftToIndexForServer();
+	}
+
+	/**
+	 * Returns the number of records indexed through the journal since the
+	 * server started.
+	 */
+	public long getIndexedRecords() {
+		return indexedRecords.get();
+	}
+
+	/**
+	 * Returns the time, in milliseconds, between a record being added to the
+	 * journal and being indexed, for the last record indexed.
+	 */
+	public long getLastLatency() {
+		return lastLatency;
+	}
+
+	/**
+	 * Returns the moving average of the time, in milliseconds, between a
+	 * record being added to the journal and being indexed.
+	 */
+	public long getAverageLatency() {
+		return averageLatency;
+	}
+
+	/**
+	 * Returns the longest time, in milliseconds, between a record being added
+	 * to the journal and being indexed since the server started.
+	 */
+	public long getMaxLatency() {
+		return maxLatency;
+	}
+
+}
@@ -10,6 +10,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.content.elasticsearch.business.ContentletIndexAPI;
 import com.dotcms.content.elasticsearch.util.ESClient;
@@ -75,6 +76,16 @@ import com.liferay.portal.model.User;
  * in the system anymore.</li>
  * </ul>
  * </p>
+ * <p>
+ * When the {@code reindex.thread.pipelined} property is enabled, the records
+ * are handed to a {@link ReindexPipeline}, which builds the documents on a
+ * pool of threads and keeps several bulk requests in flight at the same time.
+ * </p>
+ * <p>
+ * Unless {@code reindex.queue.enabled} is turned off, the records are claimed
+ * through the {@link ReindexQueue}, which wakes this thread up as soon as new
+ * records are added to the table in any server of the cluster.
+ * </p>
  * 
  * @author root
  * @version 3.3
@@ -99,13 +110,19 @@ public class ReindexThread extends Thread {
 	private int failedAttemptsCount = 0;
 	private boolean reindexSleepDuringIndex = false;
 	private int reindexSleepDuringIndexTime = 0;
+	private ReindexPipeline pipeline = null;
+
+	private final AtomicLong indexedDocuments = new AtomicLong();
+	private long rateSampleTime = System.currentTimeMillis();
+	private long rateSampleCount = 0;
+	private double documentsPerSecond = 0;
 
 	private void finish() {
 		work = false;
 		start = false;
 	}
 
-	private void addRecordsToDelete(List<IndexJournal<String>> records) {
+	void addRecordsToDelete(List<IndexJournal<String>> records) {
 	    synchronized(remoteDelQ) {
 	        remoteDelQ.addAll(records);
 	    }
@@ -247,11 +264,20 @@ public class ReindexThread extends Thread {
 				            }
 				        }
 					}
+					else if(!remoteQ.isEmpty() && pipeline != null) {
+					    wait=false;
+					    List<IndexJournal<String>> records = new ArrayList<>(remoteQ);
+					    remoteQ.clear();
+					    pipeline.process(records);
+					}
 					else if(!remoteQ.isEmpty()) {
 					    wait=false;
 					    Client client=new ESClient().getClient();
 						BulkRequestBuilder bulk=client.prepareBulk();
 						final ArrayList<IndexJournal<String>> recordsToDelete= new ArrayList<>();
+						List<IndexJournal<String>> batched = writeDocumentsToIndex(bulk, remoteQ);
+						recordsToDelete.addAll(batched);
+						remoteQ.removeAll(batched);
 						while(!remoteQ.isEmpty()) {
 
 							IndexJournal<String> idx = remoteQ.removeFirst();
@@ -260,43 +286,7 @@ public class ReindexThread extends Thread {
 								writeDocumentToIndex(bulk, idx);
 							} catch ( Exception e ) {
 
-								Logger.error(this, "Unable to index record with id [" + idx.getIdentToIndex() + "]", e);
-
-								//Counts the failed attempts when indexing and handles error notifications
-								addIndexingFailedAttempt();
-
-								try {
-									/*
-									Reset to null the server id of the failed records in the reindex journal table
-									in order to make them available again for the reindex process.
-									 */
-									List<IndexJournal<String>> failedRecords = new ArrayList<>();
-									failedRecords.add(idx);
-									jAPI.resetServerForReindexEntry(failedRecords);
-								} catch ( DotDataException dataException ) {
-									Logger.error(this, "Error adding back failed records to reindex queue", dataException);
-								}
-								// The total number of re-tries minus 1 will
-								// indicate the last opportunity of a record to
-								// be re-indexed.
-								int totalAttempts = (DistributedJournalFactory.REINDEX_JOURNAL_PRIORITY_FAILED_FIRST_ATTEMPT + DistributedJournalFactory.RETRY_FAILED_INDEX_TIMES);
-								String identToIndex = idx.getIdentToIndex();
-								if (!this.notifiedFailingRecords.contains(identToIndex) && idx.getPriority() >= totalAttempts) {
-									// The record was not able to be re-indexed,
-									// so a notification will be generated and
-									// the record will not be processed anymore
-									String msg = "Could not re-index record with the Identifier '"
-											+ identToIndex
-											+ "'. The record is in a bad state or can be associated to orphaned records. You can try running the Fix Assets Inconsistencies tool and re-start the reindex.";
-									sendNotification("notification.reindexing.error.processrecord", new Object[] { identToIndex }, msg);
-									this.notifiedFailingRecords.add(identToIndex);
-								}
-
-								try {
-									Thread.sleep(delayOnError);
-								} catch ( InterruptedException ie ) {
-									Logger.error(this, ie.getMessage(), ie);
-								}
+								handleFailedRecord(idx, e);
 
 								/*
 								This continue will avoid to remove this failed record from the index journal table so
@@ -308,152 +298,13 @@ public class ReindexThread extends Thread {
 							recordsToDelete.add(idx);
 
 							//If the REINDEX_SLEEP_DURING_INDEX was set
-							if ( reindexSleepDuringIndex ) {
-								try {
-									int sleepTime = getReindexSleepDuringIndexTime();
-									Thread.sleep(sleepTime);
-								} catch ( InterruptedException e ) {
-									Logger.error(this, e.getMessage(), e);
-								}
-							}
+							sleepDuringIndex();
 
 						}
 
 						HibernateUtil.closeSession();
 				        if(bulk.numberOfActions()>0) {
-				            bulk.execute(new ActionListener<BulkResponse>() {
-
-								void handleRecords (List<IndexJournal<String>> failedRecords) {
-
-									//List of records to delete from the reindex journal table
-									addRecordsToDelete(recordsToDelete);
-
-									try {
-										if ( failedRecords != null && !failedRecords.isEmpty() ) {
-											/*
-											Reset to null the server id of the failed records in the reindex journal table
-											in order to make them available again for the reindex process.
-											 */
-											jAPI.resetServerForReindexEntry(failedRecords);
-										}
-									} catch ( DotDataException e ) {
-										Logger.error(this, "Error adding back failed records to reindex queue", e);
-									}
-								}
-
-								public void onResponse ( BulkResponse resp ) {
-
-									//Handle failures on the re-index process if any
-									List<IndexJournal<String>> failedRecords = failureHandler(resp);
-
-									//Handle the processed records
-									handleRecords(failedRecords);
-								}
-
-								public void onFailure ( Throwable ex ) {
-
-									Logger.error(ReindexThread.class, "Indexing process failed", ex);
-
-									//Handle the processed records
-									handleRecords(null);
-
-									//Reset the failed attempts count as the onFailure will finish the indexing process
-									failedAttemptsCount = 0;
-								}
-
-								/**
-								 * Checks if we had failures when indexing, on failure we will retry the indexing process of the records that failed,
-								 * the process WON'T continue with failed records.
-								 *
-								 * @param resp
-								 */
-								private List<IndexJournal<String>> failureHandler ( BulkResponse resp ) {
-
-									//List of records that failed and will be added to the queue for more attempts
-									List<IndexJournal<String>> failedRecords = new ArrayList<>();
-
-									//Verify if we have failures to handle
-									if ( resp.hasFailures() && isWorking() ) {
-
-										Logger.error(this, "Error indexing content [" + resp.buildFailureMessage() + "]");
-
-										//Counts the failed attempts when indexing and handles error notifications
-										addIndexingFailedAttempt();
-
-										//Search for the failed items
-										for ( BulkItemResponse itemResponse : resp.getItems() ) {
-
-											//Check if the indexing process failed for this item
-											if ( itemResponse.isFailed() ) {
-
-												//Get the data of the failed record
-												String initialId = itemResponse.getId();
-												//Remove the language from the id in order to get just the inode/identifier
-												int languageIndex = initialId.lastIndexOf("_");
-												String failedId = initialId;
-												if ( languageIndex != -1 ) {
-													failedId = initialId.substring(0, languageIndex);
-												}
-
-												//Search the failed record into the list of records to delete
-												Iterator<IndexJournal<String>> toDeleteIterator = recordsToDelete.iterator();
-												while ( toDeleteIterator.hasNext() ) {
-
-													IndexJournal<String> indexToDelete = toDeleteIterator.next();
-													if ( indexToDelete.getInodeToIndex().equals(failedId) || indexToDelete.getIdentToIndex().equals(failedId) ) {
-
-														//Add it to the list of records that failed and needs to be added back to the reindex queue
-														if ( !exist(failedRecords, indexToDelete) ) {
-															failedRecords.add(indexToDelete);
-														}
-
-														/*
-														Remove the record from the list of contents to remove from the index journal table
-														as it indexing process failed and we want a re-try with those records.
-														 */
-														toDeleteIterator.remove();
-													}
-												}
-											}
-										}
-
-										if ( !failedRecords.isEmpty() ) {
-
-											Logger.error(this, "Reindex thread will try to re-index [" + String.valueOf(failedRecords.size()) + "] failed records.");
-
-											try {
-												Thread.sleep(delayOnError);
-											} catch ( InterruptedException e ) {
-												Logger.error(this, e.getMessage(), e);
-											}
-										}
-									}
-
-									return failedRecords;
-								}
-
-								/**
-								 * Checks if a given record already exist on a given list
-								 *
-								 * @param toRestore
-								 * @param toCompare
-								 * @return
-								 */
-								private boolean exist ( List<IndexJournal<String>> toRestore, IndexJournal<String> toCompare ) {
-
-									boolean exist = false;
-									for ( IndexJournal<String> current : toRestore ) {
-
-										if ( current.getId() == toCompare.getId() ) {
-											exist = true;
-											break;
-										}
-									}
-
-									return exist;
-								}
-
-							});
+				            bulk.execute(createBulkListener(recordsToDelete, null));
 				        }
 				        else if(recordsToDelete.size()>0) {
 				            addRecordsToDelete(recordsToDelete);
@@ -485,7 +336,11 @@ public class ReindexThread extends Thread {
 				// are in a full reindex fired by another server
 				if (wait && remoteQ.isEmpty()) {
 					try {
-						Thread.sleep(delay);
+						if (ReindexQueue.getInstance().isEnabled()) {
+							ReindexQueue.getInstance().await(delay);
+						} else {
+							Thread.sleep(delay);
+						}
 					} catch (InterruptedException e) {
 						Logger.error(this, e.getMessage(), e);
 					}
@@ -590,6 +445,12 @@ public class ReindexThread extends Thread {
 			instance.delay = Config.getIntProperty("reindex.thread.delay", 7500);
 			instance.delayOnError = Config.getIntProperty("reindex.thread.delayonerror", 500);
 			instance.reindexSleepDuringIndex = Config.getBooleanProperty("reindex.thread.reindexsleepduringindex", false);
+			if (Config.getBooleanProperty("reindex.thread.pipelined", false)) {
+				instance.pipeline = new ReindexPipeline(instance);
+			}
+			if (ReindexQueue.getInstance().isEnabled()) {
+				ReindexQueue.getInstance().recover();
+			}
 			instance.start();
 			int i = Config.getIntProperty("REINDEX_SLEEP_DURING_INDEX", 0);
 			if(i>0){
@@ -607,6 +468,9 @@ public class ReindexThread extends Thread {
 		if (instance!=null && instance.isAlive()) {
 			Logger.info(ReindexThread.class, "ReindexThread shutdown initiated");
 			instance.die=true;
+			if (instance.pipeline != null) {
+				instance.pipeline.shutdown();
+			}
 		} else {
 			Logger.warn(ReindexThread.class, "ReindexThread not running (or already shutting down)");
 		}
@@ -628,9 +492,24 @@ public class ReindexThread extends Thread {
 	}
 	
 	private void fillRemoteQ (boolean includeFailedRecords) throws DotDataException {
+	    if (ReindexQueue.getInstance().isEnabled()) {
+	        // the queue claims the records on a connection of its own
+	        int recordsToFetch = ReindexQueue.getInstance().getBatchSize();
+	        if (pipeline != null) {
+	            recordsToFetch = Math.max(recordsToFetch, pipeline.getRecordsPerCycle());
+	        }
+	        remoteQ.addAll(ReindexQueue.getInstance().claim(includeFailedRecords, recordsToFetch));
+	        return;
+	    }
 	    try {
 	        HibernateUtil.startTransaction();
-	        remoteQ.addAll(jAPI.findContentReindexEntriesToReindex(includeFailedRecords));
+	        List<IndexJournal<String>> records = jAPI.findContentReindexEntriesToReindex(includeFailedRecords);
+	        remoteQ.addAll(records);
+	        // The pipeline claims enough records to keep all of its document builders busy
+	        while (pipeline != null && !records.isEmpty() && remoteQ.size() < pipeline.getRecordsPerCycle()) {
+	            records = jAPI.findContentReindexEntriesToReindex(includeFailedRecords);
+	            remoteQ.addAll(records);
+	        }
 	        HibernateUtil.commitTransaction();
 	    }
 	    catch(Exception ex) {
@@ -641,18 +520,332 @@ public class ReindexThread extends Thread {
 	    }
 	}
 
-	@SuppressWarnings("unchecked")
-	private void writeDocumentToIndex(BulkRequestBuilder bulk, IndexJournal<String> idx) throws DotDataException, DotSecurityException {
+	/**
+	 * Creates the listener that handles the response of a bulk request sent
+	 * to the index. The records that were indexed successfully are queued to
+	 * be deleted from the {@code dist_reindex_journal} table, and the ones
+	 * that failed are made available again for the re-index process.
+	 * 
+	 * @param recordsToDelete
+	 *            - The journal records included in the bulk request.
+	 * @param delegate
+	 *            - An optional listener that will be notified after the records
+	 *            have been handled.
+	 * @return The listener for the bulk request.
+	 */
+	ActionListener<BulkResponse> createBulkListener(final List<IndexJournal<String>> recordsToDelete,
+			final ActionListener<BulkResponse> delegate) {
+		return new ActionListener<BulkResponse>() {
+
+			void handleRecords (List<IndexJournal<String>> failedRecords) {
+
+				//List of records to delete from the reindex journal table
+				addRecordsToDelete(recordsToDelete);
+				indexedDocuments.addAndGet(recordsToDelete.size());
+				ReindexQueue.getInstance().recordsIndexed(recordsToDelete);
+
+				try {
+					if ( failedRecords != null && !failedRecords.isEmpty() ) {
+						/*
+						Reset to null the server id of the failed records in the reindex journal table
+						in order to make them available again for the reindex process.
+						 */
+						jAPI.resetServerForReindexEntry(failedRecords);
+					}
+				} catch ( DotDataException e ) {
+					Logger.error(this, "Error adding back failed records to reindex queue", e);
+				}
+			}
+
+			public void onResponse ( BulkResponse resp ) {
+
+				//Handle failures on the re-index process if any
+				List<IndexJournal<String>> failedRecords = failureHandler(resp);
+
+				//Handle the processed records
+				handleRecords(failedRecords);
+
+				if ( delegate != null ) {
+					delegate.onResponse(resp);
+				}
+			}
+
+			public void onFailure ( Throwable ex ) {
+
+				Logger.error(ReindexThread.class, "Indexing process failed", ex);
+
+				/*
+				Nothing of the request was indexed (e.g., the index rejected it because it is overloaded), so the records
+				are not deleted but made available again in the reindex journal table to be retried.
+				 */
+				try {
+					jAPI.resetServerForReindexEntry(recordsToDelete);
+				} catch ( DotDataException e ) {
+					Logger.error(this, "Error adding back failed records to reindex queue", e);
+				}
+
+				//Reset the failed attempts count as the onFailure will finish the indexing process
+				failedAttemptsCount = 0;
+
+				if ( delegate != null ) {
+					delegate.onFailure(ex);
+				}
+			}
+
+			/**
+			 * Checks if we had failures when indexing, on failure we will retry the indexing process of the records that failed,
+			 * the process WON'T continue with failed records.
+			 *
+			 * @param resp
+			 */
+			private List<IndexJournal<String>> failureHandler ( BulkResponse resp ) {
+
+				//List of records that failed and will be added to the queue for more attempts
+				List<IndexJournal<String>> failedRecords = new ArrayList<>();
+
+				//Verify if we have failures to handle
+				if ( resp.hasFailures() && isWorking() ) {
+
+					Logger.error(this, "Error indexing content [" + resp.buildFailureMessage() + "]");
+
+					//Counts the failed attempts when indexing and handles error notifications
+					addIndexingFailedAttempt();
+
+					//Search for the failed items
+					for ( BulkItemResponse itemResponse : resp.getItems() ) {
+
+						//Check if the indexing process failed for this item
+						if ( itemResponse.isFailed() ) {
+
+							//Get the data of the failed record
+							String initialId = itemResponse.getId();
+							//Remove the language from the id in order to get just the inode/identifier
+							int languageIndex = initialId.lastIndexOf("_");
+							String failedId = initialId;
+							if ( languageIndex != -1 ) {
+								failedId = initialId.substring(0, languageIndex);
+							}
+
+							//Search the failed record into the list of records to delete
+							Iterator<IndexJournal<String>> toDeleteIterator = recordsToDelete.iterator();
+							while ( toDeleteIterator.hasNext() ) {
+
+								IndexJournal<String> indexToDelete = toDeleteIterator.next();
+								if ( indexToDelete.getInodeToIndex().equals(failedId) || indexToDelete.getIdentToIndex().equals(failedId) ) {
+
+									//Add it to the list of records that failed and needs to be added back to the reindex queue
+									if ( !exist(failedRecords, indexToDelete) ) {
+										failedRecords.add(indexToDelete);
+									}
+
+									/*
+									Remove the record from the list of contents to remove from the index journal table
+									as it indexing process failed and we want a re-try with those records.
+									 */
+									toDeleteIterator.remove();
+								}
+							}
+						}
+					}
+
+					if ( !failedRecords.isEmpty() ) {
+
+						Logger.error(this, "Reindex thread will try to re-index [" + String.valueOf(failedRecords.size()) + "] failed records.");
+
+						try {
+							Thread.sleep(delayOnError);
+						} catch ( InterruptedException e ) {
+							Logger.error(this, e.getMessage(), e);
+						}
+					}
+				}
+
+				return failedRecords;
+			}
+
+			/**
+			 * Checks if a given record already exist on a given list
+			 *
+			 * @param toRestore
+			 * @param toCompare
+			 * @return
+			 */
+			private boolean exist ( List<IndexJournal<String>> toRestore, IndexJournal<String> toCompare ) {
+
+				boolean exist = false;
+				for ( IndexJournal<String> current : toRestore ) {
+
+					if ( current.getId() == toCompare.getId() ) {
+						exist = true;
+						break;
+					}
+				}
+
+				return exist;
+			}
+		};
+	}
+
+	/**
+	 * Handles a journal record that could not be added to a bulk request. The
+	 * record is made available again for the re-index process with a higher
+	 * priority and, if it already used all of its attempts, a notification is
+	 * sent to the user.
+	 * 
+	 * @param idx
+	 *            - The journal record that failed.
+	 * @param e
+	 *            - The cause of the failure.
+	 */
+	void handleFailedRecord(IndexJournal<String> idx, Exception e) {
+
+		Logger.error(this, "Unable to index record with id [" + idx.getIdentToIndex() + "]", e);
+
+		//Counts the failed attempts when indexing and handles error notifications
+		addIndexingFailedAttempt();
+
+		try {
+			/*
+			Reset to null the server id of the failed records in the reindex journal table
+			in order to make them available again for the reindex process.
+			 */
+			List<IndexJournal<String>> failedRecords = new ArrayList<>();
+			failedRecords.add(idx);
+			jAPI.resetServerForReindexEntry(failedRecords);
+		} catch ( DotDataException dataException ) {
+			Logger.error(this, "Error adding back failed records to reindex queue", dataException);
+		}
+		// The total number of re-tries minus 1 will
+		// indicate the last opportunity of a record to
+		// be re-indexed.
+		int totalAttempts = (DistributedJournalFactory.REINDEX_JOURNAL_PRIORITY_FAILED_FIRST_ATTEMPT + DistributedJournalFactory.RETRY_FAILED_INDEX_TIMES);
+		String identToIndex = idx.getIdentToIndex();
+		if (!this.notifiedFailingRecords.contains(identToIndex) && idx.getPriority() >= totalAttempts) {
+			// The record was not able to be re-indexed,
+			// so a notification will be generated and
+			// the record will not be processed anymore
+			String msg = "Could not re-index record with the Identifier '"
+					+ identToIndex
+					+ "'. The record is in a bad state or can be associated to orphaned records. You can try running the Fix Assets Inconsistencies tool and re-start the reindex.";
+			try {
+				sendNotification("notification.reindexing.error.processrecord", new Object[] { identToIndex }, msg);
+			} catch ( DotDataException | LanguageException ne ) {
+				Logger.error(this, "Error creating a system notification informing about a failed record.", ne);
+			}
+			this.notifiedFailingRecords.add(identToIndex);
+		}
+
+		try {
+			Thread.sleep(delayOnError);
+		} catch ( InterruptedException ie ) {
+			Logger.error(this, ie.getMessage(), ie);
+		}
+	}
+
+	/**
+	 * Pauses the current thread between indexed records when the
+	 * {@code REINDEX_SLEEP_DURING_INDEX} property is set.
+	 */
+	void sleepDuringIndex() {
+		if ( reindexSleepDuringIndex ) {
+			try {
+				int sleepTime = getReindexSleepDuringIndexTime();
+				Thread.sleep(sleepTime);
+			} catch ( InterruptedException e ) {
+				Logger.error(this, e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of documents per second that were successfully
+	 * written to the index since the last time this method was called, with
+	 * a minimum sampling period of one second.
+	 * 
+	 * @return The re-index throughput.
+	 */
+	public synchronized double getDocumentsPerSecond() {
+		long now = System.currentTimeMillis();
+		long elapsed = now - rateSampleTime;
+		if ( elapsed >= 1000 ) {
+			long count = indexedDocuments.get();
+			documentsPerSecond = (count - rateSampleCount) * 1000d / elapsed;
+			rateSampleTime = now;
+			rateSampleCount = count;
+		}
+		return documentsPerSecond;
+	}
+
+	void writeDocumentToIndex(BulkRequestBuilder bulk, IndexJournal<String> idx) throws DotDataException, DotSecurityException {
 	    Logger.debug(this, "Indexing document "+idx.getIdentToIndex());
 	    System.setProperty("IN_FULL_REINDEX", "true");
-	    
+
+        for(Contentlet con : loadContentlets(idx.getIdentToIndex())) {
+            if(idx.isDelete() && idx.getIdentToIndex().equals(con.getIdentifier()))
+                // we delete contentlets from the identifier pointed on index journal record
+                // its dependencies are reindexed in order to update its relationships fields
+                indexAPI.removeContentFromIndex(con);
+            else
+                indexAPI.addContentToIndex(con,false,true,indexAPI.isInFullReindex(),bulk);
+        }
+	}
+	
+	/**
+	 * Writes the documents of several journal records to the bulk request,
+	 * building all of them in one batch. Records deleting content are left
+	 * out, and so are all the records if the batch fails, those have to be
+	 * written one by one with
+	 * {@link #writeDocumentToIndex(BulkRequestBuilder, IndexJournal)} so the
+	 * failing ones can be told apart.
+	 *
+	 * @param bulk
+	 *            - The bulk request the documents are added to.
+	 * @param records
+	 *            - The journal records to index.
+	 * @return The records whose documents were added to the bulk request.
+	 */
+	List<IndexJournal<String>> writeDocumentsToIndex(BulkRequestBuilder bulk, List<IndexJournal<String>> records) {
+		List<IndexJournal<String>> batched = new ArrayList<>();
+		// one record at a time when the indexing is being throttled
+		if (reindexSleepDuringIndex) {
+			return batched;
+		}
+		for (IndexJournal<String> idx : records) {
+			if (!idx.isDelete()) {
+				batched.add(idx);
+			}
+		}
+		if (batched.size() < 2) {
+			return new ArrayList<>();
+		}
+
+		System.setProperty("IN_FULL_REINDEX", "true");
+		try {
+			List<Contentlet> contentlets = new ArrayList<>();
+			for (IndexJournal<String> idx : batched) {
+				contentlets.addAll(loadContentlets(idx.getIdentToIndex()));
+			}
+			indexAPI.indexContentList(contentlets, bulk, indexAPI.isInFullReindex());
+			return batched;
+		} catch (Exception e) {
+			Logger.debug(this, "Unable to index " + batched.size() + " records in one batch, indexing them one by one: " + e.getMessage());
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Loads the working and live versions, in all languages, of the content
+	 * with the given identifier.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Contentlet> loadContentlets(String identifier) throws DotDataException, DotSecurityException {
 	    String sql = "select working_inode,live_inode from contentlet_version_info where identifier=?";
-	    
+
         DotConnect dc = new DotConnect();
         dc.setSQL(sql);
-        dc.addParam(idx.getIdentToIndex());
+        dc.addParam(identifier);
         List<Map<String,String>> ret = dc.loadResults();
-        List<String> inodes = new ArrayList<String>(); 
+        List<String> inodes = new ArrayList<String>();
         for(Map<String,String> m : ret) {
         	String workingInode = m.get("working_inode");
         	String liveInode = m.get("live_inode");
@@ -661,20 +854,15 @@ public class ReindexThread extends Thread {
         		inodes.add(liveInode);
         	}
         }
+        List<Contentlet> contentlets = new ArrayList<Contentlet>();
         for(String inode : inodes) {
-            Contentlet con = FactoryLocator.getContentletFactory().convertFatContentletToContentlet(
+            contentlets.add(FactoryLocator.getContentletFactory().convertFatContentletToContentlet(
                     (com.dotmarketing.portlets.contentlet.business.Contentlet)
-                        HibernateUtil.load(com.dotmarketing.portlets.contentlet.business.Contentlet.class, inode));
-            
-            if(idx.isDelete() && idx.getIdentToIndex().equals(con.getIdentifier()))
-                // we delete contentlets from the identifier pointed on index journal record
-                // its dependencies are reindexed in order to update its relationships fields
-                indexAPI.removeContentFromIndex(con);
-            else
-                indexAPI.addContentToIndex(con,false,true,indexAPI.isInFullReindex(),bulk);
+                        HibernateUtil.load(com.dotmarketing.portlets.contentlet.business.Contentlet.class, inode)));
         }
+        return contentlets;
 	}
-	
+
 	int threadsPausing = 0;
 
 	public synchronized void pause() {
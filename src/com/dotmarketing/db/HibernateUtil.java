@@ -22,6 +22,7 @@ import java.util.jar.JarFile;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.client.Client;
 
+import com.dotcms.content.elasticsearch.business.IndiciesAPI.IndiciesInfo;
 import com.dotcms.content.elasticsearch.util.ESClient;
 import com.dotcms.repackage.net.sf.hibernate.*;
 import com.dotcms.repackage.net.sf.hibernate.cfg.Configuration;
@@ -740,6 +741,33 @@ public class HibernateUtil {
 		}
 	}
 
+	/**
+	 * Commits the transaction of the current thread like {@link #commitTransaction()}, but instead of running its
+	 * commit listeners (reindexing the saved contentlets, flushing caches) adds them to the given map, so the
+	 * listeners of several transactions can be run together by {@link #finalizeCommitListeners(Map)}.
+	 *
+	 * @param deferredListeners The listeners of the transactions already committed
+	 */
+	public static boolean commitTransaction(Map<String, DotRunnable> deferredListeners) throws DotHibernateException {
+		Map<String, DotRunnable> listeners = new LinkedHashMap<String, DotRunnable>(commitListeners.get());
+		commitListeners.get().clear();
+		commitTransaction();
+		deferredListeners.putAll(listeners);
+		return true;
+	}
+
+	/**
+	 * Runs the commit listeners of transactions already committed by {@link #commitTransaction(Map)}, indexing
+	 * their contentlets in batches of INDEX_COMMIT_LISTENER_BATCH_SIZE.
+	 *
+	 * @param listeners
+	 * @throws DotDataException
+	 */
+	public static void finalizeCommitListeners(Map<String, DotRunnable> listeners) throws DotDataException {
+		commitListeners.get().putAll(listeners);
+		finalizeCommitListeners();
+	}
+
 	private static void finalizeCommitListeners() throws DotDataException{
 		
 		List<DotRunnable> listeners = new ArrayList<DotRunnable>(commitListeners.get().values());
@@ -750,6 +778,7 @@ public class HibernateUtil {
 		
 		
 		List<List<Contentlet>> listOfLists = new ArrayList<List<Contentlet>>();
+		List<DotRunnable> indexedListeners = new ArrayList<DotRunnable>();
 		int batchSize = Config.getIntProperty("INDEX_COMMIT_LISTENER_BATCH_SIZE", 50);
 		
 		
@@ -757,6 +786,9 @@ public class HibernateUtil {
 			if(runner instanceof FlushCacheRunnable){
 				runner.run();
 			}
+			else if(runner instanceof IndexedRunnable){
+				indexedListeners.add(runner);
+			}
 			else if(runner instanceof ReindexRunnable){
 				ReindexRunnable rrunner = (ReindexRunnable) runner;
 				if(rrunner.getAction().equals(ReindexRunnable.Action.REMOVING)){
@@ -782,6 +814,20 @@ public class HibernateUtil {
 			
 			new ReindexRunnable(batchList, ReindexRunnable.Action.ADDING, null, false) {}.run();
 		}
+
+		if(!indexedListeners.isEmpty()) {
+			// the listeners need the content searchable, not only sent to the index
+			try {
+				IndiciesInfo info=APILocator.getIndiciesAPI().loadIndicies();
+				new ESClient().getClient().admin().indices().prepareRefresh(info.working, info.live).execute().actionGet();
+			}
+			catch(Exception e) {
+				Logger.warn(HibernateUtil.class, "Unable to refresh the indexes: "+e.getMessage(), e);
+			}
+			for(DotRunnable runner : indexedListeners){
+				runner.run();
+			}
+		}
 		
 
 	}
@@ -0,0 +1,11 @@
+package com.dotmarketing.db;
+
+/**
+ * Commit listener run once the contentlets saved in the transaction were
+ * indexed and the indexes refreshed, so a search run from it already finds
+ * them. Used to invalidate caches built from search results, invalidating them
+ * before would let a search of the old index cache them again.
+ */
+public abstract class IndexedRunnable extends DotRunnable {
+
+}
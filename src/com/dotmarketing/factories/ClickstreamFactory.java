@@ -25,6 +25,7 @@ import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.listeners.ClickstreamListener;
+import com.dotmarketing.loggers.ClickstreamQueue;
 import com.dotmarketing.loggers.DatabaseClickstreamLogger;
 import com.dotmarketing.util.BotChecker;
 import com.dotmarketing.util.Config;
@@ -190,7 +191,9 @@ public class ClickstreamFactory {
 	}
 
 	/**
-	 * This method forces a clickstream save
+	 * This method forces a clickstream save. The clickstream is queued to be
+	 * saved in the background by the {@link ClickstreamQueue}, unless
+	 * CLICKSTREAM_ASYNC_WRITES is false.
 	 *
 	 * @param stream
 	 */
@@ -199,12 +202,15 @@ public class ClickstreamFactory {
 			
 			int minToLog = Config.getIntProperty("MIN_CLICKSTREAM_REQUESTS_TO_SAVE", 2);
 			
-			DatabaseClickstreamLogger dblogger = new DatabaseClickstreamLogger();
 			try {
 				if (stream != null 
 						&& stream.getClickstreamRequests() != null 
 						&& stream.getClickstreamRequests().size() >= minToLog) {
-					dblogger.log(stream);
+					if (Config.getBooleanProperty("CLICKSTREAM_ASYNC_WRITES", true)) {
+						ClickstreamQueue.getInstance().add(stream);
+					} else {
+						new DatabaseClickstreamLogger().log(stream);
+					}
 				}
 			} catch (Exception e) {
 				Logger.error(ClickstreamListener.class, e.getMessage(), e);
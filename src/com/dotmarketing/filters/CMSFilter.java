@@ -111,14 +111,10 @@ public class CMSFilter implements Filter {
 
 
 
-		if (urlUtil.isFileAsset(uri, host, languageId)) {
-			iAm= IAm.FILE;
-		} else if (urlUtil.isVanityUrl(uri, host)) {
+		// a single cached lookup, a vanity URL takes precedence over anything but a file
+		iAm = urlUtil.resolveAsset(uri, host, languageId);
+		if (iAm != IAm.FILE && urlUtil.isVanityUrl(uri, host)) {
 			iAm = IAm.VANITY_URL;
-		} else if (urlUtil.isPageAsset(uri, host, languageId)) {
-			iAm = IAm.PAGE;
-		} else if (urlUtil.isFolder(uri, host)) {
-			iAm = IAm.FOLDER;
 		}
 
 		String rewrite = null;
@@ -145,12 +141,9 @@ public class CMSFilter implements Filter {
 						queryString= arr[1];
 					}
 				}
-				if (urlUtil.isFileAsset(rewrite, host, languageId)) {
-					iAm= IAm.FILE;
-				} else if (urlUtil.isPageAsset(rewrite, host, languageId)) {
-					iAm = IAm.PAGE;
-				} else if (urlUtil.isFolder(rewrite, host)) {
-					iAm = IAm.FOLDER;
+				IAm rewriteIAm = urlUtil.resolveAsset(rewrite, host, languageId);
+				if (rewriteIAm != IAm.NOTHING_IN_THE_CMS) {
+					iAm = rewriteIAm;
 				}
 			}
 		}
@@ -0,0 +1,28 @@
+package com.dotmarketing.filters;
+
+import com.dotmarketing.business.Cachable;
+
+/**
+ * Cache of what the URIs requested to the {@link CMSFilter} are in the CMS: a
+ * file, a page, a folder or nothing at all, keyed by host, URI and language.
+ * URIs that are nothing in the CMS are cached as well, so repeated requests to
+ * missing URIs don't hit the identifier and content APIs again. Vanity URLs are
+ * not part of it, they are resolved from the
+ * {@link com.dotmarketing.cache.VirtualLinksCache}.
+ */
+public abstract class CmsUrlCache implements Cachable {
+
+    /**
+     * Returns what the URI is for the given language, or null if it is not
+     * cached.
+     */
+    abstract CMSFilter.IAm get(String hostId, String uri, long languageId);
+
+    abstract void add(String hostId, String uri, long languageId, CMSFilter.IAm iAm);
+
+    /**
+     * Removes the URI, for all the languages, along with its folder variant
+     * ending with a slash.
+     */
+    public abstract void remove(String hostId, String uri);
+}
@@ -0,0 +1,79 @@
+package com.dotmarketing.filters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.business.DotCacheException;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+
+public class CmsUrlCacheImpl extends CmsUrlCache {
+
+    protected final DotCacheAdministrator cache;
+    protected final String group="CmsUrlCache";
+    protected final String[] groups={group};
+
+    public CmsUrlCacheImpl() {
+        cache = CacheLocator.getCacheAdministrator();
+    }
+
+    @Override
+    public String getPrimaryGroup() {
+        return group;
+    }
+
+    @Override
+    public String[] getGroups() {
+        return groups;
+    }
+
+    @Override
+    public void clearCache() {
+        cache.flushGroup(group);
+    }
+
+    protected String buildKey(String hostId, String uri) {
+        return hostId+":"+uri;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<Long, CMSFilter.IAm> getLanguages(String key) {
+        try {
+            return (Map<Long, CMSFilter.IAm>)cache.get(key, group);
+        }
+        catch(DotCacheException ex) {
+            Logger.debug(this, "cache entry not found: "+key, ex);
+        }
+        return null;
+    }
+
+    @Override
+    CMSFilter.IAm get(String hostId, String uri, long languageId) {
+        Map<Long, CMSFilter.IAm> languages=getLanguages(buildKey(hostId, uri));
+        return languages!=null ? languages.get(languageId) : null;
+    }
+
+    @Override
+    void add(String hostId, String uri, long languageId, CMSFilter.IAm iAm) {
+        String key=buildKey(hostId, uri);
+        // copy on write, the cached map could be being read by other requests
+        Map<Long, CMSFilter.IAm> languages=getLanguages(key);
+        languages = languages!=null ? new HashMap<Long, CMSFilter.IAm>(languages) : new HashMap<Long, CMSFilter.IAm>();
+        languages.put(languageId, iAm);
+        cache.put(key, languages, group);
+    }
+
+    @Override
+    public void remove(String hostId, String uri) {
+        if(!UtilMethods.isSet(hostId) || !UtilMethods.isSet(uri)) {
+            return;
+        }
+        cache.remove(buildKey(hostId, uri), group);
+        if(!uri.endsWith("/")) {
+            cache.remove(buildKey(hostId, uri+"/"), group);
+        }
+    }
+
+}
@@ -3,11 +3,13 @@ package com.dotmarketing.filters;
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.beans.Identifier;
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.PermissionAPI;
 import com.dotmarketing.business.Versionable;
 import com.dotmarketing.cache.VirtualLinksCache;
 import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.contentlet.model.ContentletVersionInfo;
 import com.dotmarketing.portlets.languagesmanager.model.Language;
@@ -17,11 +19,18 @@ import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
 import com.liferay.portal.model.User;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class CmsUrlUtil {
 	private static CmsUrlUtil urlUtil;
 
+	private static final AtomicLong cacheHits = new AtomicLong();
+	private static final AtomicLong cacheMisses = new AtomicLong();
+	private static final AtomicLong notFoundHits = new AtomicLong();
+
 	public static CmsUrlUtil getInstance() {
 		if (urlUtil == null) {
 
@@ -50,73 +59,129 @@ public class CmsUrlUtil {
 		}
 
 	}
-	public boolean isPageAsset(String uri, Host host, Long languageId) {
-		Identifier id;
-		if(!UtilMethods.isSet(uri)){
-			return false;
+	/**
+	 * Returns what the URI is in the CMS, checking if it is a file, a page or a
+	 * folder, in that order. Vanity URLs are left out, see
+	 * {@link #isVanityUrl(String, Host)}. The result is cached per host, URI
+	 * and language, URIs that are nothing in the CMS included. A lookup that
+	 * fails is answered as nothing in the CMS but never cached, so a
+	 * transient error doesn't hide the URI until the cache is flushed.
+	 */
+	CMSFilter.IAm resolveAsset(String uri, Host host, Long languageId) {
+		if (host == null || languageId == null || !UtilMethods.isSet(uri)) {
+			try {
+				return lookupAsset(uri, host, languageId);
+			} catch (Exception e) {
+				Logger.error(this.getClass(), "Unable to find " + uri + ": " + e.getMessage(), e);
+				return CMSFilter.IAm.NOTHING_IN_THE_CMS;
+			}
 		}
+		CmsUrlCache cache = CacheLocator.getCmsUrlCache();
+		CMSFilter.IAm iAm = cache.get(host.getIdentifier(), uri, languageId);
+		if (iAm != null) {
+			cacheHits.incrementAndGet();
+			if (iAm == CMSFilter.IAm.NOTHING_IN_THE_CMS) {
+				notFoundHits.incrementAndGet();
+			}
+			return iAm;
+		}
+		cacheMisses.incrementAndGet();
 		try {
-			id = APILocator.getIdentifierAPI().find(host, uri);
+			iAm = lookupAsset(uri, host, languageId);
 		} catch (Exception e) {
-			Logger.error(this.getClass(), "Unable to find" + uri);
+			Logger.error(this.getClass(), "Unable to find " + uri + ": " + e.getMessage(), e);
+			return CMSFilter.IAm.NOTHING_IN_THE_CMS;
+		}
+		cache.add(host.getIdentifier(), uri, languageId, iAm);
+		return iAm;
+	}
+
+	private CMSFilter.IAm lookupAsset(String uri, Host host, Long languageId) throws DotDataException, DotSecurityException {
+		if (!UtilMethods.isSet(uri)) {
+			return CMSFilter.IAm.NOTHING_IN_THE_CMS;
+		} else if (lookupFileAsset(uri, host, languageId)) {
+			return CMSFilter.IAm.FILE;
+		} else if (lookupPageAsset(uri, host, languageId)) {
+			return CMSFilter.IAm.PAGE;
+		} else if (lookupFolder(uri, host)) {
+			return CMSFilter.IAm.FOLDER;
+		}
+		return CMSFilter.IAm.NOTHING_IN_THE_CMS;
+	}
+
+	/**
+	 * Returns the hits and misses of the URI resolution cache, the hits on
+	 * URIs that are nothing in the CMS are the requests to missing URIs that
+	 * didn't reach the identifier and content APIs. They are published as the
+	 * org.dotcms:type=CmsUrls MBean.
+	 */
+	public static Map<String, Long> getStats() {
+		Map<String, Long> stats = new HashMap<String, Long>();
+		stats.put("cacheHits", cacheHits.get());
+		stats.put("cacheMisses", cacheMisses.get());
+		stats.put("notFoundHits", notFoundHits.get());
+		return stats;
+	}
+
+	public boolean isPageAsset(String uri, Host host, Long languageId) {
+		return resolveAsset(uri, host, languageId) == CMSFilter.IAm.PAGE;
+	}
+
+	public boolean isFileAsset(String uri, Host host, Long languageId) {
+		return resolveAsset(uri, host, languageId) == CMSFilter.IAm.FILE;
+	}
+
+	private boolean lookupPageAsset(String uri, Host host, Long languageId) throws DotDataException, DotSecurityException {
+		Identifier id;
+		if(!UtilMethods.isSet(uri)){
 			return false;
 		}
+		id = APILocator.getIdentifierAPI().find(host, uri);
 		if (id == null || id.getId() == null)
 			return false;
 		if ("htmlpage".equals(id.getAssetType())) {
 			return true;
 		}
 		if ("contentlet".equals(id.getAssetType())) {
-			try {
 
-				//Get the list of languages use by the application
-				List<Language> languages = APILocator.getLanguageAPI().getLanguages();
-
-				//First try with the given language
-				ContentletVersionInfo cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), languageId );
-				if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
-
-					for ( Language language : languages ) {
-						/*
-						If we found nothing with the given language it does not mean is not a page,
-						could be just a page but it does not exist for the given language.
-						Trying with the other languages use in the app.
-						 */
-						if ( languageId != language.getId() ) {
-							cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), language.getId() );
-							if ( cinfo != null && !cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
-								//Found it
-								break;
-							}
+			//Get the list of languages use by the application
+			List<Language> languages = APILocator.getLanguageAPI().getLanguages();
+
+			//First try with the given language
+			ContentletVersionInfo cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), languageId );
+			if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
+
+				for ( Language language : languages ) {
+					/*
+					If we found nothing with the given language it does not mean is not a page,
+					could be just a page but it does not exist for the given language.
+					Trying with the other languages use in the app.
+					 */
+					if ( languageId != language.getId() ) {
+						cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), language.getId() );
+						if ( cinfo != null && !cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
+							//Found it
+							break;
 						}
 					}
-
-				}
-				if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
-					return false;//At this point we know is not a page
-				} else {
-					Contentlet c = APILocator.getContentletAPI().find( cinfo.getWorkingInode(), APILocator.getUserAPI().getSystemUser(), false );
-					return (c.getStructure().getStructureType() == Structure.STRUCTURE_TYPE_HTMLPAGE);
 				}
-			} catch (Exception e) {
-				Logger.error(this.getClass(), "Unable to find" + uri);
-				return false;
+
+			}
+			if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
+				return false;//At this point we know is not a page
+			} else {
+				Contentlet c = APILocator.getContentletAPI().find( cinfo.getWorkingInode(), APILocator.getUserAPI().getSystemUser(), false );
+				return (c.getStructure().getStructureType() == Structure.STRUCTURE_TYPE_HTMLPAGE);
 			}
 		}
 		return false;
 	}
 
-	public boolean isFileAsset(String uri, Host host, Long languageId) {
+	private boolean lookupFileAsset(String uri, Host host, Long languageId) throws DotDataException, DotSecurityException {
 		
 		// languageId is not used now, but will be used in future functionality. Issue #7141
 		
-		Identifier id;
-		try {
-			id = APILocator.getIdentifierAPI().find(host, uri);
-		} catch (Exception e) {
-			Logger.error(this.getClass(), "Unable to find" + uri);
-			return false;
-		}
+		Identifier id = APILocator.getIdentifierAPI().find(host, uri);
 		if (id == null || id.getId() == null)
 			return false;
 		if ("file_asset".equals(id.getAssetType())) {
@@ -124,31 +189,36 @@ public class CmsUrlUtil {
 		}
 		
         if ("contentlet".equals(id.getAssetType())) {
-            try {
-                ContentletVersionInfo cinfo = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), languageId);
-
-                if ( (cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" )) && Config.getBooleanProperty("DEFAULT_FILE_TO_DEFAULT_LANGUAGE", false)) {
-                    //Get the Default Language
-                    Language defaultLang = APILocator.getLanguageAPI().getDefaultLanguage();
-                    //If the fallback to Default Language is set to true, let's see if the requested file is stored with Default Language 
-                    cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), defaultLang.getId() );
-                }
-
-                if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
-                    return false;//At this point we know is not a File Asset
-                } else {
-                    Contentlet c = APILocator.getContentletAPI().find( cinfo.getWorkingInode(), APILocator.getUserAPI().getSystemUser(), false );
-                    return (c.getStructure().getStructureType() == Structure.STRUCTURE_TYPE_FILEASSET);
-                }
-            } catch (Exception e) {
-                Logger.error(this.getClass(), "Unable to find" + uri);
-                return false;
+            ContentletVersionInfo cinfo = APILocator.getVersionableAPI().getContentletVersionInfo(id.getId(), languageId);
+
+            if ( (cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" )) && Config.getBooleanProperty("DEFAULT_FILE_TO_DEFAULT_LANGUAGE", false)) {
+                //Get the Default Language
+                Language defaultLang = APILocator.getLanguageAPI().getDefaultLanguage();
+                //If the fallback to Default Language is set to true, let's see if the requested file is stored with Default Language 
+                cinfo = APILocator.getVersionableAPI().getContentletVersionInfo( id.getId(), defaultLang.getId() );
+            }
+
+            if ( cinfo == null || cinfo.getWorkingInode().equals( "NOTFOUND" ) ) {
+                return false;//At this point we know is not a File Asset
+            } else {
+                Contentlet c = APILocator.getContentletAPI().find( cinfo.getWorkingInode(), APILocator.getUserAPI().getSystemUser(), false );
+                return (c.getStructure().getStructureType() == Structure.STRUCTURE_TYPE_FILEASSET);
             }
         }
 		return false;
 	}
 
 	public boolean isFolder(String uri, Host host) {
+		try {
+			return lookupFolder(uri, host);
+		} catch (Exception e) {
+			Logger.error(this.getClass(), "Unable to find" + uri);
+		}
+
+		return false;
+	}
+
+	private boolean lookupFolder(String uri, Host host) throws DotDataException {
 		Identifier id;
 		if("/".equals(uri)){
 			return true;
@@ -160,19 +230,11 @@ public class CmsUrlUtil {
 		if(!uri.startsWith("/"))
 			uri = "/" + uri;
 		
-		try {
-			id = APILocator.getIdentifierAPI().find(host, uri);
-			if (id == null || id.getId() == null) {
-				return false;
-			}
-			if ("folder".equals(id.getAssetType())) {
-				return true;
-			}
-		} catch (Exception e) {
-			Logger.error(this.getClass(), "Unable to find" + uri);
+		id = APILocator.getIdentifierAPI().find(host, uri);
+		if (id == null || id.getId() == null) {
+			return false;
 		}
-
-		return false;
+		return "folder".equals(id.getAssetType());
 	}
 
 	public boolean isVanityUrl(String uri, Host host) {
@@ -246,8 +308,7 @@ public class CmsUrlUtil {
 	}
 	
 	public boolean amISomething(String uri, Host host, Long languageId) {
-		return (urlUtil.isFileAsset(uri, host, languageId) || urlUtil.isVanityUrl(uri, host) 
-				|| urlUtil.isPageAsset(uri, host, languageId) || urlUtil.isFolder(uri, host));
+		return (resolveAsset(uri, host, languageId) != CMSFilter.IAm.NOTHING_IN_THE_CMS || isVanityUrl(uri, host));
 	}
 
 }
@@ -0,0 +1,125 @@
+package com.dotmarketing.filters.compression;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+
+/**
+ * Keeps a gzip compressed copy of the static assets served by the
+ * {@link com.dotmarketing.servlets.BinaryExporterServlet}, so a hot CSS or JS
+ * file is compressed once instead of on every request. The copies live under
+ * the dynamic content folder and are keyed by the inode, the name and the
+ * modification date of the served file: a new version of the asset gets a new
+ * copy and the copy of the previous one is removed.
+ * <p>
+ * Only text assets between GZIP_STATIC_MIN_SIZE (1K by default) and
+ * GZIP_STATIC_MAX_SIZE (10MB by default) bytes are compressed, and
+ * GZIP_STATIC_ASSETS=false turns it off.
+ * </p>
+ */
+public class GZIPAssetCache {
+
+	private static final GZIPAssetCache instance = new GZIPAssetCache();
+
+	private final File cacheDir = new File(ConfigUtils.getDynamicContentPath() + File.separator + "gzip");
+
+	public static GZIPAssetCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Returns whether a file is worth compressing: a text file, not too
+	 * small for the compression to pay off and not too big to compress on
+	 * a request.
+	 *
+	 * @param mimeType
+	 * @param length
+	 */
+	public boolean isCompressible(String mimeType, long length) {
+		if (!Config.getBooleanProperty("GZIP_STATIC_ASSETS", true) || mimeType == null) {
+			return false;
+		}
+		if (length < Config.getIntProperty("GZIP_STATIC_MIN_SIZE", 1024)
+				|| length > Config.getIntProperty("GZIP_STATIC_MAX_SIZE", 10 * 1024 * 1024)) {
+			return false;
+		}
+		mimeType = mimeType.toLowerCase();
+		return mimeType.startsWith("text/") || mimeType.endsWith("javascript") || mimeType.endsWith("json")
+				|| mimeType.endsWith("xml") || mimeType.equals("image/x-icon") || mimeType.equals("application/vnd.ms-fontobject")
+				|| mimeType.equals("application/x-font-ttf") || mimeType.equals("font/ttf") || mimeType.equals("font/otf");
+	}
+
+	/**
+	 * Returns the compressed copy of a file, compressing it if this version
+	 * of the file was never compressed.
+	 *
+	 * @param inode
+	 *            - The inode of the asset the file belongs to.
+	 * @param file
+	 *            - The file to serve.
+	 * @return The gzip compressed file.
+	 * @throws IOException
+	 */
+	public File getCompressed(String inode, File file) throws IOException {
+		String prefix = UtilMethods.isSet(inode) ? inode : "file";
+		prefix = prefix + "_" + Integer.toHexString(file.getAbsolutePath().hashCode()) + "_";
+		File dir = new File(cacheDir, prefix.substring(0, Math.min(2, prefix.length())));
+		File compressed = new File(dir, prefix + file.lastModified() + "_" + file.length() + ".gz");
+		if (compressed.exists()) {
+			return compressed;
+		}
+
+		long start = System.currentTimeMillis();
+		dir.mkdirs();
+		// several requests can compress the same file at the same time, the last rename wins
+		File tmp = File.createTempFile(prefix, ".tmp", dir);
+		try {
+			InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+			try {
+				OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp), 64 * 1024) {
+					{
+						def.setLevel(Deflater.BEST_COMPRESSION);
+					}
+				};
+				try {
+					IOUtils.copy(in, out);
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+			if (!tmp.renameTo(compressed) && !compressed.exists()) {
+				throw new IOException("Unable to move " + tmp + " to " + compressed);
+			}
+		} finally {
+			tmp.delete();
+		}
+		Logger.debug(this, "Compressed " + file + " (" + file.length() + " bytes) to " + compressed.length() + " bytes in "
+				+ (System.currentTimeMillis() - start) + " ms");
+
+		// the copies of the previous versions of the file are no longer needed
+		File[] previous = dir.listFiles();
+		if (previous != null) {
+			for (File old : previous) {
+				if (old.getName().startsWith(prefix) && old.getName().endsWith(".gz") && !old.equals(compressed)) {
+					old.delete();
+				}
+			}
+		}
+		return compressed;
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.dotmarketing.filters.compression;
 
 import java.io.IOException;
+import java.util.zip.Deflater;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -11,10 +12,21 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 
+/**
+ * Compresses the responses of the clients that accept gzip. The response is
+ * compressed and sent chunked as it is written, using a buffer of
+ * GZIP_FILTER_BUFFER_SIZE bytes (8K by default) and the
+ * GZIP_FILTER_COMPRESSION_LEVEL compression level (from 1, the fastest, to 9,
+ * the smallest; the zlib default if not set).
+ */
 public class GZIPFilter implements Filter {
 
+  private int bufferSize = 8 * 1024;
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
   public void doFilter(ServletRequest req, ServletResponse res,FilterChain chain) throws IOException, ServletException {
     if (req instanceof HttpServletRequest) {
       HttpServletRequest request = (HttpServletRequest) req;
@@ -22,7 +34,7 @@ public class GZIPFilter implements Filter {
       String ae = request.getHeader("accept-encoding");
       if (ae != null && ae.indexOf("gzip") != -1) {
         Logger.debug(this, "GZIP supported, compressing.");
-        GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
+        GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response, bufferSize, level);
         chain.doFilter(req, wrappedResponse);
         wrappedResponse.finishResponse();
         return;
@@ -32,6 +44,12 @@ public class GZIPFilter implements Filter {
   }
 
   public void init(FilterConfig filterConfig) {
+    bufferSize = Math.max(512, Config.getIntProperty("GZIP_FILTER_BUFFER_SIZE", bufferSize));
+    level = Config.getIntProperty("GZIP_FILTER_COMPRESSION_LEVEL", level);
+    if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+      Logger.warn(this, "Invalid GZIP_FILTER_COMPRESSION_LEVEL " + level + ", using the default");
+      level = Deflater.DEFAULT_COMPRESSION;
+    }
   }
 
   public void destroy() {
@@ -1,7 +1,7 @@
 package com.dotmarketing.filters.compression;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletOutputStream;
@@ -9,35 +9,66 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.dotmarketing.util.Logger;
 
+/**
+ * Compresses the response as it is written, so nothing but the compression
+ * buffer is held in memory and the client gets the first bytes while the page
+ * is still rendering. The length of the compressed response is not known
+ * beforehand, so it is sent chunked.
+ * <p>
+ * The compression starts with the first byte written: a response with no body
+ * (e.g. a 304) is sent as is, and so is a response that already has a
+ * Content-Encoding, like a precompressed asset.
+ * </p>
+ */
 public class GZIPResponseStream extends ServletOutputStream {
-  protected ByteArrayOutputStream baos = null;
-  protected GZIPOutputStream gzipstream = null;
+  protected OutputStream gzipstream = null;
   protected boolean closed = false;
   protected HttpServletResponse response = null;
   protected ServletOutputStream output = null;
+  protected int bufferSize;
+  protected int level;
 
-  public GZIPResponseStream(HttpServletResponse response) throws IOException {
+  /**
+   * @param response
+   * @param bufferSize
+   *          - The size of the compression buffer.
+   * @param level
+   *          - The {@link java.util.zip.Deflater} compression level.
+   */
+  public GZIPResponseStream(HttpServletResponse response, int bufferSize, int level) throws IOException {
     super();
     closed = false;
     this.response = response;
     this.output = response.getOutputStream();
-    baos = new ByteArrayOutputStream();
-    gzipstream = new GZIPOutputStream(baos);
+    this.bufferSize = bufferSize;
+    this.level = level;
+  }
+
+  protected OutputStream getStream() throws IOException {
+    if (gzipstream == null) {
+      if (response.containsHeader("Content-Encoding")) {
+        Logger.debug(this, "Response already encoded, not compressing.");
+        gzipstream = output;
+      } else {
+        response.addHeader("Content-Encoding", "gzip");
+        response.addHeader("Vary", "Accept-Encoding");
+        gzipstream = new GZIPOutputStream(output, bufferSize, true) {
+          {
+            def.setLevel(level);
+          }
+        };
+      }
+    }
+    return gzipstream;
   }
 
   public void close() throws IOException {
     if (closed) {
       throw new IOException("This output stream has already been closed");
     }
-    gzipstream.finish();
-
-    byte[] bytes = baos.toByteArray();
-
-
-    response.addHeader("Content-Length", 
-                       Integer.toString(bytes.length)); 
-    response.addHeader("Content-Encoding", "gzip");
-    output.write(bytes);
+    if (gzipstream instanceof GZIPOutputStream) {
+      ((GZIPOutputStream) gzipstream).finish();
+    }
     output.flush();
     output.close();
     closed = true;
@@ -47,14 +78,17 @@ public class GZIPResponseStream extends ServletOutputStream {
     if (closed) {
       throw new IOException("Cannot flush a closed output stream");
     }
-    gzipstream.flush();
+    if (gzipstream != null) {
+      gzipstream.flush();
+    }
+    output.flush();
   }
 
   public void write(int b) throws IOException {
     if (closed) {
       throw new IOException("Cannot write to a closed output stream");
     }
-    gzipstream.write((byte)b);
+    getStream().write((byte)b);
   }
 
   public void write(byte b[]) throws IOException {
@@ -66,14 +100,14 @@ public class GZIPResponseStream extends ServletOutputStream {
     if (closed) {
       throw new IOException("Cannot write to a closed output stream");
     }
-    gzipstream.write(b, off, len);
+    getStream().write(b, off, len);
   }
 
   public boolean closed() {
     return (this.closed);
   }
-  
+
   public void reset() {
   }
 
-}
\ No newline at end of file
+}
@@ -12,14 +12,18 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
   protected HttpServletResponse origResponse = null;
   protected ServletOutputStream stream = null;
   protected PrintWriter writer = null;
+  protected int bufferSize;
+  protected int level;
 
-  public GZIPResponseWrapper(HttpServletResponse response) {
+  public GZIPResponseWrapper(HttpServletResponse response, int bufferSize, int level) {
     super(response);
     origResponse = response;
+    this.bufferSize = bufferSize;
+    this.level = level;
   }
 
   public ServletOutputStream createOutputStream() throws IOException {
-    return (new GZIPResponseStream(origResponse));
+    return (new GZIPResponseStream(origResponse, bufferSize, level));
   }
 
   public void finishResponse() {
@@ -35,7 +39,13 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
   }
 
   public void flushBuffer() throws IOException {
-    stream.flush();
+    if (writer != null) {
+      writer.flush();
+    } else if (stream != null) {
+      stream.flush();
+    } else {
+      super.flushBuffer();
+    }
   }
 
   public ServletOutputStream getOutputStream() throws IOException {
@@ -62,5 +72,31 @@ public class GZIPResponseWrapper extends HttpServletResponseWrapper {
    return (writer);
   }
 
+  // the length of the compressed response is not known, it is sent chunked
+
   public void setContentLength(int length) {}
+
+  public void setHeader(String name, String value) {
+    if (!"Content-Length".equalsIgnoreCase(name)) {
+      super.setHeader(name, value);
+    }
+  }
+
+  public void addHeader(String name, String value) {
+    if (!"Content-Length".equalsIgnoreCase(name)) {
+      super.addHeader(name, value);
+    }
+  }
+
+  public void setIntHeader(String name, int value) {
+    if (!"Content-Length".equalsIgnoreCase(name)) {
+      super.setIntHeader(name, value);
+    }
+  }
+
+  public void addIntHeader(String name, int value) {
+    if (!"Content-Length".equalsIgnoreCase(name)) {
+      super.addIntHeader(name, value);
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package com.dotmarketing.image.filter;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.security.MessageDigest;
@@ -10,6 +11,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.imageio.ImageIO;
+
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.exception.DotRuntimeException;
@@ -108,6 +111,64 @@ public abstract class ImageFilter implements ImageFilterIf {
 		return buf.toString();
 	}
 
+	/**
+	 * Applies this filter to an image already decoded in memory. This is what
+	 * allows the {@link ImageFilterPipeline} to chain filters without writing
+	 * and reading back every intermediate result.
+	 *
+	 * @param src
+	 * @param parameters
+	 * @return the filtered image, or the given image if there is nothing to do
+	 * @throws IOException
+	 */
+	public abstract BufferedImage filterImage(BufferedImage src, Map<String, String[]> parameters) throws IOException;
+
+	/**
+	 * Runs this filter alone, reading the given file and writing the result to
+	 * the file returned by {@link #getResultsFile(File, Map, String)}
+	 */
+	public File runFilter(File file, Map<String, String[]> parameters) {
+		File resultFile = getResultsFile(file, parameters, getFileExtension());
+
+		if (!overwrite(resultFile, parameters)) {
+			return resultFile;
+		}
+		resultFile.delete();
+
+		try {
+			BufferedImage src = ImageIO.read(file);
+			BufferedImage dst = filterImage(src, parameters);
+			if (dst == src) {
+				return file;
+			}
+			writeImage(dst, resultFile, parameters);
+		} catch (IOException e) {
+			Logger.error(this.getClass(), e.getMessage());
+		}
+
+		return resultFile;
+	}
+
+	/**
+	 * The extension of the files written by this filter
+	 * @return
+	 */
+	protected String getFileExtension() {
+		return FILE_EXT;
+	}
+
+	/**
+	 * Encodes the given image into the given file, when this filter is the
+	 * last one of the chain
+	 * @param image
+	 * @param resultFile
+	 * @param parameters
+	 * @throws IOException
+	 */
+	protected void writeImage(BufferedImage image, File resultFile, Map<String, String[]> parameters) throws IOException {
+		ImageIO.write(image, FILE_EXT, resultFile);
+	}
+
 	protected String getFilterName() {
 		return this.getClass().getSimpleName().replaceAll("ImageFilter", "").toLowerCase();
 	}
@@ -0,0 +1,262 @@
+package com.dotmarketing.image.filter;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+
+/**
+ * Runs the chain of filters given by the "filter=" parameter over an image.
+ * The source image is decoded once, every filter works over the
+ * {@link BufferedImage} returned by the previous one and only the final result
+ * is encoded and written to disk, by the last filter of the chain.
+ * <p>
+ * Concurrent requests for the same result file are collapsed into a single
+ * generation, and the generations run on a bounded pool of threads so a burst
+ * of requests for new variants can't decode an unbounded number of images at
+ * once. The following properties control the pipeline:
+ * <ul>
+ * <li>IMAGE_FILTER_MAX_CONCURRENT: number of images generated at the same time
+ * (default is the number of processors).</li>
+ * <li>IMAGE_FILTER_TIMEOUT_SECONDS: time a request waits for its image
+ * (default 60).</li>
+ * </ul>
+ * </p>
+ */
+public class ImageFilterPipeline {
+
+	private static final ImageFilterPipeline instance = new ImageFilterPipeline();
+
+	private final ExecutorService executor;
+	private final long timeoutSeconds;
+	private final ConcurrentMap<String, Future<File>> inFlight = new ConcurrentHashMap<String, Future<File>>();
+	private final ConcurrentMap<String, FilterTimer> timers = new ConcurrentHashMap<String, FilterTimer>();
+	private final AtomicLong generated = new AtomicLong();
+	private final AtomicLong collapsed = new AtomicLong();
+
+	private ImageFilterPipeline() {
+		int threads = Math.max(1, Config.getIntProperty("IMAGE_FILTER_MAX_CONCURRENT", Runtime.getRuntime().availableProcessors()));
+		this.timeoutSeconds = Config.getIntProperty("IMAGE_FILTER_TIMEOUT_SECONDS", 60);
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "ImageFilterPipeline-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	public static ImageFilterPipeline getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Instantiates the filters listed in the "filter" (or "filters")
+	 * parameter, in the given order. Unknown filters are skipped.
+	 *
+	 * @param parameters
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<ImageFilter> getFilters(Map<String, String[]> parameters) {
+		String[] names = new String[0];
+		if (parameters.get("filter") != null) {
+			names = parameters.get("filter")[0].split(",");
+		} else if (parameters.get("filters") != null) {
+			names = parameters.get("filters")[0].split(",");
+		}
+
+		List<ImageFilter> filters = new ArrayList<ImageFilter>();
+		for (String name : names) {
+			String clazz = "com.dotmarketing.image.filter." + name + "ImageFilter";
+			try {
+				Class<ImageFilter> iFilter = (Class<ImageFilter>) Class.forName(clazz);
+				filters.add(iFilter.newInstance());
+			} catch (ClassNotFoundException e) {
+				Logger.error(ImageFilterPipeline.class, "Unable to instanciate : " + clazz);
+			} catch (InstantiationException e) {
+				Logger.error(ImageFilterPipeline.class, "InstantiationException : " + clazz);
+			} catch (IllegalAccessException e) {
+				Logger.error(ImageFilterPipeline.class, "IllegalAccessException : " + clazz);
+			} catch (Exception e) {
+				Logger.error(ImageFilterPipeline.class, "Exception in " + clazz + " :" + e.getMessage());
+			}
+		}
+		return filters;
+	}
+
+	/**
+	 * Returns the result of running the filters of the given parameters over
+	 * the given file, generating it if it does not exist yet.
+	 *
+	 * @param file
+	 * @param parameters
+	 * @return
+	 * @throws IOException
+	 */
+	public File run(final File file, final Map<String, String[]> parameters) throws IOException {
+		final List<ImageFilter> filters = getFilters(parameters);
+		if (filters.isEmpty()) {
+			return file;
+		}
+
+		// the results file of every step names the next one, only the last one is written
+		File resultFile = file;
+		for (ImageFilter filter : filters) {
+			resultFile = filter.getResultsFile(resultFile, parameters, filter.getFileExtension());
+		}
+		final File target = resultFile;
+		final String key = target.getAbsolutePath();
+
+		if (!filters.get(filters.size() - 1).overwrite(target, parameters)) {
+			return target;
+		}
+
+		FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+			public File call() throws Exception {
+				return generate(file, filters, target, parameters);
+			}
+		}) {
+			@Override
+			protected void done() {
+				inFlight.remove(key, this);
+			}
+		};
+
+		Future<File> running = inFlight.putIfAbsent(key, task);
+		if (running == null) {
+			running = task;
+			executor.execute(task);
+		} else {
+			collapsed.incrementAndGet();
+		}
+
+		try {
+			return running.get(timeoutSeconds, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause.getMessage(), cause);
+		} catch (TimeoutException e) {
+			throw new IOException("Timed out waiting for " + target.getName());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for " + target.getName());
+		}
+	}
+
+	private File generate(File file, List<ImageFilter> filters, File target, Map<String, String[]> parameters) throws IOException {
+		long start = System.nanoTime();
+		final BufferedImage src = ImageIO.read(file);
+		time("decode", start);
+		if (src == null) {
+			throw new IOException("Unable to read the image " + file.getName());
+		}
+
+		BufferedImage image = src;
+		for (ImageFilter filter : filters) {
+			start = System.nanoTime();
+			image = filter.filterImage(image, parameters);
+			time(filter.getFilterName(), start);
+		}
+		if (image == src) {
+			// none of the filters changed the image
+			return file;
+		}
+
+		// written to a temp file first so the result never gets served half written
+		start = System.nanoTime();
+		File tmp = new File(target.getParentFile(), target.getName() + "." + UUIDGenerator.generateUuid() + ".tmp");
+		try {
+			filters.get(filters.size() - 1).writeImage(image, tmp, parameters);
+			try {
+				Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			tmp.delete();
+		}
+		time("encode", start);
+
+		generated.incrementAndGet();
+		return target;
+	}
+
+	private void time(String name, long start) {
+		FilterTimer timer = timers.get(name);
+		if (timer == null) {
+			timers.putIfAbsent(name, new FilterTimer());
+			timer = timers.get(name);
+		}
+		timer.add(System.nanoTime() - start);
+	}
+
+	/**
+	 * Returns the number of images generated, the number of requests that
+	 * waited for an image already being generated, and the timings of the
+	 * decoding, of every filter and of the encoding. They are published as
+	 * the org.dotcms:type=ImageFilters MBean.
+	 *
+	 * @return
+	 */
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new HashMap<String, Object>();
+		stats.put("generated", generated.get());
+		stats.put("collapsed", collapsed.get());
+		for (Map.Entry<String, FilterTimer> entry : timers.entrySet()) {
+			stats.put(entry.getKey(), entry.getValue().toMap());
+		}
+		return stats;
+	}
+
+	private static class FilterTimer {
+
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		void add(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			long max;
+			while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos));
+		}
+
+		Map<String, Object> toMap() {
+			long runs = count.get();
+			Map<String, Object> map = new HashMap<String, Object>();
+			map.put("count", runs);
+			map.put("avgMillis", runs > 0 ? totalNanos.get() / runs / 1000000d : 0);
+			map.put("maxMillis", maxNanos.get() / 1000000d);
+			return map;
+		}
+	}
+
+}
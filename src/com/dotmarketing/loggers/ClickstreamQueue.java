@@ -0,0 +1,350 @@
+package com.dotmarketing.loggers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.dotmarketing.beans.Clickstream;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Writes the finished clickstreams to the database in the background, so
+ * neither the requests nor the threads that expire the sessions wait for the
+ * inserts of the clickstreams, their requests and their 404s.
+ * <p>
+ * The clickstreams wait in a bounded lock-free queue of
+ * {@code CLICKSTREAM_QUEUE_SIZE} clickstreams (10000 by default) until the
+ * writer thread saves them, {@code CLICKSTREAM_BATCH_SIZE} at a time (100 by
+ * default) through {@link DatabaseClickstreamLogger#logAll(List)}, at least
+ * every {@code CLICKSTREAM_FLUSH_INTERVAL} milliseconds (1000 by default).
+ * What happens to a clickstream that does not fit in a full queue depends on
+ * {@code CLICKSTREAM_QUEUE_FULL_POLICY}:
+ * </p>
+ * <ul>
+ * <li>{@code drop} (default): it is discarded and counted.</li>
+ * <li>{@code spool}: it is appended to the local spool, if enabled.</li>
+ * <li>{@code sync}: it is saved by the calling thread, as it used to be.</li>
+ * </ul>
+ * <p>
+ * With {@code CLICKSTREAM_SPOOL_ENABLED=true} (false by default), the
+ * clickstreams the writer fails to save, while the database is down, are
+ * appended to a {@link ClickstreamSpool} under
+ * {@code CLICKSTREAM_SPOOL_DIR} and saved once the database is back.
+ * Otherwise they are dropped. The spool is saved a batch at a time, so it
+ * is never loaded whole in memory. See {@link #getStats()} for the metrics,
+ * which are also published as the {@code org.dotcms:type=Clickstreams} MBean.
+ * </p>
+ */
+public class ClickstreamQueue {
+
+	private static final ClickstreamQueue instance = new ClickstreamQueue();
+
+	private final ConcurrentLinkedQueue<Clickstream> queue = new ConcurrentLinkedQueue<Clickstream>();
+	private final AtomicInteger depth = new AtomicInteger();
+
+	private final AtomicLong enqueued = new AtomicLong();
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong writtenEvents = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong spooled = new AtomicLong();
+	private final AtomicLong replayed = new AtomicLong();
+	private final AtomicLong failedBatches = new AtomicLong();
+	private volatile double clickstreamsPerSecond = 0;
+	private volatile double eventsPerSecond = 0;
+	private long rateWritten = 0;
+	private long rateWrittenEvents = 0;
+	private long rateTime = System.currentTimeMillis();
+
+	private volatile Thread writer;
+	private volatile boolean running = true;
+	private ClickstreamSpool spool;
+
+	public static ClickstreamQueue getInstance() {
+		return instance;
+	}
+
+	private ClickstreamQueue() {
+	}
+
+	/**
+	 * Queues a finished clickstream to be saved.
+	 *
+	 * @param clickstream
+	 */
+	public void add(Clickstream clickstream) {
+		if (clickstream == null) {
+			return;
+		}
+		if (!running) {
+			new DatabaseClickstreamLogger().log(clickstream);
+			return;
+		}
+		int capacity = Config.getIntProperty("CLICKSTREAM_QUEUE_SIZE", 10000);
+		if (depth.incrementAndGet() > capacity) {
+			depth.decrementAndGet();
+			overflow(clickstream);
+			return;
+		}
+		queue.offer(clickstream);
+		enqueued.incrementAndGet();
+
+		Thread thread = startWriter();
+		if (depth.get() >= getBatchSize()) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private void overflow(Clickstream clickstream) {
+		String policy = Config.getStringProperty("CLICKSTREAM_QUEUE_FULL_POLICY", "drop");
+		if ("sync".equalsIgnoreCase(policy)) {
+			new DatabaseClickstreamLogger().log(clickstream);
+		} else if ("spool".equalsIgnoreCase(policy) && getSpool() != null) {
+			spool(Collections.singletonList(clickstream));
+		} else {
+			long drops = dropped.incrementAndGet();
+			if (drops == 1 || drops % 1000 == 0) {
+				Logger.warn(this, "The clickstream queue is full, " + drops + " clickstreams dropped so far");
+			}
+		}
+	}
+
+	private Thread startWriter() {
+		Thread thread = writer;
+		if (thread == null) {
+			synchronized (this) {
+				if (writer == null) {
+					writer = new Thread(new Writer(), "ClickstreamWriter");
+					writer.setDaemon(true);
+					writer.start();
+				}
+				thread = writer;
+			}
+		}
+		return thread;
+	}
+
+	private int getBatchSize() {
+		return Math.max(1, Config.getIntProperty("CLICKSTREAM_BATCH_SIZE", 100));
+	}
+
+	private synchronized ClickstreamSpool getSpool() {
+		if (spool == null && Config.getBooleanProperty("CLICKSTREAM_SPOOL_ENABLED", false)) {
+			spool = new ClickstreamSpool(new File(Config.getStringProperty("CLICKSTREAM_SPOOL_DIR",
+					ConfigUtils.getDynamicContentPath() + File.separator + "clickstream_spool")));
+		}
+		return spool;
+	}
+
+	private void spool(List<Clickstream> clickstreams) {
+		try {
+			int count = getSpool().append(clickstreams);
+			spooled.addAndGet(count);
+			dropped.addAndGet(clickstreams.size() - count);
+		} catch (IOException e) {
+			dropped.addAndGet(clickstreams.size());
+			Logger.error(this, "Unable to spool " + clickstreams.size() + " clickstreams: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Saves the queued clickstreams, spooling the ones that could not be
+	 * saved, and stops the writer. The clickstreams added afterwards are saved
+	 * by the calling thread.
+	 */
+	public void shutdown() {
+		running = false;
+		Thread thread = writer;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join(TimeUnit.SECONDS.toMillis(Config.getIntProperty("CLICKSTREAM_SHUTDOWN_TIMEOUT", 30)));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Saves a batch of queued clickstreams.
+	 *
+	 * @return If the batch could be saved, or there was nothing to save.
+	 */
+	private boolean writeBatch() {
+		int batchSize = getBatchSize();
+		List<Clickstream> batch = new ArrayList<Clickstream>(batchSize);
+		Clickstream clickstream;
+		while (batch.size() < batchSize && (clickstream = queue.poll()) != null) {
+			depth.decrementAndGet();
+			batch.add(clickstream);
+		}
+		if (batch.isEmpty()) {
+			return true;
+		}
+		if (write(batch)) {
+			return true;
+		}
+		if (getSpool() != null) {
+			spool(batch);
+		} else {
+			dropped.addAndGet(batch.size());
+		}
+		return false;
+	}
+
+	private boolean write(List<Clickstream> batch) {
+		try {
+			new DatabaseClickstreamLogger().logAll(batch);
+			written.addAndGet(batch.size());
+			writtenEvents.addAndGet(countEvents(batch));
+			return true;
+		} catch (DotDataException e) {
+			failedBatches.incrementAndGet();
+			Logger.error(this, "Unable to save " + batch.size() + " clickstreams: " + e.getMessage(), e);
+			return false;
+		} finally {
+			try {
+				HibernateUtil.closeSession();
+			} catch (DotHibernateException e) {
+				Logger.warn(this, e.getMessage(), e);
+			} finally {
+				DbConnectionFactory.closeConnection();
+			}
+		}
+	}
+
+	/**
+	 * Returns the requests and 404s of the given clickstreams.
+	 */
+	private long countEvents(List<Clickstream> clickstreams) {
+		long events = 0;
+		for (Clickstream clickstream : clickstreams) {
+			if (clickstream.getClickstreamRequests() != null) {
+				events += clickstream.getClickstreamRequests().size();
+			}
+			if (clickstream.getClickstream404s() != null) {
+				events += clickstream.getClickstream404s().size();
+			}
+		}
+		return events;
+	}
+
+	/**
+	 * Saves the spooled clickstreams a batch at a time, giving back to the
+	 * spool the batch that could not be saved. It stops as soon as a full
+	 * batch of new clickstreams is waiting, the rest of the spool is saved in
+	 * the next rounds.
+	 */
+	private void replaySpool() {
+		ClickstreamSpool spool = getSpool();
+		if (spool == null || spool.isEmpty()) {
+			return;
+		}
+		int batchSize = getBatchSize();
+		long saved = 0;
+		while (running && depth.get() < batchSize) {
+			List<Clickstream> batch;
+			try {
+				batch = spool.take(batchSize);
+			} catch (IOException e) {
+				Logger.error(this, "Unable to read the clickstream spool: " + e.getMessage(), e);
+				break;
+			}
+			if (batch.isEmpty()) {
+				break;
+			}
+			if (!write(batch)) {
+				try {
+					spool.append(batch);
+				} catch (IOException e) {
+					dropped.addAndGet(batch.size());
+					Logger.error(this, "Unable to spool " + batch.size() + " clickstreams: " + e.getMessage(), e);
+				}
+				break;
+			}
+			replayed.addAndGet(batch.size());
+			saved += batch.size();
+		}
+		if (saved > 0) {
+			Logger.info(this, "Saved " + saved + " spooled clickstreams");
+		}
+	}
+
+	private void updateRate() {
+		long now = System.currentTimeMillis();
+		if (now - rateTime >= 1000) {
+			long total = written.get();
+			long totalEvents = writtenEvents.get();
+			clickstreamsPerSecond = (total - rateWritten) * 1000D / (now - rateTime);
+			eventsPerSecond = (totalEvents - rateWrittenEvents) * 1000D / (now - rateTime);
+			rateWritten = total;
+			rateWrittenEvents = totalEvents;
+			rateTime = now;
+		}
+	}
+
+	/**
+	 * Returns the metrics of the queue: the clickstreams waiting in the queue
+	 * (depth), the ones queued, saved, dropped, spooled and saved from the
+	 * spool since the server started, the requests and 404s (events) saved
+	 * with them, the batches that failed to be saved, and the clickstreams
+	 * and events saved per second, measured every second.
+	 */
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("depth", depth.get());
+		stats.put("enqueued", enqueued.get());
+		stats.put("written", written.get());
+		stats.put("writtenEvents", writtenEvents.get());
+		stats.put("dropped", dropped.get());
+		stats.put("spooled", spooled.get());
+		stats.put("replayed", replayed.get());
+		stats.put("failedBatches", failedBatches.get());
+		stats.put("clickstreamsPerSecond", clickstreamsPerSecond);
+		stats.put("eventsPerSecond", eventsPerSecond);
+		return stats;
+	}
+
+	private class Writer implements Runnable {
+
+		public void run() {
+			long interval = TimeUnit.MILLISECONDS.toNanos(Config.getIntProperty("CLICKSTREAM_FLUSH_INTERVAL", 1000));
+			boolean healthy = true;
+			while (running || !queue.isEmpty()) {
+				try {
+					// a full batch is written right away, unless the last one failed
+					if ((depth.get() < getBatchSize() || !healthy) && running) {
+						LockSupport.parkNanos(this, interval);
+					}
+					boolean saved = writeBatch();
+					if (saved && !healthy) {
+						Logger.info(ClickstreamQueue.class, "Clickstreams are being saved again");
+					}
+					healthy = saved;
+					if (healthy && running) {
+						replaySpool();
+					}
+					updateRate();
+				} catch (Throwable t) {
+					Logger.error(ClickstreamQueue.class, "Error writing clickstreams: " + t.getMessage(), t);
+				}
+			}
+			Logger.info(ClickstreamQueue.class, "Clickstream writer stopped");
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.dotmarketing.loggers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.dotmarketing.beans.Clickstream;
+import com.dotmarketing.util.Logger;
+
+/**
+ * Append-only file where the {@link ClickstreamQueue} keeps the clickstreams
+ * it could not write to the database, so they are not lost while the database
+ * is down. Every clickstream is appended as its serialized form preceded by
+ * its length, so a record cut by a crash only loses that record.
+ * <p>
+ * Once the database is back, {@link #take(int)} hands over the spooled
+ * clickstreams a few at a time, oldest first, and removes them from the
+ * spool. How far a spool file has been taken is kept next to it, so the
+ * clickstreams already handed over are not taken again after a restart.
+ * </p>
+ */
+public class ClickstreamSpool {
+
+	private static final String SPOOL_FILE = "clickstreams.spool";
+	private static final String REPLAY_SUFFIX = ".replay";
+	private static final String POSITION_SUFFIX = ".position";
+	private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+	private final File dir;
+
+	public ClickstreamSpool(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Appends the clickstreams to the spool.
+	 *
+	 * @return The number of clickstreams spooled, less than the given ones if
+	 *         some of them could not be serialized.
+	 * @throws IOException
+	 *             If the spool could not be written.
+	 */
+	public synchronized int append(List<Clickstream> clickstreams) throws IOException {
+		dir.mkdirs();
+		int spooled = 0;
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dir, SPOOL_FILE),
+				true)));
+		try {
+			for (Clickstream clickstream : clickstreams) {
+				byte[] record;
+				try {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					ObjectOutputStream oos = new ObjectOutputStream(bytes);
+					oos.writeObject(clickstream);
+					oos.close();
+					record = bytes.toByteArray();
+				} catch (IOException e) {
+					Logger.warn(this, "Unable to spool clickstream of cookie " + clickstream.getCookieId() + ": " + e.getMessage());
+					continue;
+				}
+				out.writeInt(record.length);
+				out.write(record);
+				spooled++;
+			}
+		} finally {
+			out.close();
+		}
+		return spooled;
+	}
+
+	/**
+	 * Returns whether there are spooled clickstreams.
+	 */
+	public synchronized boolean isEmpty() {
+		return !new File(dir, SPOOL_FILE).exists() && listReplayFiles().isEmpty();
+	}
+
+	/**
+	 * Takes up to the given number of spooled clickstreams out of the spool,
+	 * the oldest ones first. The clickstreams the caller fails to write have
+	 * to be given back through {@link #append(List)}.
+	 *
+	 * @return The clickstreams taken, none if the spool is empty.
+	 * @throws IOException
+	 *             If the spool could not be read.
+	 */
+	public synchronized List<Clickstream> take(int max) throws IOException {
+		List<Clickstream> clickstreams = new ArrayList<Clickstream>();
+		while (clickstreams.size() < max) {
+			List<File> replays = listReplayFiles();
+			if (replays.isEmpty()) {
+				File spool = new File(dir, SPOOL_FILE);
+				if (!spool.exists()) {
+					break;
+				}
+				// new clickstreams go to a new file while this one is read
+				File replay = new File(dir, SPOOL_FILE + "." + System.currentTimeMillis() + REPLAY_SUFFIX);
+				if (!spool.renameTo(replay)) {
+					throw new IOException("Unable to rename " + spool + " to " + replay);
+				}
+				replays.add(replay);
+			}
+			File replay = replays.get(0);
+			File position = new File(dir, replay.getName() + POSITION_SUFFIX);
+			long next = read(replay, readPosition(position), max - clickstreams.size(), clickstreams);
+			if (next < 0) {
+				if (!replay.delete()) {
+					throw new IOException("Unable to delete clickstream spool file " + replay);
+				}
+				position.delete();
+			} else {
+				writePosition(position, next);
+			}
+		}
+		return clickstreams;
+	}
+
+	private long readPosition(File position) throws IOException {
+		if (!position.exists()) {
+			return 0;
+		}
+		DataInputStream in = new DataInputStream(new FileInputStream(position));
+		try {
+			return in.readLong();
+		} catch (EOFException e) {
+			return 0;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void writePosition(File position, long next) throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(position));
+		try {
+			out.writeLong(next);
+		} finally {
+			out.close();
+		}
+	}
+
+	private List<File> listReplayFiles() {
+		File[] files = dir.listFiles();
+		List<File> replays = new ArrayList<File>();
+		if (files != null) {
+			Arrays.sort(files);
+			for (File file : files) {
+				if (file.getName().startsWith(SPOOL_FILE) && file.getName().endsWith(REPLAY_SUFFIX)) {
+					replays.add(file);
+				}
+			}
+		}
+		return replays;
+	}
+
+	/**
+	 * Reads up to the given number of clickstreams of a spool file, starting
+	 * at the given position.
+	 *
+	 * @return The position of the next clickstream, or -1 if the end of the
+	 *         file was reached.
+	 */
+	private long read(File file, long from, int max, List<Clickstream> clickstreams) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+		try {
+			input.getChannel().position(from);
+			long position = from;
+			int taken = 0;
+			while (taken < max) {
+				byte[] record;
+				try {
+					int length = in.readInt();
+					if (length < 0 || length > MAX_RECORD_LENGTH) {
+						Logger.warn(this, "Clickstream spool file " + file + " is corrupt, skipping the rest of it");
+						return -1;
+					}
+					record = new byte[length];
+					in.readFully(record);
+				} catch (EOFException e) {
+					// end of the spool, or a record cut by a crash
+					return -1;
+				}
+				position += 4 + record.length;
+				taken++;
+				try {
+					ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(record));
+					clickstreams.add((Clickstream) ois.readObject());
+				} catch (IOException | ClassNotFoundException | ClassCastException e) {
+					Logger.warn(this, "Skipping unreadable clickstream in " + file + ": " + e.getMessage());
+				}
+			}
+			return position < file.length() ? position : -1;
+		} finally {
+			in.close();
+		}
+	}
+
+}
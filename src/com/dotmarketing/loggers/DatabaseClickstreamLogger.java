@@ -1,23 +1,30 @@
 package com.dotmarketing.loggers;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import com.dotmarketing.beans.Clickstream;
 import com.dotmarketing.beans.Clickstream404;
 import com.dotmarketing.beans.ClickstreamRequest;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.factories.ClickstreamFactory;
-import com.dotmarketing.factories.ClickstreamRequestFactory;
 import com.dotmarketing.util.DNSUtil;
+import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
 
 /**
  * A simple ClickstreamLogger that outputs the entire clickstream to the <a
  * href="http://jakarta.apache.org/commons/logging.html">Jakarta Commons Logging
  * component</a>.
+ * <p>
+ * The requests and 404s of the clickstreams are inserted through JDBC
+ * batches, see {@link #logAll(List)}.
+ * </p>
  * 
  * @author <a href="plightbo@hotmail.com">Patrick Lightbody</a>
  */
@@ -27,7 +34,129 @@ public class DatabaseClickstreamLogger implements ClickstreamLogger {
 		if (clickstream == null)
 			return;
 
-		
+		try {
+			logAll(Collections.singletonList(clickstream));
+		} catch (DotDataException e) {
+			Logger.error(this, "Unable to save the clickstream: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Saves the clickstreams in a single transaction: one insert per
+	 * clickstream, and a JDBC batch with the requests and another one with
+	 * the 404s of all of them.
+	 *
+	 * @param clickstreams
+	 * @throws DotDataException
+	 *             If the clickstreams could not be saved. None of them is.
+	 */
+	public void logAll(List<Clickstream> clickstreams) throws DotDataException {
+		if (clickstreams.isEmpty()) {
+			return;
+		}
+		List<Clickstream> inserted = new ArrayList<Clickstream>();
+		boolean localTransaction = HibernateUtil.startLocalTransactionIfNeeded();
+		try {
+			DotConnect requests = new DotConnect();
+			requests.setSQL(insertSQL("clickstream_request", "clickstream_request_seq",
+					"clickstream_id, server_name, protocol, server_port, request_uri, request_order, query_string, language_id, timestampper, host_id, associated_identifier"));
+			DotConnect notFound = new DotConnect();
+			notFound.setSQL(insertSQL("clickstream_404", "clickstream_404_seq",
+					"referer_uri, query_string, request_uri, user_id, host_id, timestampper"));
+			int requestRows = 0;
+			int notFoundRows = 0;
+
+			for (Clickstream clickstream : clickstreams) {
+				resolveRemoteHostname(clickstream);
+
+				/*
+				 * Save current clickstream
+				 */
+				clickstream.setLastSaved(new Date());
+				if (clickstream.getClickstreamId() == 0) {
+					inserted.add(clickstream);
+				}
+				HibernateUtil.saveOrUpdate(clickstream);
+
+				List<ClickstreamRequest> myStream = new ArrayList<ClickstreamRequest>(clickstream.getClickstreamRequests());
+				long clickStreamId = clickstream.getClickstreamId();
+				for (ClickstreamRequest myClickstreamRequest : myStream) {
+					myClickstreamRequest.setClickstreamId(clickStreamId);
+					requests.addParam(clickStreamId);
+					requests.addParam(myClickstreamRequest.getServerName());
+					requests.addParam(myClickstreamRequest.getProtocol());
+					requests.addParam(myClickstreamRequest.getServerPort());
+					requests.addParam(myClickstreamRequest.getRequestURI());
+					requests.addParam(myClickstreamRequest.getRequestOrder());
+					requests.addParam(myClickstreamRequest.getQueryString());
+					requests.addParam(myClickstreamRequest.getLanguageId());
+					requests.addParam(myClickstreamRequest.getTimestamp());
+					requests.addParam(myClickstreamRequest.getHostId());
+					requests.addParam(myClickstreamRequest.getAssociatedIdentifier());
+					requests.addBatch();
+					requestRows++;
+				}
+
+				List<Clickstream404> my404Stream = new ArrayList<Clickstream404>(clickstream.getClickstream404s());
+				for (Clickstream404 myClickstream404 : my404Stream) {
+					notFound.addParam(myClickstream404.getRefererURI());
+					notFound.addParam(myClickstream404.getQueryString());
+					notFound.addParam(myClickstream404.getRequestURI());
+					notFound.addParam(myClickstream404.getUserId());
+					notFound.addParam(myClickstream404.getHostId());
+					notFound.addParam(myClickstream404.getTimestamp());
+					notFound.addBatch();
+					notFoundRows++;
+				}
+			}
+			// the clickstreams have to be in the table before their requests
+			HibernateUtil.flush();
+			if (requestRows > 0) {
+				requests.executeBatch();
+			}
+			if (notFoundRows > 0) {
+				notFound.executeBatch();
+			}
+
+			for (Clickstream clickstream : clickstreams) {
+				updateAnonymousClickstreams(clickstream);
+			}
+
+			if (localTransaction) {
+				HibernateUtil.commitTransaction();
+			}
+		} catch (Exception e) {
+			if (localTransaction) {
+				HibernateUtil.rollbackTransaction();
+			}
+			// so they are inserted again when retried
+			for (Clickstream clickstream : inserted) {
+				clickstream.setClickstreamId(0);
+			}
+			throw new DotDataException("Unable to save " + clickstreams.size() + " clickstreams: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Returns the insert statement of a table whose id comes from a sequence
+	 * in PostgreSQL and Oracle and is an identity column anywhere else.
+	 */
+	private String insertSQL(String table, String sequence, String columns) {
+		StringBuilder values = new StringBuilder();
+		for (int i = columns.split(",").length; i > 0; i--) {
+			values.append(values.length() > 0 ? ", ?" : "?");
+		}
+		if (DbConnectionFactory.isPostgres()) {
+			return "insert into " + table + " (" + table + "_id, " + columns + ") values (nextval('" + sequence + "'), "
+					+ values + ")";
+		} else if (DbConnectionFactory.isOracle()) {
+			return "insert into " + table + " (" + table + "_id, " + columns + ") values (" + sequence + ".nextval, " + values
+					+ ")";
+		}
+		return "insert into " + table + " (" + columns + ") values (" + values + ")";
+	}
+
+	private void resolveRemoteHostname(Clickstream clickstream) {
 		// try to build a reverse lookup
 		if(!UtilMethods.isSet(clickstream.getRemoteHostname()) && UtilMethods.isSet(clickstream.getRemoteAddress())){
 			String x = clickstream.getRemoteAddress();
@@ -41,39 +170,14 @@ public class DatabaseClickstreamLogger implements ClickstreamLogger {
 				clickstream.setRemoteHostname(x);
 			}
 		}
-		
-		
-		
-		
-		/*
-		 * Save current clickstream
-		 */
-		clickstream.setLastSaved(new Date());
-		ClickstreamFactory.save(clickstream);
-		
-		List<ClickstreamRequest> myStream = new ArrayList<ClickstreamRequest>();
-		myStream.addAll(clickstream.getClickstreamRequests());
-		long clickStreamId = clickstream.getClickstreamId();
-		if (myStream != null ) {
-			for(ClickstreamRequest myClickstreamRequest  : myStream){
-				myClickstreamRequest.setClickstreamId(clickStreamId);
-				ClickstreamRequestFactory.save(myClickstreamRequest);
-			}
-		}
-		
-		List<Clickstream404> my404Stream = new ArrayList<Clickstream404>();
-		my404Stream.addAll(clickstream.getClickstream404s());
-		if (my404Stream != null ) {
-			for(Clickstream404 myClickstream404  : my404Stream){
-				ClickstreamFactory.save404(myClickstream404);
-			}
-		}
+	}
 
-		/*
-		 * Loop over old clickstreams (by long lived cookie) that don't have any user
-		 * information and update them to our known information
-		 * This should log people even if they don't login
-		 */
+	/*
+	 * Loop over old clickstreams (by long lived cookie) that don't have any user
+	 * information and update them to our known information
+	 * This should log people even if they don't login
+	 */
+	private void updateAnonymousClickstreams(Clickstream clickstream) {
 		String _dotCMSID = clickstream.getCookieId();
 		String _loggedInUser = clickstream.getUserId();
 
@@ -0,0 +1,55 @@
+package com.dotmarketing.loggers.mbeans;
+
+import com.dotmarketing.loggers.ClickstreamQueue;
+
+/**
+ * Publishes the metrics of the {@link ClickstreamQueue}, see
+ * {@link ClickstreamQueue#getStats()}.
+ */
+public class ClickstreamStats implements ClickstreamStatsMBean {
+
+	private Object stat(String name) {
+		return ClickstreamQueue.getInstance().getStats().get(name);
+	}
+
+	public int getDepth() {
+		return (Integer) stat("depth");
+	}
+
+	public long getEnqueued() {
+		return (Long) stat("enqueued");
+	}
+
+	public long getWritten() {
+		return (Long) stat("written");
+	}
+
+	public long getWrittenEvents() {
+		return (Long) stat("writtenEvents");
+	}
+
+	public long getDropped() {
+		return (Long) stat("dropped");
+	}
+
+	public long getSpooled() {
+		return (Long) stat("spooled");
+	}
+
+	public long getReplayed() {
+		return (Long) stat("replayed");
+	}
+
+	public long getFailedBatches() {
+		return (Long) stat("failedBatches");
+	}
+
+	public double getClickstreamsPerSecond() {
+		return (Double) stat("clickstreamsPerSecond");
+	}
+
+	public double getEventsPerSecond() {
+		return (Double) stat("eventsPerSecond");
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface ClickstreamStatsMBean {
+
+	public abstract int getDepth();
+
+	public abstract long getEnqueued();
+
+	public abstract long getWritten();
+
+	public abstract long getWrittenEvents();
+
+	public abstract long getDropped();
+
+	public abstract long getSpooled();
+
+	public abstract long getReplayed();
+
+	public abstract long getFailedBatches();
+
+	public abstract double getClickstreamsPerSecond();
+
+	public abstract double getEventsPerSecond();
+
+}
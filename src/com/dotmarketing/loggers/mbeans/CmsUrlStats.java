@@ -0,0 +1,23 @@
+package com.dotmarketing.loggers.mbeans;
+
+import com.dotmarketing.filters.CmsUrlUtil;
+
+/**
+ * Publishes the metrics of the URI resolution cache of {@link CmsUrlUtil},
+ * see {@link CmsUrlUtil#getStats()}.
+ */
+public class CmsUrlStats implements CmsUrlStatsMBean {
+
+	public long getCacheHits() {
+		return CmsUrlUtil.getStats().get("cacheHits");
+	}
+
+	public long getCacheMisses() {
+		return CmsUrlUtil.getStats().get("cacheMisses");
+	}
+
+	public long getNotFoundHits() {
+		return CmsUrlUtil.getStats().get("notFoundHits");
+	}
+
+}
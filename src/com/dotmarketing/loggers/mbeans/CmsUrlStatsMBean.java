@@ -0,0 +1,11 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface CmsUrlStatsMBean {
+
+	public abstract long getCacheHits();
+
+	public abstract long getCacheMisses();
+
+	public abstract long getNotFoundHits();
+
+}
@@ -0,0 +1,43 @@
+package com.dotmarketing.loggers.mbeans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.dotmarketing.image.filter.ImageFilterPipeline;
+
+/**
+ * Publishes the metrics of the {@link ImageFilterPipeline}, see
+ * {@link ImageFilterPipeline#getStats()}.
+ */
+public class ImageFilterStats implements ImageFilterStatsMBean {
+
+	private Object stat(String name) {
+		return ImageFilterPipeline.getInstance().getStats().get(name);
+	}
+
+	public long getGenerated() {
+		return (Long) stat("generated");
+	}
+
+	public long getCollapsed() {
+		return (Long) stat("collapsed");
+	}
+
+	/**
+	 * Returns the count, average and max time of the decoding, of every
+	 * filter and of the encoding, one step per line.
+	 */
+	public String[] getTimings() {
+		List<String> timings = new ArrayList<String>();
+		for (Map.Entry<String, Object> entry : ImageFilterPipeline.getInstance().getStats().entrySet()) {
+			if (entry.getValue() instanceof Map) {
+				timings.add(entry.getKey() + ": " + entry.getValue());
+			}
+		}
+		Collections.sort(timings);
+		return timings.toArray(new String[timings.size()]);
+	}
+
+}
@@ -0,0 +1,11 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface ImageFilterStatsMBean {
+
+	public abstract long getGenerated();
+
+	public abstract long getCollapsed();
+
+	public abstract String[] getTimings();
+
+}
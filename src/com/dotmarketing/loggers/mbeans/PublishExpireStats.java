@@ -0,0 +1,35 @@
+package com.dotmarketing.loggers.mbeans;
+
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduler;
+
+/**
+ * Publishes the metrics of the {@link PublishExpireScheduler}, see
+ * {@link PublishExpireScheduler#getStats()}.
+ */
+public class PublishExpireStats implements PublishExpireStatsMBean {
+
+	private Object stat(String name) {
+		return PublishExpireScheduler.getInstance().getStats().get(name);
+	}
+
+	public int getScheduled() {
+		return (Integer) stat("scheduled");
+	}
+
+	public long getPublished() {
+		return (Long) stat("published");
+	}
+
+	public long getExpired() {
+		return (Long) stat("expired");
+	}
+
+	public long getReconciliations() {
+		return (Long) stat("reconciliations");
+	}
+
+	public long getDrift() {
+		return (Long) stat("drift");
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface PublishExpireStatsMBean {
+
+	public abstract int getScheduled();
+
+	public abstract long getPublished();
+
+	public abstract long getExpired();
+
+	public abstract long getReconciliations();
+
+	public abstract long getDrift();
+
+}
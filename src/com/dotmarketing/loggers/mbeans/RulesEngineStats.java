@@ -0,0 +1,47 @@
+package com.dotmarketing.loggers.mbeans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.dotmarketing.portlets.rules.business.RulesEngine;
+
+/**
+ * Publishes the time the rules take, see {@link RulesEngine#getStats()}.
+ */
+public class RulesEngineStats implements RulesEngineStatsMBean {
+
+	public int getRuleCount() {
+		return RulesEngine.getStats().size();
+	}
+
+	public long getEvaluations() {
+		long evaluations = 0;
+		for (Map<String, Object> rule : RulesEngine.getStats().values()) {
+			evaluations += (Long) rule.get("count");
+		}
+		return evaluations;
+	}
+
+	/**
+	 * Returns the timings and the histogram of every rule, one rule per line,
+	 * the rules that took the most time in total first.
+	 */
+	public String[] getRuleTimings() {
+		List<Map.Entry<String, Map<String, Object>>> rules = new ArrayList<Map.Entry<String, Map<String, Object>>>(
+				RulesEngine.getStats().entrySet());
+		Collections.sort(rules, new Comparator<Map.Entry<String, Map<String, Object>>>() {
+			public int compare(Map.Entry<String, Map<String, Object>> a, Map.Entry<String, Map<String, Object>> b) {
+				return Float.compare((Float) b.getValue().get("totalMillis"), (Float) a.getValue().get("totalMillis"));
+			}
+		});
+		String[] timings = new String[rules.size()];
+		for (int i = 0; i < timings.length; i++) {
+			timings[i] = rules.get(i).getKey() + ": " + rules.get(i).getValue();
+		}
+		return timings;
+	}
+
+}
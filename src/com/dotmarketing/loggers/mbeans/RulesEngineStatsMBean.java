@@ -0,0 +1,11 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface RulesEngineStatsMBean {
+
+	public abstract int getRuleCount();
+
+	public abstract long getEvaluations();
+
+	public abstract String[] getRuleTimings();
+
+}
@@ -0,0 +1,37 @@
+package com.dotmarketing.loggers.mbeans;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.dotmarketing.common.db.DotConnect;
+
+/**
+ * Publishes the statements run through {@link DotConnect} and the time they
+ * took, see {@link DotConnect#getStats()}.
+ */
+public class SqlStatementStats implements SqlStatementStatsMBean {
+
+	public long getStatements() {
+		long statements = 0;
+		for (Map<String, Object> type : DotConnect.getStats().values()) {
+			statements += (Long) type.get("count");
+		}
+		return statements;
+	}
+
+	/**
+	 * Returns the count, total, average and max time of the statements, one
+	 * statement type per line.
+	 */
+	public String[] getStatementTimings() {
+		List<String> timings = new ArrayList<String>();
+		for (Map.Entry<String, Map<String, Object>> entry : DotConnect.getStats().entrySet()) {
+			timings.add(entry.getKey() + ": " + entry.getValue());
+		}
+		Collections.sort(timings);
+		return timings.toArray(new String[timings.size()]);
+	}
+
+}
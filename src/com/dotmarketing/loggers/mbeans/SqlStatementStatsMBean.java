@@ -0,0 +1,9 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface SqlStatementStatsMBean {
+
+	public abstract long getStatements();
+
+	public abstract String[] getStatementTimings();
+
+}
@@ -0,0 +1,32 @@
+package com.dotmarketing.loggers.mbeans;
+
+import com.dotmarketing.velocity.DotResourceLoader;
+
+/**
+ * Publishes the metrics of the {@link DotResourceLoader}, see
+ * {@link DotResourceLoader#getStats()}. They are all 0 until Velocity
+ * creates the loader.
+ */
+public class VelocityLoaderStats implements VelocityLoaderStatsMBean {
+
+	private Object stat(String name) {
+		DotResourceLoader loader = DotResourceLoader.getInstance();
+		return loader != null ? loader.getStats().get(name) : null;
+	}
+
+	public long getLoads() {
+		Object loads = stat("loads");
+		return loads != null ? (Long) loads : 0;
+	}
+
+	public long getCollapsedLoads() {
+		Object collapsedLoads = stat("collapsedLoads");
+		return collapsedLoads != null ? (Long) collapsedLoads : 0;
+	}
+
+	public int getInFlight() {
+		Object inFlight = stat("inFlight");
+		return inFlight != null ? (Integer) inFlight : 0;
+	}
+
+}
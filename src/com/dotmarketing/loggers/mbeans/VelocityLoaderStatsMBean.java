@@ -0,0 +1,11 @@
+package com.dotmarketing.loggers.mbeans;
+
+public interface VelocityLoaderStatsMBean {
+
+	public abstract long getLoads();
+
+	public abstract long getCollapsedLoads();
+
+	public abstract int getInFlight();
+
+}
@@ -1776,18 +1776,7 @@ public class EditContentletAction extends DotPortletAction implements DotPortlet
 
 			inodes = contentletsInodes.toArray(new String[0]);
 
-			List<Contentlet> contentletsList2 = new ArrayList<Contentlet>();
-			for(String inode  : inodes){
-
-				Contentlet contentlet = new Contentlet();
-				try{
-					contentlet = conAPI.find(inode, user, false);
-				}catch (DotDataException ex){
-					Logger.error(this, "Unable to find contentlet with indoe " + inode);
-				}
-				contentletsList2.add(contentlet);
-			}
-			/*Structure, if contentletList.size() then contentletsList2 are not empty
+			/*Structure, if contentletList.size() then inodes are not empty
 			 * http://jira.dotmarketing.net/browse/DOTCMS-72*/
 			st=CacheLocator.getContentTypeCache().getStructureByInode(structureInode);
 
@@ -1815,7 +1804,14 @@ public class EditContentletAction extends DotPortletAction implements DotPortlet
 
 
 				pr.print("\r\n");
-				for(Contentlet content :  contentletsList2 ){
+				for(String inode : inodes){
+					// loaded as they are written, the export doesn't hold all the contentlets in memory
+					Contentlet content = new Contentlet();
+					try{
+						content = conAPI.find(inode, user, false);
+					}catch (DotDataException ex){
+						Logger.error(this, "Unable to find contentlet with indoe " + inode);
+					}
 					List<Category> catList = (List<Category>) catAPI.getParents(content, user, false);
 					pr.print(""+content.getIdentifier()+"");
 					Language lang =APILocator.getLanguageAPI().getLanguage(content.getLanguageId());
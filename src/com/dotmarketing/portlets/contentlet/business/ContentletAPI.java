@@ -296,6 +296,22 @@ public interface ContentletAPI {
 	 * @throws DotDataException 
 	 */
 	public List<ContentletSearch> searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException;
+
+	/**
+	 * Iterates over all the contentlets matching the lucene query, with no limit on the number of results.
+	 * Unlike search, the contentlets are not all loaded in memory: the index is read with a scroll and the
+	 * contentlets are loaded a batch at a time as the iteration goes, in no particular order. Use it for
+	 * jobs going through large result sets, like the sitemap generation or exports.
+	 * The results are filtered with only the contentlets that the user can read(use).
+	 * @param luceneQuery
+	 * @param batchSize Approximate number of contentlets loaded at a time
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @return
+	 * @throws DotSecurityException if user is null and respectFrontendRoles is false
+	 * @throws DotDataException
+	 */
+	public Iterable<Contentlet> scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException;
 	
 	/**
 	 * Publishes all related HTMLPage
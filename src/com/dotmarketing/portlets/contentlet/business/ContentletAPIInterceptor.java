@@ -1225,6 +1225,24 @@ public class ContentletAPIInterceptor implements ContentletAPI, Interceptor {
 		return c;
 	}
 
+	/* (non-Javadoc)
+	 * @see com.dotmarketing.portlets.contentlet.business.ContentletAPI#scroll(java.lang.String, int, com.liferay.portal.model.User, boolean)
+	 */
+	public Iterable<Contentlet> scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles) throws DotSecurityException, DotDataException {
+		for(ContentletAPIPreHook pre : preHooks){
+			boolean preResult = pre.scroll(luceneQuery, batchSize, user, respectFrontendRoles);
+			if(!preResult){
+				Logger.error(this, "The following prehook failed " + pre.getClass().getName());
+				throw new DotRuntimeException("The following prehook failed " + pre.getClass().getName());
+			}
+		}
+		Iterable<Contentlet> c = conAPI.scroll(luceneQuery, batchSize, user, respectFrontendRoles);
+		for(ContentletAPIPostHook post : postHooks){
+			post.scroll(luceneQuery, batchSize, user, respectFrontendRoles, c);
+		}
+		return c;
+	}
+
 	/* (non-Javadoc)
 	 * @see com.dotmarketing.portlets.contentlet.business.ContentletAPI#isContentEqual(com.dotmarketing.portlets.contentlet.model.Contentlet, com.dotmarketing.portlets.contentlet.model.Contentlet, com.liferay.portal.model.User, boolean)
 	 */
@@ -214,6 +214,16 @@ public interface ContentletAPIPostHook {
 	 */
 
 	public void searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles,List<ContentletSearch> returnValue);
+
+	/**
+	 * Iterates over all the contentlets matching the lucene query, loading them a batch at a time
+	 * @param luceneQuery
+	 * @param batchSize
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @param returnValue - value returned by primary API Method
+	 */
+	public void scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles, Iterable<Contentlet> returnValue);
 	
 	/**
 	 * Publishes all related HTMLPage
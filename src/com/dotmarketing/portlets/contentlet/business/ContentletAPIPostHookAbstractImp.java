@@ -85,6 +85,9 @@ public class ContentletAPIPostHookAbstractImp implements ContentletAPIPostHook {
 
 	public void searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles,List<ContentletSearch> returnValue) {
 	}
+
+	public void scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles, Iterable<Contentlet> returnValue) {
+	}
 	
 	public void publishRelatedHtmlPages(Contentlet contentlet) {
 	}
@@ -207,6 +207,16 @@ public interface ContentletAPIPreHook {
 	 * @return
 	 */
 	public boolean searchIndex(String luceneQuery, int limit, int offset, String sortBy, User user, boolean respectFrontendRoles);
+
+	/**
+	 * Iterates over all the contentlets matching the lucene query, loading them a batch at a time
+	 * @param luceneQuery
+	 * @param batchSize
+	 * @param user
+	 * @param respectFrontendRoles
+	 * @return
+	 */
+	public boolean scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles);
 	
 	/**
 	 * Publishes all related HTMLPage
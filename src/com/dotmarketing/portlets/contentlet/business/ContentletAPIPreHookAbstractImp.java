@@ -515,6 +515,10 @@ public class ContentletAPIPreHookAbstractImp implements ContentletAPIPreHook {
 		return true;
 	}
 
+	public boolean scroll(String luceneQuery, int batchSize, User user, boolean respectFrontendRoles) {
+		return true;
+	}
+
 	public boolean searchIndexCount(String luceneQuery, User user, boolean respectFrontendRoles) {
 		return true;
 	}
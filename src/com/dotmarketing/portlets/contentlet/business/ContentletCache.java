@@ -8,6 +8,7 @@ import com.dotmarketing.portlets.contentlet.model.Contentlet;
 public abstract class ContentletCache implements Cachable {
     public static final String EMPTY_METADATA = "**~~||%%EMPTY_METADATA%%||~~**";
     public static final String CACHED_METADATA = "**~~||%%CACHED_METADATA%%||~~**";
+    public static final String LAZY_FIELD = "**~~||%%LAZY_FIELD%%||~~**";
 
 	public abstract com.dotmarketing.portlets.contentlet.model.Contentlet add(String key,com.dotmarketing.portlets.contentlet.model.Contentlet content);
 
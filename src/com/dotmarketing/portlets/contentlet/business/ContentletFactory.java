@@ -19,6 +19,7 @@ import org.elasticsearch.search.SearchHits;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -141,6 +142,16 @@ public abstract class ContentletFactory {
 	 * @return
 	 */
 	protected abstract SearchHits indexSearch(String luceneQuery, int limit, int offset, String sortBy);
+
+	/**
+	 * Reads the inodes of all the contentlets matching the lucene query with a scroll on the index,
+	 * a batch at a time, in no particular order. Only the current batch is kept in memory, and the
+	 * scroll is released once the last batch is read.
+	 * @param luceneQuery
+	 * @param batchSize - Approximate number of inodes per batch
+	 * @return
+	 */
+	protected abstract Iterator<List<String>> indexScroll(String luceneQuery, int batchSize);
 	
 	/**
 	 * Returns the contentlets on a given page.  You can pass -1 for languageId if you don't want to query to pull based
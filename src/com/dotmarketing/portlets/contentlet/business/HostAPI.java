@@ -281,4 +281,11 @@ public interface HostAPI {
 	 * @throws DotSecurityException
 	 */
 	public Host resolveHostName(String serverName, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException ;
+
+	/**
+	 * Returns the snapshot of the server names served by every host, building
+	 * it if a host changed since it was last built.
+	 * @return the routing table, or null if HOST_ROUTING_TABLE is false or the table can't be built
+	 */
+	public HostRoutingTable getRoutingTable();
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.notifications.bean.NotificationLevel;
 import com.dotmarketing.beans.Host;
@@ -24,8 +25,10 @@ import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.cache.VirtualLinksCache;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.FlushCacheRunnable;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.portlets.containers.business.ContainerAPI;
@@ -46,6 +49,7 @@ import com.dotmarketing.portlets.structure.model.Structure;
 import com.dotmarketing.portlets.templates.business.TemplateAPI;
 import com.dotmarketing.portlets.templates.model.Template;
 import com.dotmarketing.portlets.virtuallinks.model.VirtualLink;
+import com.dotmarketing.util.Config;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.UtilMethods;
 import com.liferay.portal.language.LanguageException;
@@ -63,6 +67,13 @@ public class HostAPIImpl implements HostAPI {
 	private HostCache hostCache = CacheLocator.getHostCache();
 	private Host systemHost;
 
+	// only one thread builds the routing table after it is flushed
+	private static final Object routingTableLock = new Object();
+	// until when a failed build is not retried, the hosts are searched in the index meanwhile
+	private static volatile long routingTableRetryAfter = 0;
+	// changes every time the hosts change, a table built meanwhile is not cached as it may miss the change
+	private static final AtomicLong routingTableVersion = new AtomicLong();
+
 	public HostAPIImpl() {
 	}
 
@@ -121,7 +132,9 @@ public class HostAPIImpl implements HostAPI {
 	/**
 	 * This method takes a server name (from a web request) and maps it to a host.
 	 * It is designed to do a lightweight cache lookup to get the mapping from server name -> host
-	 * and to prevent unnecessary lucene lookups
+	 * and to prevent unnecessary lucene lookups. Unless HOST_ROUTING_TABLE is false, the
+	 * name is looked up in the {@link HostRoutingTable}, and the index is only searched
+	 * when the table can't be built
 	 * @param serverName
 	 * @param user
 	 * @param respectFrontendRoles
@@ -131,7 +144,13 @@ public class HostAPIImpl implements HostAPI {
 	 */
 
 	public Host resolveHostName(String serverName, User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
-		Host host = hostCache.getHostByAlias(serverName);
+		Host host = null;
+		HostRoutingTable table = getRoutingTable();
+		if(table != null){
+			host = table.resolve(serverName);
+		} else {
+			host = hostCache.getHostByAlias(serverName);
+		}
 		
 		if(host == null){
 			User systemUser = APILocator.getUserAPI().getSystemUser();
@@ -165,6 +184,82 @@ public class HostAPIImpl implements HostAPI {
 		}
 	}
 
+	/**
+	 * Returns the routing table from cache, building it from the database if
+	 * it was flushed. Returns null if the table is disabled or can't be built.
+	 * A failed build is not retried for HOST_ROUTING_TABLE_RETRY_SECONDS, so
+	 * the requests don't queue up on the lock to fail the same way.
+	 */
+	public HostRoutingTable getRoutingTable() {
+		if(!Config.getBooleanProperty("HOST_ROUTING_TABLE", true)){
+			return null;
+		}
+		HostRoutingTable table = hostCache.getRoutingTable();
+		if(table != null || System.currentTimeMillis() < routingTableRetryAfter){
+			return table;
+		}
+		synchronized (routingTableLock) {
+			table = hostCache.getRoutingTable();
+			if(table == null && System.currentTimeMillis() >= routingTableRetryAfter){
+				try {
+					long start = System.currentTimeMillis();
+					long version = routingTableVersion.get();
+					User systemUser = APILocator.getUserAPI().getSystemUser();
+					List<Host> hosts = findAllFromDB(systemUser, false);
+					Host defaultHost = null;
+					for(Host host : hosts){
+						if(host.isDefault()){
+							defaultHost = host;
+							break;
+						}
+					}
+					if(defaultHost == null){
+						throw new DotDataException("No host is marked as default");
+					}
+					table = new HostRoutingTable(hosts, defaultHost);
+					if(version == routingTableVersion.get()){
+						hostCache.addRoutingTable(table);
+						Logger.debug(this, "Built the host routing table with " + table.size() + " names in "
+								+ (System.currentTimeMillis() - start) + " ms");
+					}else{
+						// the hosts changed while it was built, it may have read them before the change committed
+						Logger.debug(this, "The hosts changed while building the routing table, it is not cached");
+					}
+				} catch (Exception e) {
+					int retrySeconds = Config.getIntProperty("HOST_ROUTING_TABLE_RETRY_SECONDS", 30);
+					routingTableRetryAfter = System.currentTimeMillis() + retrySeconds * 1000L;
+					Logger.warn(this, "Unable to build the host routing table, searching the hosts in the index for the next "
+							+ retrySeconds + " seconds: " + e.getMessage());
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Flushes the server names mapped to the hosts. They are flushed again once
+	 * the transaction commits, so the routing table is not left built with
+	 * the hosts as they were before the transaction. Both flushes change the
+	 * routing table version, so a table whose build started before them is
+	 * not cached.
+	 */
+	void clearAliasCache() {
+		// the hosts changed, the next request may build the table again
+		routingTableRetryAfter = 0;
+		routingTableVersion.incrementAndGet();
+		hostCache.clearAliasCache();
+		try {
+			HibernateUtil.addCommitListener("HostRoutingTable", new FlushCacheRunnable() {
+				public void run() {
+					routingTableVersion.incrementAndGet();
+					hostCache.clearAliasCache();
+				}
+			});
+		} catch (DotHibernateException e) {
+			Logger.warn(this, "Unable to flush the host aliases on commit: " + e.getMessage());
+		}
+	}
+
 	/**
 	 *
 	 * @param hostName
@@ -393,7 +488,7 @@ public class HostAPIImpl implements HostAPI {
 		Host savedHost =  new Host(c);
 
 		updateDefaultHost(host, user, respectFrontendRoles);
-		hostCache.clearAliasCache();
+		clearAliasCache();
 		return savedHost;
 
 	}
@@ -682,7 +777,7 @@ public class HostAPIImpl implements HostAPI {
 				Contentlet c = contentAPI.find(host.getInode(), user, respectFrontendRoles);
 				contentAPI.delete(c, user, respectFrontendRoles);
 				hostCache.remove(host);
-				hostCache.clearAliasCache();
+				clearAliasCache();
 
 			}
 		}
@@ -717,7 +812,7 @@ public class HostAPIImpl implements HostAPI {
 		}
 		APILocator.getContentletAPI().archive(c, user, respectFrontendRoles);
 		host.setModDate(new Date ());
-		hostCache.clearAliasCache();
+		clearAliasCache();
 	}
 
 	public void unarchive(Host host, User user, boolean respectFrontendRoles)
@@ -729,7 +824,7 @@ public class HostAPIImpl implements HostAPI {
 		Contentlet c = APILocator.getContentletAPI().find(host.getInode(), user, respectFrontendRoles);
 		APILocator.getContentletAPI().unarchive(c, user, respectFrontendRoles);
 		host.setModDate(new Date ());
-		hostCache.clearAliasCache();
+		clearAliasCache();
 
 	}
 
@@ -836,7 +931,7 @@ public class HostAPIImpl implements HostAPI {
 		Contentlet c = APILocator.getContentletAPI().find(host.getInode(), user, respectFrontendRoles);
 		APILocator.getContentletAPI().publish(c, user, respectFrontendRoles);
 		hostCache.add(host);
-		hostCache.clearAliasCache();
+		clearAliasCache();
 
 	}
 
@@ -847,7 +942,7 @@ public class HostAPIImpl implements HostAPI {
 		Contentlet c = APILocator.getContentletAPI().find(host.getInode(), user, respectFrontendRoles);
 		APILocator.getContentletAPI().unpublish(c, user, respectFrontendRoles);
 		hostCache.add(host);
-		hostCache.clearAliasCache();
+		clearAliasCache();
 	}
 
 	public void makeDefault(Host host, User user, boolean respectFrontendRoles) throws DotContentletStateException, DotDataException, DotSecurityException {
@@ -910,7 +1005,7 @@ public class HostAPIImpl implements HostAPI {
 
 	public void updateCache(Host host) {
 		hostCache.remove(host);
-		hostCache.clearAliasCache();
+		clearAliasCache();
 		hostCache.add(new Host(host));
 	}
 
@@ -14,6 +14,9 @@ import com.dotmarketing.util.UtilMethods;
 public class HostCacheImpl extends HostCache {
 	
 	final String DEFAULT_HOST = "_dotCMSDefaultHost_";
+
+	// kept with the aliases, so it goes away with them
+	final String ROUTING_TABLE = "_dotCMSHostRoutingTable_";
 	
 	private DotCacheAdministrator cache;
 	
@@ -138,4 +141,20 @@ public class HostCacheImpl extends HostCache {
         // clear the alias cache
         cache.flushGroup(ALIAS_GROUP);
     }
+
+	protected HostRoutingTable getRoutingTable() {
+		HostRoutingTable table = null;
+		try{
+			table = (HostRoutingTable) cache.get(ROUTING_TABLE, ALIAS_GROUP);
+		}catch (DotCacheException e) {
+			Logger.debug(this, "Cache Entry not found", e);
+		}
+		return table;
+	}
+
+	protected void addRoutingTable(HostRoutingTable table) {
+		if(table != null){
+			cache.put(ROUTING_TABLE, table, ALIAS_GROUP);
+		}
+	}
 }
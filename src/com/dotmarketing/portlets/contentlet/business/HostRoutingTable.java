@@ -0,0 +1,131 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UtilMethods;
+
+/**
+ * Snapshot of the server names served by every host: the host names, the
+ * aliases and the wildcard aliases ({@code *.example.com}, matching any
+ * subdomain of example.com). Any other name is served by the default host, so
+ * resolving the host of a request is a single map lookup, no matter how many
+ * unknown names the requests come with.
+ * <p>
+ * The snapshot is never modified once built. It lives in the {@link HostCache}
+ * and is built again after a host changes, which flushes it in every server
+ * of the cluster.
+ * </p>
+ */
+public final class HostRoutingTable implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Map<String, Host> names;
+	private final Map<String, Host> wildcards;
+	private final Host defaultHost;
+
+	/**
+	 * @param hosts
+	 *            - Every host but the system host.
+	 * @param defaultHost
+	 *            - The host that serves the names no other host serves.
+	 */
+	public HostRoutingTable(Collection<Host> hosts, Host defaultHost) {
+		Map<String, Host> names = new HashMap<String, Host>();
+		Map<String, Host> wildcards = new HashMap<String, Host>();
+
+		// host names take precedence over aliases
+		for (Host host : hosts) {
+			if (host.isSystemHost() || !UtilMethods.isSet(host.getHostname())) {
+				continue;
+			}
+			String name = host.getHostname().trim().toLowerCase();
+			if (names.containsKey(name)) {
+				Logger.error(this, "More of one host has the same name " + name + "!!");
+				continue;
+			}
+			names.put(name, host);
+		}
+
+		Map<String, Host> aliases = new HashMap<String, Host>();
+		for (Host host : hosts) {
+			if (host.isSystemHost() || host.getAliases() == null) {
+				continue;
+			}
+			// same separators as HostAPI.parseHostAliases
+			StringTokenizer tok = new StringTokenizer(host.getAliases(), ", \n\r\t");
+			while (tok.hasMoreTokens()) {
+				String alias = tok.nextToken().toLowerCase();
+				Map<String, Host> target = aliases;
+				if (alias.startsWith("*.") && alias.length() > 2) {
+					alias = alias.substring(2);
+					target = wildcards;
+				}
+				Host other = target.get(alias);
+				if (other != null && other != host) {
+					// the default host wins when several hosts share an alias
+					if (!host.isDefault()) {
+						Logger.warn(this, "More of one host match the same alias " + alias + "!!");
+						continue;
+					}
+				}
+				target.put(alias, host);
+			}
+		}
+		for (Map.Entry<String, Host> alias : aliases.entrySet()) {
+			if (!names.containsKey(alias.getKey())) {
+				names.put(alias.getKey(), alias.getValue());
+			}
+		}
+
+		this.names = Collections.unmodifiableMap(names);
+		this.wildcards = Collections.unmodifiableMap(wildcards);
+		this.defaultHost = defaultHost;
+	}
+
+	/**
+	 * Returns the host that serves a server name, the default host if none
+	 * does.
+	 *
+	 * @param serverName
+	 */
+	public Host resolve(String serverName) {
+		if (serverName == null) {
+			return defaultHost;
+		}
+		String name = serverName.trim().toLowerCase();
+		Host host = names.get(name);
+		if (host != null) {
+			return host;
+		}
+		if (!wildcards.isEmpty()) {
+			// the most specific wildcard wins
+			for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+				host = wildcards.get(name.substring(dot + 1));
+				if (host != null) {
+					return host;
+				}
+			}
+		}
+		return defaultHost;
+	}
+
+	public Host getDefaultHost() {
+		return defaultHost;
+	}
+
+	/**
+	 * Returns the number of names and wildcards in the table.
+	 */
+	public int size() {
+		return names.size() + wildcards.size();
+	}
+
+}
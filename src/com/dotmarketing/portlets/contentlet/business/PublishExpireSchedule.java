@@ -0,0 +1,162 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The contents to publish or expire ordered by the time they have to be
+ * published or expired, with a single entry per identifier and action: an
+ * entry added again replaces the previous one. Used by the
+ * {@link PublishExpireScheduler} to fire exactly the entries that are due.
+ */
+class PublishExpireSchedule {
+
+	enum Action {
+		PUBLISH, EXPIRE
+	}
+
+	static final class Entry implements Comparable<Entry> {
+
+		private final long time;
+		private final String identifier;
+		private final Action action;
+
+		Entry(long time, String identifier, Action action) {
+			this.time = time;
+			this.identifier = identifier;
+			this.action = action;
+		}
+
+		long getTime() {
+			return time;
+		}
+
+		String getIdentifier() {
+			return identifier;
+		}
+
+		Action getAction() {
+			return action;
+		}
+
+		private String key() {
+			return identifier + ":" + action;
+		}
+
+		public int compareTo(Entry other) {
+			if (time != other.time) {
+				return time < other.time ? -1 : 1;
+			}
+			int cmp = identifier.compareTo(other.identifier);
+			return cmp != 0 ? cmp : action.compareTo(other.action);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Entry && compareTo((Entry) obj) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return key().hashCode() * 31 + (int) (time ^ (time >>> 32));
+		}
+
+		@Override
+		public String toString() {
+			return action + " " + identifier + " at " + time;
+		}
+	}
+
+	private final TreeSet<Entry> byTime = new TreeSet<Entry>();
+	private final Map<String, Entry> byKey = new HashMap<String, Entry>();
+
+	/**
+	 * Adds an entry, replacing the one of the same identifier and action.
+	 *
+	 * @return If the entry is now the first one to fire.
+	 */
+	synchronized boolean add(Entry entry) {
+		Entry previous = byKey.put(entry.key(), entry);
+		if (previous != null) {
+			byTime.remove(previous);
+		}
+		byTime.add(entry);
+		return byTime.first() == entry;
+	}
+
+	/**
+	 * Removes the entries of an identifier.
+	 */
+	synchronized void remove(String identifier) {
+		for (Action action : Action.values()) {
+			Entry previous = byKey.remove(identifier + ":" + action);
+			if (previous != null) {
+				byTime.remove(previous);
+			}
+		}
+	}
+
+	/**
+	 * Replaces all the entries.
+	 *
+	 * @return The given entries that were not scheduled, or were scheduled
+	 *         for another time.
+	 */
+	synchronized int replaceAll(Collection<Entry> entries) {
+		int changed = 0;
+		for (Entry entry : entries) {
+			Entry previous = byKey.get(entry.key());
+			if (previous == null || previous.time != entry.time) {
+				changed++;
+			}
+		}
+		byTime.clear();
+		byKey.clear();
+		for (Entry entry : entries) {
+			add(entry);
+		}
+		return changed;
+	}
+
+	/**
+	 * Takes out the entries due at the given time for the same action as the
+	 * first one due, up to max entries.
+	 */
+	synchronized List<Entry> pollDue(long now, int max) {
+		List<Entry> due = new ArrayList<Entry>();
+		Action action = null;
+		Iterator<Entry> it = byTime.iterator();
+		while (it.hasNext() && due.size() < max) {
+			Entry entry = it.next();
+			if (entry.time > now) {
+				break;
+			}
+			if (action == null) {
+				action = entry.action;
+			} else if (entry.action != action) {
+				continue;
+			}
+			it.remove();
+			byKey.remove(entry.key());
+			due.add(entry);
+		}
+		return due;
+	}
+
+	/**
+	 * Returns the time of the first entry to fire, or -1 if there is none.
+	 */
+	synchronized long nextTime() {
+		return byTime.isEmpty() ? -1 : byTime.first().time;
+	}
+
+	synchronized int size() {
+		return byTime.size();
+	}
+
+}
@@ -0,0 +1,391 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.ChainableCacheAdministratorImpl;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.db.FlushCacheRunnable;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotHibernateException;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireSchedule.Action;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireSchedule.Entry;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.ConfigUtils;
+import com.dotmarketing.util.Logger;
+import com.liferay.portal.model.User;
+
+/**
+ * Publishes and expires contents at the time set in their publish and expire
+ * date fields, to the second, without searching every content type for due
+ * contents.
+ * <p>
+ * The persistent index of what is due when is the {@code syspublish_date} and
+ * {@code sysexpire_date} columns of the {@code identifier} table, updated on
+ * check in. The contents due in the next two reconciliation intervals are
+ * kept in a {@link PublishExpireSchedule} and a single thread sleeps until
+ * the first of them is due, then publishes or expires the due ones in
+ * batches of {@code PUBLISH_EXPIRE_BATCH_SIZE} (50 by default). A content
+ * whose dates change on check in is scheduled again once the transaction
+ * commits, and every {@code PUBLISH_EXPIRE_RECONCILE_INTERVAL} seconds (300
+ * by default) the schedule is loaded again from the database, which catches
+ * anything missed, like contents published or changed by hand.
+ * </p>
+ * <p>
+ * In a cluster only the first of the servers alive, sorted by ID, keeps the
+ * schedule; the rest send it the identifiers checked in through the cache
+ * transport. {@code PUBLISH_EXPIRE_SCHEDULER_ENABLED=false} turns it off, and
+ * the {@code PublishExpireJob} goes back to searching every content type.
+ * </p>
+ */
+public class PublishExpireScheduler {
+
+	public static final String SCHEDULE_MESSAGE = "PublishExpireScheduler.schedule:";
+
+	private static final long LEADER_REFRESH_MILLIS = 60 * 1000;
+	private static final PublishExpireScheduler instance = new PublishExpireScheduler();
+
+	private final PublishExpireSchedule schedule = new PublishExpireSchedule();
+	private final ConcurrentLinkedQueue<String> changed = new ConcurrentLinkedQueue<String>();
+	private final Object signal = new Object();
+	private volatile Thread timer;
+	private volatile long nextReconcile = 0;
+
+	private boolean leader = true;
+	private long leaderTime = 0;
+
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong expired = new AtomicLong();
+	private final AtomicLong reconciliations = new AtomicLong();
+	private final AtomicLong drift = new AtomicLong();
+
+	public static PublishExpireScheduler getInstance() {
+		return instance;
+	}
+
+	private PublishExpireScheduler() {
+	}
+
+	public boolean isEnabled() {
+		return Config.getBooleanProperty("PUBLISH_EXPIRE_SCHEDULER_ENABLED", true);
+	}
+
+	private long getReconcileInterval() {
+		return Math.max(10, Config.getIntProperty("PUBLISH_EXPIRE_RECONCILE_INTERVAL", 300)) * 1000L;
+	}
+
+	/**
+	 * Starts the thread that publishes and expires the contents, loading the
+	 * schedule first.
+	 */
+	public synchronized void start() {
+		if (!isEnabled() || timer != null) {
+			return;
+		}
+		timer = new Thread(new Timer(), "PublishExpireScheduler");
+		timer.setDaemon(true);
+		timer.start();
+		Logger.info(this, "Publish/expire scheduler started");
+	}
+
+	/**
+	 * Schedules again the content of an identifier whose publish or expire
+	 * date changed, once the current transaction commits.
+	 *
+	 * @param identifier
+	 */
+	public void identifierChanged(final String identifier) {
+		if (!isEnabled()) {
+			return;
+		}
+		FlushCacheRunnable listener = new FlushCacheRunnable() {
+			public void run() {
+				reload(identifier);
+				DotCacheAdministrator cache = CacheLocator.getCacheAdministrator().getImplementationObject();
+				if (cache instanceof ChainableCacheAdministratorImpl && ((ChainableCacheAdministratorImpl) cache).isClusteringEnabled()) {
+					((ChainableCacheAdministratorImpl) cache).send(SCHEDULE_MESSAGE + identifier);
+				}
+			}
+		};
+		try {
+			HibernateUtil.addCommitListener(SCHEDULE_MESSAGE + identifier, listener);
+		} catch (DotHibernateException e) {
+			Logger.warn(this, "Unable to wait for the commit to schedule " + identifier + ", the next reconciliation will: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Schedules again the content of an identifier, reading its dates from the
+	 * database in the scheduler thread. Does nothing if this server does not
+	 * keep the schedule.
+	 *
+	 * @param identifier
+	 */
+	public void reload(String identifier) {
+		if (timer == null) {
+			return;
+		}
+		changed.offer(identifier);
+		wake();
+	}
+
+	/**
+	 * Schedules again the identifiers given to {@link #reload(String)}.
+	 */
+	private void reloadChanged() {
+		String identifier;
+		while ((identifier = changed.poll()) != null) {
+			if (!isLeader()) {
+				continue;
+			}
+			schedule.remove(identifier);
+			try {
+				for (Entry entry : load(System.currentTimeMillis() + 2 * getReconcileInterval(), identifier)) {
+					schedule.add(entry);
+				}
+			} catch (DotDataException e) {
+				Logger.warn(this, "Unable to schedule " + identifier + ", the next reconciliation will: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Makes the next reconciliation run now.
+	 */
+	public void reconcile() {
+		nextReconcile = 0;
+		wake();
+	}
+
+	private void wake() {
+		synchronized (signal) {
+			signal.notifyAll();
+		}
+	}
+
+	/**
+	 * Returns whether this server is the one that keeps the schedule: the
+	 * first of the servers alive, or this one if it is not in a cluster.
+	 */
+	private synchronized boolean isLeader() {
+		long now = System.currentTimeMillis();
+		if (now - leaderTime > LEADER_REFRESH_MILLIS) {
+			leaderTime = now;
+			try {
+				List<String> servers = new ArrayList<String>(Arrays.asList(APILocator.getServerAPI().getAliveServersIds()));
+				Collections.sort(servers);
+				boolean wasLeader = leader;
+				leader = servers.isEmpty() || servers.get(0).equals(ConfigUtils.getServerId());
+				if (leader != wasLeader) {
+					Logger.info(this, leader ? "This server now publishes and expires contents on schedule"
+							: "Another server publishes and expires contents on schedule");
+					nextReconcile = 0;
+				}
+			} catch (DotDataException e) {
+				Logger.warn(this, "Unable to read the servers of the cluster: " + e.getMessage());
+			}
+		}
+		return leader;
+	}
+
+	/**
+	 * Loads from the database the contents to publish or expire up to the
+	 * given time, all of them or the ones of an identifier. The ones already
+	 * due are scheduled for now.
+	 */
+	private List<Entry> load(long windowEnd, String identifier) throws DotDataException {
+		List<Entry> entries = new ArrayList<Entry>();
+		long now = System.currentTimeMillis();
+		Date end = new Date(windowEnd);
+		String byIdentifier = identifier != null ? " and i.id = ?" : "";
+
+		DotConnect dc = new DotConnect();
+		dc.setSQL(dueSQL(Action.PUBLISH, "distinct i.id, i.syspublish_date as fire_date") + byIdentifier);
+		dc.addParam(end);
+		dc.addParam(new Date(now));
+		if (identifier != null) {
+			dc.addParam(identifier);
+		}
+		for (Map<String, Object> row : dc.loadObjectResults()) {
+			entries.add(new Entry(Math.max(now, ((Date) row.get("fire_date")).getTime()), (String) row.get("id"), Action.PUBLISH));
+		}
+
+		dc.setSQL(dueSQL(Action.EXPIRE, "distinct i.id, i.sysexpire_date as fire_date") + byIdentifier);
+		dc.addParam(end);
+		if (identifier != null) {
+			dc.addParam(identifier);
+		}
+		for (Map<String, Object> row : dc.loadObjectResults()) {
+			entries.add(new Entry(Math.max(now, ((Date) row.get("fire_date")).getTime()), (String) row.get("id"), Action.EXPIRE));
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the query of the versions to publish or expire: the working
+	 * versions that are not live whose publish date is passed and expire date
+	 * is not, and the live versions without a newer working version whose
+	 * expire date is passed. Its first parameter is the time the dates are
+	 * compared to, followed, for publishing, by the time the expire date has
+	 * to be after.
+	 */
+	private String dueSQL(Action action, String columns) {
+		String sql = "select " + columns + " from identifier i, contentlet_version_info cvi where cvi.identifier = i.id"
+				+ " and cvi.deleted = " + DbConnectionFactory.getDBFalse();
+		if (action == Action.PUBLISH) {
+			return sql + " and i.syspublish_date <= ? and (i.sysexpire_date is null or i.sysexpire_date > ?)"
+					+ " and (cvi.live_inode is null or cvi.live_inode <> cvi.working_inode)";
+		}
+		return sql + " and i.sysexpire_date <= ? and cvi.live_inode = cvi.working_inode";
+	}
+
+	/**
+	 * Publishes or expires the given contents that are still due.
+	 */
+	private void fire(List<Entry> entries) throws DotDataException {
+		Action action = entries.get(0).getAction();
+		Date now = new Date();
+		DotConnect dc = new DotConnect();
+		dc.setSQL(dueSQL(action, action == Action.PUBLISH ? "cvi.working_inode as inode" : "cvi.live_inode as inode")
+				+ " and i.id in (" + DotConnect.createParametersPlaceholder(entries.size()) + ")");
+		dc.addParam(now);
+		if (action == Action.PUBLISH) {
+			dc.addParam(now);
+		}
+		for (Entry entry : entries) {
+			dc.addParam(entry.getIdentifier());
+		}
+		List<String> inodes = new ArrayList<String>();
+		for (Map<String, Object> row : dc.loadObjectResults()) {
+			inodes.add((String) row.get("inode"));
+		}
+		if (inodes.isEmpty()) {
+			return;
+		}
+
+		ContentletAPI capi = APILocator.getContentletAPI();
+		User systemUser = APILocator.getUserAPI().getSystemUser();
+		List<Contentlet> contents;
+		try {
+			contents = capi.findContentlets(inodes);
+		} catch (Exception e) {
+			throw new DotDataException("Unable to load the contents to " + action.name().toLowerCase() + ": " + e.getMessage(), e);
+		}
+		try {
+			if (action == Action.PUBLISH) {
+				capi.publish(contents, systemUser, false);
+				published.addAndGet(contents.size());
+			} else {
+				capi.unpublish(contents, systemUser, false);
+				expired.addAndGet(contents.size());
+			}
+		} catch (Exception e) {
+			// one content should not keep the rest from being published
+			Logger.warn(this, "Unable to " + action.name().toLowerCase() + " " + contents.size()
+					+ " contents at once, trying one by one: " + e.getMessage());
+			for (Contentlet content : contents) {
+				try {
+					if (action == Action.PUBLISH) {
+						capi.publish(content, systemUser, false);
+						published.incrementAndGet();
+					} else {
+						capi.unpublish(content, systemUser, false);
+						expired.incrementAndGet();
+					}
+				} catch (Exception e1) {
+					Logger.error(this, "Unable to " + action.name().toLowerCase() + " content " + content.getIdentifier() + ": "
+							+ e1.getMessage(), e1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of contents scheduled, the ones published and
+	 * expired since the server started, the reconciliations run and the
+	 * contents they found due but not scheduled (drift). They are published as
+	 * the org.dotcms:type=PublishExpire MBean.
+	 */
+	public Map<String, Object> getStats() {
+		Map<String, Object> stats = new LinkedHashMap<String, Object>();
+		stats.put("scheduled", schedule.size());
+		stats.put("published", published.get());
+		stats.put("expired", expired.get());
+		stats.put("reconciliations", reconciliations.get());
+		stats.put("drift", drift.get());
+		return stats;
+	}
+
+	private class Timer implements Runnable {
+
+		public void run() {
+			while (true) {
+				try {
+					long now = System.currentTimeMillis();
+					if (now >= nextReconcile) {
+						nextReconcile = now + getReconcileInterval();
+						if (isLeader()) {
+							int rescheduled = schedule.replaceAll(load(now + 2 * getReconcileInterval(), null));
+							if (reconciliations.incrementAndGet() > 1 && rescheduled > 0) {
+								drift.addAndGet(rescheduled);
+								Logger.info(PublishExpireScheduler.class, "Reconciliation scheduled " + rescheduled + " contents again");
+							}
+						} else {
+							schedule.replaceAll(Collections.<Entry> emptyList());
+						}
+					}
+
+					reloadChanged();
+
+					int batchSize = Math.max(1, Config.getIntProperty("PUBLISH_EXPIRE_BATCH_SIZE", 50));
+					List<Entry> due;
+					while (!(due = schedule.pollDue(System.currentTimeMillis(), batchSize)).isEmpty()) {
+						fire(due);
+					}
+				} catch (Throwable t) {
+					Logger.error(PublishExpireScheduler.class, "Error publishing and expiring contents: " + t.getMessage(), t);
+				} finally {
+					try {
+						HibernateUtil.closeSession();
+					} catch (DotHibernateException e) {
+						Logger.warn(PublishExpireScheduler.class, e.getMessage(), e);
+					} finally {
+						DbConnectionFactory.closeConnection();
+					}
+				}
+
+				synchronized (signal) {
+					long now = System.currentTimeMillis();
+					long next = schedule.nextTime();
+					long wait = changed.isEmpty() ? nextReconcile - now : 0;
+					if (next >= 0) {
+						wait = Math.min(wait, next - now);
+					}
+					if (wait > 0) {
+						try {
+							signal.wait(wait);
+						} catch (InterruptedException e) {
+							Logger.info(PublishExpireScheduler.class, "Publish/expire scheduler stopped");
+							return;
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -1,14 +1,12 @@
 package com.dotmarketing.portlets.contentlet.business.exporter;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 
-import com.dotmarketing.business.APILocator;
-import com.dotmarketing.business.UserAPI;
-import com.dotmarketing.image.filter.ImageFilter;
+import com.dotmarketing.image.filter.ImageFilterPipeline;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporter;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporterException;
-import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.util.Logger;
 
 /**
@@ -17,7 +15,7 @@ import com.dotmarketing.util.Logger;
  * 
  * the chain is provided by the "filter=" parameter
  * You can chain filters so that you resize then crop to 
- * produce the resulting image
+ * produce the resulting image, see {@link ImageFilterPipeline}
  * 
  * 
  */
@@ -32,33 +30,11 @@ public class ImageFilterExporter implements BinaryContentExporter {
 		
 		try {
 
-			String[] filter=new String[0];
-			if(parameters.get("filter") != null){
-				filter= parameters.get("filter")[0].split(","); 
+			try {
+				file = ImageFilterPipeline.getInstance().run(file, parameters);
+			} catch (IOException e) {
+				Logger.error(ImageFilterExporter.class, "Unable to run the image filters : " + e.getMessage());
 			}
-			else if(parameters.get("filters") != null){
-				filter= parameters.get("filters")[0].split(","); 
-			}
-
-			for(String s : filter){
-				String clazz =null;
-				try {
-					clazz ="com.dotmarketing.image.filter." + s + "ImageFilter";
-					Class<ImageFilter> iFilter = (Class<ImageFilter>) Class.forName( clazz );
-					ImageFilter i=	iFilter.newInstance();
-					file = i.runFilter(file,   parameters);
-				} catch (ClassNotFoundException e) {
-					Logger.error(ImageFilterExporter.class, "Unable to instanciate : " +  clazz );
-				} catch (InstantiationException e) {
-					Logger.error(ImageFilterExporter.class, "InstantiationException : " +  clazz );
-				} catch (IllegalAccessException e) {
-					Logger.error(ImageFilterExporter.class, "IllegalAccessException : " +  clazz );
-				}
-				catch (Exception e) {
-					Logger.error(ImageFilterExporter.class, "Exception in " +  clazz + " :" + e.getMessage() );
-				}
-			}
-
 
 			data = new BinaryContentExporterData(file);
 			
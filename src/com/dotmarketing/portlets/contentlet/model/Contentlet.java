@@ -90,6 +90,7 @@ public class Contentlet implements Serializable, Permissionable, Categorizable,
 
    protected Map<String, Object> map = new ContentletHashMap();
    private boolean lowIndexPriority = false;
+   private boolean lazyFields = false;
 
 
     public String getCategoryId() {
@@ -329,6 +330,8 @@ public class Contentlet implements Serializable, Permissionable, Categorizable,
 	}
 
 	public void setProperty( String fieldVarName, Object objValue) throws DotRuntimeException {
+		if(ContentletCache.LAZY_FIELD.equals(objValue))
+			lazyFields = true;
 		map.put(fieldVarName, objValue);
 	}
 
@@ -337,6 +340,8 @@ public class Contentlet implements Serializable, Permissionable, Categorizable,
 	 * The keys used in the map will be the velocity variables names
 	 */
 	public Map<String, Object> getMap() throws DotRuntimeException {
+		if(lazyFields)
+			loadLazyFields();
 		return map;
 	}
 
@@ -677,10 +682,53 @@ public class Contentlet implements Serializable, Permissionable, Categorizable,
 		if(isMetadataFieldCached(getStructureInode(), key, value))
 		    return lazyMetadataLoad(getInode(),getStructureInode());
 
+		if(ContentletCache.LAZY_FIELD.equals(value))
+		    return lazyFieldLoad(key);
+
 		return value;
 
 	}
 
+	/**
+	 * Returns an object from the underlying contentlet Map as it is held,
+	 * without loading the lazy fields or the cached metadata
+	 * @param key
+	 * @return
+	 */
+	public Object getRawValue(String key){
+		if(map ==null || key ==null){
+			return null;
+		}
+		return map.get(key);
+	}
+
+	/**
+	 * Loads from the db the value of a field that was too big to be kept in
+	 * the index when this contentlet was hydrated from a search result
+	 * @param fieldVelVarName
+	 * @return
+	 */
+	private Object lazyFieldLoad(String fieldVelVarName) {
+		try {
+			Field field = getStructure().getFieldVar(fieldVelVarName);
+			Object value = APILocator.getContentletAPI().loadField(getInode(), field);
+			map.put(fieldVelVarName, value);
+			return value;
+		} catch (DotDataException e) {
+			Logger.error(Contentlet.class, "error lazy loading field " + fieldVelVarName, e);
+			map.remove(fieldVelVarName);
+			return null;
+		}
+	}
+
+	private void loadLazyFields() {
+		for(String key : new ArrayList<String>(map.keySet())) {
+			if(ContentletCache.LAZY_FIELD.equals(map.get(key)))
+				lazyFieldLoad(key);
+		}
+		lazyFields = false;
+	}
+
 	/**
 	 * @param lowIndexPriority the lowIndexPriority to set
 	 */
@@ -695,6 +743,14 @@ public class Contentlet implements Serializable, Permissionable, Categorizable,
 		return lowIndexPriority;
 	}
 
+	/**
+	 * @return true if some of the fields of this contentlet still have to be
+	 * loaded from the db, they will be the first time the map is read
+	 */
+	public boolean hasLazyFields() {
+		return lazyFields;
+	}
+
 	public String getType(){
 
 		return "contentlet";
@@ -0,0 +1,150 @@
+package com.dotmarketing.portlets.rules.business;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.dotmarketing.portlets.rules.exception.RuleEngineException;
+import com.dotmarketing.portlets.rules.model.Condition;
+import com.dotmarketing.portlets.rules.model.ConditionGroup;
+import com.dotmarketing.portlets.rules.model.LogicalOperator;
+import com.dotmarketing.portlets.rules.model.Rule;
+import com.dotmarketing.portlets.rules.model.RuleAction;
+import com.dotmarketing.portlets.rules.util.LogicalStatement;
+import com.dotmarketing.util.Logger;
+
+/**
+ * The rules of a parent fired on an event, validated once and with their
+ * condition groups, conditions and actions already loaded, so firing them on a
+ * request only evaluates the conditions. A rule that is not valid is left out
+ * and logged when the rules are compiled instead of on every request.
+ * <p>
+ * The compiled rules are never modified. They are compiled again when the
+ * rules of the parent change, which gets a new set of rules from the
+ * {@link RulesCache}. A rule that could not be loaded, for instance because
+ * the database failed, is left out too, but the rules are not complete and
+ * are compiled again on the next request.
+ * </p>
+ */
+final class CompiledRules {
+
+	private final List<CompiledRule> rules;
+	private final boolean complete;
+
+	CompiledRules(Set<Rule> rules) {
+		List<CompiledRule> compiled = new ArrayList<CompiledRule>(rules.size());
+		boolean complete = true;
+		for (Rule rule : rules) {
+			CompiledRule compiledRule;
+			try {
+				compiledRule = new CompiledRule(rule);
+			} catch (RuntimeException e) {
+				Logger.error(RulesEngine.class, "Rule could not be loaded. Rule ID: " + rule.getId(), e);
+				complete = false;
+				continue;
+			}
+			try {
+				rule.checkValid();
+				compiled.add(compiledRule);
+			} catch (RuntimeException e) {
+				Logger.error(RulesEngine.class, "Rule could not be evaluated. Rule ID: " + rule.getId(), e);
+			}
+		}
+		this.rules = Collections.unmodifiableList(compiled);
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns whether every rule could be loaded, so the compiled rules can be
+	 * kept until the rules change.
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+
+	List<CompiledRule> getRules() {
+		return rules;
+	}
+
+	static final class CompiledRule {
+
+		private final Rule rule;
+		private final Rule firedCopy;
+		private final List<ConditionGroup> groups;
+		private final List<List<Condition>> conditions;
+		private final List<RuleAction> actions;
+
+		private CompiledRule(Rule rule) {
+			this.rule = rule;
+			this.groups = rule.getGroups();
+			List<List<Condition>> conditions = new ArrayList<List<Condition>>(groups.size());
+			for (ConditionGroup group : groups) {
+				conditions.add(group.getConditions());
+			}
+			this.conditions = conditions;
+			List<RuleAction> actions = rule.getRuleActions();
+			if (actions == null) {
+				// the error reading them was already logged
+				throw new RuleEngineException("Could not read actions for Rule %s", rule.getId());
+			}
+			this.actions = new ArrayList<RuleAction>(actions);
+
+			// the rule without its conditions and actions, as it is kept in the fired rules lists
+			Rule copy = new Rule();
+			copy.setId(rule.getId());
+			copy.setName(rule.getName());
+			copy.setParent(rule.getParent());
+			copy.setFireOn(rule.getFireOn());
+			copy.setEnabled(rule.isEnabled());
+			copy.setFolder(rule.getFolder());
+			copy.setShortCircuit(rule.isShortCircuit());
+			copy.setModDate(rule.getModDate());
+			this.firedCopy = copy;
+		}
+
+		Rule getRule() {
+			return rule;
+		}
+
+		Rule getFiredCopy() {
+			return firedCopy;
+		}
+
+		/**
+		 * Evaluates the conditions of the rule and, if they are met, runs its
+		 * actions, the same way {@link Rule#evaluate(HttpServletRequest, HttpServletResponse)} does.
+		 *
+		 * @return If the conditions were met.
+		 */
+		boolean evaluate(final HttpServletRequest req, final HttpServletResponse res) {
+			LogicalStatement statement = new LogicalStatement();
+			for (int i = 0; i < groups.size(); i++) {
+				final ConditionGroup group = groups.get(i);
+				final List<Condition> groupConditions = conditions.get(i);
+				if (group.getOperator() == LogicalOperator.AND) {
+					statement.and(() -> group.evaluate(req, res, groupConditions));
+				} else {
+					statement.or(() -> group.evaluate(req, res, groupConditions));
+				}
+			}
+			if (!statement.evaluate()) {
+				return false;
+			}
+			for (RuleAction action : actions) {
+				try {
+					action.evaluate(req, res);
+				} catch (Exception e) {
+					Logger.warn(Rule.class,
+							String.format("Rule evaluation failed on action '%s' for rule %s. Skipping any remaining actions.",
+									action.getId(), rule.getName()), e);
+				}
+			}
+			return true;
+		}
+	}
+
+}
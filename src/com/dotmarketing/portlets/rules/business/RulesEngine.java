@@ -1,6 +1,8 @@
 package com.dotmarketing.portlets.rules.business;
 
 import com.dotcms.enterprise.LicenseUtil;
+import com.dotcms.repackage.com.google.common.cache.Cache;
+import com.dotcms.repackage.com.google.common.cache.CacheBuilder;
 import com.dotmarketing.beans.Host;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.Ruleable;
@@ -16,6 +18,10 @@ import com.dotmarketing.util.WebKeys;
 import com.liferay.portal.model.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -30,6 +36,14 @@ import javax.servlet.http.HttpServletResponse;
  * <li>Once per visitor.</li>
  * <li>Once per visit to a site.</li>
  * </ul>
+ * <p>
+ * The rules of every parent and event are compiled once (see
+ * {@link CompiledRules}) and the information about the request the
+ * conditionlets need is looked up once per request (see
+ * {@link com.dotmarketing.portlets.rules.util.RequestFacts}). The time every
+ * rule takes is recorded, see {@link #getStats()}; the timings are published
+ * as the org.dotcms:type=RulesEngine MBean.
+ * </p>
  * 
  * @author Daniel Silva
  * @version 1.0
@@ -42,6 +56,13 @@ public final class RulesEngine {
 	
 	private static final String SKIP_RULES_EXECUTION = "skip"; 
 
+	// upper bounds, in milliseconds, of the buckets of the rule timings histograms
+	private static final long[] TIMING_BUCKETS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500 };
+
+	// keyed by the rule sets of the RulesCache, so the compiled rules go away with the rules they were compiled from
+	private static final Cache<Set<Rule>, CompiledRules> compiledRules = CacheBuilder.newBuilder().weakKeys().build();
+	private static final ConcurrentMap<String, RuleStats> ruleStats = new ConcurrentHashMap<String, RuleStats>();
+
 	/**
 	 * Triggers a specific category of Rules associated to the site (Host) based
 	 * on the requested resource.
@@ -110,32 +131,17 @@ public final class RulesEngine {
 
 			Set<Rule> rules = APILocator.getRulesAPI().getRulesByParentFireOn(parent.getIdentifier(), systemUser, false,
 					fireOn);
-            for (Rule rule : rules) {
+            for (CompiledRules.CompiledRule compiled : compile(rules).getRules()) {
+                Rule rule = compiled.getRule();
+                long before = System.nanoTime();
                 try {
-                	long before = System.currentTimeMillis();
-                    rule.checkValid(); // @todo ggranum: this should actually be done on writing to the DB, or at worst reading from.
-                    boolean evaled = rule.evaluate(req, res);
-
-					if (evaled) {
-						Rule rCopy = new Rule();
-						rCopy.setId(rule.getId());
-						rCopy.setName(rule.getName());
-						rCopy.setParent(rule.getParent());
-						rCopy.setFireOn(rule.getFireOn());
-						rCopy.setEnabled(rule.isEnabled());
-						rCopy.setFolder(rule.getFolder());
-						rCopy.setShortCircuit(rule.isShortCircuit());
-						rCopy.setModDate(rule.getModDate());
-						
-						trackFiredRule(rCopy, req);
+                    if (compiled.evaluate(req, res)) {
+						trackFiredRule(compiled.getFiredCopy(), req);
 					}
-                    long after = System.currentTimeMillis();
-        			if((after - before) > SLOW_RULE_LOG_MIN) {
-						Logger.warn(RulesEngine.class, "Rule ID: " + rule.getId()
-								+ " is running too slow. The rule is fired on: " + rule.getFireOn().name());
-        			}
                 } catch (RuleEngineException e) {
                     Logger.error(RulesEngine.class, "Rule could not be evaluated. Rule ID: " + rule.getId(), e);
+                } finally {
+                    recordExecution(rule, System.nanoTime() - before);
                 }
             }
 
@@ -144,6 +150,53 @@ public final class RulesEngine {
         }
     }
 
+	/**
+	 * Returns the compiled rules of a parent for an event, compiling them if
+	 * the rules changed since they were last compiled. Rules that could not be
+	 * loaded are not kept, so they are compiled again on the next request.
+	 */
+	private static CompiledRules compile(Set<Rule> rules) {
+		CompiledRules compiled = compiledRules.getIfPresent(rules);
+		if (compiled == null) {
+			compiled = new CompiledRules(rules);
+			if (compiled.isComplete()) {
+				compiledRules.put(rules, compiled);
+			}
+		}
+		return compiled;
+	}
+
+	private static void recordExecution(Rule rule, long nanos) {
+		RuleStats stats = ruleStats.get(rule.getId());
+		if (stats == null) {
+			RuleStats newStats = new RuleStats();
+			stats = ruleStats.putIfAbsent(rule.getId(), newStats);
+			if (stats == null) {
+				stats = newStats;
+			}
+		}
+		stats.record(nanos);
+		// slow rules are reported with their histogram, at most once a minute each
+		if (nanos / 1000000 > SLOW_RULE_LOG_MIN && stats.shouldReport()) {
+			Logger.warn(RulesEngine.class, "Rule ID: " + rule.getId() + " is running too slow. The rule is fired on: "
+					+ rule.getFireOn().name() + ". Timings: " + stats.toMap());
+		}
+	}
+
+	/**
+	 * Returns the number of times every rule was evaluated and the time it
+	 * took, by rule ID: the count, total, average and max time, and a
+	 * histogram with the number of evaluations that took less than 1, 2, 5,
+	 * 10, 25, 50, 100, 250, 500, 1000 and 2500 milliseconds, and longer.
+	 */
+	public static Map<String, Map<String, Object>> getStats() {
+		Map<String, Map<String, Object>> stats = new HashMap<String, Map<String, Object>>();
+		for (Map.Entry<String, RuleStats> entry : ruleStats.entrySet()) {
+			stats.put(entry.getKey(), entry.getValue().toMap());
+		}
+		return stats;
+	}
+
 	/**
 	 * Keeps track of the rules that have been fired for a given HTTP request.
 	 * This will allow Web developers to access the list of rules that were
@@ -178,4 +231,51 @@ public final class RulesEngine {
 		firedRulesSession.add( ruleFired );
 	}
 
+	private static class RuleStats {
+
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLongArray histogram = new AtomicLongArray(TIMING_BUCKETS.length + 1);
+		private final AtomicLong lastReport = new AtomicLong();
+
+		private void record(long nanos) {
+			count.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			long max = maxNanos.get();
+			while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+				max = maxNanos.get();
+			}
+			long millis = nanos / 1000000;
+			int bucket = 0;
+			while (bucket < TIMING_BUCKETS.length && millis >= TIMING_BUCKETS[bucket]) {
+				bucket++;
+			}
+			histogram.incrementAndGet(bucket);
+		}
+
+		private boolean shouldReport() {
+			long now = System.currentTimeMillis();
+			long last = lastReport.get();
+			return now - last > 60 * 1000 && lastReport.compareAndSet(last, now);
+		}
+
+		private Map<String, Object> toMap() {
+			long executions = count.get();
+			long total = totalNanos.get();
+			Map<String, Object> map = new LinkedHashMap<String, Object>();
+			map.put("count", executions);
+			map.put("totalMillis", total / 1000000F);
+			map.put("averageMillis", executions > 0 ? (total / executions) / 1000000F : 0F);
+			map.put("maxMillis", maxNanos.get() / 1000000F);
+			Map<String, Long> buckets = new LinkedHashMap<String, Long>();
+			for (int i = 0; i < TIMING_BUCKETS.length; i++) {
+				buckets.put("<" + TIMING_BUCKETS[i] + "ms", histogram.get(i));
+			}
+			buckets.put(">=" + TIMING_BUCKETS[TIMING_BUCKETS.length - 1] + "ms", histogram.get(TIMING_BUCKETS.length));
+			map.put("histogram", buckets);
+			return map;
+		}
+	}
+
 }
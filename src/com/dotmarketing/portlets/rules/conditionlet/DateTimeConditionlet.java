@@ -4,7 +4,6 @@ import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.dotcms.repackage.org.apache.logging.log4j.util.Strings;
 import com.dotcms.util.GeoIp2CityDbUtil;
-import com.dotcms.util.HttpRequestDataUtil;
 import com.dotmarketing.portlets.rules.RuleComponentInstance;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotPresentException;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -14,12 +13,12 @@ import com.dotmarketing.portlets.rules.parameter.ParameterDefinition;
 import com.dotmarketing.portlets.rules.parameter.comparison.Comparison;
 import com.dotmarketing.portlets.rules.parameter.display.*;
 import com.dotmarketing.portlets.rules.parameter.type.*;
+import com.dotmarketing.portlets.rules.util.RequestFacts;
 import com.dotmarketing.util.Logger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -94,16 +93,15 @@ public class DateTimeConditionlet extends Conditionlet<DateTimeConditionlet.Inst
 
     private LocalDateTime lookupDateTime(HttpServletRequest request) {
         LocalDateTime localDateTime = null;
-        InetAddress address;
+        RequestFacts facts = RequestFacts.get(request);
         try {
-            address = HttpRequestDataUtil.getIpAddress(request);
+            facts.getIpAddress();
         } catch (UnknownHostException e) {
             throw new RuleEvaluationFailedException(e, "Unknown host.");
         }
-        String ipAddress = address.getHostAddress();
         Calendar dateTime = null;
         try {
-            dateTime = geoIp2Util.getDateTime(ipAddress);
+            dateTime = facts.getDateTime(geoIp2Util);
         } catch (IOException | GeoIp2Exception e) {
             Logger.error(this, "Could not look up country for request. Using 'unknown': " + request.getRequestURL());
         }
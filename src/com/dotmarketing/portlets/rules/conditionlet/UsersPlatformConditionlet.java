@@ -10,6 +10,7 @@ import com.dotmarketing.portlets.rules.parameter.ParameterDefinition;
 import com.dotmarketing.portlets.rules.parameter.comparison.Comparison;
 import com.dotmarketing.portlets.rules.parameter.display.DropdownInput;
 import com.dotmarketing.portlets.rules.parameter.type.TextType;
+import com.dotmarketing.portlets.rules.util.RequestFacts;
 import com.dotmarketing.util.Logger;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
@@ -75,8 +76,7 @@ public class UsersPlatformConditionlet extends Conditionlet<UsersPlatformConditi
     private String lookupPlatform(HttpServletRequest request) {
         String platform = "unknown";
         try {
-            String userAgentInfo = request.getHeader("User-Agent");
-            UserAgent agent = UserAgent.parseUserAgentString(userAgentInfo);
+            UserAgent agent = RequestFacts.get(request).getUserAgent();
             if (agent.getOperatingSystem() != null) {
                 platform = agent.getOperatingSystem().getDeviceType().name();
             }
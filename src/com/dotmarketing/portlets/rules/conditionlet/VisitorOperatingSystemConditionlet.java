@@ -10,8 +10,8 @@ import com.dotmarketing.portlets.rules.parameter.ParameterDefinition;
 import com.dotmarketing.portlets.rules.parameter.comparison.Comparison;
 import com.dotmarketing.portlets.rules.parameter.display.DropdownInput;
 import com.dotmarketing.portlets.rules.parameter.type.TextType;
+import com.dotmarketing.portlets.rules.util.RequestFacts;
 import com.dotmarketing.util.Logger;
-import com.dotmarketing.viewtools.UserAgentTool;
 import eu.bitwalker.useragentutils.OperatingSystem;
 
 import javax.servlet.http.HttpServletRequest;
@@ -24,7 +24,7 @@ import static com.dotmarketing.portlets.rules.parameter.comparison.Comparison.IS
 
 /**
  * This conditionlet will allow CMS users to check the SO name a user
- * request is issued from. The information is obtained by {@link com.dotmarketing.viewtools.UserAgentTool},
+ * request is issued from. The information is obtained from the user agent parsed in the {@link RequestFacts},
  * the list of possible values is in {@link eu.bitwalker.useragentutils.OperatingSystem}.
  * 
  *
@@ -57,9 +57,7 @@ public class VisitorOperatingSystemConditionlet extends Conditionlet<VisitorOper
 
     @Override
     public boolean evaluate(HttpServletRequest request, HttpServletResponse response, Instance instance) {
-        UserAgentTool userAgentTool = new UserAgentTool();
-        userAgentTool.init( request );
-        OperatingSystem os = userAgentTool.getOs();
+        OperatingSystem os = RequestFacts.get(request).getUserAgent().getOperatingSystem();
 
         return instance.comparison.perform(os.getName().toLowerCase(), instance.os.toLowerCase());
     }
@@ -3,7 +3,6 @@ package com.dotmarketing.portlets.rules.conditionlet;
 import com.dotcms.repackage.com.google.common.annotations.VisibleForTesting;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.dotcms.util.GeoIp2CityDbUtil;
-import com.dotcms.util.HttpRequestDataUtil;
 import com.dotmarketing.portlets.rules.RuleComponentInstance;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotPresentException;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -17,11 +16,11 @@ import com.dotmarketing.portlets.rules.parameter.display.NumericInput;
 import com.dotmarketing.portlets.rules.parameter.display.TextInput;
 import com.dotmarketing.portlets.rules.parameter.type.NumericType;
 import com.dotmarketing.portlets.rules.parameter.type.TextType;
+import com.dotmarketing.portlets.rules.util.RequestFacts;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Map;
 
@@ -109,9 +108,7 @@ public class VisitorsGeolocationConditionlet extends Conditionlet<VisitorsGeoloc
 
     private Location lookupLocation(HttpServletRequest request) {
         try {
-            InetAddress address = HttpRequestDataUtil.getIpAddress(request);
-            String ipAddress = address.getHostAddress();
-            return geoIp2Util.getLocationByIp(ipAddress);
+            return RequestFacts.get(request).getLocation(geoIp2Util);
         } catch (UnknownHostException e) {
             throw new RuleEvaluationFailedException(e, "Unknown host.");
         } catch (IOException | GeoIp2Exception e) {
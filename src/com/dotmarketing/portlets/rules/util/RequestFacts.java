@@ -0,0 +1,167 @@
+package com.dotmarketing.portlets.rules.util;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
+import com.dotcms.repackage.com.maxmind.geoip2.model.CityResponse;
+import com.dotcms.util.GeoIp2CityDbUtil;
+import com.dotcms.util.HttpRequestDataUtil;
+import com.dotmarketing.portlets.rules.conditionlet.Location;
+import com.dotmarketing.util.WebKeys;
+
+import eu.bitwalker.useragentutils.UserAgent;
+
+/**
+ * The information about a request the conditionlets evaluate, looked up the
+ * first time a conditionlet needs it and then shared by all the conditions of
+ * all the rules fired on the request: the rules that check the country, the
+ * location or the time of the visitor share one GeoIP2 lookup of the address,
+ * and the ones that check the browser and the operating system parse the user
+ * agent once.
+ * <p>
+ * A lookup that fails fails the same way for every conditionlet.
+ * </p>
+ */
+public class RequestFacts {
+
+	private final HttpServletRequest request;
+
+	private String ipAddress;
+	private UnknownHostException ipAddressError;
+
+	private final Map<String, Object> geoValues = new HashMap<String, Object>();
+	private final Map<String, Exception> geoErrors = new HashMap<String, Exception>();
+
+	private UserAgent userAgent;
+
+	private RequestFacts(HttpServletRequest request) {
+		this.request = request;
+	}
+
+	/**
+	 * Returns the facts of the request, creating them if this is the first
+	 * time they are needed.
+	 *
+	 * @param request
+	 */
+	public static RequestFacts get(HttpServletRequest request) {
+		Object facts = request.getAttribute(WebKeys.RULES_ENGINE_FACTS);
+		if (facts instanceof RequestFacts) {
+			return (RequestFacts) facts;
+		}
+		RequestFacts newFacts = new RequestFacts(request);
+		request.setAttribute(WebKeys.RULES_ENGINE_FACTS, newFacts);
+		return newFacts;
+	}
+
+	/**
+	 * Returns the IP address of the visitor.
+	 *
+	 * @see HttpRequestDataUtil#getIpAddress(HttpServletRequest)
+	 * @throws UnknownHostException
+	 */
+	public synchronized String getIpAddress() throws UnknownHostException {
+		if (ipAddress == null && ipAddressError == null) {
+			try {
+				ipAddress = HttpRequestDataUtil.getIpAddress(request).getHostAddress();
+			} catch (UnknownHostException e) {
+				ipAddressError = e;
+			}
+		}
+		if (ipAddressError != null) {
+			throw ipAddressError;
+		}
+		return ipAddress;
+	}
+
+	/**
+	 * Returns all the information the GeoIP2 City Database has about the
+	 * visitor. The country, location and date/time of the visitor are all read
+	 * from this response, so the address is looked up once per request.
+	 *
+	 * @see GeoIp2CityDbUtil#getCityResponse(String)
+	 * @throws IOException
+	 * @throws GeoIp2Exception
+	 */
+	public CityResponse getCityResponse(final GeoIp2CityDbUtil geoIp2Util) throws IOException, GeoIp2Exception {
+		final String address = getIpAddress();
+		return geoLookup("city", () -> geoIp2Util.getCityResponse(address));
+	}
+
+	/**
+	 * Returns the ISO code of the country of the visitor.
+	 *
+	 * @see GeoIp2CityDbUtil#getCountryIsoCode(CityResponse)
+	 * @throws IOException
+	 * @throws GeoIp2Exception
+	 */
+	public String getCountryIsoCode(final GeoIp2CityDbUtil geoIp2Util) throws IOException, GeoIp2Exception {
+		final CityResponse city = getCityResponse(geoIp2Util);
+		return geoLookup("country", () -> geoIp2Util.getCountryIsoCode(city));
+	}
+
+	/**
+	 * Returns the location of the visitor.
+	 *
+	 * @see GeoIp2CityDbUtil#getLocation(CityResponse)
+	 * @throws IOException
+	 * @throws GeoIp2Exception
+	 */
+	public Location getLocation(final GeoIp2CityDbUtil geoIp2Util) throws IOException, GeoIp2Exception {
+		final CityResponse city = getCityResponse(geoIp2Util);
+		return geoLookup("location", () -> geoIp2Util.getLocation(city));
+	}
+
+	/**
+	 * Returns the date and time of the visitor when the request was first
+	 * evaluated.
+	 *
+	 * @see GeoIp2CityDbUtil#getDateTime(java.util.TimeZone)
+	 * @throws IOException
+	 * @throws GeoIp2Exception
+	 */
+	public Calendar getDateTime(final GeoIp2CityDbUtil geoIp2Util) throws IOException, GeoIp2Exception {
+		final CityResponse city = getCityResponse(geoIp2Util);
+		Calendar dateTime = geoLookup("dateTime", () -> geoIp2Util.getDateTime(geoIp2Util.getTimeZone(city)));
+		return dateTime != null ? (Calendar) dateTime.clone() : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized <T> T geoLookup(String name, GeoLookup<T> lookup) throws IOException, GeoIp2Exception {
+		if (!geoValues.containsKey(name) && !geoErrors.containsKey(name)) {
+			try {
+				geoValues.put(name, lookup.lookup());
+			} catch (IOException | GeoIp2Exception e) {
+				geoErrors.put(name, e);
+			}
+		}
+		Exception error = geoErrors.get(name);
+		if (error instanceof IOException) {
+			throw (IOException) error;
+		} else if (error instanceof GeoIp2Exception) {
+			throw (GeoIp2Exception) error;
+		}
+		return (T) geoValues.get(name);
+	}
+
+	private interface GeoLookup<T> {
+		T lookup() throws IOException, GeoIp2Exception;
+	}
+
+	/**
+	 * Returns the parsed User-Agent header of the request.
+	 */
+	public synchronized UserAgent getUserAgent() {
+		if (userAgent == null) {
+			userAgent = UserAgent.parseUserAgentString(request.getHeader("User-Agent"));
+		}
+		return userAgent;
+	}
+
+}
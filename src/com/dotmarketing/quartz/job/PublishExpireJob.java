@@ -18,6 +18,7 @@ import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduler;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.structure.factories.StructureFactory;
 import com.dotmarketing.portlets.structure.model.Field;
@@ -35,6 +36,9 @@ import com.liferay.portal.model.User;
  * and have made changes to it without republihsing, then the published
  * version will not get unpublished,. 
  * 
+ * When the {@link PublishExpireScheduler} is enabled, it publishes and
+ * expires the contents on time and this job only makes it reconcile its
+ * schedule with the database.
  * 
  */
 public class PublishExpireJob implements StatefulJob {
@@ -49,6 +53,10 @@ public class PublishExpireJob implements StatefulJob {
 	}
 
 	public void execute(JobExecutionContext ctx) throws JobExecutionException {
+	    if (PublishExpireScheduler.getInstance().isEnabled()) {
+	        PublishExpireScheduler.getInstance().reconcile();
+	        return;
+	    }
 	    try {
     		ContentletAPI capi = APILocator.getContentletAPI();
     		User pubUser = null;
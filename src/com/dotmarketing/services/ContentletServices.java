@@ -23,6 +23,8 @@ import com.dotmarketing.cache.LiveCache;
 import com.dotmarketing.cache.WorkingCache;
 import com.dotmarketing.comparators.ContentComparator;
 import com.dotmarketing.comparators.WebAssetSortOrderComparator;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.db.IndexedRunnable;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.portlets.categories.business.CategoryAPI;
@@ -170,6 +172,25 @@ public class ContentletServices {
 		if(content.getStructure().getStructureType()==Structure.STRUCTURE_TYPE_HTMLPAGE) {
 		    PageServices.removePageFile(APILocator.getHTMLPageAssetAPI().fromContentlet(content), identifier, EDIT_MODE);
 		}
+
+		// live URL maps resolved with this structure may now point to another content. The generation changes
+		// once the content is searchable, before that a resolution of the old index would be cached again
+		if(!EDIT_MODE && UtilMethods.isSet(content.getStructure().getUrlMapPattern())) {
+		    final String structureInode = content.getStructureInode();
+		    HibernateUtil.addCommitListener("URLMapCache:" + structureInode, new IndexedRunnable() {
+		        public void run() {
+		            CacheLocator.getURLMapCache().removeStructure(structureInode);
+		        }
+		    });
+		}
+
+		// front end queries on this structure may now return other content, invalidated once it is searchable too
+		final String velocityVarName = content.getStructure().getVelocityVarName();
+		HibernateUtil.addCommitListener("ContentQueryCache:" + velocityVarName, new IndexedRunnable() {
+		    public void run() {
+		        CacheLocator.getContentQueryCache().removeStructure(velocityVarName);
+		    }
+		});
 	}
 
 	public static InputStream buildVelocity(Contentlet content, Identifier identifier, boolean EDIT_MODE) throws DotDataException, DotSecurityException {
@@ -4,7 +4,6 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
@@ -29,7 +28,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
-import com.dotcms.repackage.com.google.common.io.Files;
 import com.dotcms.repackage.org.apache.commons.collections.LRUMap;
 import com.dotcms.util.DownloadUtil;
 import com.dotmarketing.beans.Identifier;
@@ -47,6 +45,7 @@ import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.filters.compression.GZIPAssetCache;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporter;
 import com.dotmarketing.portlets.contentlet.business.BinaryContentExporterException;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
@@ -205,7 +204,6 @@ public class BinaryExporterServlet extends HttpServlet {
 		ServletOutputStream out = null;
 		FileChannel from = null;
 		WritableByteChannel to = null;
-		RandomAccessFile input = null;
 		FileInputStream is = null;
 
         
@@ -562,74 +560,69 @@ public class BinaryExporterServlet extends HttpServlet {
 					from = new FileInputStream(data.getDataFile()).getChannel();
 					to = Channels.newChannel(out);
 					//DOTCMS-5716
-					//32 MB at a time	
-					int maxTransferSize = (32 * 1024 * 1024) ;
-					long size = from.size();
-					long position = 0;
-					
-					boolean responseSent = false;
-					byte[] dataBytes = Files.toByteArray(data.getDataFile());
-		            //ServletOutputStream sos = resp.getOutputStream();
+					// the file is never loaded in memory, the ranges are transferred
+					// straight from the file channel
+					long fileLength = from.size();
+
 					//extract range header
 					 resp.setHeader("Accept-Ranges", "bytes");
 					// Range header should match format "bytes=n-n,n-n,n-n...". If not, then return 416.
 					if (!rangeHeader.matches("^bytes=\\d*-\\d*(,\\d*-\\d*)*$")) {
-						resp.setHeader("Content-Range", "bytes */" + dataBytes.length); // Required in 416.
+						resp.setHeader("Content-Range", "bytes */" + fileLength); // Required in 416.
 						resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
 						return;
 					}
 					//parse multiple range bytes
-					ArrayList<SpeedyAssetServletUtil.ByteRange> ranges = SpeedyAssetServletUtil.parseRange(rangeHeader, dataBytes.length);
+					ArrayList<SpeedyAssetServletUtil.ByteRange> ranges = SpeedyAssetServletUtil.parseRange(rangeHeader, fileLength);
 					if (ranges != null){
-						SpeedyAssetServletUtil.ByteRange full = new SpeedyAssetServletUtil.ByteRange(0, data.getDataFile().length() - 1, data.getDataFile().length());
+						SpeedyAssetServletUtil.ByteRange full = new SpeedyAssetServletUtil.ByteRange(0, fileLength - 1, fileLength);
 						if (ranges.isEmpty() || ranges.get(0).equals(full)) {
 							// Return full file.
-							input = new RandomAccessFile(data.getDataFile(), "r");
 							SpeedyAssetServletUtil.ByteRange r = full;
-							resp.setContentType(fileAPI.getMimeType(data.getDataFile().getName()));
+							resp.setContentType(mimeType);
 							resp.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
 							resp.setHeader("Content-Length", String.valueOf(r.length));
 							// Copy full range.
-							SpeedyAssetServletUtil.copy(input, out, r.start, r.length);
+							SpeedyAssetServletUtil.transfer(from, to, r.start, r.length);
 						} else if (ranges.size() == 1){
 							SpeedyAssetServletUtil.ByteRange range = ranges.get(0);
-							input = new RandomAccessFile(data.getDataFile(), "r");
 							// Check if Range is syntactically valid. If not, then return 416.
 							if (range.start > range.end) {
-								resp.setHeader("Content-Range", "bytes */" + dataBytes.length); // Required in 416.
+								resp.setHeader("Content-Range", "bytes */" + fileLength); // Required in 416.
 								resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
 								return;
 							}
-							resp.setContentType(fileAPI.getMimeType(data.getDataFile().getName()));
+							resp.setContentType(mimeType);
 							resp.setHeader("Content-Range", "bytes " + range.start + "-" + range.end + "/" + range.total);
 							resp.setHeader("Content-Length", String.valueOf(range.length));
 				            resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT); // 206.
-							SpeedyAssetServletUtil.copy(input, out, range.start, range.length);
+							SpeedyAssetServletUtil.transfer(from, to, range.start, range.length);
 						}else{
-							resp.setContentType("multipart/byteranges; boundary=" + SpeedyAssetServletUtil.MULTIPART_BOUNDARY);
-							resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-						    input = new RandomAccessFile(data.getDataFile(), "r");
+							// Check every Range before writing any part. If one is not valid, then return 416.
 							for (SpeedyAssetServletUtil.ByteRange r : ranges) {
 								if (r.start > r.end) {
-									resp.setHeader("Content-Range", "bytes */" + dataBytes.length); // Required in 416.
+									resp.setHeader("Content-Range", "bytes */" + fileLength); // Required in 416.
 									resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
 									return;
 								}
+							}
+							resp.setContentType("multipart/byteranges; boundary=" + SpeedyAssetServletUtil.MULTIPART_BOUNDARY);
+							resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+							for (SpeedyAssetServletUtil.ByteRange r : ranges) {
 								// Add multipart boundary and header fields for every range.
 								out.println();
 								out.println("--" + SpeedyAssetServletUtil.MULTIPART_BOUNDARY);
-								out.println("Content-Type: " + fileAPI.getMimeType(data.getDataFile().getName()));
+								out.println("Content-Type: " + mimeType);
 								out.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
 								out.println();
 
 								// Copy single part range of multi part range.
-								SpeedyAssetServletUtil.copy(input, out, r.start, r.length);
+								SpeedyAssetServletUtil.transfer(from, to, r.start, r.length);
 							}
 							// End with multipart boundary.
 							out.println();
 							out.println("--" + SpeedyAssetServletUtil.MULTIPART_BOUNDARY + "--");
 						}
-						responseSent = true;
 					}
 				} catch (Exception e) {
 					Logger.warn(this, e + " Error for = " + req.getRequestURI() + (req.getQueryString() != null?"?"+req.getQueryString():"") );
@@ -637,15 +630,31 @@ public class BinaryExporterServlet extends HttpServlet {
 
 				} 
 			}else{
-				is = new FileInputStream(data.getDataFile());
-	            int count = 0;
-	            byte[] buffer = new byte[4096];
+				File dataFile = data.getDataFile();
+
+				// text assets are served from their compressed copy to the clients that accept it
+				String acceptEncoding = req.getHeader("Accept-Encoding");
+				if (acceptEncoding != null && acceptEncoding.indexOf("gzip") != -1 && !resp.containsHeader("Content-Encoding")
+						&& req.getParameter("dotcms_force_download") == null && req.getParameter("force_download") == null
+						&& GZIPAssetCache.getInstance().isCompressible(mimeType, dataFile.length())) {
+					resp.setHeader("Vary", "Accept-Encoding");
+					try {
+						dataFile = GZIPAssetCache.getInstance().getCompressed(assetInode, dataFile);
+						resp.setHeader("Content-Encoding", "gzip");
+						resp.setHeader("Content-Length", String.valueOf(dataFile.length()));
+					} catch (IOException e) {
+						Logger.warn(this, "Unable to compress " + dataFile + ": " + e.getMessage(), e);
+						dataFile = data.getDataFile();
+					}
+				}
+
+				is = new FileInputStream(dataFile);
+				from = is.getChannel();
 	            out = resp.getOutputStream();
-	            
-	            while((count = is.read(buffer)) > 0) {
-	            	out.write(buffer, 0, count);
-	            }
-	            
+	            to = Channels.newChannel(out);
+
+	            SpeedyAssetServletUtil.transfer(from, to, 0, from.size());
+
 			}
             
 		} catch (DotContentletStateException e) {
@@ -707,15 +716,6 @@ public class BinaryExporterServlet extends HttpServlet {
 				}
 			}
 			
-			if(input!=null){
-				try{
-					input.close();
-				}
-				catch(Exception e){
-					Logger.debug(BinaryExporterServlet.class, e.getMessage());
-				}
-			}
-			
 			if(is!=null){
 				try{
 					is.close();
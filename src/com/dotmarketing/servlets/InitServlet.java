@@ -23,12 +23,20 @@ import com.dotmarketing.exception.DotHibernateException;
 import com.dotmarketing.exception.DotRuntimeException;
 import com.dotmarketing.exception.DotSecurityException;
 import com.dotmarketing.init.DotInitScheduler;
+import com.dotmarketing.loggers.mbeans.ClickstreamStats;
+import com.dotmarketing.loggers.mbeans.CmsUrlStats;
+import com.dotmarketing.loggers.mbeans.ImageFilterStats;
 import com.dotmarketing.loggers.mbeans.Log4jConfig;
+import com.dotmarketing.loggers.mbeans.PublishExpireStats;
+import com.dotmarketing.loggers.mbeans.RulesEngineStats;
+import com.dotmarketing.loggers.mbeans.SqlStatementStats;
+import com.dotmarketing.loggers.mbeans.VelocityLoaderStats;
 import com.dotmarketing.menubuilders.RefreshMenus;
 import com.dotmarketing.plugin.PluginLoader;
 import com.dotmarketing.portlets.campaigns.factories.CampaignFactory;
 import com.dotmarketing.portlets.contentlet.action.ImportAuditUtil;
 import com.dotmarketing.portlets.contentlet.business.HostAPI;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduler;
 import com.dotmarketing.portlets.languagesmanager.business.LanguageAPI;
 import com.dotmarketing.portlets.languagesmanager.model.Language;
 import com.dotmarketing.quartz.job.ShutdownHookThread;
@@ -257,6 +265,12 @@ public class InitServlet extends HttpServlet {
 			throw new ServletException("Unable to initialize system folder", e1);
 		}
 
+		// Builds the table the requests are routed to their hosts with
+		APILocator.getHostAPI().getRoutingTable();
+
+		// Publishes and expires contents at their publish and expire dates
+		PublishExpireScheduler.getInstance().start();
+
 		// Create the GeoIP2 database reader on startup since it takes around 2
 		// seconds to load the file. If the prop is not set, just move on
 		if (UtilMethods.isSet(Config.getStringProperty(
@@ -303,6 +317,48 @@ public class InitServlet extends HttpServlet {
 				Logger.debug(InitServlet.class,"NullPointerException: " + e.getMessage(),e);
 			}
 
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new ClickstreamStats(), new ObjectName("org.dotcms:type=Clickstreams"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the clickstream stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new RulesEngineStats(), new ObjectName("org.dotcms:type=RulesEngine"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the rules engine stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new ImageFilterStats(), new ObjectName("org.dotcms:type=ImageFilters"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the image filter stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new VelocityLoaderStats(), new ObjectName("org.dotcms:type=VelocityLoader"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the velocity loader stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new CmsUrlStats(), new ObjectName("org.dotcms:type=CmsUrls"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the CMS URL stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new SqlStatementStats(), new ObjectName("org.dotcms:type=SqlStatements"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the SQL statement stats MBean: " + e.getMessage(),e);
+			}
+
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new PublishExpireStats(), new ObjectName("org.dotcms:type=PublishExpire"));
+			} catch (JMException e) {
+				Logger.debug(InitServlet.class,"Unable to register the publish and expire stats MBean: " + e.getMessage(),e);
+			}
+
 
 			//Just get the Engine to make sure it gets inited on time before the first request
 			VelocityUtil.getEngine();
@@ -2,7 +2,8 @@ package com.dotmarketing.servlets;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 
 /**
@@ -14,6 +15,7 @@ public class SpeedyAssetServletUtil {
 	
 	protected static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
 	protected static final int DEFAULT_BUFFER_SIZE = 10240; // ..bytes = 10KB.
+	protected static final long MAX_TRANSFER_SIZE = 32 * 1024 * 1024; // ..bytes = 32MB, DOTCMS-5716.
 	
 	/**
      * Returns a substring of the given string value from the given begin index to the given end
@@ -35,7 +37,7 @@ public class SpeedyAssetServletUtil {
 	 * @param dataLen length of the byte range
 	 * @return
 	 */
-	protected static ArrayList<ByteRange> parseRange(String rangeHeader, int length){
+	protected static ArrayList<ByteRange> parseRange(String rangeHeader, long length){
         ArrayList<ByteRange> ranges = null;
         if (rangeHeader != null && rangeHeader.startsWith("bytes")){            
             ranges = new ArrayList<ByteRange>(8);
@@ -60,35 +62,24 @@ public class SpeedyAssetServletUtil {
     } 
 	
     /**
-     * Copy the given byte range of the given input to the given output.
-     * @param input The input to copy the given range to the given output for.
-     * @param output The output to copy the given range from the given input for.
+     * Transfers the given byte range of the given file channel to the given output channel,
+     * at most {@link #MAX_TRANSFER_SIZE} bytes at a time. The content is never loaded in the heap.
+     * @param input The file channel to transfer the given range from.
+     * @param output The channel to transfer the given range to.
      * @param start Start of the byte range.
      * @param length Length of the byte range.
      * @throws IOException If something fails at I/O level.
      */
-	protected static void copy(RandomAccessFile input, OutputStream output, long start, long length)throws IOException{
-		byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-		int read;
+	protected static void transfer(FileChannel input, WritableByteChannel output, long start, long length)throws IOException{
+		long position = start;
+		long end = start + length;
 
-		if (input.length() == length) {
-			// Write full range.
-			while ((read = input.read(buffer)) > 0) {
-				output.write(buffer, 0, read);
-			}
-		} else {
-			// Write partial range.
-			input.seek(start);
-			long toRead = length;
-
-			while ((read = input.read(buffer)) > 0) {
-				if ((toRead -= read) > 0) {
-					output.write(buffer, 0, read);
-				} else {
-					output.write(buffer, 0, (int) toRead + read);
-					break;
-				}
+		while (position < end) {
+			long transferred = input.transferTo(position, Math.min(MAX_TRANSFER_SIZE, end - position), output);
+			if (transferred <= 0) {
+				throw new IOException("Unable to transfer bytes " + position + "-" + (end - 1) + " of a file of " + input.size() + " bytes");
 			}
+			position += transferred;
 		}
 	}
 
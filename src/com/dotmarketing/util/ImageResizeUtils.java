@@ -68,14 +68,6 @@ public class ImageResizeUtils {
 	
 	public static void generateThumbnail(InputStream input, OutputStream output, String format, int width, int height, Color bgColor) throws IOException, InterruptedException {
 
-		if (height <= 0 && width <= 0) {
-			height = DEFAULT_HEIGHT;
-			width = DEFAULT_WIDTH;
-		}
-
-		if (bgColor == null)
-			bgColor = DEFAULT_BG_COLOR;
-
 		byte[] imageData = new byte[input.available()];
 		input.read(imageData);
 		Image image = Toolkit.getDefaultToolkit().createImage(imageData);
@@ -84,6 +76,36 @@ public class ImageResizeUtils {
 		mediaTracker.addImage(image, 0);
 		mediaTracker.waitForID(0);
 
+		BufferedImage bgImage = generateThumbnail(image, width, height, bgColor);
+
+		// save thumbnail image to OUTFILE
+		BufferedOutputStream out = new BufferedOutputStream(output);
+		ImageIO.write(bgImage, format, out);
+		out.close();
+
+		Logger.debug(ImageResizeUtils.class, "Done.");
+		
+	}
+
+	/**
+	 * Generates the thumbnail of an image already loaded in memory
+	 * 
+	 * @param image  The loaded image
+	 * @param width  The thumbnail width
+	 * @param height The thumbnail height
+	 * @param bgColor Image BackGround COlor
+	 * @return the thumbnail image
+	 */
+	public static BufferedImage generateThumbnail(Image image, int width, int height, Color bgColor) {
+
+		if (height <= 0 && width <= 0) {
+			height = DEFAULT_HEIGHT;
+			width = DEFAULT_WIDTH;
+		}
+
+		if (bgColor == null)
+			bgColor = DEFAULT_BG_COLOR;
+
 		// determine thumbnail size from WIDTH and HEIGHT
 		int imageWidth = image.getWidth(null);
 		int imageHeight = image.getHeight(null);
@@ -141,13 +163,7 @@ public class ImageResizeUtils {
 		resultGraphics.drawImage(thumbImage, null, offsetX, offsetY);
 		resultGraphics.dispose();
 
-		// save thumbnail image to OUTFILE
-		BufferedOutputStream out = new BufferedOutputStream(output);
-		ImageIO.write(bgImage, format, out);
-		out.close();
-
-		Logger.debug(ImageResizeUtils.class, "Done.");
-		
+		return bgImage;
 	}
 	
 	/**
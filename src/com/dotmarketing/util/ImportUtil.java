@@ -12,13 +12,24 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.dotcms.repackage.com.csvreader.CsvReader;
 import com.dotmarketing.beans.Host;
@@ -30,6 +41,7 @@ import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.PermissionAPI;
 import com.dotmarketing.cache.FieldsCache;
 import com.dotmarketing.common.model.ContentletSearch;
+import com.dotmarketing.db.DbConnectionFactory;
 import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotRuntimeException;
@@ -54,6 +66,7 @@ import com.dotmarketing.portlets.structure.model.ContentletRelationships;
 import com.dotmarketing.portlets.structure.model.Field;
 import com.dotmarketing.portlets.structure.model.Relationship;
 import com.dotmarketing.portlets.structure.model.Structure;
+import com.liferay.portal.language.LanguageException;
 import com.liferay.portal.language.LanguageUtil;
 import com.liferay.portal.model.User;
 
@@ -77,7 +90,9 @@ public class ImportUtil {
 		"MM/dd/yy hh:mm aa", "MM/dd/yyyy hh:mm aa",	"MM/dd/yy HH:mm", "MM/dd/yyyy HH:mm", "MMMM dd, yyyy", "M/d/y", "M/d",
 		"EEEE, MMMM dd, yyyy", "MM/dd/yyyy", "hh:mm:ss aa", "HH:mm:ss", "hh:mm aa", "yyyy-MM-dd" };
 
-	private static final SimpleDateFormat DATE_FIELD_FORMAT = new SimpleDateFormat("yyyyMMdd");
+	private static final String DATE_FIELD_FORMAT = "yyyyMMdd";
+
+	static final String READER_THREAD_NAME = "ImportReader-";
 
 
 
@@ -104,9 +119,10 @@ public class ImportUtil {
 		int lines = 0;
 		int errors = 0;
 		int lineNumber = 0;
+		ImportProgress progress = new ImportProgress(st.getName());
 
 		Counters counters = new Counters();
-		HashSet<String> keyContentUpdated = new HashSet<String>();
+		Set<String> keyContentUpdated = Collections.synchronizedSet(new HashSet<String>());
 		StringBuffer choosenKeyField = new StringBuffer();
 
 		HashMap<Integer, Field> headers = new HashMap<Integer, Field>();
@@ -139,80 +155,91 @@ public class ImportUtil {
 					if (!preview)
 						HibernateUtil.startTransaction();
 
-					String[] csvLine;
-					while (csvreader.readRecord()) {
-						if(ImportAuditUtil.cancelledImports.containsKey(importId)){
-							break;
-						}
-						lineNumber++;
-						csvLine = csvreader.getValues();
-						try {
-							lines++;
-							Logger.debug(ImportUtil.class, "Line " + lines + ": (" + csvreader.getRawRecord() + ").");
-
-                            //Importing a line
-                            Long languageToImport = language;
-                            if ( language == -1 ) {
-                                if ( languageCodeHeaderColumn != -1 && countryCodeHeaderColumn != -1 ) {
-                                    Language dotCMSLanguage = langAPI.getLanguage( csvLine[languageCodeHeaderColumn], csvLine[countryCodeHeaderColumn] );
-                                    languageToImport = dotCMSLanguage.getId();
+					int importThreads = Config.getIntProperty("IMPORT_CONTENT_THREADS", 1);
+					if (!preview && importThreads > 1) {
+						ChunkedImport chunkedImport = new ChunkedImport(importId, currentHostId, st, isMultilingual, user, language, csvreader,
+								languageCodeHeaderColumn, countryCodeHeaderColumn, results, headers, keyFields, choosenKeyField, counters,
+								keyContentUpdated, structurePermissions, uniqueFields, relationships, onlyChild, onlyParent, importThreads, progress);
+						chunkedImport.run(lineNumber);
+						lines = chunkedImport.lines;
+						errors = chunkedImport.errors;
+					} else {
+						String[] csvLine;
+						while (csvreader.readRecord()) {
+							if(ImportAuditUtil.cancelledImports.containsKey(importId)){
+								break;
+							}
+							lineNumber++;
+							csvLine = csvreader.getValues();
+							try {
+								lines++;
+								Logger.debug(ImportUtil.class, "Line " + lines + ": (" + csvreader.getRawRecord() + ").");
+
+                                //Importing a line
+                                Long languageToImport = language;
+                                if ( language == -1 ) {
+                                    if ( languageCodeHeaderColumn != -1 && countryCodeHeaderColumn != -1 ) {
+                                        Language dotCMSLanguage = langAPI.getLanguage( csvLine[languageCodeHeaderColumn], csvLine[countryCodeHeaderColumn] );
+                                        languageToImport = dotCMSLanguage.getId();
+                                    }
                                 }
-                            }
 
-                            if ( languageToImport != -1 ) {
+                                if ( languageToImport != -1 ) {
 
-                                /*
-                                Verifies if there was already imported a record with the same keys.
-                                Useful to know if we have batch uploads with the same keys, mostly visible for batch content uploads with multiple languages
-                                */
-                                boolean sameKeyBatchInsert = true;
-                                if ( keyFields != null && !keyFields.isEmpty() ) {
+                                    /*
+                                    Verifies if there was already imported a record with the same keys.
+                                    Useful to know if we have batch uploads with the same keys, mostly visible for batch content uploads with multiple languages
+                                    */
+                                    boolean sameKeyBatchInsert = true;
+                                    if ( keyFields != null && !keyFields.isEmpty() ) {
 
-                                    for ( Integer column : keyFields.keySet() ) {
+                                        for ( Integer column : keyFields.keySet() ) {
 
-                                        Field keyField = keyFields.get( column );
-                                        if ( !counters.matchKey( keyField.getFieldName(), csvLine[column] ) ) {
-                                            sameKeyBatchInsert = false;
-                                            break;
+                                            Field keyField = keyFields.get( column );
+                                            if ( !counters.matchKey( keyField.getFieldName(), csvLine[column] ) ) {
+                                                sameKeyBatchInsert = false;
+                                                break;
+                                            }
                                         }
                                     }
-                                }
 
-                                //Importing content record...
-                                importLine( csvLine, currentHostId, st, preview, isMultilingual, user, results, lineNumber, languageToImport, headers, keyFields, choosenKeyField,
-                                        counters, keyContentUpdated, structurePermissions, uniqueFieldBeans, uniqueFields, relationships, onlyChild, onlyParent, sameKeyBatchInsert );
+                                    //Importing content record...
+                                    importLine( csvLine, currentHostId, st, preview, isMultilingual, user, results, lineNumber, languageToImport, headers, keyFields, choosenKeyField,
+                                            counters, keyContentUpdated, structurePermissions, uniqueFieldBeans, uniqueFields, relationships, onlyChild, onlyParent, sameKeyBatchInsert, null );
 
-                                //Storing the record keys we just imported for a later reference...
-                                if ( keyFields != null && !keyFields.isEmpty() ) {
+                                    //Storing the record keys we just imported for a later reference...
+                                    if ( keyFields != null && !keyFields.isEmpty() ) {
 
-                                    for ( Integer column : keyFields.keySet() ) {
+                                        for ( Integer column : keyFields.keySet() ) {
 
-                                        Field keyField = keyFields.get( column );
-                                        counters.addKey( keyField.getFieldName(), csvLine[column] );
+                                            Field keyField = keyFields.get( column );
+                                            counters.addKey( keyField.getFieldName(), csvLine[column] );
+                                        }
                                     }
-                                }
 
-                            } else {
-                                results.get( "errors" ).add( LanguageUtil.get( user, "Line--" ) + lineNumber + LanguageUtil.get( user, "Locale-not-found-for-languageCode" ) + " ='" + csvLine[languageCodeHeaderColumn] + "' countryCode='" + csvLine[countryCodeHeaderColumn] + "'" );
-                                errors++;
-                            }
+                                } else {
+                                    results.get( "errors" ).add( LanguageUtil.get( user, "Line--" ) + lineNumber + LanguageUtil.get( user, "Locale-not-found-for-languageCode" ) + " ='" + csvLine[languageCodeHeaderColumn] + "' countryCode='" + csvLine[countryCodeHeaderColumn] + "'" );
+                                    errors++;
+                                }
 
-                            if ( !preview && (lineNumber % commitGranularity == 0) ) {
-                                HibernateUtil.commitTransaction();
-                                Thread.sleep( sleepTime );
-                                HibernateUtil.startTransaction();
-                            }
+                                if ( !preview && (lineNumber % commitGranularity == 0) ) {
+                                    HibernateUtil.commitTransaction();
+                                    Thread.sleep( sleepTime );
+                                    HibernateUtil.startTransaction();
+                                }
 
-                        } catch ( DotRuntimeException ex ) {
+                            } catch ( DotRuntimeException ex ) {
 
-                            String errorMessage = ex.getMessage();
-                            if(errorMessage.indexOf("Line #") == -1){
-								errorMessage = "Line #"+lineNumber+" "+errorMessage;
+                                String errorMessage = ex.getMessage();
+                                if(errorMessage.indexOf("Line #") == -1){
+									errorMessage = "Line #"+lineNumber+" "+errorMessage;
+								}
+								results.get("errors").add(errorMessage);
+								errors++;
+								Logger.info(ImportUtil.class, "Error line: " + lines + " (" + csvreader.getRawRecord()
+										+ "). Line Ignored.");
 							}
-							results.get("errors").add(errorMessage);
-							errors++;
-							Logger.info(ImportUtil.class, "Error line: " + lines + " (" + csvreader.getRawRecord()
-									+ "). Line Ignored.");
+							progress.linesDone(1);
 						}
 					}
 
@@ -260,7 +287,7 @@ public class ImportUtil {
 
 				}
 		}
-		Logger.info(ImportUtil.class, lines + " lines read correctly. " + errors + " errors found.");
+		Logger.info(ImportUtil.class, lines + " lines read correctly. " + errors + " errors found. " + progress.getLinesPerSecond() + " lines/sec.");
 
 		return results;
 	}
@@ -457,12 +484,13 @@ public class ImportUtil {
      * @param onlyParent
      * @param sameKeyBatchInsert Indicates if the keys for this row had been use them in this batch upload, help us to see if there is a batch content upload with multiple records
      *                           and the same key, mostly used for content with multiple languages.
+     * @param keyMatches The contentlets found for the keys of a whole chunk of lines, null to search the ones of this line
      * @throws DotRuntimeException
      */
     private static void importLine ( String[] line, String currentHostId, Structure structure, boolean preview, boolean isMultilingual, User user, HashMap<String, List<String>> results, int lineNumber, long language,
                                      HashMap<Integer, Field> headers, HashMap<Integer, Field> keyFields, StringBuffer choosenKeyField, Counters counters,
-                                     HashSet<String> keyContentUpdated, List<Permission> structurePermissions, List<UniqueFieldBean> uniqueFieldBeans, List<Field> uniqueFields, HashMap<Integer, Relationship> relationships, HashMap<Integer, Boolean> onlyChild, HashMap<Integer, Boolean> onlyParent,
-                                     boolean sameKeyBatchInsert ) throws DotRuntimeException {
+                                     Set<String> keyContentUpdated, List<Permission> structurePermissions, List<UniqueFieldBean> uniqueFieldBeans, List<Field> uniqueFields, HashMap<Integer, Relationship> relationships, HashMap<Integer, Boolean> onlyChild, HashMap<Integer, Boolean> onlyParent,
+                                     boolean sameKeyBatchInsert, List<Contentlet> keyMatches ) throws DotRuntimeException {
 
         try {
 
@@ -782,18 +810,30 @@ public class ImportUtil {
             if ( UtilMethods.isSet( identifier ) ) {
                 buffy.append( " +identifier:" + identifier );
 
-                List<ContentletSearch> contentsSearch = conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
-
-                if ( (contentsSearch == null) || (contentsSearch.size() == 0) ) {
-                    throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
+                if ( keyMatches != null ) {
+                    //The contents of the whole chunk of lines were already looked up
+                    for ( Contentlet candidate : keyMatches ) {
+                        if ( identifier.equals( candidate.getIdentifier() ) ) {
+                            contentlets.add( new Contentlet( new HashMap<String, Object>( candidate.getMap() ) ) );
+                        }
+                    }
+                    if ( contentlets.isEmpty() ) {
+                        throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
+                    }
                 } else {
-                    Contentlet contentlet;
-                    for ( ContentletSearch contentSearch : contentsSearch ) {
-                        contentlet = conAPI.find( contentSearch.getInode(), user, true );
-                        if ( (contentlet != null) && InodeUtils.isSet( contentlet.getInode() ) ) {
-                            contentlets.add( contentlet );
-                        } else {
-                            throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
+                    List<ContentletSearch> contentsSearch = conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
+
+                    if ( (contentsSearch == null) || (contentsSearch.size() == 0) ) {
+                        throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
+                    } else {
+                        Contentlet contentlet;
+                        for ( ContentletSearch contentSearch : contentsSearch ) {
+                            contentlet = conAPI.find( contentSearch.getInode(), user, true );
+                            if ( (contentlet != null) && InodeUtils.isSet( contentlet.getInode() ) ) {
+                                contentlets.add( contentlet );
+                            } else {
+                                throw new DotRuntimeException( "Line #" + lineNumber + ": Content not found with identifier " + identifier + "\n" );
+                            }
                         }
                     }
                 }
@@ -806,7 +846,7 @@ public class ImportUtil {
 					if (value instanceof Date || value instanceof Timestamp) {
 						SimpleDateFormat formatter = null;
 						if(field.getFieldType().equals(Field.FieldType.DATE.toString())){
-							text = DATE_FIELD_FORMAT.format((Date)value);
+							text = new SimpleDateFormat(DATE_FIELD_FORMAT).format((Date)value);
 						}else if(field.getFieldType().equals(Field.FieldType.DATE_TIME.toString())){
 						    DateFormat df = new SimpleDateFormat("MM/dd/yyyy");
 							text = df.format((Date)value);
@@ -832,89 +872,76 @@ public class ImportUtil {
 					}
 
 					if(!field.isUnique()){
-						if(UtilMethods.isSet(choosenKeyField.toString())){
-							int count = 1;
-							String[] chosenArr = choosenKeyField.toString().split(",");
-							for(String chosen : chosenArr){
-								if(UtilMethods.isSet(chosen) && !field.getFieldName().equals(chosen.trim())){
-									count++;
+						synchronized (choosenKeyField) {
+							if(UtilMethods.isSet(choosenKeyField.toString())){
+								int count = 1;
+								String[] chosenArr = choosenKeyField.toString().split(",");
+								for(String chosen : chosenArr){
+									if(UtilMethods.isSet(chosen) && !field.getFieldName().equals(chosen.trim())){
+										count++;
+									}
 								}
-							}
-							if(chosenArr.length==count){
+								if(chosenArr.length==count){
+									choosenKeyField.append(", "+field.getFieldName());
+								}
+							}else{
 								choosenKeyField.append(", "+field.getFieldName());
 							}
-						}else{
-							choosenKeyField.append(", "+field.getFieldName());
 						}
 					}
 
 				}
 
-                String noLanguageQuery = buffy.toString();
-                if ( !isMultilingual && !UtilMethods.isSet( identifier ) ) {
-                    buffy.append( " +languageId:" ).append( language );
-                }
+                if ( keyMatches != null ) {
+                    //The contents matching the keys of the whole chunk of lines were already looked up, keeping the ones of this line
+                    List<Contentlet> keyLanguageMatches = new ArrayList<Contentlet>();
+                    List<Contentlet> allLanguagesMatches = new ArrayList<Contentlet>();
+                    for ( Contentlet candidate : keyMatches ) {
+                        if ( matchesKeyFields( candidate, keyFields, values ) ) {
+                            Contentlet match = new Contentlet( new HashMap<String, Object>( candidate.getMap() ) );
+                            allLanguagesMatches.add( match );
+                            if ( candidate.getLanguageId() == language ) {
+                                keyLanguageMatches.add( match );
+                            }
+                        }
+                    }
+                    if ( isMultilingual ) {
+                        contentlets.addAll( allLanguagesMatches );
+                    } else if ( !keyLanguageMatches.isEmpty() ) {
+                        contentlets.addAll( keyLanguageMatches );
+                    } else if ( choosenKeyField.length() > 1 && !allLanguagesMatches.isEmpty() ) {
+                        //Same as below, the keys could match a contentlet saved in another language
+                        contentlets.addAll( allLanguagesMatches );
+                        isMultilingual = true;
+                    }
+                } else {
+                    String noLanguageQuery = buffy.toString();
+                    if ( !isMultilingual && !UtilMethods.isSet( identifier ) ) {
+                        buffy.append( " +languageId:" ).append( language );
+                    }
 
-                List<ContentletSearch> cons = conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
-                /*
-                We need to handle the case when keys are used, we could have a contentlet already saved with the same keys but different language
-                so the above query is not going to find it.
-                 */
-                if ( cons == null || cons.isEmpty() ) {
-                    if ( choosenKeyField.length() > 1 ) {
-                        cons = conAPI.searchIndex( noLanguageQuery, 0, -1, null, user, true );
-                        if (cons != null && !cons.isEmpty()) {
-                            isMultilingual = true;
+                    List<ContentletSearch> cons = conAPI.searchIndex( buffy.toString(), 0, -1, null, user, true );
+                    /*
+                    We need to handle the case when keys are used, we could have a contentlet already saved with the same keys but different language
+                    so the above query is not going to find it.
+                     */
+                    if ( cons == null || cons.isEmpty() ) {
+                        if ( choosenKeyField.length() > 1 ) {
+                            cons = conAPI.searchIndex( noLanguageQuery, 0, -1, null, user, true );
+                            if (cons != null && !cons.isEmpty()) {
+                                isMultilingual = true;
+                            }
                         }
                     }
-                }
 
-                Contentlet con;
-				for (ContentletSearch contentletSearch: cons) {
-					con = conAPI.find(contentletSearch.getInode(), user, true);
-					if ((con != null) && InodeUtils.isSet(con.getInode())) {
-						boolean columnExists = false;
-						for (Integer column : keyFields.keySet()) {
-							Field field = keyFields.get(column);
-							Object value = values.get(column);
-							Object conValue = conAPI.getFieldValue(con, field);
-							if(field.getFieldType().equals(Field.FieldType.DATE.toString())
-									|| field.getFieldType().equals(Field.FieldType.DATE_TIME.toString())
-									|| field.getFieldType().equals(Field.FieldType.TIME.toString())){
-								if(field.getFieldType().equals(Field.FieldType.TIME.toString())){
-								    DateFormat df = new SimpleDateFormat("HHmmss");
-									conValue = df.format((Date)conValue);
-									value = df.format((Date)value);
-								}else if(field.getFieldType().equals(Field.FieldType.DATE.toString())){
-									value = DATE_FIELD_FORMAT.format((Date)value);
-									conValue = DATE_FIELD_FORMAT.format((Date)conValue);
-								}else{
-									if(conValue instanceof java.sql.Timestamp){
-										value = new java.sql.Timestamp(((Date)value).getTime());
-									}else if(conValue instanceof Date){
-									    DateFormat df = new SimpleDateFormat("MM/dd/yyyy");
-										value = df.format((Date)value);
-									}
-								}
-								if(conValue.equals(value)){
-									columnExists = true;
-								}else{
-									columnExists = false;
-									break;
-								}
-							}else{
-								if(conValue.toString().equalsIgnoreCase(value.toString())){
-									columnExists = true;
-								}else{
-									columnExists = false;
-									break;
-								}
-							}
-						}
-						if(columnExists)
-						  contentlets.add(con);
-					}
-				}
+                    Contentlet con;
+                    for (ContentletSearch contentletSearch: cons) {
+                        con = conAPI.find(contentletSearch.getInode(), user, true);
+                        if ((con != null) && InodeUtils.isSet(con.getInode()) && matchesKeyFields(con, keyFields, values)) {
+                            contentlets.add(con);
+                        }
+                    }
+                }
 
                 if ( !preview ) {//Don't do unnecessary calls if it is not required
 
@@ -1289,6 +1316,51 @@ public class ImportUtil {
 
 	}
 
+	/**
+	 * Checks if the values of the key fields of the contentlet are the ones of the line being imported
+	 */
+	private static boolean matchesKeyFields(Contentlet con, HashMap<Integer, Field> keyFields, HashMap<Integer, Object> values) {
+		boolean columnExists = false;
+		for (Integer column : keyFields.keySet()) {
+			Field field = keyFields.get(column);
+			Object value = values.get(column);
+			Object conValue = conAPI.getFieldValue(con, field);
+			if(field.getFieldType().equals(Field.FieldType.DATE.toString())
+					|| field.getFieldType().equals(Field.FieldType.DATE_TIME.toString())
+					|| field.getFieldType().equals(Field.FieldType.TIME.toString())){
+				if(field.getFieldType().equals(Field.FieldType.TIME.toString())){
+				    DateFormat df = new SimpleDateFormat("HHmmss");
+					conValue = df.format((Date)conValue);
+					value = df.format((Date)value);
+				}else if(field.getFieldType().equals(Field.FieldType.DATE.toString())){
+					value = new SimpleDateFormat(DATE_FIELD_FORMAT).format((Date)value);
+					conValue = new SimpleDateFormat(DATE_FIELD_FORMAT).format((Date)conValue);
+				}else{
+					if(conValue instanceof java.sql.Timestamp){
+						value = new java.sql.Timestamp(((Date)value).getTime());
+					}else if(conValue instanceof Date){
+					    DateFormat df = new SimpleDateFormat("MM/dd/yyyy");
+						value = df.format((Date)value);
+					}
+				}
+				if(conValue.equals(value)){
+					columnExists = true;
+				}else{
+					columnExists = false;
+					break;
+				}
+			}else{
+				if(conValue.toString().equalsIgnoreCase(value.toString())){
+					columnExists = true;
+				}else{
+					columnExists = false;
+					break;
+				}
+			}
+		}
+		return columnExists;
+	}
+
 	private static String printSupportedDateFormats () {
 		StringBuffer ret = new StringBuffer("[ ");
 		for (String pattern : IMP_DATE_FORMATS) {
@@ -1447,6 +1519,493 @@ public class ImportUtil {
 		return DateUtil.convertDate( date, IMP_DATE_FORMATS );
 	}
 
+	/**
+	 * Logs how many lines have been imported and how many lines per second, at most every
+	 * IMPORT_CONTENT_PROGRESS_SECONDS seconds (10 by default).
+	 */
+	private static class ImportProgress {
+
+		private final String name;
+		private final long interval = Config.getIntProperty("IMPORT_CONTENT_PROGRESS_SECONDS", 10) * 1000L;
+		private final long start = System.currentTimeMillis();
+		private long lastReport = start;
+		private int lines = 0;
+
+		private ImportProgress(String name) {
+			this.name = name;
+		}
+
+		private void linesDone(int count) {
+			lines += count;
+			long now = System.currentTimeMillis();
+			if (now - lastReport >= interval) {
+				lastReport = now;
+				Logger.info(ImportUtil.class, "Importing \"" + name + "\": " + lines + " lines imported, " + getLinesPerSecond() + " lines/sec.");
+			}
+		}
+
+		private long getLinesPerSecond() {
+			long elapsed = System.currentTimeMillis() - start;
+			return elapsed > 0 ? (lines * 1000L) / elapsed : lines;
+		}
+	}
+
+	/**
+	 * A line of the file read ahead by the {@link ChunkedImport}, with the results of importing it.
+	 */
+	private static class ImportRecord {
+
+		private final int lineNumber;
+		private final String[] line;
+		private final String rawRecord;
+		private long language = -1;
+		private boolean sameKeyBatchInsert = true;
+		private boolean failed = false;
+		private boolean ignored = false;
+		private HashMap<String, List<String>> results;
+
+		private ImportRecord(int lineNumber, String[] line, String rawRecord) {
+			this.lineNumber = lineNumber;
+			this.line = line;
+			this.rawRecord = rawRecord;
+		}
+	}
+
+	/**
+	 * Imports the lines of the file in chunks of IMPORT_CONTENT_CHUNK_SIZE lines (100 by default):
+	 * <ul>
+	 * <li>A reader thread parses the next chunks while the current one is imported.</li>
+	 * <li>The contentlets matching the keys of all the lines of a chunk are looked up with a single search.</li>
+	 * <li>The lines are imported by IMPORT_CONTENT_THREADS workers. Lines with the same keys go to the same worker in
+	 * the order of the file, and every worker commits its lines of the chunk in one transaction, which sends the
+	 * indexing of the whole transaction to ES in bulk requests.</li>
+	 * </ul>
+	 * The warnings and errors of the lines are reported in the order of the file, the same as the one line at a
+	 * time import.
+	 */
+	private static class ChunkedImport {
+
+		private static final List<ImportRecord> END_OF_FILE = new ArrayList<ImportRecord>();
+
+		private final Long importId;
+		private final String currentHostId;
+		private final Structure structure;
+		private final boolean isMultilingual;
+		private final User user;
+		private final long language;
+		private final CsvReader csvreader;
+		private final int languageCodeHeaderColumn;
+		private final int countryCodeHeaderColumn;
+		private final HashMap<String, List<String>> results;
+		private final HashMap<Integer, Field> headers;
+		private final HashMap<Integer, Field> keyFields;
+		private final StringBuffer choosenKeyField;
+		private final Counters counters;
+		private final Set<String> keyContentUpdated;
+		private final List<Permission> structurePermissions;
+		private final List<Field> uniqueFields;
+		private final HashMap<Integer, Relationship> relationships;
+		private final HashMap<Integer, Boolean> onlyChild;
+		private final HashMap<Integer, Boolean> onlyParent;
+		private final int threads;
+		private final int chunkSize = Math.max(1, Config.getIntProperty("IMPORT_CONTENT_CHUNK_SIZE", 100));
+		private final ImportProgress progress;
+
+		//Values of the unique fields in the lines read so far, by field inode
+		private final Map<String, Set<String>> uniqueValues = new HashMap<String, Set<String>>();
+
+		private int lines = 0;
+		private int errors = 0;
+
+		private ChunkedImport(Long importId, String currentHostId, Structure structure, boolean isMultilingual, User user, long language,
+				CsvReader csvreader, int languageCodeHeaderColumn, int countryCodeHeaderColumn, HashMap<String, List<String>> results,
+				HashMap<Integer, Field> headers, HashMap<Integer, Field> keyFields, StringBuffer choosenKeyField, Counters counters,
+				Set<String> keyContentUpdated, List<Permission> structurePermissions, List<Field> uniqueFields,
+				HashMap<Integer, Relationship> relationships, HashMap<Integer, Boolean> onlyChild, HashMap<Integer, Boolean> onlyParent,
+				int threads, ImportProgress progress) {
+			this.importId = importId;
+			this.currentHostId = currentHostId;
+			this.structure = structure;
+			this.isMultilingual = isMultilingual;
+			this.user = user;
+			this.language = language;
+			this.csvreader = csvreader;
+			this.languageCodeHeaderColumn = languageCodeHeaderColumn;
+			this.countryCodeHeaderColumn = countryCodeHeaderColumn;
+			this.results = results;
+			this.headers = headers;
+			this.keyFields = keyFields;
+			this.choosenKeyField = choosenKeyField;
+			this.counters = counters;
+			this.keyContentUpdated = keyContentUpdated;
+			this.structurePermissions = structurePermissions;
+			this.uniqueFields = uniqueFields;
+			this.relationships = relationships;
+			this.onlyChild = onlyChild;
+			this.onlyParent = onlyParent;
+			this.threads = threads;
+			this.progress = progress;
+		}
+
+		/**
+		 * @param headerLineNumber
+		 *            - The number of the last line read before the records
+		 */
+		private void run(final int headerLineNumber) throws Exception {
+			final BlockingQueue<List<ImportRecord>> chunks = new ArrayBlockingQueue<List<ImportRecord>>(2);
+			ExecutorService reader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					return new Thread(r, READER_THREAD_NAME + importId);
+				}
+			});
+			ExecutorService workers = Executors.newFixedThreadPool(threads);
+			try {
+				Future<Void> reading = reader.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						boolean endOfFile = true;
+						try {
+							int lineNumber = headerLineNumber;
+							List<ImportRecord> chunk = new ArrayList<ImportRecord>(chunkSize);
+							while (csvreader.readRecord()) {
+								if (ImportAuditUtil.cancelledImports.containsKey(importId)) {
+									break;
+								}
+								chunk.add(new ImportRecord(++lineNumber, csvreader.getValues(), csvreader.getRawRecord()));
+								if (chunk.size() == chunkSize) {
+									chunks.put(chunk);
+									chunk = new ArrayList<ImportRecord>(chunkSize);
+								}
+							}
+							if (!chunk.isEmpty()) {
+								chunks.put(chunk);
+							}
+						} catch (InterruptedException e) {
+							//The import was cancelled or failed, nobody takes the chunks any more
+							endOfFile = false;
+						} finally {
+							if (endOfFile) {
+								chunks.put(END_OF_FILE);
+							}
+						}
+						return null;
+					}
+				});
+
+				List<ImportRecord> chunk;
+				while ((chunk = chunks.take()) != END_OF_FILE) {
+					if (ImportAuditUtil.cancelledImports.containsKey(importId)) {
+						break;
+					}
+					importChunk(chunk, workers);
+					progress.linesDone(chunk.size());
+				}
+				if (chunk == END_OF_FILE) {
+					// throws the errors reading the file
+					reading.get();
+				} else {
+					reading.cancel(true);
+				}
+			} finally {
+				reader.shutdownNow();
+				//Frees a reader blocked on a full queue that missed the interrupt
+				chunks.clear();
+				workers.shutdown();
+			}
+		}
+
+		private void importChunk(List<ImportRecord> chunk, ExecutorService workers) throws Exception {
+
+			//Languages and keys of the lines, in the order of the file
+			Map<String, List<ImportRecord>> linesByKey = new LinkedHashMap<String, List<ImportRecord>>();
+			for (ImportRecord record : chunk) {
+				lines++;
+				Logger.debug(ImportUtil.class, "Line " + lines + ": (" + record.rawRecord + ").");
+				record.results = newLineResults();
+
+				Long languageToImport = language;
+				if (language == -1) {
+					if (languageCodeHeaderColumn != -1 && countryCodeHeaderColumn != -1) {
+						Language dotCMSLanguage = langAPI.getLanguage(record.line[languageCodeHeaderColumn], record.line[countryCodeHeaderColumn]);
+						languageToImport = dotCMSLanguage.getId();
+					}
+				}
+				if (languageToImport == -1) {
+					record.results.get("errors").add(LanguageUtil.get(user, "Line--") + record.lineNumber + LanguageUtil.get(user, "Locale-not-found-for-languageCode")
+							+ " ='" + record.line[languageCodeHeaderColumn] + "' countryCode='" + record.line[countryCodeHeaderColumn] + "'");
+					record.failed = true;
+					continue;
+				}
+				record.language = languageToImport;
+
+				if (isDuplicateUniqueValue(record)) {
+					continue;
+				}
+
+				StringBuilder key = new StringBuilder();
+				if (keyFields != null && !keyFields.isEmpty()) {
+					for (Integer column : keyFields.keySet()) {
+						if (!counters.matchKey(keyFields.get(column).getFieldName(), value(record, column))) {
+							record.sameKeyBatchInsert = false;
+						}
+						key.append(value(record, column).toLowerCase()).append('\u0000');
+					}
+					for (Integer column : keyFields.keySet()) {
+						counters.addKey(keyFields.get(column).getFieldName(), value(record, column));
+					}
+				}
+				int identifierColumn = identifierColumn();
+				if (identifierColumn > -1) {
+					key.append(value(record, identifierColumn));
+				}
+				if (key.length() == 0) {
+					// no keys, the line can go anywhere
+					key.append("line:").append(record.lineNumber);
+				}
+				List<ImportRecord> sameKeyLines = linesByKey.get(key.toString());
+				if (sameKeyLines == null) {
+					sameKeyLines = new ArrayList<ImportRecord>();
+					linesByKey.put(key.toString(), sameKeyLines);
+				}
+				sameKeyLines.add(record);
+			}
+
+			final List<Contentlet> keyMatches = findKeyMatches(chunk);
+
+			//Spreading the lines among the workers, keeping the lines with the same keys together
+			List<List<ImportRecord>> workerLines = new ArrayList<List<ImportRecord>>();
+			for (int i = 0; i < threads; i++) {
+				workerLines.add(new ArrayList<ImportRecord>());
+			}
+			int next = 0;
+			for (List<ImportRecord> sameKeyLines : linesByKey.values()) {
+				workerLines.get(next).addAll(sameKeyLines);
+				next = (next + 1) % threads;
+			}
+
+			List<Future<Counters>> futures = new ArrayList<Future<Counters>>();
+			for (final List<ImportRecord> records : workerLines) {
+				if (records.isEmpty()) {
+					continue;
+				}
+				futures.add(workers.submit(new Callable<Counters>() {
+					@Override
+					public Counters call() throws Exception {
+						return importLines(records, keyMatches);
+					}
+				}));
+			}
+
+			int worker = 0;
+			for (List<ImportRecord> records : workerLines) {
+				if (records.isEmpty()) {
+					continue;
+				}
+				try {
+					addCounters(futures.get(worker).get());
+				} catch (ExecutionException e) {
+					//The transaction of the worker was rolled back, none of its lines were imported
+					Logger.error(ImportUtil.class, "Unable to commit the imported lines: " + e.getCause().getMessage(), e.getCause());
+					for (ImportRecord record : records) {
+						if (!record.failed) {
+							record.failed = true;
+							record.results.get("errors").add("Line #" + record.lineNumber + " " + e.getCause().getMessage());
+						}
+					}
+				}
+				worker++;
+			}
+
+			//Reporting in the order of the file
+			for (ImportRecord record : chunk) {
+				results.get("warnings").addAll(record.results.get("warnings"));
+				results.get("errors").addAll(record.results.get("errors"));
+				if (!record.failed && !record.results.get("lastInode").isEmpty()) {
+					results.get("lastInode").clear();
+					results.get("lastInode").addAll(record.results.get("lastInode"));
+				}
+				if (record.failed) {
+					errors++;
+				}
+			}
+		}
+
+		/**
+		 * Imports the lines in a transaction of the current thread, returning the counters of the lines
+		 */
+		private Counters importLines(List<ImportRecord> records, List<Contentlet> keyMatches) throws Exception {
+			Counters lineCounters = new Counters();
+			try {
+				HibernateUtil.startTransaction();
+				for (ImportRecord record : records) {
+					if (record.failed || record.ignored) {
+						continue;
+					}
+					try {
+						importLine(record.line, currentHostId, structure, false, isMultilingual, user, record.results, record.lineNumber, record.language,
+								headers, keyFields, choosenKeyField, lineCounters, keyContentUpdated, structurePermissions, new ArrayList<UniqueFieldBean>(),
+								uniqueFields, relationships, onlyChild, onlyParent, record.sameKeyBatchInsert, keyMatches);
+					} catch (DotRuntimeException ex) {
+						String errorMessage = ex.getMessage();
+						if (errorMessage.indexOf("Line #") == -1) {
+							errorMessage = "Line #" + record.lineNumber + " " + errorMessage;
+						}
+						record.results.get("errors").add(errorMessage);
+						record.failed = true;
+						Logger.info(ImportUtil.class, "Error line: " + record.lineNumber + " (" + record.rawRecord + "). Line Ignored.");
+					}
+				}
+				HibernateUtil.commitTransaction();
+			} catch (Exception e) {
+				HibernateUtil.rollbackTransaction();
+				throw e;
+			} finally {
+				try {
+					HibernateUtil.closeSession();
+				} finally {
+					DbConnectionFactory.closeConnection();
+				}
+			}
+			return lineCounters;
+		}
+
+		/**
+		 * Looks up the contentlets the lines of the chunk could update with a single search, by the identifiers of
+		 * the lines or by the values of their first key field that can be searched as text. The exact match is done
+		 * for every line by {@link ImportUtil#importLine}.
+		 *
+		 * @return The contentlets found, or null if the lines must be looked up one by one
+		 */
+		private List<Contentlet> findKeyMatches(List<ImportRecord> chunk) throws DotDataException, DotSecurityException {
+			String searchField = null;
+			int searchColumn = identifierColumn();
+			if (searchColumn > -1) {
+				searchField = "identifier";
+			} else if (keyFields != null) {
+				for (Integer column : keyFields.keySet()) {
+					Field field = keyFields.get(column);
+					if (isTextSearchable(field)) {
+						searchColumn = column;
+						searchField = structure.getVelocityVarName() + "." + field.getVelocityVarName();
+						break;
+					}
+				}
+			}
+			if (searchField == null) {
+				return null;
+			}
+
+			Set<String> terms = new LinkedHashSet<String>();
+			for (ImportRecord record : chunk) {
+				if (record.failed) {
+					continue;
+				}
+				String text = value(record, searchColumn);
+				if (searchColumn != identifierColumn()) {
+					text = keyText(keyFields.get(searchColumn), text);
+				}
+				if (UtilMethods.isSet(text)) {
+					String term = escapeLuceneSpecialCharacter(text);
+					terms.add(term.contains(" ") ? "\"" + term + "\"" : term);
+				}
+			}
+			if (terms.isEmpty()) {
+				return new ArrayList<Contentlet>();
+			}
+
+			StringBuilder query = new StringBuilder();
+			query.append("+structureName:").append(structure.getVelocityVarName()).append(" +working:true +deleted:false +").append(searchField).append(":(");
+			for (String term : terms) {
+				query.append(term).append(' ');
+			}
+			query.append(')');
+			return conAPI.search(query.toString(), 0, -1, null, user, true);
+		}
+
+		/**
+		 * Checks the values of the unique fields of the line against the lines read before it, in the whole file, as
+		 * the workers only see the lines of their chunk. A line repeating a value is ignored with a warning.
+		 */
+		private boolean isDuplicateUniqueValue(ImportRecord record) throws LanguageException {
+			for (Integer column : headers.keySet()) {
+				Field field = headers.get(column);
+				String value = value(record, column);
+				if (!field.isUnique() || !UtilMethods.isSet(value)) {
+					continue;
+				}
+				Set<String> values = uniqueValues.get(field.getInode());
+				if (values == null) {
+					values = new HashSet<String>();
+					uniqueValues.put(field.getInode(), values);
+				}
+				if (!values.add(value)) {
+					record.results.get("warnings").add(LanguageUtil.get(user, "Line--") + " " + record.lineNumber + " "
+							+ LanguageUtil.get(user, "contains-duplicate-values-for-structure-unique-field") + " " + field.getFieldName() + " "
+							+ LanguageUtil.get(user, "and-will-be-ignored"));
+					record.ignored = true;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int identifierColumn() {
+			try {
+				return Integer.parseInt(results.get("identifiers").get(0));
+			} catch (Exception e) {
+				return -1;
+			}
+		}
+
+		private void addCounters(Counters lineCounters) {
+			counters.setNewContentCounter(counters.getNewContentCounter() + lineCounters.getNewContentCounter());
+			counters.setContentToUpdateCounter(counters.getContentToUpdateCounter() + lineCounters.getContentToUpdateCounter());
+			counters.setContentCreated(counters.getContentCreated() + lineCounters.getContentCreated());
+			counters.setContentUpdated(counters.getContentUpdated() + lineCounters.getContentUpdated());
+			counters.setContentUpdatedDuplicated(counters.getContentUpdatedDuplicated() + lineCounters.getContentUpdatedDuplicated());
+		}
+
+		private HashMap<String, List<String>> newLineResults() {
+			HashMap<String, List<String>> lineResults = new HashMap<String, List<String>>();
+			for (String key : results.keySet()) {
+				lineResults.put(key, new ArrayList<String>());
+			}
+			lineResults.put("identifiers", results.get("identifiers"));
+			return lineResults;
+		}
+
+		private static String value(ImportRecord record, int column) {
+			return column < record.line.length ? record.line[column] : "";
+		}
+
+		/**
+		 * Only the fields stored as text whose key is the text of the column, the same {@link ImportUtil#importLine}
+		 * searches with
+		 */
+		private static boolean isTextSearchable(Field field) {
+			String type = field.getFieldType();
+			return UtilMethods.isSet(field.getFieldContentlet()) && field.getFieldContentlet().startsWith("text")
+					&& !type.equals(Field.FieldType.HOST_OR_FOLDER.toString()) && !type.equals(Field.FieldType.IMAGE.toString())
+					&& !type.equals(Field.FieldType.FILE.toString());
+		}
+
+		/**
+		 * The text {@link ImportUtil#importLine} searches for the value of a text searchable key field
+		 */
+		private static String keyText(Field field, String value) {
+			String type = field.getFieldType();
+			if (type.equals(Field.FieldType.TEXT.toString())) {
+				return value.length() > 255 ? value.substring(0, 255) : value;
+			} else if (type.equals(Field.FieldType.TEXT_AREA.toString()) || type.equals(Field.FieldType.WYSIWYG.toString())
+					|| type.equals(Field.FieldType.CHECKBOX.toString()) || type.equals(Field.FieldType.SELECT.toString())
+					|| type.equals(Field.FieldType.MULTI_SELECT.toString()) || type.equals(Field.FieldType.RADIO.toString())) {
+				return value;
+			}
+			return Config.getBooleanProperty("CONTENT_ESCAPE_HTML_TEXT", true) ? UtilMethods.escapeUnicodeCharsForHTML(value) : value;
+		}
+	}
+
 	private static class UniqueFieldBean {
 
 		private Field field;
@@ -7,8 +7,17 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.dotcms.repackage.org.apache.commons.collections.ExtendedProperties;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
 
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.apache.velocity.runtime.resource.Resource;
@@ -76,6 +85,11 @@ public class DotResourceLoader extends ResourceLoader {
     private static String assetRealCanoncalPath;
     private static DotResourceLoader instance;
 
+    // CMS velocity files being generated right now, concurrent requests for the same file wait for the same generation
+    private final ConcurrentMap<String, FutureTask<byte[]>> inFlight = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong collapsedLoads = new AtomicLong();
+
     /* (non-Javadoc)
      * @see org.apache.velocity.runtime.resource.loader.FileResourceLoader#init(com.dotcms.repackage.org.apache.commons.collections.ExtendedProperties)
      */
@@ -153,67 +167,65 @@ public class DotResourceLoader extends ResourceLoader {
         long timer = System.currentTimeMillis();
         InputStream result = null;
 
-        synchronized (arg0.intern()) {
-	        try {
-	            if(!UtilMethods.isSet(arg0)) {
-	               throw new ResourceNotFoundException("cannot find resource");
-	            }
+        try {
+            if(!UtilMethods.isSet(arg0)) {
+               throw new ResourceNotFoundException("cannot find resource");
+            }
 
-	            Logger.debug(this, "Thread " + Thread.currentThread().getId() + ":" + Thread.currentThread().getName() + " VelocityKey " + arg0 + " Time " + timer);
-
-	            if (isACMSVelocityFile(arg0)) {
-	            	result = new BufferedInputStream(generateStream(arg0));
-	            }else{
-	            	boolean serveFile = false;
-	            	Logger.debug(this, "Not a CMS Velocity File : " + arg0);
-
-	            	java.io.File f=null;
-	            	String lookingFor="";
-	            	if (arg0.startsWith("dynamic")) {
-	            		lookingFor =ConfigUtils.getDynamicContentPath() + File.separator +  "velocity" + File.separator+arg0;
-
-	            	} else {
-	            		lookingFor = VELOCITY_ROOT + arg0;
-	            	}
-	            	f = new java.io.File(lookingFor);
-	                if(!f.exists()){
-	                    f = new java.io.File(arg0);
-	                }
-	                if(!f.exists()){
-	                	throw new ResourceNotFoundException("cannot find resource");
-	                }
-	            	String canon = f.getCanonicalPath();
-	            	File dynamicContent=new File(ConfigUtils.getDynamicContentPath());
-
-	                if(assetRealCanoncalPath != null && canon.startsWith(assetRealCanoncalPath)){
-	                    serveFile = true;
-	                }
-	                else if(velocityCanoncalPath != null && canon.startsWith(velocityCanoncalPath)){
-	                    serveFile = true;
-	                }
-	                else if (assetCanoncalPath != null && canon.startsWith(assetCanoncalPath)){
-	                    serveFile = true;
-	                }
-	                else if (canon.startsWith(dynamicContent.getCanonicalPath())) {
-	                	serveFile =true;
-	                }
-	                if(!serveFile){
-	                    Logger.warn(this, "POSSIBLE HACK ATTACK DotResourceLoader: " + lookingFor);
-	                    throw new ResourceNotFoundException("cannot find resource");
-	                }
-	                result = new BufferedInputStream(new FileInputStream(f));
-	            }
-	        }catch (Exception e) {
-	            Logger.warn(this,"Error ocurred finding resource '" + arg0 + "' exception: " + e.toString());
-	            if(e instanceof ResourceNotFoundException){
-	            	throw (ResourceNotFoundException)e;
-	            }
-	            try {
-					result = new ByteArrayInputStream("".getBytes("UTF-8"));
-				} catch (UnsupportedEncodingException e1) {
-					Logger.error(DotResourceLoader.class,e1.getMessage(),e1);
-				}
-	        }
+            Logger.debug(this, "Thread " + Thread.currentThread().getId() + ":" + Thread.currentThread().getName() + " VelocityKey " + arg0 + " Time " + timer);
+
+            if (isACMSVelocityFile(arg0)) {
+            	result = new ByteArrayInputStream(loadVelocityFile(arg0));
+            }else{
+            	boolean serveFile = false;
+            	Logger.debug(this, "Not a CMS Velocity File : " + arg0);
+
+            	java.io.File f=null;
+            	String lookingFor="";
+            	if (arg0.startsWith("dynamic")) {
+            		lookingFor =ConfigUtils.getDynamicContentPath() + File.separator +  "velocity" + File.separator+arg0;
+
+            	} else {
+            		lookingFor = VELOCITY_ROOT + arg0;
+            	}
+            	f = new java.io.File(lookingFor);
+                if(!f.exists()){
+                    f = new java.io.File(arg0);
+                }
+                if(!f.exists()){
+                	throw new ResourceNotFoundException("cannot find resource");
+                }
+            	String canon = f.getCanonicalPath();
+            	File dynamicContent=new File(ConfigUtils.getDynamicContentPath());
+
+                if(assetRealCanoncalPath != null && canon.startsWith(assetRealCanoncalPath)){
+                    serveFile = true;
+                }
+                else if(velocityCanoncalPath != null && canon.startsWith(velocityCanoncalPath)){
+                    serveFile = true;
+                }
+                else if (assetCanoncalPath != null && canon.startsWith(assetCanoncalPath)){
+                    serveFile = true;
+                }
+                else if (canon.startsWith(dynamicContent.getCanonicalPath())) {
+                	serveFile =true;
+                }
+                if(!serveFile){
+                    Logger.warn(this, "POSSIBLE HACK ATTACK DotResourceLoader: " + lookingFor);
+                    throw new ResourceNotFoundException("cannot find resource");
+                }
+                result = new BufferedInputStream(new FileInputStream(f));
+            }
+        }catch (Exception e) {
+            Logger.warn(this,"Error ocurred finding resource '" + arg0 + "' exception: " + e.toString());
+            if(e instanceof ResourceNotFoundException){
+            	throw (ResourceNotFoundException)e;
+            }
+            try {
+				result = new ByteArrayInputStream("".getBytes("UTF-8"));
+			} catch (UnsupportedEncodingException e1) {
+				Logger.error(DotResourceLoader.class,e1.getMessage(),e1);
+			}
         }
         if(result == null){
         	try {
@@ -227,6 +239,72 @@ public class DotResourceLoader extends ResourceLoader {
         return result;
     }
 
+    /**
+     * Generates the contents of a CMS velocity file (container, template, contentlet, field...).
+     * Concurrent calls for the same file share a single generation, which runs in the thread that
+     * asked for it first, while calls for different files never wait for each other.
+     *
+     * @param arg0
+     * @return
+     * @throws Exception
+     */
+    private byte[] loadVelocityFile(final String arg0) throws Exception {
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+            public byte[] call() throws Exception {
+                InputStream in = generateStream(arg0);
+                if (in == null) {
+                    return new byte[0];
+                }
+                try {
+                    return IOUtils.toByteArray(in);
+                } finally {
+                    in.close();
+                }
+            }
+        });
+
+        FutureTask<byte[]> running = inFlight.putIfAbsent(arg0, task);
+        if (running == null) {
+            loads.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(arg0, task);
+            }
+            running = task;
+        } else {
+            collapsedLoads.incrementAndGet();
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Returns the number of CMS velocity files generated by this loader and the number of
+     * requests that waited for a file already being generated instead of generating it again.
+     * They are published as the org.dotcms:type=VelocityLoader MBean.
+     *
+     * @return
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<String, Object>();
+        stats.put("loads", loads.get());
+        stats.put("collapsedLoads", collapsedLoads.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
     @SuppressWarnings("resource")
     private InputStream generateStream(String arg0) throws Exception {
     	User user=APILocator.getUserAPI().getSystemUser();
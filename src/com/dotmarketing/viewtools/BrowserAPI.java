@@ -14,6 +14,7 @@ import com.dotmarketing.beans.Identifier;
 import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.DotStateException;
 import com.dotmarketing.business.PermissionAPI;
+import com.dotmarketing.business.Permissionable;
 import com.dotmarketing.business.Role;
 import com.dotmarketing.business.Versionable;
 import com.dotmarketing.business.web.UserWebAPI;
@@ -240,6 +241,7 @@ public class BrowserAPI {
 				} catch (Exception e1) {
 					Logger.error(this, "Could not load folders : ", e1);
 				}
+				loadPermissions(folders);
 				for (Folder folder : folders) {
 					List<Integer> permissions = new ArrayList<Integer>();
 					try {
@@ -299,6 +301,7 @@ public class BrowserAPI {
 				Logger.error(this, "Could not load HTMLPages : ", e1);
 			}
 
+			loadPermissions(pages);
 			for (IHTMLPage page : pages) {
 				
 				boolean isContentlet = page instanceof Contentlet;
@@ -393,6 +396,7 @@ public class BrowserAPI {
 			Logger.error(this, "Could not load files : ", e2);
 		}
 
+		loadPermissions(files);
 		for (Versionable file : files) {
 
 			if (file == null)
@@ -494,6 +498,7 @@ public class BrowserAPI {
 				Logger.error(this, "Could not load links : ", e1);
 			}
 
+			loadPermissions(links);
 			for (Link link : links) {
 
 				List<Integer> permissions = new ArrayList<Integer>();
@@ -573,4 +578,22 @@ public class BrowserAPI {
 		return returnMap;
 	}
 
+	/**
+	 * Loads the permissions of all the given assets with a few queries before
+	 * they are checked one by one
+	 */
+	private void loadPermissions(List<?> assets) {
+		List<Permissionable> permissionables = new ArrayList<Permissionable>();
+		for (Object asset : assets) {
+			if (asset instanceof Permissionable) {
+				permissionables.add((Permissionable) asset);
+			}
+		}
+		try {
+			permissionAPI.addPermissionsToCache(permissionables);
+		} catch (DotDataException e) {
+			Logger.error(this, "Could not load permissions : ", e);
+		}
+	}
+
 }
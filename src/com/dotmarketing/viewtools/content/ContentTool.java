@@ -2,6 +2,7 @@ package com.dotmarketing.viewtools.content;
 
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -58,6 +59,8 @@ public class ContentTool implements ViewTool {
 	private String tmDate;
 	private Context context;
 	private Host currentHost;
+	// contentlets pulled during this request, by query, a query repeated by the page is done once
+	private Map<String, List<Contentlet>> pulled = new HashMap<String, List<Contentlet>>();
 	
 	public void init(Object initData) {
 		userAPI = WebAPILocator.getUserWebAPI();
@@ -167,7 +170,7 @@ public class ContentTool implements ViewTool {
 	    try {
     	    PaginatedArrayList<ContentMap> ret = new PaginatedArrayList<ContentMap>();
     	    
-    	    PaginatedArrayList<Contentlet> cons = ContentUtils.pull(addDefaultsToQuery(query), offset, limit, sort, user, tmDate);
+    	    PaginatedArrayList<Contentlet> cons = pullOnce(addDefaultsToQuery(query), offset, limit, sort);
     	    for(Contentlet cc : cons) {
     	    	ret.add(new ContentMap(cc,user,EDIT_OR_PREVIEW_MODE,currentHost,context));
     	    }
@@ -237,7 +240,7 @@ public class ContentTool implements ViewTool {
 	public PaginatedContentList<ContentMap> pullPerPage(String query, int currentPage, int contentsPerPage, String sort){
 		PaginatedContentList<ContentMap> ret = new PaginatedContentList<ContentMap>();
 		try {
-    	    PaginatedArrayList<Contentlet> cons = ContentUtils.pullPerPage(addDefaultsToQuery(query), currentPage, contentsPerPage, sort, user, tmDate);
+    	    PaginatedArrayList<Contentlet> cons = pullOnce(addDefaultsToQuery(query), contentsPerPage * (currentPage - 1), contentsPerPage, sort);
     	    for(Contentlet cc : cons) {
     	    	ret.add(new ContentMap(cc,user,EDIT_OR_PREVIEW_MODE,currentHost,context));
     	    }
@@ -394,7 +397,13 @@ public class ContentTool implements ViewTool {
 	public List<ContentMap> pullRelated(String relationshipName, String contentletIdentifier, String condition, boolean pullParents, int limit, String sort) {	
 		try {
     		PaginatedArrayList<ContentMap> ret = new PaginatedArrayList<ContentMap>();
-    		List<Contentlet> cons = ContentUtils.pullRelated(relationshipName, contentletIdentifier, addDefaultsToQuery(condition), pullParents, limit, sort, user, tmDate);
+    		condition = addDefaultsToQuery(condition);
+    		String key = "related|" + relationshipName + "|" + contentletIdentifier + "|" + condition + "|" + pullParents + "|" + limit + "|" + sort;
+    		List<Contentlet> cons = pulled.get(key);
+    		if(cons == null) {
+    			cons = ContentUtils.pullRelated(relationshipName, contentletIdentifier, condition, pullParents, limit, sort, user, tmDate);
+    			pulled.put(key, cons);
+    		}
     
     		for(Contentlet cc : cons) {
     			ret.add(new ContentMap(cc,user,EDIT_OR_PREVIEW_MODE,currentHost,context));
@@ -448,6 +457,24 @@ public class ContentTool implements ViewTool {
 		return pullPersonalized(query, limit, 0, null);
 	}
 	
+	/**
+	 * Pulls the contentlets of the query, a query the page already did in
+	 * this request, like the same pull in several containers, reuses its
+	 * result. Random sorts are expected to change on every pull.
+	 */
+	PaginatedArrayList<Contentlet> pullOnce(String query, int offset, int limit, String sort) {
+		if(sort != null && sort.toLowerCase().contains("random")) {
+			return ContentUtils.pull(query, offset, limit, sort, user, tmDate);
+		}
+		String key = query + "|" + offset + "|" + limit + "|" + sort;
+		PaginatedArrayList<Contentlet> cons = (PaginatedArrayList<Contentlet>) pulled.get(key);
+		if(cons == null) {
+			cons = ContentUtils.pull(query, offset, limit, sort, user, tmDate);
+			pulled.put(key, cons);
+		}
+		return cons;
+	}
+	
 	private String addDefaultsToQuery(String query){
 		String q = "";
 		
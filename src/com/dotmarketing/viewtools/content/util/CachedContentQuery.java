@@ -0,0 +1,39 @@
+package com.dotmarketing.viewtools.content.util;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a content query as kept in the {@link ContentQueryCache}: the
+ * inodes of the contentlets in the order the query returned them, the total
+ * number of results, and the generations of the structures the query
+ * depends on when it ran.
+ */
+public class CachedContentQuery implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> inodes;
+    private final long totalResults;
+    private final Map<String, String> generations;
+
+    public CachedContentQuery(List<String> inodes, long totalResults, Map<String, String> generations) {
+        this.inodes = inodes;
+        this.totalResults = totalResults;
+        this.generations = generations;
+    }
+
+    public List<String> getInodes() {
+        return inodes;
+    }
+
+    public long getTotalResults() {
+        return totalResults;
+    }
+
+    public Map<String, String> getGenerations() {
+        return generations;
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.dotmarketing.viewtools.content.util;
+
+import com.dotmarketing.business.Cachable;
+
+/**
+ * Cache of the results of the content queries done from the front end, like
+ * the ones of <code>$dotcontent.pull</code>. An entry depends on the
+ * structures its query is restricted to, or on all of them when it isn't
+ * restricted to any, and is invalidated when content of those structures
+ * changes, see {@link #removeStructure(String)}.
+ */
+public abstract class ContentQueryCache implements Cachable {
+
+    /**
+     * Generation every query depends on when it isn't restricted to a
+     * structure, it changes along with the generation of any structure.
+     */
+    public static final String ALL_STRUCTURES = "*";
+
+    /**
+     * Returns the cached result of the query, or null if it is not cached or
+     * any of the structures it depends on changed since.
+     */
+    public abstract CachedContentQuery get(String key);
+
+    public abstract void add(String key, CachedContentQuery query);
+
+    /**
+     * Returns the current generation of a structure, by its velocity var
+     * name, it changes every time {@link #removeStructure(String)} is called
+     * for it.
+     */
+    public abstract String getGeneration(String velocityVarName);
+
+    /**
+     * Invalidates the queries depending on the given structure, including
+     * the ones not restricted to any structure.
+     */
+    public abstract void removeStructure(String velocityVarName);
+}
@@ -0,0 +1,89 @@
+package com.dotmarketing.viewtools.content.util;
+
+import java.util.Map;
+
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.business.DotCacheAdministrator;
+import com.dotmarketing.business.DotCacheException;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class ContentQueryCacheImpl extends ContentQueryCache {
+
+    protected final DotCacheAdministrator cache;
+    protected final String group="ContentQueryCache";
+    // the generations are kept apart, the query results expire with the ttl of their group
+    protected final String generationGroup="ContentQueryGenerationCache";
+    protected final String[] groups={group, generationGroup};
+
+    public ContentQueryCacheImpl() {
+        cache = CacheLocator.getCacheAdministrator();
+    }
+
+    @Override
+    public String getPrimaryGroup() {
+        return group;
+    }
+
+    @Override
+    public String[] getGroups() {
+        return groups;
+    }
+
+    @Override
+    public void clearCache() {
+        for(String group : groups) {
+            cache.flushGroup(group);
+        }
+    }
+
+    @Override
+    public CachedContentQuery get(String key) {
+        CachedContentQuery query=null;
+        try {
+            query = (CachedContentQuery)cache.get(key, group);
+            if(query!=null) {
+                for(Map.Entry<String, String> generation : query.getGenerations().entrySet()) {
+                    if(!generation.getValue().equals(getGeneration(generation.getKey()))) {
+                        cache.removeLocalOnly(key, group);
+                        return null;
+                    }
+                }
+            }
+        }
+        catch(DotCacheException ex) {
+            Logger.debug(this, "cache entry not found: "+key, ex);
+        }
+        return query;
+    }
+
+    @Override
+    public void add(String key, CachedContentQuery query) {
+        cache.put(key, query, group);
+    }
+
+    @Override
+    public String getGeneration(String velocityVarName) {
+        String key=velocityVarName.toLowerCase();
+        String generation=null;
+        try {
+            generation = (String)cache.get(key, generationGroup);
+        }
+        catch(DotCacheException ex) {
+            Logger.debug(this, "cache entry not found: "+key, ex);
+        }
+        if(generation==null) {
+            generation=UUIDGenerator.generateUuid();
+            cache.put(key, generation, generationGroup);
+        }
+        return generation;
+    }
+
+    @Override
+    public void removeStructure(String velocityVarName) {
+        // the queries depending on it are left to expire, they no longer match its generation
+        cache.remove(velocityVarName.toLowerCase(), generationGroup);
+        cache.remove(ALL_STRUCTURES, generationGroup);
+    }
+
+}
@@ -3,9 +3,13 @@ package com.dotmarketing.viewtools.content.util;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
 
@@ -13,6 +17,7 @@ import com.dotcms.repackage.edu.emory.mathcs.backport.java.util.Collections;
 import com.dotcms.content.elasticsearch.business.ESMappingAPIImpl;
 import com.dotmarketing.beans.Identifier;
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.common.model.ContentletSearch;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
@@ -21,6 +26,9 @@ import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.structure.factories.RelationshipFactory;
 import com.dotmarketing.portlets.structure.model.Relationship;
+import com.dotmarketing.portlets.structure.model.Structure;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.InodeUtils;
 import com.dotmarketing.util.Logger;
 import com.dotmarketing.util.PaginatedArrayList;
 import com.dotmarketing.util.UtilMethods;
@@ -38,6 +46,9 @@ import com.liferay.portal.model.User;
 public class ContentUtils {
 	
 	   private static ContentletAPI conAPI;
+
+	   // a structure the whole query is restricted to, a required clause out of any parenthesis
+	   private static final Pattern REQUIRED_STRUCTURE = Pattern.compile("\\+(structureName|contentType|structureInode):\"?([^\\s\"()]+)", Pattern.CASE_INSENSITIVE);
 	   public static final ContentUtils INSTANCE = new ContentUtils();
 
 	    private ContentUtils() {
@@ -231,11 +242,27 @@ public class ContentUtils {
 		                contentlets=contentlets.subList(0, limit);
 			    }
 			    else {
-			        // normal query
-			        PaginatedArrayList<Contentlet> conts=(PaginatedArrayList<Contentlet>)conAPI.search(query, limit, offset, sort, user, true);
-			        ret.setTotalResults(conts.getTotalResults());
+			        // normal query, its result is shared through the query cache
+			        String cacheKey=buildQueryCacheKey(query, offset, limit, sort, user);
+			        CachedContentQuery cached=cacheKey!=null ? CacheLocator.getContentQueryCache().get(cacheKey) : null;
+			        contentlets=cached!=null ? loadCachedQuery(cached) : null;
+			        if(contentlets!=null) {
+			            ret.setTotalResults(cached.getTotalResults());
+			        }
+			        else {
+			            // the generations are taken before searching, content changed meanwhile invalidates the result
+			            Map<String, String> generations=cacheKey!=null ? getQueryGenerations(query) : null;
+			            PaginatedArrayList<Contentlet> conts=(PaginatedArrayList<Contentlet>)conAPI.search(query, limit, offset, sort, user, true);
+			            ret.setTotalResults(conts.getTotalResults());
+			            contentlets=conts;
+			            if(cacheKey!=null) {
+			                List<String> inodes=new ArrayList<String>(conts.size());
+			                for(Contentlet c : conts)
+			                    inodes.add(c.getInode());
+			                CacheLocator.getContentQueryCache().add(cacheKey, new CachedContentQuery(inodes, conts.getTotalResults(), generations));
+			            }
+			        }
 			        ret.setQuery(query);
-			        contentlets=conts;
 			    }
 				for(Contentlet c : contentlets)
 					ret.add(c);
@@ -250,6 +277,90 @@ public class ContentUtils {
 			return ret;
 		}
 		
+		/**
+		 * Returns the key of the query in the {@link ContentQueryCache}, the
+		 * query with its whitespace normalized, the paging, the sort and the
+		 * user, as the results are filtered by permissions. The language and
+		 * the live or working status are part of the query. Returns null when
+		 * the query is not cached: random sorts or the cache disabled.
+		 */
+		static String buildQueryCacheKey(String query, int offset, int limit, String sort, User user) {
+			if(!Config.getBooleanProperty("CONTENT_QUERY_CACHE_ENABLED", true)
+					|| (sort!=null && sort.toLowerCase().contains("random"))) {
+				return null;
+			}
+			return (user!=null ? user.getUserId() : "anonymous") + "|" + offset + "|" + limit + "|"
+					+ (sort!=null ? sort.trim() : "") + "|" + query.trim().replaceAll("\\s+", " ");
+		}
+
+		/**
+		 * Returns the current generations of the structures the query is
+		 * restricted to, or the generation of all of them if it isn't
+		 * restricted to any.
+		 */
+		static Map<String, String> getQueryGenerations(String query) {
+			ContentQueryCache queryCache=CacheLocator.getContentQueryCache();
+			Map<String, String> generations=new HashMap<String, String>();
+			Matcher matcher=REQUIRED_STRUCTURE.matcher(query);
+			while(matcher.find()) {
+				String value=matcher.group(2);
+				if(!isTopLevel(query, matcher.start()) || value.contains("*") || value.contains("?")) {
+					continue;
+				}
+				if("structureInode".equalsIgnoreCase(matcher.group(1))) {
+					Structure st=CacheLocator.getContentTypeCache().getStructureByInode(value);
+					if(st==null || !InodeUtils.isSet(st.getInode())) {
+						continue;
+					}
+					value=st.getVelocityVarName();
+				}
+				generations.put(value.toLowerCase(), queryCache.getGeneration(value));
+			}
+			if(generations.isEmpty()) {
+				generations.put(ContentQueryCache.ALL_STRUCTURES, queryCache.getGeneration(ContentQueryCache.ALL_STRUCTURES));
+			}
+			return generations;
+		}
+
+		/**
+		 * Tells whether the given position of the query is out of any
+		 * parenthesis and quoted phrase. Escaped characters are skipped, so an
+		 * escaped quote or parenthesis in a term doesn't count.
+		 */
+		private static boolean isTopLevel(String query, int pos) {
+			int depth=0;
+			boolean quoted=false;
+			for(int i=0;i<pos;i++) {
+				char c=query.charAt(i);
+				if(c=='\\') i++;
+				else if(c=='"') quoted=!quoted;
+				else if(!quoted && c=='(') depth++;
+				else if(!quoted && c==')') depth--;
+			}
+			return depth==0 && !quoted;
+		}
+
+		/**
+		 * Loads the contentlets of a cached query in its order, returns null
+		 * if any of them is no longer found so the query runs again.
+		 */
+		private static List<Contentlet> loadCachedQuery(CachedContentQuery cached) throws DotDataException, DotSecurityException {
+			if(cached.getInodes().isEmpty()) {
+				return new ArrayList<Contentlet>();
+			}
+			Map<String, Contentlet> map=new HashMap<String, Contentlet>();
+			for(Contentlet c : conAPI.findContentlets(cached.getInodes()))
+				map.put(c.getInode(), c);
+			List<Contentlet> contentlets=new ArrayList<Contentlet>(cached.getInodes().size());
+			for(String inode : cached.getInodes()) {
+				Contentlet c=map.get(inode);
+				if(c==null)
+					return null;
+				contentlets.add(c);
+			}
+			return contentlets;
+		}
+
 		/**
 		 * Will return a ContentMap object which can be used on dotCMS front end. 
 		 * This method is better then the old #pullcontent macro because it doesn't have to 
@@ -7,9 +7,13 @@ import com.dotcms.content.elasticsearch.business.ESIndexSpeedTest;
 import com.dotcms.csspreproc.CSSPreProcessServletTest;
 import com.dotcms.csspreproc.LessCompilerTest;
 import com.dotcms.csspreproc.SassCompilerTest;
+import com.dotcms.journal.business.ESDistributedJournalFactoryImplTest;
 import com.dotcms.notification.business.NotificationAPITest;
 import com.dotcms.publisher.ajax.RemotePublishAjaxActionTest;
 import com.dotcms.publisher.endpoint.business.PublishingEndPointAPITest;
+import com.dotcms.publisher.receiver.BundlePublisherTest;
+import com.dotcms.publisher.util.DependencyManagerTest;
+import com.dotcms.publishing.BundleArchiveWriterTest;
 import com.dotcms.rest.ContentResourceTest;
 import com.dotcms.rest.RoleResourceTest;
 import com.dotcms.rest.WebResourceTest;
@@ -23,8 +27,14 @@ import com.dotmarketing.business.PermissionAPITest;
 import com.dotmarketing.business.RoleAPITest;
 import com.dotmarketing.business.UserAPITest;
 import com.dotmarketing.business.UserProxyFactoryTest;
+import com.dotmarketing.business.cache.provider.codec.BinaryCacheCodecTest;
+import com.dotmarketing.business.cache.transport.CacheInvalidationFrameTest;
+import com.dotmarketing.common.reindex.ReindexPipelineTest;
 import com.dotmarketing.db.DbConnectionFactoryUtilTest;
+import com.dotmarketing.common.db.DotConnectTest;
 import com.dotmarketing.db.HibernateUtilTest;
+import com.dotmarketing.filters.compression.GZIPAssetCacheTest;
+import com.dotmarketing.loggers.ClickstreamSpoolTest;
 import com.dotmarketing.plugin.PluginMergerTest;
 import com.dotmarketing.portlets.categories.business.CategoryAPITest;
 import com.dotmarketing.portlets.containers.business.ContainerAPITest;
@@ -33,6 +43,8 @@ import com.dotmarketing.portlets.contentlet.business.ContentletAPITest;
 import com.dotmarketing.portlets.contentlet.business.ContentletFactoryTest;
 import com.dotmarketing.portlets.contentlet.business.FileAssetTest;
 import com.dotmarketing.portlets.contentlet.business.HostAPITest;
+import com.dotmarketing.portlets.contentlet.business.HostRoutingTableTest;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireScheduleTest;
 import com.dotmarketing.portlets.folder.business.FolderAPITest;
 import com.dotmarketing.portlets.htmlpages.business.HTMLPageAPITest;
 import com.dotmarketing.portlets.linkchecker.business.LinkCheckerAPITest;
@@ -56,6 +68,7 @@ import com.dotmarketing.portlets.rules.conditionlet.VisitedUrlConditionletTest;
 import com.dotmarketing.portlets.rules.conditionlet.VisitorOperatingSystemConditionletFTest;
 import com.dotmarketing.portlets.rules.conditionlet.VisitorOperatingSystemConditionletTest;
 import com.dotmarketing.portlets.rules.conditionlet.VisitorsCurrentUrlConditionletFTest;
+import com.dotmarketing.portlets.rules.util.RequestFactsTest;
 import com.dotmarketing.portlets.structure.business.FieldAPITest;
 import com.dotmarketing.portlets.structure.business.URLMapTest;
 import com.dotmarketing.portlets.structure.factories.FieldFactoryTest;
@@ -63,9 +76,13 @@ import com.dotmarketing.portlets.structure.factories.StructureFactoryTest;
 import com.dotmarketing.portlets.templates.business.TemplateAPITest;
 import com.dotmarketing.portlets.workflows.business.WorkflowAPITest;
 import com.dotmarketing.portlets.workflows.model.WorkflowSearcherTest;
+import com.dotmarketing.servlets.BinaryExporterServletTest;
 import com.dotmarketing.sitesearch.ajax.SiteSearchAjaxActionTest;
 import com.dotmarketing.tag.business.TagAPITest;
 import com.dotmarketing.util.ImportUtilTest;
+import com.dotmarketing.velocity.DotResourceLoaderTest;
+import com.dotmarketing.viewtools.content.ContentToolTest;
+import com.dotmarketing.viewtools.content.util.ContentUtilsTest;
 import com.dotmarketing.webdav.WebDavTest;
 import com.liferay.portal.ejb.UserLocalManagerTest;
 import com.liferay.portal.ejb.UserUtilTest;
@@ -94,6 +111,8 @@ import org.junit.runners.Suite;
     StructureFactoryTest.class,
     FieldAPITest.class,
     URLMapTest.class,
+    ContentUtilsTest.class,
+    ContentToolTest.class,
     PermissionAPITest.class,
     PublishingEndPointAPITest.class,
     ESContentletIndexAPITest.class,
@@ -101,6 +120,8 @@ import org.junit.runners.Suite;
     WebResourceTest.class,
     RoleResourceTest.class,
     ESIndexSpeedTest.class,
+    ReindexPipelineTest.class,
+    ESDistributedJournalFactoryImplTest.class,
     PluginMergerTest.class,
     WebDavTest.class,
     ContentResourceTest.class, //Needs Enterprise License
@@ -115,15 +136,28 @@ import org.junit.runners.Suite;
     ImportUtilTest.class,
     SiteSearchAjaxActionTest.class,
     CSSPreProcessServletTest.class, //Needs Enterprise License
+    BinaryExporterServletTest.class, //Needs Enterprise License
     ESContentFactoryImplTest.class,
     HibernateUtilTest.class,
+    DotConnectTest.class,
     WorkflowAPITest.class,
     ContentletAjaxTest.class,
     SimpleNodeTest.class,
+    DotResourceLoaderTest.class,
+    BinaryCacheCodecTest.class,
+    CacheInvalidationFrameTest.class,
+    GZIPAssetCacheTest.class,
+    HostRoutingTableTest.class,
+    RequestFactsTest.class,
+    ClickstreamSpoolTest.class,
+    PublishExpireScheduleTest.class,
     DbConnectionFactoryUtilTest.class,
     RuleResourceFTest.class,
     ConditionGroupResourceFTest.class,
     RemotePublishAjaxActionTest.class, //Needs Enterprise License
+    BundleArchiveWriterTest.class,
+    DependencyManagerTest.class,
+    BundlePublisherTest.class,
     ActionResourceFTest.class,
     TagAPITest.class,
     FileAssetTest.class,
@@ -1,12 +1,29 @@
 package com.dotcms.content.elasticsearch.business;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.dotcms.TestBase;
+import com.dotcms.content.elasticsearch.util.ESClient;
+import com.dotmarketing.beans.Tree;
 import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.db.HibernateUtil;
 import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.factories.TreeFactory;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.business.ContentletCache;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.structure.factories.RelationshipFactory;
+import com.dotmarketing.portlets.structure.model.Relationship;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
 import com.liferay.portal.model.User;
 
 public class ESIndexSpeedTest extends TestBase {
@@ -32,4 +49,127 @@ public class ESIndexSpeedTest extends TestBase {
 			contAPI.indexCount("+structureName:webPageContent", user, true);
 		}
 	}
+
+	@Test
+	public void coldCacheSearchDbVsIndexHydration() throws Exception {
+		final String query="+structureName:webPageContent +live:true";
+		final boolean hydration=Config.getBooleanProperty("ES_INDEX_HYDRATION_ENABLED", false);
+		try {
+			// reindex the contents so their documents carry the hydration values
+			Config.setProperty("ES_INDEX_HYDRATION_ENABLED", true);
+			for(Contentlet con : contAPI.search(query, 0, 0, "modDate", user, true)) {
+				APILocator.getContentletIndexAPI().addContentToIndex(con, false, true);
+			}
+			new ESClient().getClient().admin().indices().prepareRefresh().execute().actionGet();
+
+			Config.setProperty("ES_INDEX_HYDRATION_ENABLED", false);
+			List<String> dbTitles=new ArrayList<String>();
+			long dbTime=coldCacheSearch(query, 100, dbTitles);
+
+			Config.setProperty("ES_INDEX_HYDRATION_ENABLED", true);
+			List<String> indexTitles=new ArrayList<String>();
+			long indexTime=coldCacheSearch(query, 100, indexTitles);
+
+			Assert.assertEquals(dbTitles, indexTitles);
+			Logger.info(this, "100 cold cache searches, db hydration: "+dbTime+"ms, index hydration: "+indexTime+"ms");
+		}
+		finally {
+			Config.setProperty("ES_INDEX_HYDRATION_ENABLED", hydration);
+		}
+	}
+
+	@Test
+	public void hydrationSourceKeepsLazyFieldsLazy() throws Exception {
+		final ESMappingAPIImpl mappingAPI=new ESMappingAPIImpl();
+		final int maxTextLength=Config.getIntProperty("ES_INDEX_HYDRATION_MAX_TEXT_LENGTH", 8192);
+		try {
+			Contentlet con=contAPI.search("+structureName:webPageContent +live:true", 1, 0, "modDate", user, true).get(0);
+			Assume.assumeTrue(con.getStringProperty("body")!=null && con.getStringProperty("body").length()>1);
+
+			Config.setProperty("ES_INDEX_HYDRATION_MAX_TEXT_LENGTH", 1);
+			Contentlet hydrated=mappingAPI.toContentlet(mappingAPI.toHydrationSource(con));
+			Assert.assertEquals(ContentletCache.LAZY_FIELD, hydrated.getRawValue("body"));
+
+			// mapping a hydrated contentlet again must not load its lazy fields
+			Contentlet rehydrated=mappingAPI.toContentlet(mappingAPI.toHydrationSource(hydrated));
+			Assert.assertEquals(ContentletCache.LAZY_FIELD, hydrated.getRawValue("body"));
+			Assert.assertEquals(ContentletCache.LAZY_FIELD, rehydrated.getRawValue("body"));
+			Assert.assertEquals(con.getStringProperty("body"), rehydrated.getStringProperty("body"));
+		}
+		finally {
+			Config.setProperty("ES_INDEX_HYDRATION_MAX_TEXT_LENGTH", maxTextLength);
+		}
+	}
+
+	@Test
+	public void bulkMappingDocumentsPerSecond() throws Exception {
+		final User sysuser=APILocator.getUserAPI().getSystemUser();
+		final ESMappingAPIImpl mappingAPI=new ESMappingAPIImpl();
+		final List<Contentlet> contents=contAPI.search("+type:content +working:true", 1000, 0, "modDate", sysuser, false);
+		Assert.assertFalse(contents.isEmpty());
+
+		// the batch has to build the same documents, one by one
+		final List<Contentlet> sample=contents.subList(0, Math.min(100, contents.size()));
+		final List<Map<String,Object>> batchMaps=mappingAPI.toMaps(sample);
+		for(int i=0;i<sample.size();i++) {
+			Assert.assertEquals(mappingAPI.toMap(sample.get(i)), batchMaps.get(i));
+		}
+
+		for(int batchSize : new int[] {1, 100, 1000}) {
+			CacheLocator.getPermissionCache().clearCache();
+			long start=System.currentTimeMillis();
+			for(int i=0;i<contents.size();i+=batchSize) {
+				mappingAPI.toMaps(contents.subList(i, Math.min(i+batchSize, contents.size())));
+			}
+			long time=Math.max(1, System.currentTimeMillis()-start);
+			Logger.info(this, "batch size "+batchSize+": "+(contents.size()*1000L/time)+" documents/s");
+		}
+	}
+
+	@Test
+	public void bulkMappingRelationshipsAcrossChunks() throws Exception {
+		final User sysuser=APILocator.getUserAPI().getSystemUser();
+		final ESMappingAPIImpl mappingAPI=new ESMappingAPIImpl();
+		final List<Contentlet> contents=contAPI.search("+type:content +working:true +languageId:1", ESMappingAPIImpl.MAX_BATCH_IDS+50, 0, "modDate", sysuser, false);
+		Assume.assumeTrue(contents.size()>ESMappingAPIImpl.MAX_BATCH_IDS);
+
+		// the first content is the parent of all the others, so its relationships cross the chunks of ids
+		final Contentlet hub=contents.get(0);
+		final Relationship rel=new Relationship(hub.getStructure(), hub.getStructure(), "hub"+System.currentTimeMillis(), "spoke"+System.currentTimeMillis(), 0, false, false);
+		RelationshipFactory.saveRelationship(rel);
+		try {
+			HibernateUtil.startTransaction();
+			for(int i=contents.size()-1;i>0;i--) {
+				TreeFactory.saveTree(new Tree(hub.getIdentifier(), contents.get(i).getIdentifier(), rel.getRelationTypeValue(), i));
+			}
+			HibernateUtil.commitTransaction();
+
+			final List<Map<String,Object>> batchMaps=mappingAPI.toMaps(contents);
+			for(int i=0;i<contents.size();i++) {
+				Assert.assertEquals(mappingAPI.toMap(contents.get(i)), batchMaps.get(i));
+			}
+		}
+		finally {
+			HibernateUtil.startTransaction();
+			TreeFactory.deleteTreesByRelationType(rel.getRelationTypeValue());
+			RelationshipFactory.deleteRelationship(rel);
+			HibernateUtil.commitTransaction();
+		}
+	}
+
+	private long coldCacheSearch(String query, int times, List<String> titles) throws Exception {
+		long time=0;
+		for(int i=1;i<=times;i++) {
+			CacheLocator.getContentletCache().clearCache();
+			long start=System.currentTimeMillis();
+			List<Contentlet> results=contAPI.search(query, 20, 0, "modDate", user, true);
+			time+=System.currentTimeMillis()-start;
+			if(i==1) {
+				for(Contentlet con : results) {
+					titles.add(con.getInode()+":"+con.getTitle());
+				}
+			}
+		}
+		return time;
+	}
 }
@@ -0,0 +1,179 @@
+package com.dotcms.journal.business;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dotcms.TestBase;
+import com.dotmarketing.common.business.journal.DistributedJournalFactory;
+import com.dotmarketing.common.business.journal.IndexJournal;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.common.reindex.ReindexThread;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.util.UUIDGenerator;
+
+/**
+ * Tests the re-index entries are claimed by one server only, see
+ * {@link ESDistributedJournalFactoryImpl#claimContentReindexEntries(boolean, int, List)}.
+ */
+public class ESDistributedJournalFactoryImplTest extends TestBase {
+
+	private final ESDistributedJournalFactoryImpl<String> factory = new ESDistributedJournalFactoryImpl<String>("0");
+
+	// the identifiers of the entries of a test start with it, so only they are claimed
+	private String prefix;
+
+	@Before
+	public void prepare() throws Exception {
+		prefix = "claimtest-" + UUIDGenerator.generateUuid().substring(0, 8) + "-";
+		// the re-index thread of this server must not take the entries of the test
+		ReindexThread.getInstance().pause();
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		try {
+			DotConnect dc = new DotConnect();
+			dc.setSQL("DELETE FROM dist_reindex_journal WHERE ident_to_index LIKE ?");
+			dc.addParam(prefix + "%");
+			dc.loadResult();
+		} finally {
+			DbConnectionFactory.closeConnection();
+			ReindexThread.getInstance().unpause();
+		}
+	}
+
+	private void addEntries(int count) throws Exception {
+		DotConnect dc = new DotConnect();
+		for (int i = 0; i < count; i++) {
+			String identifier = prefix + i;
+			dc.setSQL("INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,time_entered) VALUES (?,?,?,?,?)");
+			dc.addParam(identifier);
+			dc.addParam(identifier);
+			dc.addParam(DistributedJournalFactory.REINDEX_JOURNAL_PRIORITY_NEWINDEX);
+			dc.addParam(DistributedJournalFactory.REINDEX_ACTION_REINDEX_OBJECT);
+			dc.addParam(new Date());
+			dc.loadResult();
+		}
+		DbConnectionFactory.closeConnection();
+	}
+
+	private Set<String> identifiers(List<IndexJournal<String>> entries) {
+		Set<String> identifiers = new HashSet<String>();
+		for (IndexJournal<String> entry : entries) {
+			identifiers.add(entry.getIdentToIndex());
+		}
+		return identifiers;
+	}
+
+	private int entriesOf(String serverId) throws Exception {
+		DotConnect dc = new DotConnect();
+		dc.setSQL("SELECT COUNT(*) AS count FROM dist_reindex_journal WHERE ident_to_index LIKE ? AND serverid = ?");
+		dc.addParam(prefix + "%");
+		dc.addParam(serverId);
+		try {
+			return dc.getInt("count");
+		} finally {
+			DbConnectionFactory.closeConnection();
+		}
+	}
+
+	@Test
+	public void sameEntriesAreAssignedToOneServer() throws Exception {
+		addEntries(10);
+		List<String> prefixes = Arrays.asList(prefix);
+
+		Connection conA = DbConnectionFactory.getDataSource().getConnection();
+		Connection conB = DbConnectionFactory.getDataSource().getConnection();
+		try {
+			conA.setAutoCommit(true);
+			conB.setAutoCommit(true);
+
+			// both servers find the same entries before any of them claims them
+			Map<Long, IndexJournal<String>> candidatesA = factory.findReindexEntriesToClaim(conA, false, 100, prefixes);
+			Map<Long, IndexJournal<String>> candidatesB = factory.findReindexEntriesToClaim(conB, false, 100, prefixes);
+			Assert.assertEquals(10, candidatesA.size());
+			Assert.assertEquals(candidatesA.keySet(), candidatesB.keySet());
+
+			// the conditional UPDATE gives them to the first one only
+			List<IndexJournal<String>> claimedA = factory.assignReindexEntries(conA, "claimtest-server-a", candidatesA);
+			List<IndexJournal<String>> claimedB = factory.assignReindexEntries(conB, "claimtest-server-b", candidatesB);
+			Assert.assertEquals(10, claimedA.size());
+			Assert.assertTrue(claimedB.isEmpty());
+		} finally {
+			conA.close();
+			conB.close();
+		}
+
+		Assert.assertEquals(10, entriesOf("claimtest-server-a"));
+		Assert.assertEquals(0, entriesOf("claimtest-server-b"));
+	}
+
+	@Test
+	public void concurrentClaimsDontOverlap() throws Exception {
+		final int entries = 200;
+		addEntries(entries);
+		final List<String> prefixes = Arrays.asList(prefix);
+
+		ExecutorService servers = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<List<IndexJournal<String>>>> claims = new ArrayList<Future<List<IndexJournal<String>>>>();
+			for (final String serverId : Arrays.asList("claimtest-server-a", "claimtest-server-b")) {
+				claims.add(servers.submit(new Callable<List<IndexJournal<String>>>() {
+					public List<IndexJournal<String>> call() throws Exception {
+						List<IndexJournal<String>> claimed = new ArrayList<IndexJournal<String>>();
+						List<IndexJournal<String>> batch;
+						do {
+							batch = factory.claimContentReindexEntries(serverId, false, 7, prefixes);
+							claimed.addAll(batch);
+						} while (!batch.isEmpty());
+						return claimed;
+					}
+				}));
+			}
+
+			List<IndexJournal<String>> claimedA = claims.get(0).get();
+			List<IndexJournal<String>> claimedB = claims.get(1).get();
+
+			// every entry is claimed by exactly one of the servers
+			Assert.assertEquals(entries, claimedA.size() + claimedB.size());
+			Set<String> all = identifiers(claimedA);
+			all.addAll(identifiers(claimedB));
+			Assert.assertEquals(entries, all.size());
+			Assert.assertEquals(claimedA.size(), entriesOf("claimtest-server-a"));
+			Assert.assertEquals(claimedB.size(), entriesOf("claimtest-server-b"));
+		} finally {
+			servers.shutdown();
+		}
+	}
+
+	@Test
+	public void releasedEntriesCanBeClaimedAgain() throws Exception {
+		addEntries(5);
+		List<String> prefixes = Arrays.asList(prefix);
+
+		Assert.assertEquals(5, factory.claimContentReindexEntries("claimtest-server-a", false, 100, prefixes).size());
+		Assert.assertTrue(factory.claimContentReindexEntries("claimtest-server-b", false, 100, prefixes).isEmpty());
+
+		// the server stopped before indexing them
+		Assert.assertEquals(5, factory.releaseReindexEntriesForServer("claimtest-server-a"));
+		Assert.assertEquals(5, identifiers(factory.claimContentReindexEntries("claimtest-server-b", false, 100, prefixes)).size());
+		Assert.assertEquals(0, entriesOf("claimtest-server-a"));
+		Assert.assertEquals(5, entriesOf("claimtest-server-b"));
+	}
+
+}
@@ -0,0 +1,252 @@
+package com.dotcms.publisher.receiver;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.LicenseTestUtil;
+import com.dotcms.TestBase;
+import com.dotcms.enterprise.publishing.remote.handler.BundleXMLascHandler;
+import com.dotcms.enterprise.publishing.remote.handler.CategoryHandler;
+import com.dotcms.enterprise.publishing.remote.handler.ContainerHandler;
+import com.dotcms.enterprise.publishing.remote.handler.ContentHandler;
+import com.dotcms.enterprise.publishing.remote.handler.ContentWorkflowHandler;
+import com.dotcms.enterprise.publishing.remote.handler.FolderHandler;
+import com.dotcms.enterprise.publishing.remote.handler.HTMLPageHandler;
+import com.dotcms.enterprise.publishing.remote.handler.HostHandler;
+import com.dotcms.enterprise.publishing.remote.handler.LanguageHandler;
+import com.dotcms.enterprise.publishing.remote.handler.LanguageVariablesHandler;
+import com.dotcms.enterprise.publishing.remote.handler.LinkHandler;
+import com.dotcms.enterprise.publishing.remote.handler.OSGIHandler;
+import com.dotcms.enterprise.publishing.remote.handler.RelationshipHandler;
+import com.dotcms.enterprise.publishing.remote.handler.RuleHandler;
+import com.dotcms.enterprise.publishing.remote.handler.StructureHandler;
+import com.dotcms.enterprise.publishing.remote.handler.TemplateHandler;
+import com.dotcms.enterprise.publishing.remote.handler.UserHandler;
+import com.dotcms.enterprise.publishing.remote.handler.WorkflowHandler;
+import com.dotcms.publisher.receiver.handler.IHandler;
+import com.dotcms.publishing.DotPublishingException;
+import com.dotcms.publishing.PublisherConfig;
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotmarketing.db.FlushCacheRunnable;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.util.Config;
+
+/**
+ * Tests the handlers of a bundle run in stages, see
+ * PUSH_PUBLISHING_PARALLEL_HANDLERS.
+ */
+public class BundlePublisherTest extends TestBase {
+
+	private static final File folderOut = new File( System.getProperty( "java.io.tmpdir" ) );
+
+	@BeforeClass
+	public static void prepare () throws Exception {
+		LicenseTestUtil.getLicense();
+	}
+
+	/**
+	 * Handler that records it ran, and adds a commit listener that records
+	 * when it runs.
+	 */
+	private static class RecordingHandler implements IHandler {
+
+		private final String name;
+		private final List<String> record;
+
+		RecordingHandler ( String name, List<String> record ) {
+			this.name = name;
+			this.record = record;
+		}
+
+		@Override
+		public void handle ( File bundleFolder ) throws Exception {
+			record.add( name );
+			HibernateUtil.addCommitListener( name, new FlushCacheRunnable() {
+				public void run () {
+					record.add( name + " committed" );
+				}
+			} );
+		}
+
+		@Override
+		public String getName () {
+			return name;
+		}
+	}
+
+	private int stageOf ( List<List<IHandler>> stages, Class<? extends IHandler> handlerClass ) {
+		for ( int i = 0; i < stages.size(); i++ ) {
+			for ( IHandler handler : stages.get( i ) ) {
+				if ( handlerClass.isInstance( handler ) ) {
+					return i;
+				}
+			}
+		}
+		Assert.fail( handlerClass.getSimpleName() + " is not in any stage" );
+		return -1;
+	}
+
+	private void assertBefore ( List<List<IHandler>> stages, Class<? extends IHandler> before, Class<? extends IHandler> after ) {
+		Assert.assertTrue( before.getSimpleName() + " must run before " + after.getSimpleName(),
+				stageOf( stages, before ) < stageOf( stages, after ) );
+	}
+
+	@Test
+	public void handlersRunAfterTheirDependencies () throws Exception {
+		BundlePublisher publisher = new BundlePublisher();
+		publisher.init( new PublisherConfig() );
+		List<List<IHandler>> stages = publisher.getHandlerStages();
+
+		int handlers = 0;
+		for ( List<IHandler> stage : stages ) {
+			handlers += stage.size();
+		}
+		Assert.assertEquals( Config.getBooleanProperty( "PUSH_PUBLISHING_PUSH_STRUCTURES", true ) ? 18 : 16, handlers );
+
+		assertBefore( stages, BundleXMLascHandler.class, UserHandler.class );
+		assertBefore( stages, UserHandler.class, HostHandler.class );
+		assertBefore( stages, LanguageHandler.class, LanguageVariablesHandler.class );
+		assertBefore( stages, HostHandler.class, FolderHandler.class );
+		assertBefore( stages, FolderHandler.class, WorkflowHandler.class );
+		assertBefore( stages, FolderHandler.class, ContainerHandler.class );
+		assertBefore( stages, ContainerHandler.class, TemplateHandler.class );
+		assertBefore( stages, TemplateHandler.class, HTMLPageHandler.class );
+		assertBefore( stages, HTMLPageHandler.class, ContentHandler.class );
+		assertBefore( stages, CategoryHandler.class, ContentHandler.class );
+		assertBefore( stages, LanguageVariablesHandler.class, ContentHandler.class );
+		assertBefore( stages, ContentHandler.class, ContentWorkflowHandler.class );
+		assertBefore( stages, WorkflowHandler.class, ContentWorkflowHandler.class );
+		assertBefore( stages, FolderHandler.class, LinkHandler.class );
+		assertBefore( stages, ContentHandler.class, RuleHandler.class );
+		assertBefore( stages, BundleXMLascHandler.class, OSGIHandler.class );
+		if ( Config.getBooleanProperty( "PUSH_PUBLISHING_PUSH_STRUCTURES", true ) ) {
+			assertBefore( stages, WorkflowHandler.class, StructureHandler.class );
+			assertBefore( stages, StructureHandler.class, RelationshipHandler.class );
+			assertBefore( stages, StructureHandler.class, ContainerHandler.class );
+			assertBefore( stages, RelationshipHandler.class, ContentHandler.class );
+		}
+	}
+
+	@Test
+	public void stagesRunInOrder () throws Exception {
+		final List<String> record = Collections.synchronizedList( new ArrayList<String>() );
+		final CountDownLatch bothRunning = new CountDownLatch( 2 );
+
+		// the handlers of the first stage wait for each other, so they only finish if they run at the same time
+		List<IHandler> first = new ArrayList<IHandler>();
+		for ( final String name : Arrays.asList( "a", "b" ) ) {
+			first.add( new RecordingHandler( name, record ) {
+				@Override
+				public void handle ( File bundleFolder ) throws Exception {
+					bothRunning.countDown();
+					if ( !bothRunning.await( 10, TimeUnit.SECONDS ) ) {
+						throw new Exception( "The handlers of a stage are not running at the same time" );
+					}
+					super.handle( bundleFolder );
+				}
+			} );
+		}
+		List<IHandler> second = new ArrayList<IHandler>();
+		second.add( new RecordingHandler( "c", record ) );
+
+		Map<String, Long> durations = Collections.synchronizedMap( new LinkedHashMap<String, Long>() );
+		int threads = Config.getIntProperty( "PUSH_PUBLISHING_HANDLER_THREADS", 4 );
+		Config.setProperty( "PUSH_PUBLISHING_HANDLER_THREADS", 2 );
+		try {
+			new BundlePublisher().handleInStages( Arrays.asList( first, second ), folderOut, durations );
+		} finally {
+			Config.setProperty( "PUSH_PUBLISHING_HANDLER_THREADS", threads );
+		}
+
+		// the commit listeners of all the handlers run once every stage is done
+		Assert.assertEquals( 6, record.size() );
+		Assert.assertEquals( new HashSet<String>( Arrays.asList( "a", "b" ) ), new HashSet<String>( record.subList( 0, 2 ) ) );
+		Assert.assertEquals( "c", record.get( 2 ) );
+		Assert.assertEquals( new HashSet<String>( Arrays.asList( "a committed", "b committed", "c committed" ) ),
+				new HashSet<String>( record.subList( 3, 6 ) ) );
+		Assert.assertTrue( durations.keySet().containsAll( Arrays.asList( "a", "b", "c", "Reindex" ) ) );
+	}
+
+	@Test
+	public void failedStageStopsTheBundle () throws Exception {
+		final List<String> record = Collections.synchronizedList( new ArrayList<String>() );
+
+		List<IHandler> first = new ArrayList<IHandler>();
+		first.add( new RecordingHandler( "ok", record ) );
+		first.add( new RecordingHandler( "failed", record ) {
+			@Override
+			public void handle ( File bundleFolder ) throws Exception {
+				super.handle( bundleFolder );
+				throw new DotPublishingException( "handler failed" );
+			}
+		} );
+		List<IHandler> second = new ArrayList<IHandler>();
+		second.add( new RecordingHandler( "next", record ) );
+
+		Map<String, Long> durations = Collections.synchronizedMap( new LinkedHashMap<String, Long>() );
+		try {
+			new BundlePublisher().handleInStages( Arrays.asList( first, second ), folderOut, durations );
+			Assert.fail( "The error of the handler must be thrown" );
+		} catch ( DotPublishingException e ) {
+			Assert.assertEquals( "handler failed", e.getMessage() );
+		}
+
+		// the next stages don't run, the failed handler is rolled back and
+		// the handlers already committed are still reindexed
+		Assert.assertFalse( record.contains( "next" ) );
+		Assert.assertFalse( record.contains( "failed committed" ) );
+		Assert.assertTrue( record.contains( "ok committed" ) );
+		Assert.assertTrue( durations.containsKey( "ok" ) );
+		Assert.assertFalse( durations.containsKey( "failed" ) );
+		Assert.assertTrue( durations.containsKey( "Reindex" ) );
+	}
+
+	@Test
+	public void countsTheFilesOfEveryHandler () throws Exception {
+		File bundleFolder = new File( folderOut, "BundlePublisherTest-" + System.currentTimeMillis() );
+		File live = new File( bundleFolder, "live" );
+		live.mkdirs();
+		try {
+			for ( String name : Arrays.asList( "a.content.xml", "b.content.xml", "c.folder.xml" ) ) {
+				new File( live, name ).createNewFile();
+			}
+			List<File> files = Arrays.asList( live.listFiles() );
+			Assert.assertEquals( 2, BundlePublisher.countFiles( files, new FileFilter() {
+				public boolean accept ( File file ) {
+					return file.getName().endsWith( ".content.xml" );
+				}
+			} ) );
+
+			// every handler that reads files of a bundler gets a count
+			BundlePublisher publisher = new BundlePublisher();
+			publisher.init( new PublisherConfig() );
+			Map<String, Integer> counts = publisher.countHandlerFiles( bundleFolder );
+			int handlers = 0;
+			for ( List<IHandler> stage : publisher.getHandlerStages() ) {
+				handlers += stage.size();
+			}
+			Assert.assertEquals( handlers - 2, counts.size() );
+			int total = 0;
+			for ( int count : counts.values() ) {
+				total += count;
+			}
+			Assert.assertTrue( total <= 3 );
+		} finally {
+			FileUtils.deleteDirectory( bundleFolder );
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.dotcms.publisher.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.LicenseTestUtil;
+import com.dotcms.publisher.business.PublishQueueElement;
+import com.dotcms.publisher.pusher.PushPublisherConfig;
+import com.dotcms.publisher.pusher.PushPublisherConfig.Operation;
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.UUIDGenerator;
+import com.liferay.portal.model.User;
+
+public class DependencyManagerTest {
+
+	private static User user;
+	private static Host demo;
+
+	@BeforeClass
+	public static void prepare() throws Exception {
+		LicenseTestUtil.getLicense();
+		user = APILocator.getUserAPI().getSystemUser();
+		demo = APILocator.getHostAPI().findByName("demo.dotcms.com", user, false);
+	}
+
+	/**
+	 * Resolves the dependencies of the demo host with the given number of
+	 * workers and returns the resolved assets by type
+	 */
+	private Map<String, Set<String>> dependencies(int threads, int batchSize) throws Exception {
+		int oldThreads = Config.getIntProperty("PUSH_PUBLISHING_DEPENDENCY_THREADS", 1);
+		int oldBatchSize = Config.getIntProperty("PUSH_PUBLISHING_DEPENDENCY_BATCH_SIZE", 200);
+		Config.setProperty("PUSH_PUBLISHING_DEPENDENCY_THREADS", threads);
+		Config.setProperty("PUSH_PUBLISHING_DEPENDENCY_BATCH_SIZE", batchSize);
+		try {
+			PublishQueueElement asset = new PublishQueueElement();
+			asset.setAsset(demo.getIdentifier());
+			asset.setType(PusheableAsset.SITE.getType());
+			List<PublishQueueElement> assets = new ArrayList<PublishQueueElement>();
+			assets.add(asset);
+
+			// a download bundle includes every asset, no matter what was pushed before
+			PushPublisherConfig config = new PushPublisherConfig();
+			config.setId(UUIDGenerator.generateUuid());
+			config.setOperation(Operation.PUBLISH);
+			config.setDownloading(true);
+			config.setAssets(assets);
+			config.setLuceneQueries(new ArrayList<String>());
+
+			new DependencyManager(user, config).setDependencies();
+
+			Map<String, Set<String>> dependencies = new LinkedHashMap<String, Set<String>>();
+			dependencies.put("hosts", new HashSet<String>(config.getHostSet()));
+			dependencies.put("folders", new HashSet<String>(config.getFolders()));
+			dependencies.put("htmlpages", new HashSet<String>(config.getHTMLPages()));
+			dependencies.put("templates", new HashSet<String>(config.getTemplates()));
+			dependencies.put("containers", new HashSet<String>(config.getContainers()));
+			dependencies.put("structures", new HashSet<String>(config.getStructures()));
+			dependencies.put("links", new HashSet<String>(config.getLinks()));
+			dependencies.put("contents", new HashSet<String>(config.getContentlets()));
+			dependencies.put("relationships", new HashSet<String>(config.getRelationships()));
+			dependencies.put("rules", new HashSet<String>(config.getRules()));
+			return dependencies;
+		} finally {
+			Config.setProperty("PUSH_PUBLISHING_DEPENDENCY_THREADS", oldThreads);
+			Config.setProperty("PUSH_PUBLISHING_DEPENDENCY_BATCH_SIZE", oldBatchSize);
+		}
+	}
+
+	@Test
+	public void concurrentResolutionMatchesSequential() throws Exception {
+		Map<String, Set<String>> sequential = dependencies(1, 200);
+		assertFalse(sequential.get("contents").isEmpty());
+		assertFalse(sequential.get("folders").isEmpty());
+
+		// small batches so the contentlet lookups are spread over several queries too
+		Map<String, Set<String>> concurrent = dependencies(4, 7);
+		for (String type : sequential.keySet()) {
+			assertEquals("The " + type + " of the bundle differ", sequential.get(type), concurrent.get(type));
+		}
+	}
+
+}
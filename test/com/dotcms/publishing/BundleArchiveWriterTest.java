@@ -0,0 +1,190 @@
+package com.dotcms.publishing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.dotcms.publisher.pusher.PushUtils;
+import com.dotcms.repackage.org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import com.dotcms.repackage.org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.beans.Identifier;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class BundleArchiveWriterTest {
+
+	private static final String BENCHMARK_PROPERTY = "dotcms.test.benchmarks";
+	private static final int BENCHMARK_ASSETS = 50000;
+
+	private Map<String, Object> asset(int i) {
+		Identifier identifier = new Identifier();
+		identifier.setId(UUIDGenerator.generateUuid());
+		identifier.setAssetName("asset-" + i + ".html");
+		identifier.setAssetType("contentlet");
+		identifier.setParentPath("/folder-" + (i % 100) + "/");
+		identifier.setHostId("48190c8c-42c4-46af-8d1a-0cd5db894797");
+
+		Map<String, Object> asset = new LinkedHashMap<String, Object>();
+		asset.put("identifier", identifier);
+		asset.put("title", "Asset " + i);
+		asset.put("body", "<p>The body of the asset " + i + ", long enough to look like a real field.</p>");
+		asset.put("modDate", new Date());
+		return asset;
+	}
+
+	private String path(int i) {
+		return "live/demo.dotcms.com/1/folder-" + (i % 100) + "/asset-" + i + ".content.xml";
+	}
+
+	private Map<String, byte[]> readArchive(File archive) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(archive)));
+		try {
+			TarArchiveEntry entry;
+			while ((entry = tar.getNextTarEntry()) != null) {
+				entries.put(entry.getName(), entry.isDirectory() ? null : IOUtils.toByteArray(tar));
+			}
+		} finally {
+			tar.close();
+		}
+		return entries;
+	}
+
+	@Test
+	public void writesGzipTar() throws Exception {
+		File dir = Files.createTempDirectory("bundle-writer").toFile();
+		try {
+			File archive = new File(dir, "bundle.tar.gz");
+			BundleArchiveWriter writer = new BundleArchiveWriter(archive);
+			List<Map<String, Object>> assets = new ArrayList<Map<String, Object>>();
+			try {
+				for (int i = 0; i < 500; i++) {
+					assets.add(asset(i));
+					writer.addObject(path(i), assets.get(i));
+				}
+			} finally {
+				writer.close();
+			}
+			assertEquals(500, writer.getEntries());
+
+			Map<String, byte[]> entries = readArchive(archive);
+			assertEquals(500, entries.size());
+			for (int i = 0; i < 500; i++) {
+				ByteArrayOutputStream xml = new ByteArrayOutputStream();
+				BundlerUtil.objectToXML(assets.get(i), xml);
+				assertArrayEquals(xml.toByteArray(), entries.get(path(i)));
+			}
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	@Test
+	public void compressesBundleFolder() throws Exception {
+		File dir = Files.createTempDirectory("bundle-writer").toFile();
+		try {
+			File bundleRoot = new File(dir, "bundle");
+			for (int i = 0; i < 50; i++) {
+				BundlerUtil.objectToXML(asset(i), new File(bundleRoot, path(i)));
+			}
+			List<File> files = new ArrayList<File>();
+			files.add(bundleRoot);
+			File archive = PushUtils.compressFiles(files, new File(dir, "bundle.tar.gz"), bundleRoot.getAbsolutePath());
+
+			Map<String, byte[]> entries = readArchive(archive);
+			for (int i = 0; i < 50; i++) {
+				assertArrayEquals(FileUtils.readFileToByteArray(new File(bundleRoot, path(i))), entries.get(path(i)));
+			}
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	/**
+	 * Builds a bundle of 50k assets writing them to a bundle folder and then
+	 * compressing it, and streaming them straight into the archive, and
+	 * reports the time, the peak disk usage and the peak heap of both.
+	 * <p>
+	 * It only runs with the {@value #BENCHMARK_PROPERTY} system property set
+	 * to true, e.g. {@code -Ddotcms.test.benchmarks=true}.
+	 * </p>
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		Assume.assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+		File dir = Files.createTempDirectory("bundle-writer").toFile();
+		try {
+			// staging folder + compression
+			System.gc();
+			long heap = usedHeap();
+			long peakHeap = heap;
+			long start = System.currentTimeMillis();
+			File bundleRoot = new File(dir, "staged");
+			for (int i = 0; i < BENCHMARK_ASSETS; i++) {
+				BundlerUtil.objectToXML(asset(i), new File(bundleRoot, path(i)));
+				if (i % 1000 == 0) {
+					peakHeap = Math.max(peakHeap, usedHeap());
+				}
+			}
+			List<File> files = new ArrayList<File>();
+			files.add(bundleRoot);
+			File stagedArchive = PushUtils.compressFiles(files, new File(dir, "staged.tar.gz"), bundleRoot.getAbsolutePath());
+			long stagedMillis = System.currentTimeMillis() - start;
+			long stagedDisk = FileUtils.sizeOfDirectory(bundleRoot) + stagedArchive.length();
+			long stagedHeap = Math.max(peakHeap, usedHeap()) - heap;
+			FileUtils.deleteDirectory(bundleRoot);
+
+			// streamed
+			System.gc();
+			heap = usedHeap();
+			peakHeap = heap;
+			start = System.currentTimeMillis();
+			File streamedArchive = new File(dir, "streamed.tar.gz");
+			BundleArchiveWriter writer = new BundleArchiveWriter(streamedArchive);
+			try {
+				for (int i = 0; i < BENCHMARK_ASSETS; i++) {
+					writer.addObject(path(i), asset(i));
+					if (i % 1000 == 0) {
+						peakHeap = Math.max(peakHeap, usedHeap());
+					}
+				}
+			} finally {
+				writer.close();
+			}
+			long streamedMillis = System.currentTimeMillis() - start;
+			long streamedDisk = streamedArchive.length();
+			long streamedHeap = Math.max(peakHeap, usedHeap()) - heap;
+
+			Logger.info(this, String.format("%d assets   staged: %6d ms %8d KB disk %8d KB heap   streamed: %6d ms %8d KB disk %8d KB heap",
+					BENCHMARK_ASSETS, stagedMillis, stagedDisk / 1024, stagedHeap / 1024, streamedMillis, streamedDisk / 1024,
+					streamedHeap / 1024));
+			assertEquals(BENCHMARK_ASSETS, writer.getEntries());
+			assertTrue("the streamed bundle should need less disk", streamedDisk < stagedDisk);
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	private long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -39,9 +39,11 @@ import java.io.FileWriter;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -1022,6 +1024,46 @@ public class PermissionAPITest extends TestBase {
         APILocator.getFolderAPI().delete(f, sysuser, false);
     }
 
+    @Test
+    public void addPermissionsToCache() throws DotDataException, DotSecurityException {
+        Role nrole = getRole("TestingRole12");
+
+        List<Folder> folders = new ArrayList<Folder>();
+        for (String path : new String[] { "/fb1/", "/fb1/fb2/", "/fb3/" }) {
+            APILocator.getFolderAPI().createFolders(path, host, sysuser, false);
+            folders.add(APILocator.getFolderAPI().findFolderByPath(path, host, sysuser, false));
+        }
+        Folder f = folders.get(0);
+        perm.permissionIndividually(host, f, sysuser, false);
+
+        Permission p1 = new Permission();
+        p1.setPermission(PermissionAPI.PERMISSION_READ);
+        p1.setRoleId(nrole.getId());
+        p1.setInode(f.getInode());
+        perm.save(p1, f, sysuser, false);
+
+        List<Permissionable> permissionables = new ArrayList<Permissionable>(folders);
+        permissionables.add(tt);
+
+        perm.clearCache();
+        Map<String, List<Permission>> individually = new HashMap<String, List<Permission>>();
+        for (Permissionable p : permissionables)
+            individually.put(p.getPermissionId(), perm.getPermissions(p, true));
+
+        // the batch has to fill the cache with the same permissions
+        perm.clearCache();
+        perm.addPermissionsToCache(permissionables);
+        for (Permissionable p : permissionables) {
+            List<Permission> batched = CacheLocator.getPermissionCache().getPermissionsFromCache(p.getPermissionId());
+            assertNotNull(batched);
+            assertEquals(new HashSet<Permission>(individually.get(p.getPermissionId())), new HashSet<Permission>(batched));
+        }
+
+        perm.removePermissions(f);
+        APILocator.getFolderAPI().delete(f, sysuser, false);
+        APILocator.getFolderAPI().delete(folders.get(2), sysuser, false);
+    }
+
     /**
      * Generate a new role with the given name
      */
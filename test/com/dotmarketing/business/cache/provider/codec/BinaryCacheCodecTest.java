@@ -0,0 +1,177 @@
+package com.dotmarketing.business.cache.provider.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.beans.Identifier;
+import com.dotmarketing.beans.Permission;
+import com.dotmarketing.business.PermissionAPI;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.folders.model.Folder;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class BinaryCacheCodecTest {
+
+	private final BinaryCacheCodec codec = new BinaryCacheCodec(4096);
+	private final JavaSerializationCodec javaCodec = new JavaSerializationCodec();
+
+	private Contentlet contentlet(Contentlet contentlet) {
+		contentlet.setInode(UUIDGenerator.generateUuid());
+		contentlet.setIdentifier(UUIDGenerator.generateUuid());
+		contentlet.setStructureInode(UUIDGenerator.generateUuid());
+		contentlet.setLanguageId(1);
+		contentlet.setModDate(new Timestamp(System.currentTimeMillis()));
+		contentlet.setModUser("dotcms.org.1");
+		contentlet.setOwner("dotcms.org.1");
+		contentlet.setStringProperty("title", "A testing contentlet áñü");
+		contentlet.setStringProperty("urlTitle", "a-testing-contentlet");
+		contentlet.setDateProperty("publishDate", new Date());
+		contentlet.setLongProperty("views", 1234);
+		contentlet.setBoolProperty("featured", true);
+		contentlet.setFloatProperty("rating", 4.5f);
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			body.append("<p>Paragraph ").append(i).append(" of the body of the testing contentlet.</p>");
+		}
+		contentlet.setStringProperty("body", body.toString());
+		return contentlet;
+	}
+
+	private Identifier identifier() {
+		Identifier identifier = new Identifier();
+		identifier.setId(UUIDGenerator.generateUuid());
+		identifier.setAssetName("index");
+		identifier.setAssetType(Identifier.ASSET_TYPE_HTML_PAGE);
+		identifier.setParentPath("/about-us/");
+		identifier.setHostId(UUIDGenerator.generateUuid());
+		identifier.setSysPublishDate(new Date());
+		return identifier;
+	}
+
+	private Folder folder() {
+		Folder folder = new Folder();
+		folder.setInode(UUIDGenerator.generateUuid());
+		folder.setHostId(UUIDGenerator.generateUuid());
+		folder.setIdentifier(UUIDGenerator.generateUuid());
+		folder.setName("about-us");
+		folder.setTitle("About Us");
+		folder.setFilesMasks("");
+		folder.setDefaultFileType(UUIDGenerator.generateUuid());
+		folder.setSortOrder(3);
+		folder.setShowOnMenu(true);
+		return folder;
+	}
+
+	private List<Permission> permissions() {
+		List<Permission> permissions = new ArrayList<Permission>();
+		String inode = UUIDGenerator.generateUuid();
+		for (int i = 0; i < 12; i++) {
+			Permission permission = new Permission(PermissionAPI.INDIVIDUAL_PERMISSION_TYPE, inode, UUIDGenerator.generateUuid(),
+					PermissionAPI.PERMISSION_READ, true);
+			permission.setId(i);
+			permissions.add(permission);
+		}
+		return permissions;
+	}
+
+	@Test
+	public void contentletRoundTrip() throws Exception {
+		Contentlet contentlet = contentlet(new Contentlet());
+		Contentlet copy = (Contentlet) codec.deserialize(codec.serialize(contentlet));
+		assertEquals(Contentlet.class, copy.getClass());
+		assertEquals(contentlet.getMap(), copy.getMap());
+		assertEquals(Timestamp.class, copy.getModDate().getClass());
+
+		Host host = new Host(contentlet(new Contentlet()));
+		host.setHostname("demo.dotcms.com");
+		host.setAliases("localhost");
+		Host hostCopy = (Host) codec.deserialize(codec.serialize(host));
+		assertEquals(host.getMap(), hostCopy.getMap());
+		assertEquals("demo.dotcms.com", hostCopy.getHostname());
+	}
+
+	@Test
+	public void beansRoundTrip() throws Exception {
+		Identifier identifier = identifier();
+		Identifier identifierCopy = (Identifier) codec.deserialize(codec.serialize(identifier));
+		assertEquals(identifier.getId(), identifierCopy.getId());
+		assertEquals(identifier.getURI(), identifierCopy.getURI());
+		assertEquals(identifier.getHostId(), identifierCopy.getHostId());
+		assertEquals(identifier.getSysPublishDate(), identifierCopy.getSysPublishDate());
+		assertEquals(null, identifierCopy.getSysExpireDate());
+
+		Folder folder = folder();
+		Folder folderCopy = (Folder) codec.deserialize(codec.serialize(folder));
+		assertEquals(folder.getInode(), folderCopy.getInode());
+		assertEquals(folder.getIdentifier(), folderCopy.getIdentifier());
+		assertEquals(folder.getHostId(), folderCopy.getHostId());
+		assertEquals(folder.getName(), folderCopy.getName());
+		assertEquals(folder.getSortOrder(), folderCopy.getSortOrder());
+		assertEquals(folder.getModDate(), folderCopy.getModDate());
+
+		List<Permission> permissions = permissions();
+		assertEquals(permissions, codec.deserialize(codec.serialize(permissions)));
+	}
+
+	@Test
+	public void fallsBackToJavaSerialization() throws Exception {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("key", "value");
+		byte[] data = codec.serialize(map);
+		assertArrayEquals(javaCodec.serialize(map), data);
+		assertEquals(map, codec.deserialize(data));
+
+		// entries written before the codec existed are still read
+		List<Permission> permissions = permissions();
+		assertEquals(permissions, codec.deserialize(javaCodec.serialize(permissions)));
+	}
+
+	/**
+	 * Compares the size and the time to write and read back the hot cached
+	 * types with java serialization and with the binary codec.
+	 */
+	@Test
+	public void benchmark() throws Exception {
+		Map<String, Object> samples = new LinkedHashMap<String, Object>();
+		samples.put("contentlet", contentlet(new Contentlet()));
+		samples.put("identifier", identifier());
+		samples.put("folder", folder());
+		samples.put("permissions", permissions());
+
+		for (Map.Entry<String, Object> sample : samples.entrySet()) {
+			int javaBytes = javaCodec.serialize(sample.getValue()).length;
+			int codecBytes = codec.serialize(sample.getValue()).length;
+			long javaNanos = nanosPerOp(javaCodec, sample.getValue());
+			long codecNanos = nanosPerOp(codec, sample.getValue());
+			Logger.info(this, String.format("%-12s java: %6d bytes %8d ns/op   codec: %6d bytes %8d ns/op",
+					sample.getKey(), javaBytes, javaNanos, codecBytes, codecNanos));
+			assertTrue(sample.getKey() + " should be smaller with the codec", codecBytes < javaBytes);
+		}
+	}
+
+	private long nanosPerOp(CacheCodec cacheCodec, Object value) throws Exception {
+		final int warmup = 5000;
+		final int iterations = 20000;
+		for (int i = 0; i < warmup; i++) {
+			cacheCodec.deserialize(cacheCodec.serialize(value));
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			cacheCodec.deserialize(cacheCodec.serialize(value));
+		}
+		return (System.nanoTime() - start) / iterations;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.dotmarketing.business.cache.transport;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dotcms.cluster.bean.Server;
+import com.dotmarketing.business.DotCacheAdministrator;
+
+public class CacheInvalidationFrameTest {
+
+	/**
+	 * Transport that only knows how to send text messages
+	 */
+	private static class TextTransport implements CacheTransport {
+
+		private final List<String> sent = new ArrayList<String>();
+
+		@Override
+		public void init ( Server localServer ) throws CacheTransportException {}
+
+		@Override
+		public void send ( String message ) throws CacheTransportException {
+			sent.add(message);
+		}
+
+		@Override
+		public void testCluster () throws CacheTransportException {}
+
+		@Override
+		public Map<String, Boolean> validateCacheInCluster ( String dateInMillis, int numberServers, int maxWaitSeconds ) throws CacheTransportException {
+			return null;
+		}
+
+		@Override
+		public void shutdown () throws CacheTransportException {}
+	}
+
+	@Test
+	public void frameIsSentAsTextMessages () throws Exception {
+
+		CacheInvalidationFrame frame = new CacheInvalidationFrame();
+		frame.add("key1", "contentletcache", 0);
+		frame.add("key2", "contentletcache", 0);
+		frame.add("0", "foldercache", 0);
+		frame.add("key3", "foldercache", 0);
+		frame.add("key4", "identifiercache", 0);
+
+		TextTransport transport = new TextTransport();
+		transport.send(frame.toBytes());
+
+		assertEquals(Arrays.asList("0:foldercache", "key1:contentletcache", "key2:contentletcache", "key4:identifiercache"), transport.sent);
+	}
+
+	@Test
+	public void groupsOverThresholdAreFlushed () throws Exception {
+
+		CacheInvalidationFrame frame = new CacheInvalidationFrame();
+		frame.add("key1", "contentletcache", 2);
+		frame.add("key2", "contentletcache", 2);
+		frame.add("key3", "contentletcache", 2);
+
+		TextTransport transport = new TextTransport();
+		transport.send(frame.toBytes());
+
+		assertEquals(Arrays.asList("0:contentletcache"), transport.sent);
+	}
+
+	@Test
+	public void flushAllIsSentOnce () throws Exception {
+
+		CacheInvalidationFrame frame = new CacheInvalidationFrame();
+		frame.add("key1", "contentletcache", 0);
+		frame.add("0", DotCacheAdministrator.ROOT_GOUP, 0);
+		frame.add("key2", "foldercache", 0);
+
+		TextTransport transport = new TextTransport();
+		transport.send(frame.toBytes());
+
+		assertEquals(Arrays.asList("0:" + DotCacheAdministrator.ROOT_GOUP), transport.sent);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.dotmarketing.common.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.dotmarketing.common.business.journal.DistributedJournalFactory;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class DotConnectTest {
+
+    private static final String INSERT_SQL = "INSERT INTO dist_process(object_to_index, time_entered, serverid, journal_type) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT object_to_index FROM dist_process WHERE serverid = ? ORDER BY object_to_index";
+    private static final String DELETE_SQL = "DELETE FROM dist_process WHERE serverid = ?";
+
+    /**
+     * Inserts rows through a batch smaller and larger than the JDBC batch size and reads them back one at a time
+     */
+    @Test
+    public void batchAndStreamRows() throws DotDataException {
+        String serverId = UUIDGenerator.generateUuid();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int total = 1200;
+        try {
+            DotConnect dc = new DotConnect();
+            dc.setSQL(INSERT_SQL);
+            for (int i = 0; i < total; i++) {
+                dc.addParam(String.format("key%05d", i));
+                dc.addParam(now);
+                dc.addParam(serverId);
+                dc.addParam(DistributedJournalFactory.JOURNAL_TYPE_CACHE);
+                dc.addBatch();
+            }
+            int[] counts = dc.executeBatch();
+            assertEquals(total, counts.length);
+
+            final List<String> keys = new ArrayList<String>();
+            dc.setSQL(SELECT_SQL);
+            dc.addParam(serverId);
+            int handled = dc.loadObjectResults(new DotConnect.RowHandler() {
+                @Override
+                public boolean handle(Map<String, Object> row) {
+                    keys.add((String) row.get("object_to_index"));
+                    return true;
+                }
+            });
+            assertEquals(total, handled);
+            assertEquals("key00000", keys.get(0));
+            assertEquals(String.format("key%05d", total - 1), keys.get(total - 1));
+
+            // the handler stops the reading
+            keys.clear();
+            dc.setSQL(SELECT_SQL);
+            dc.addParam(serverId);
+            handled = dc.loadObjectResults(new DotConnect.RowHandler() {
+                @Override
+                public boolean handle(Map<String, Object> row) {
+                    keys.add((String) row.get("object_to_index"));
+                    return keys.size() < 10;
+                }
+            });
+            assertEquals(10, handled);
+
+            Map<String, Map<String, Object>> stats = DotConnect.getStats();
+            assertTrue((Long) stats.get("insert").get("count") > 0);
+            assertTrue((Long) stats.get("select").get("count") > 0);
+        } finally {
+            DotConnect dc = new DotConnect();
+            dc.setSQL(DELETE_SQL);
+            dc.addParam(serverId);
+            dc.loadResult();
+        }
+    }
+
+}
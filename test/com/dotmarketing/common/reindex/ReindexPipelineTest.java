@@ -0,0 +1,291 @@
+package com.dotmarketing.common.reindex;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.TestBase;
+import com.dotcms.content.elasticsearch.util.ESClient;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.common.business.journal.DistributedJournalFactory;
+import com.dotmarketing.common.business.journal.IndexJournal;
+import com.dotmarketing.common.db.DotConnect;
+import com.dotmarketing.db.DbConnectionFactory;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.UUIDGenerator;
+import com.liferay.portal.model.User;
+
+/**
+ * Tests the pipelined re-index mode ({@code reindex.thread.pipelined}), see
+ * {@link ReindexPipeline}.
+ */
+public class ReindexPipelineTest extends TestBase {
+
+	private static final ContentletAPI contAPI = APILocator.getContentletAPI();
+	private static ReindexThread reindexThread;
+	private static User user;
+
+	@BeforeClass
+	public static void prepare() throws Exception {
+		reindexThread = ReindexThread.getInstance();
+		user = APILocator.getUserAPI().getSystemUser();
+	}
+
+	private ReindexPipeline pipeline(int maxInFlight, int delayOnError) {
+		final int oldMaxInFlight = Config.getIntProperty("reindex.thread.maxbulkinflight", 4);
+		final int oldDelayOnError = Config.getIntProperty("reindex.thread.delayonerror", 500);
+		Config.setProperty("reindex.thread.maxbulkinflight", maxInFlight);
+		Config.setProperty("reindex.thread.delayonerror", delayOnError);
+		try {
+			return new ReindexPipeline(reindexThread);
+		} finally {
+			Config.setProperty("reindex.thread.maxbulkinflight", oldMaxInFlight);
+			Config.setProperty("reindex.thread.delayonerror", oldDelayOnError);
+		}
+	}
+
+	/**
+	 * Journal record that doesn't exist in the table, so the test doesn't
+	 * take the records of the running re-index thread
+	 */
+	private IndexJournal<String> record(long id, String identifier) {
+		IndexJournal<String> idx = new IndexJournal<String>();
+		idx.setId(-id);
+		idx.setInodeToIndex(identifier);
+		idx.setIdentToIndex(identifier);
+		return idx;
+	}
+
+	private BulkItemResponse item(String id, String failure) {
+		BulkItemResponse item = mock(BulkItemResponse.class);
+		when(item.getId()).thenReturn(id);
+		when(item.isFailed()).thenReturn(failure != null);
+		when(item.getFailureMessage()).thenReturn(failure);
+		return item;
+	}
+
+	private BulkResponse response(BulkItemResponse... items) {
+		boolean failures = false;
+		for (BulkItemResponse item : items) {
+			failures |= item.isFailed();
+		}
+		BulkResponse resp = mock(BulkResponse.class);
+		when(resp.getItems()).thenReturn(items);
+		when(resp.hasFailures()).thenReturn(failures);
+		when(resp.buildFailureMessage()).thenReturn("failure");
+		return resp;
+	}
+
+	private void refreshIndex() {
+		new ESClient().getClient().admin().indices().prepareRefresh().execute().actionGet();
+	}
+
+	@Test
+	public void pipelineIndexesRecords() throws Exception {
+		final ReindexPipeline pipeline = pipeline(2, 100);
+		try {
+			List<Contentlet> contents = contAPI.search("+structureName:webPageContent +live:true", 5, 0, "moddate", user, false);
+			Assume.assumeTrue(contents.size() > 1);
+
+			List<IndexJournal<String>> records = new ArrayList<IndexJournal<String>>();
+			for (Contentlet con : contents) {
+				APILocator.getContentletIndexAPI().removeContentFromIndex(con);
+				records.add(record(records.size() + 1, con.getIdentifier()));
+			}
+			refreshIndex();
+			for (Contentlet con : contents) {
+				Assert.assertEquals(0, contAPI.indexCount("+identifier:" + con.getIdentifier(), user, false));
+			}
+
+			pipeline.process(records);
+			long timeout = System.currentTimeMillis() + 30000;
+			while (pipeline.getInFlight() > 0 && System.currentTimeMillis() < timeout) {
+				Thread.sleep(100);
+			}
+			Assert.assertEquals(0, pipeline.getInFlight());
+
+			refreshIndex();
+			for (Contentlet con : contents) {
+				Assert.assertTrue(contAPI.indexCount("+identifier:" + con.getIdentifier(), user, false) > 0);
+			}
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void failedRecordsAreKeptInTheJournal() throws Exception {
+		// the failures are only handled while the thread is working
+		Assume.assumeTrue(reindexThread.isWorking());
+
+		IndexJournal<String> indexed = record(1, "pipeline-test-indexed");
+		IndexJournal<String> failed = record(2, "pipeline-test-failed");
+		List<IndexJournal<String>> recordsToDelete = new ArrayList<IndexJournal<String>>(Arrays.asList(indexed, failed));
+		BulkResponse resp = response(item("pipeline-test-indexed_1", null),
+				item("pipeline-test-failed_1", "MapperParsingException[failed to parse]"));
+
+		final AtomicReference<BulkResponse> delegated = new AtomicReference<BulkResponse>();
+		reindexThread.createBulkListener(recordsToDelete, new ActionListener<BulkResponse>() {
+			public void onResponse(BulkResponse response) {
+				delegated.set(response);
+			}
+
+			public void onFailure(Throwable e) {
+			}
+		}).onResponse(resp);
+
+		// only the indexed record is deleted from the journal, the failed one is given back to be retried
+		Assert.assertEquals(Arrays.asList(indexed), recordsToDelete);
+		Assert.assertSame(resp, delegated.get());
+
+		ReindexPipeline pipeline = pipeline(2, 100);
+		try {
+			Assert.assertFalse(pipeline.isRejected(resp));
+			Assert.assertTrue(pipeline.isRejected(response(item("pipeline-test-failed_1",
+					"RemoteTransportException[[node][bulk]]; nested: EsRejectedExecutionException[rejected execution (queue capacity 50)]"))));
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectionsBackOff() throws Exception {
+		final int delayOnError = 300;
+		final ReindexPipeline pipeline = pipeline(4, delayOnError);
+		try {
+			for (int i = 0; i < 4; i++) {
+				pipeline.acquireSlot();
+			}
+
+			final AtomicLong acquiredAt = new AtomicLong();
+			Thread waiting = new Thread() {
+				public void run() {
+					try {
+						pipeline.acquireSlot();
+						acquiredAt.set(System.currentTimeMillis());
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			waiting.start();
+			waiting.join(200);
+			// no slot is free
+			Assert.assertTrue(waiting.isAlive());
+
+			long rejectedAt = System.currentTimeMillis();
+			pipeline.releaseSlot(true);
+			Assert.assertEquals(2, pipeline.getInFlightLimit());
+			pipeline.releaseSlot(false);
+			pipeline.releaseSlot(false);
+
+			// a slot is free now, but not before the back-off is over
+			waiting.join(5000);
+			Assert.assertFalse(waiting.isAlive());
+			Assert.assertTrue(acquiredAt.get() - rejectedAt >= delayOnError);
+
+			// the limit grows back one request at a time as the requests succeed
+			pipeline.releaseSlot(false);
+			pipeline.releaseSlot(false);
+			for (int i = 0; i < 10; i++) {
+				pipeline.acquireSlot();
+				pipeline.releaseSlot(false);
+			}
+			Assert.assertEquals(4, pipeline.getInFlightLimit());
+			Assert.assertEquals(0, pipeline.getInFlight());
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectedRequestsAreKeptInTheJournal() throws Exception {
+		String identifier = "pipeline-test-" + UUIDGenerator.generateUuid();
+		DotConnect dc = new DotConnect();
+		// the re-index thread must not take the record once it is given back
+		reindexThread.pause();
+		try {
+			// a record claimed by this server
+			dc.setSQL("INSERT INTO dist_reindex_journal(inode_to_index,ident_to_index,priority,dist_action,serverid) VALUES (?,?,?,?,?)");
+			dc.addParam(identifier);
+			dc.addParam(identifier);
+			dc.addParam(DistributedJournalFactory.REINDEX_JOURNAL_PRIORITY_NEWINDEX);
+			dc.addParam(DistributedJournalFactory.REINDEX_ACTION_REINDEX_OBJECT);
+			dc.addParam("pipeline-test-server");
+			dc.loadResult();
+			dc.setSQL("SELECT id FROM dist_reindex_journal WHERE ident_to_index = ?");
+			dc.addParam(identifier);
+			IndexJournal<String> record = record(0, identifier);
+			record.setId(Long.parseLong(dc.getString("id")));
+			DbConnectionFactory.closeConnection();
+
+			final AtomicReference<Throwable> delegated = new AtomicReference<Throwable>();
+			EsRejectedExecutionException rejected = new EsRejectedExecutionException("rejected execution (queue capacity 50)");
+			reindexThread.createBulkListener(new ArrayList<IndexJournal<String>>(Arrays.asList(record)), new ActionListener<BulkResponse>() {
+				public void onResponse(BulkResponse response) {
+				}
+
+				public void onFailure(Throwable e) {
+					delegated.set(e);
+				}
+			}).onFailure(rejected);
+			Assert.assertSame(rejected, delegated.get());
+
+			// nothing was indexed, the record is given back to be retried instead of deleted
+			dc.setSQL("SELECT serverid FROM dist_reindex_journal WHERE ident_to_index = ?");
+			dc.addParam(identifier);
+			List<Map<String, Object>> rows = dc.loadObjectResults();
+			Assert.assertEquals(1, rows.size());
+			Assert.assertNull(rows.get(0).get("serverid"));
+		} finally {
+			dc.setSQL("DELETE FROM dist_reindex_journal WHERE ident_to_index = ?");
+			dc.addParam(identifier);
+			dc.loadResult();
+			DbConnectionFactory.closeConnection();
+			reindexThread.unpause();
+		}
+	}
+
+	@Test
+	public void backoffIsCapped() throws Exception {
+		int maxBackoff = Config.getIntProperty("reindex.thread.maxbackoff", 30000);
+		Config.setProperty("reindex.thread.maxbackoff", 1000);
+		final ReindexPipeline pipeline;
+		try {
+			pipeline = pipeline(4, 400);
+		} finally {
+			Config.setProperty("reindex.thread.maxbackoff", maxBackoff);
+		}
+		try {
+			for (int i = 0; i < 4; i++) {
+				pipeline.acquireSlot();
+			}
+			// the third rejection in a row would wait 1200 ms
+			for (int i = 0; i < 4; i++) {
+				pipeline.releaseSlot(true);
+			}
+			Assert.assertTrue(pipeline.getBackoff() > 0);
+			Assert.assertTrue(pipeline.getBackoff() <= 1000);
+		} finally {
+			pipeline.shutdown();
+		}
+	}
+
+}
@@ -16,6 +16,8 @@ import com.dotmarketing.business.APILocator;
 import com.dotmarketing.business.CacheLocator;
 import com.dotmarketing.common.db.DotConnect;
 import com.dotmarketing.portlets.containers.model.Container;
+import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.util.UUIDGenerator;
 import com.liferay.portal.model.User;
 
@@ -134,4 +136,49 @@ public class HibernateUtilTest {
         dc.addParam(cInode);
         Assert.assertEquals(title, dc.loadObjectResults().get(0).get("title"));
     }
+
+    /**
+     * The {@link IndexedRunnable} commit listeners run after the content of
+     * the transaction is indexed and searchable, no matter the order they were
+     * added in.
+     */
+    @Test
+    public void indexedListenersRunOnceTheContentIsSearchable() throws Exception {
+        final ContentletAPI conAPI = APILocator.getContentletAPI();
+        final List<Contentlet> saved = new ArrayList<Contentlet>();
+        final List<Long> foundInListener = new ArrayList<Long>();
+
+        Contentlet con = new Contentlet();
+        con.setStructureInode(CacheLocator.getContentTypeCache().getStructureByVelocityVarName("webPageContent").getInode());
+        con.setHost(host.getIdentifier());
+        con.setLanguageId(APILocator.getLanguageAPI().getDefaultLanguage().getId());
+        con.setStringProperty("title", "Indexed listener test " + UUIDGenerator.generateUuid());
+        con.setStringProperty("body", "body");
+
+        HibernateUtil.startTransaction();
+        try {
+            HibernateUtil.addCommitListener(new IndexedRunnable() {
+                public void run() {
+                    try {
+                        foundInListener.add(conAPI.indexCount("+inode:" + saved.get(0).getInode(), user, false));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            saved.add(conAPI.checkin(con, user, false));
+            HibernateUtil.commitTransaction();
+        } catch (Exception e) {
+            HibernateUtil.rollbackTransaction();
+            throw e;
+        }
+
+        try {
+            Assert.assertEquals(1, foundInListener.size());
+            Assert.assertEquals(1L, foundInListener.get(0).longValue());
+        } finally {
+            conAPI.archive(saved.get(0), user, false);
+            conAPI.delete(saved.get(0), user, false);
+        }
+    }
 }
@@ -436,6 +436,34 @@ public class CMSFilterUnitTest {
 
 	}
 
+	/**
+	 * Repeated requests to a URI that doesn't exist, like the ones of bots
+	 * crawling for common paths, are resolved from the cache after the first one
+	 */
+	@Test
+	public void shouldCacheNotFoundURIs() throws IOException {
+		final String uri = "/wp-admin/" + System.currentTimeMillis() + ".php";
+		final int requests = 100;
+		long notFoundHits = CmsUrlUtil.getStats().get("notFoundHits");
+
+		FilterChain chain = Mockito.mock(FilterChain.class);
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < requests; i++) {
+				HttpServletRequest request = getMockRequest("demo.dotcms.com", uri);
+				MockResponseWrapper response = new MockResponseWrapper(Mockito.mock(HttpServletResponse.class));
+				new CMSFilter().doFilter(request, response, chain);
+			}
+		} catch (ServletException e) {
+			Assert.fail();
+		}
+		long nanos = System.nanoTime() - start;
+
+		Mockito.verify(chain, Mockito.times(requests)).doFilter(Mockito.any(ServletRequest.class), Mockito.any(ServletResponse.class));
+		Assert.assertEquals(requests - 1, CmsUrlUtil.getStats().get("notFoundHits") - notFoundHits);
+		Logger.info(this.getClass(), requests + " requests to " + uri + " took " + (nanos / 1000000) + " ms, stats: " + CmsUrlUtil.getStats());
+	}
+
 	class MockRequestWrapper extends HttpServletRequestWrapper {
 		Map<String, Object> valmap = new HashMap<>();
 
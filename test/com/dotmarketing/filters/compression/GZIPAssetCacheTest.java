@@ -0,0 +1,140 @@
+package com.dotmarketing.filters.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.util.UUIDGenerator;
+
+public class GZIPAssetCacheTest {
+
+	private final GZIPAssetCache cache = GZIPAssetCache.getInstance();
+
+	private byte[] css(int rules) {
+		StringBuilder css = new StringBuilder();
+		for (int i = 0; i < rules; i++) {
+			css.append(".rule-").append(i).append(" { color: #333; margin: 0 auto; padding: ").append(i).append("px; }\n");
+		}
+		return css.toString().getBytes();
+	}
+
+	private byte[] uncompress(File file) throws IOException {
+		GZIPInputStream in = new GZIPInputStream(new FileInputStream(file));
+		try {
+			return IOUtils.toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void compressesTextAssets() {
+		assertTrue(cache.isCompressible("text/css", 10 * 1024));
+		assertTrue(cache.isCompressible("application/javascript", 10 * 1024));
+		assertTrue(cache.isCompressible("image/svg+xml", 10 * 1024));
+		assertFalse(cache.isCompressible("image/png", 10 * 1024));
+		assertFalse(cache.isCompressible("text/css", 100));
+		assertFalse(cache.isCompressible(null, 10 * 1024));
+	}
+
+	@Test
+	public void compressesOncePerVersion() throws Exception {
+		File dir = Files.createTempDirectory("gzip-asset").toFile();
+		String inode = UUIDGenerator.generateUuid();
+		try {
+			File asset = new File(dir, "style.css");
+			FileUtils.writeByteArrayToFile(asset, css(500));
+
+			File compressed = cache.getCompressed(inode, asset);
+			assertArrayEquals(FileUtils.readFileToByteArray(asset), uncompress(compressed));
+			assertTrue(compressed.length() < asset.length());
+
+			// the same version is not compressed again
+			long lastModified = compressed.lastModified();
+			assertEquals(compressed, cache.getCompressed(inode, asset));
+			assertEquals(lastModified, compressed.lastModified());
+
+			// a new version gets a new copy and the old one is removed
+			FileUtils.writeByteArrayToFile(asset, css(600));
+			asset.setLastModified(asset.lastModified() + 2000);
+			File newCompressed = cache.getCompressed(inode, asset);
+			assertFalse(newCompressed.equals(compressed));
+			assertFalse(compressed.exists());
+			assertArrayEquals(FileUtils.readFileToByteArray(asset), uncompress(newCompressed));
+			newCompressed.delete();
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	@Test
+	public void streamsResponse() throws Exception {
+		ByteArrayOutputStream sent = new ByteArrayOutputStream();
+		byte[] page = css(2000);
+		GZIPResponseStream stream = new GZIPResponseStream(new ResponseStub(sent), 1024, 1);
+		stream.write(page, 0, page.length / 2);
+		stream.flush();
+		// the first half is on the wire before the response is finished
+		assertTrue(sent.size() > 0);
+		stream.write(page, page.length / 2, page.length - page.length / 2);
+		stream.close();
+
+		GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(sent.toByteArray()));
+		assertArrayEquals(page, IOUtils.toByteArray(in));
+	}
+
+	/**
+	 * Response that only keeps its body and headers.
+	 */
+	private static class ResponseStub extends HttpServletResponseWrapper {
+
+		private final ServletOutputStream output;
+		private final Map<String, String> headers = new HashMap<String, String>();
+
+		private ResponseStub(final ByteArrayOutputStream sent) {
+			super(Mockito.mock(HttpServletResponse.class));
+			output = new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+					sent.write(b);
+				}
+			};
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return output;
+		}
+
+		@Override
+		public boolean containsHeader(String name) {
+			return headers.containsKey(name);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			headers.put(name, value);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.dotmarketing.loggers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dotcms.repackage.org.apache.commons.io.FileUtils;
+import com.dotmarketing.beans.Clickstream;
+import com.dotmarketing.beans.ClickstreamRequest;
+
+public class ClickstreamSpoolTest {
+
+	private Clickstream clickstream(String cookieId, int requests) {
+		Clickstream clickstream = new Clickstream();
+		clickstream.setCookieId(cookieId);
+		for (int i = 0; i < requests; i++) {
+			ClickstreamRequest request = new ClickstreamRequest();
+			request.setRequestURI("/page-" + i);
+			request.setRequestOrder(i + 1);
+			clickstream.addClickstreamRequest(request);
+		}
+		return clickstream;
+	}
+
+	@Test
+	public void keepsClickstreamsUntilTaken() throws Exception {
+		File dir = Files.createTempDirectory("clickstream-spool").toFile();
+		try {
+			ClickstreamSpool spool = new ClickstreamSpool(dir);
+			assertTrue(spool.isEmpty());
+
+			assertEquals(2, spool.append(Arrays.asList(clickstream("a", 2), clickstream("b", 3))));
+			assertEquals(1, spool.append(Arrays.asList(clickstream("c", 1))));
+			assertFalse(spool.isEmpty());
+
+			List<Clickstream> taken = spool.take(10);
+			assertEquals(3, taken.size());
+			assertEquals("a", taken.get(0).getCookieId());
+			assertEquals(3, taken.get(1).getClickstreamRequests().size());
+			assertEquals("/page-0", taken.get(2).getClickstreamRequests().get(0).getRequestURI());
+			assertTrue(spool.isEmpty());
+			assertTrue(spool.take(10).isEmpty());
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	@Test
+	public void takesOldestClickstreamsInBatches() throws Exception {
+		File dir = Files.createTempDirectory("clickstream-spool").toFile();
+		try {
+			ClickstreamSpool spool = new ClickstreamSpool(dir);
+			spool.append(Arrays.asList(clickstream("a", 1), clickstream("b", 1), clickstream("c", 1)));
+
+			List<Clickstream> taken = spool.take(2);
+			assertEquals(2, taken.size());
+			assertEquals("a", taken.get(0).getCookieId());
+			assertEquals("b", taken.get(1).getCookieId());
+
+			// appended while the spool is being taken, after the older ones
+			spool.append(Arrays.asList(clickstream("d", 1)));
+
+			// a restarted server goes on where the spool was left
+			spool = new ClickstreamSpool(dir);
+			taken = spool.take(2);
+			assertEquals(2, taken.size());
+			assertEquals("c", taken.get(0).getCookieId());
+			assertEquals("d", taken.get(1).getCookieId());
+			assertTrue(spool.isEmpty());
+			assertTrue(spool.take(2).isEmpty());
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	@Test
+	public void skipsRecordCutByCrash() throws Exception {
+		File dir = Files.createTempDirectory("clickstream-spool").toFile();
+		try {
+			ClickstreamSpool spool = new ClickstreamSpool(dir);
+			spool.append(Arrays.asList(clickstream("a", 2)));
+			// half a record at the end of the spool
+			FileOutputStream out = new FileOutputStream(new File(dir, "clickstreams.spool"), true);
+			out.write(new byte[] { 0, 0, 1, 0, 42 });
+			out.close();
+
+			List<Clickstream> taken = spool.take(10);
+			assertEquals(1, taken.size());
+			assertEquals("a", taken.get(0).getCookieId());
+		} finally {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+}
@@ -11,9 +11,11 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.velocity.app.VelocityEngine;
@@ -619,6 +621,43 @@ public class ContentletAPITest extends ContentletBaseTest {
         assertTrue( foundContentlets != null && !foundContentlets.isEmpty() );
     }
 
+    /**
+     * Testing {@link ContentletAPI#scroll(String, int, com.liferay.portal.model.User, boolean)}
+     *
+     * @throws com.dotmarketing.exception.DotDataException
+     *
+     * @throws com.dotmarketing.exception.DotSecurityException
+     *
+     * @see ContentletAPI
+     * @see Contentlet
+     */
+    @Test
+    public void scroll () throws DotDataException, DotSecurityException {
+
+        //Getting a known contentlet
+        Contentlet contentlet = contentlets.iterator().next();
+
+        //Create the lucene query
+        String luceneQuery = "+structureinode:" + contentlet.getStructureInode() + " +deleted:false";
+
+        //Search the contentlets
+        List<Contentlet> foundContentlets = contentletAPI.search( luceneQuery, 0, -1, null, user, false );
+
+        //Scroll the same contentlets using small batches
+        Set<String> scrolledInodes = new HashSet<String>();
+        for ( Contentlet scrolled : contentletAPI.scroll( luceneQuery, 2, user, false ) ) {
+            scrolledInodes.add( scrolled.getInode() );
+        }
+
+        //Validations
+        Set<String> foundInodes = new HashSet<String>();
+        for ( Contentlet found : foundContentlets ) {
+            foundInodes.add( found.getInode() );
+        }
+        assertFalse( scrolledInodes.isEmpty() );
+        assertEquals( foundInodes, scrolledInodes );
+    }
+
     /**
      * Testing {@link ContentletAPI#publishRelatedHtmlPages(com.dotmarketing.portlets.contentlet.model.Contentlet)}
      *
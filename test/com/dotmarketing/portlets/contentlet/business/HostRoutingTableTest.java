@@ -0,0 +1,93 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.exception.DotDataException;
+import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.liferay.portal.model.User;
+
+public class HostRoutingTableTest {
+
+	private Host host(String hostname, String aliases, boolean isDefault) {
+		Host host = new Host(new Contentlet());
+		host.setHostname(hostname);
+		host.setAliases(aliases);
+		host.setDefault(isDefault);
+		host.setSystemHost(false);
+		return host;
+	}
+
+	@Test
+	public void resolvesNamesAndAliases() {
+		Host demo = host("demo.dotcms.com", "www.demo.dotcms.com, localhost\n127.0.0.1", true);
+		Host shop = host("shop.dotcms.com", "store.dotcms.com\r\n*.shop.dotcms.com", false);
+		Host blog = host("blog.dotcms.com", "*.dotcms.com, demo.dotcms.com", false);
+		HostRoutingTable table = new HostRoutingTable(Arrays.asList(demo, shop, blog), demo);
+
+		assertSame(demo, table.resolve("demo.dotcms.com"));
+		assertSame(demo, table.resolve("WWW.Demo.dotcms.com"));
+		assertSame(demo, table.resolve("127.0.0.1"));
+		assertSame(shop, table.resolve("store.dotcms.com"));
+		// a host name wins over the alias of another host
+		assertSame(demo, table.resolve("demo.dotcms.com"));
+		// the most specific wildcard wins
+		assertSame(shop, table.resolve("es.shop.dotcms.com"));
+		assertSame(blog, table.resolve("es.dotcms.com"));
+		assertSame(shop, table.resolve("shop.dotcms.com"));
+		// anything else goes to the default host
+		assertSame(demo, table.resolve("dotcms.com"));
+		assertSame(demo, table.resolve("random" + System.currentTimeMillis() + ".example.com"));
+		assertSame(demo, table.resolve(null));
+		assertEquals(9, table.size());
+	}
+
+	@Test
+	public void defaultHostWinsSharedAlias() {
+		Host demo = host("demo.dotcms.com", "shared.dotcms.com", true);
+		Host other = host("other.dotcms.com", "shared.dotcms.com", false);
+
+		assertSame(demo, new HostRoutingTable(Arrays.asList(demo, other), demo).resolve("shared.dotcms.com"));
+		assertSame(demo, new HostRoutingTable(Arrays.asList(other, demo), demo).resolve("shared.dotcms.com"));
+	}
+
+	@Test
+	public void tableBuiltWhileHostsChangeIsNotCached() {
+		// the hosts change, and the change commits, while the table is being built
+		HostAPIImpl hostAPI = new HostAPIImpl() {
+			private boolean change = true;
+
+			@Override
+			public List<Host> findAllFromDB(User user, boolean respectFrontendRoles) throws DotDataException, DotSecurityException {
+				List<Host> hosts = super.findAllFromDB(user, respectFrontendRoles);
+				if (change) {
+					change = false;
+					clearAliasCache();
+				}
+				return hosts;
+			}
+		};
+		HostCache hostCache = CacheLocator.getHostCache();
+		hostCache.clearAliasCache();
+
+		// the request gets the table, but it is not kept as it may miss the change
+		assertNotNull(hostAPI.getRoutingTable());
+		assertNull(hostCache.getRoutingTable());
+
+		// the next build is cached
+		HostRoutingTable table = hostAPI.getRoutingTable();
+		assertNotNull(table);
+		assertSame(table, hostCache.getRoutingTable());
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.dotmarketing.portlets.contentlet.business;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dotmarketing.portlets.contentlet.business.PublishExpireSchedule.Action;
+import com.dotmarketing.portlets.contentlet.business.PublishExpireSchedule.Entry;
+
+public class PublishExpireScheduleTest {
+
+	@Test
+	public void firesOnlyDueEntries() {
+		PublishExpireSchedule schedule = new PublishExpireSchedule();
+		assertEquals(-1, schedule.nextTime());
+		assertTrue(schedule.add(new Entry(3000, "c", Action.PUBLISH)));
+		assertTrue(schedule.add(new Entry(1000, "a", Action.PUBLISH)));
+		assertFalse(schedule.add(new Entry(2000, "b", Action.PUBLISH)));
+		assertEquals(1000, schedule.nextTime());
+
+		assertTrue(schedule.pollDue(999, 10).isEmpty());
+		List<Entry> due = schedule.pollDue(2000, 10);
+		assertEquals(2, due.size());
+		assertEquals("a", due.get(0).getIdentifier());
+		assertEquals("b", due.get(1).getIdentifier());
+		assertEquals(3000, schedule.nextTime());
+		assertEquals(1, schedule.size());
+	}
+
+	@Test
+	public void replacesEntryOfSameIdentifierAndAction() {
+		PublishExpireSchedule schedule = new PublishExpireSchedule();
+		schedule.add(new Entry(1000, "a", Action.PUBLISH));
+		schedule.add(new Entry(5000, "a", Action.EXPIRE));
+		schedule.add(new Entry(4000, "a", Action.PUBLISH));
+		assertEquals(2, schedule.size());
+		assertEquals(4000, schedule.nextTime());
+
+		schedule.remove("a");
+		assertEquals(0, schedule.size());
+	}
+
+	@Test
+	public void batchesByAction() {
+		PublishExpireSchedule schedule = new PublishExpireSchedule();
+		schedule.add(new Entry(1000, "a", Action.EXPIRE));
+		schedule.add(new Entry(1000, "b", Action.PUBLISH));
+		schedule.add(new Entry(1001, "c", Action.EXPIRE));
+		schedule.add(new Entry(1002, "d", Action.EXPIRE));
+
+		List<Entry> due = schedule.pollDue(2000, 2);
+		assertEquals(2, due.size());
+		assertEquals(Action.EXPIRE, due.get(0).getAction());
+		assertEquals("c", due.get(1).getIdentifier());
+
+		due = schedule.pollDue(2000, 10);
+		assertEquals(1, due.size());
+		assertEquals("b", due.get(0).getIdentifier());
+		assertEquals("d", schedule.pollDue(2000, 10).get(0).getIdentifier());
+	}
+
+	@Test
+	public void reconciliationCountsChanges() {
+		PublishExpireSchedule schedule = new PublishExpireSchedule();
+		schedule.add(new Entry(1000, "a", Action.PUBLISH));
+		schedule.add(new Entry(2000, "b", Action.PUBLISH));
+
+		int changed = schedule.replaceAll(Arrays.asList(new Entry(1000, "a", Action.PUBLISH), new Entry(2500, "b",
+				Action.PUBLISH), new Entry(500, "c", Action.EXPIRE)));
+		assertEquals(2, changed);
+		assertEquals(3, schedule.size());
+		assertEquals(500, schedule.nextTime());
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.dotmarketing.portlets.rules.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
+import com.dotcms.repackage.com.maxmind.geoip2.model.CityResponse;
+import com.dotcms.util.GeoIp2CityDbUtil;
+import com.dotmarketing.portlets.rules.conditionlet.Location;
+import com.dotmarketing.util.WebKeys;
+
+import eu.bitwalker.useragentutils.OperatingSystem;
+
+public class RequestFactsTest {
+
+	private HttpServletRequest request(String userAgent) {
+		final Map<String, Object> attributes = new HashMap<String, Object>();
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+		Mockito.when(request.getHeader("User-Agent")).thenReturn(userAgent);
+		Mockito.when(request.getAttribute(Mockito.anyString())).thenAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) {
+				return attributes.get(invocation.getArguments()[0]);
+			}
+		});
+		Mockito.doAnswer(new Answer<Void>() {
+			public Void answer(InvocationOnMock invocation) {
+				attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+				return null;
+			}
+		}).when(request).setAttribute(Mockito.anyString(), Mockito.any());
+		return request;
+	}
+
+	@Test
+	public void sharedByTheRequest() {
+		HttpServletRequest request = request("Mozilla/5.0 (Windows NT 6.1; Trident/7.0; rv:11.0) like Gecko");
+		RequestFacts facts = RequestFacts.get(request);
+		assertSame(facts, RequestFacts.get(request));
+		assertSame(facts, request.getAttribute(WebKeys.RULES_ENGINE_FACTS));
+	}
+
+	@Test
+	public void parsesUserAgentOnce() {
+		HttpServletRequest request = request("Mozilla/5.0 (Windows NT 6.1; Trident/7.0; rv:11.0) like Gecko");
+		RequestFacts facts = RequestFacts.get(request);
+		assertEquals(OperatingSystem.WINDOWS_7, facts.getUserAgent().getOperatingSystem());
+		assertSame(facts.getUserAgent(), RequestFacts.get(request).getUserAgent());
+		Mockito.verify(request, Mockito.times(1)).getHeader("User-Agent");
+	}
+
+	@Test
+	public void sharesOneGeoLookup() throws Exception {
+		HttpServletRequest request = request(null);
+		Mockito.when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+		GeoIp2CityDbUtil geoIp2Util = Mockito.mock(GeoIp2CityDbUtil.class);
+		Location location = new Location(51.5, -0.1);
+		Calendar dateTime = Calendar.getInstance();
+		Mockito.when(geoIp2Util.getCountryIsoCode(Mockito.any(CityResponse.class))).thenReturn("GB");
+		Mockito.when(geoIp2Util.getLocation(Mockito.any(CityResponse.class))).thenReturn(location);
+		Mockito.when(geoIp2Util.getDateTime(Mockito.any(TimeZone.class))).thenReturn(dateTime);
+
+		RequestFacts facts = RequestFacts.get(request);
+		assertEquals("GB", facts.getCountryIsoCode(geoIp2Util));
+		assertSame(location, facts.getLocation(geoIp2Util));
+		assertEquals(dateTime, facts.getDateTime(geoIp2Util));
+		assertEquals("GB", RequestFacts.get(request).getCountryIsoCode(geoIp2Util));
+		Mockito.verify(geoIp2Util, Mockito.times(1)).getCityResponse("10.0.0.1");
+		Mockito.verify(geoIp2Util, Mockito.times(1)).getCountryIsoCode(Mockito.any(CityResponse.class));
+	}
+
+	@Test
+	public void failedLookupFailsTheSameWay() throws Exception {
+		HttpServletRequest request = request(null);
+		Mockito.when(request.getHeader("X-Forwarded-For")).thenReturn("10.0.0.1");
+		GeoIp2CityDbUtil geoIp2Util = Mockito.mock(GeoIp2CityDbUtil.class);
+		Mockito.when(geoIp2Util.getCityResponse("10.0.0.1")).thenThrow(new GeoIp2Exception("Boom."));
+		for (int i = 0; i < 2; i++) {
+			try {
+				RequestFacts.get(request).getLocation(geoIp2Util);
+				fail();
+			} catch (GeoIp2Exception e) {
+				assertEquals("Boom.", e.getMessage());
+			}
+		}
+		try {
+			RequestFacts.get(request).getCountryIsoCode(geoIp2Util);
+			fail();
+		} catch (GeoIp2Exception e) {
+			assertEquals("Boom.", e.getMessage());
+		}
+		Mockito.verify(geoIp2Util, Mockito.times(1)).getCityResponse("10.0.0.1");
+	}
+
+}
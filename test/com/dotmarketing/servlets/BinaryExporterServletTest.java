@@ -0,0 +1,261 @@
+package com.dotmarketing.servlets;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.LicenseTestUtil;
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.db.HibernateUtil;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.portlets.fileassets.business.FileAssetAPI;
+import com.dotmarketing.portlets.folders.model.Folder;
+import com.dotmarketing.servlets.test.ServletTestRunner;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.UUIDGenerator;
+import com.liferay.portal.model.User;
+import com.liferay.util.FileUtil;
+
+public class BinaryExporterServletTest {
+
+	/**
+	 * The asset is a sparse file, only the head and the tail are actually written
+	 */
+	private static final long FILE_SIZE = 128L * 1024 * 1024;
+	private static final int WRITTEN_SIZE = 64 * 1024;
+
+	private static User user;
+	private static Folder folder;
+	private static Contentlet asset;
+	private static File file;
+	private static String assetUri;
+
+	@BeforeClass
+	public static void prepare() throws Exception {
+		LicenseTestUtil.getLicense();
+
+		user = APILocator.getUserAPI().getSystemUser();
+		Host demo = APILocator.getHostAPI().findByName("demo.dotcms.com", user, false);
+		folder = APILocator.getFolderAPI().createFolders("/"+UUIDGenerator.generateUuid(), demo, user, false);
+
+		file=new File(APILocator.getFileAPI().getRealAssetPathTmpBinary() + File.separator +
+				UUIDGenerator.generateUuid() + File.separator + "video.mp4");
+		file.getParentFile().mkdirs();
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(FILE_SIZE);
+			out.write(bytesAt(0));
+			out.seek(FILE_SIZE - WRITTEN_SIZE);
+			out.write(bytesAt(FILE_SIZE - WRITTEN_SIZE));
+		} finally {
+			out.close();
+		}
+
+		asset = new Contentlet();
+		asset.setHost(demo.getIdentifier());
+		asset.setFolder(folder.getInode());
+		asset.setStructureInode(CacheLocator.getContentTypeCache().getStructureByVelocityVarName("FileAsset").getInode());
+		asset.setLanguageId(APILocator.getLanguageAPI().getDefaultLanguage().getId());
+		asset.setStringProperty(FileAssetAPI.TITLE_FIELD, "video");
+		asset.setStringProperty(FileAssetAPI.FILE_NAME_FIELD, "video.mp4");
+		asset.setBinary(FileAssetAPI.BINARY_FIELD, file);
+		asset = APILocator.getContentletAPI().checkin(asset, user, false);
+		APILocator.getContentletAPI().publish(asset, user, false);
+		APILocator.getContentletAPI().isInodeIndexed(asset.getInode(), true);
+
+		// resolved here as the request is only available to the test runner thread
+		HttpServletRequest req = ServletTestRunner.localRequest.get();
+		assetUri = "http://" + req.getServerName() + ":" + req.getServerPort() +
+				"/contentAsset/raw-data/" + asset.getIdentifier() + "/" + FileAssetAPI.BINARY_FIELD;
+	}
+
+	@AfterClass
+	public static void cleanup() throws Exception {
+		try{
+			HibernateUtil.startTransaction();
+			if (asset != null) {
+				APILocator.getContentletAPI().unpublish(asset, user, false);
+				APILocator.getContentletAPI().archive(asset, user, false);
+				APILocator.getContentletAPI().delete(asset, user, false);
+			}
+			if (folder != null) {
+				APILocator.getFolderAPI().delete(folder, user, false);
+			}
+			HibernateUtil.commitTransaction();
+		}catch(Exception e){
+			HibernateUtil.rollbackTransaction();
+			Logger.error(BinaryExporterServletTest.class, e.getMessage(), e);
+		}
+		if (file != null) {
+			FileUtil.deltree(file.getParentFile(), true);
+		}
+	}
+
+	private static byte[] bytesAt(long position) {
+		byte[] bytes = new byte[WRITTEN_SIZE];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) valueAt(position + i);
+		}
+		return bytes;
+	}
+
+	private static int valueAt(long position) {
+		return (int) (position % 251);
+	}
+
+	private static HttpURLConnection open(String range) throws Exception {
+		HttpURLConnection conn = (HttpURLConnection) new URL(assetUri).openConnection();
+		if (range != null) {
+			conn.setRequestProperty("Range", range);
+		}
+		return conn;
+	}
+
+	@Test
+	public void singleRange() throws Exception {
+		long start = FILE_SIZE - 1000;
+		HttpURLConnection conn = open("bytes=" + start + "-");
+		Assert.assertEquals(HttpURLConnection.HTTP_PARTIAL, conn.getResponseCode());
+		Assert.assertEquals("bytes " + start + "-" + (FILE_SIZE - 1) + "/" + FILE_SIZE, conn.getHeaderField("Content-Range"));
+
+		InputStream in = conn.getInputStream();
+		try {
+			long position = start;
+			int read;
+			while ((read = in.read()) != -1) {
+				Assert.assertEquals(valueAt(position++), read);
+			}
+			Assert.assertEquals(FILE_SIZE, position);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void multipleRanges() throws Exception {
+		HttpURLConnection conn = open("bytes=0-99,1000-1099");
+		Assert.assertEquals(HttpURLConnection.HTTP_PARTIAL, conn.getResponseCode());
+		Assert.assertTrue(conn.getContentType().startsWith("multipart/byteranges"));
+
+		InputStream in = conn.getInputStream();
+		try {
+			String body = new String(IOUtils.toByteArray(in), "ISO-8859-1");
+			Assert.assertTrue(body.contains("Content-Range: bytes 0-99/" + FILE_SIZE));
+			Assert.assertTrue(body.contains("Content-Range: bytes 1000-1099/" + FILE_SIZE));
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void unsatisfiableRange() throws Exception {
+		HttpURLConnection conn = open("bytes=10-5,20-30");
+		Assert.assertEquals(416, conn.getResponseCode());
+		Assert.assertEquals("bytes */" + FILE_SIZE, conn.getHeaderField("Content-Range"));
+	}
+
+	/**
+	 * Hits the asset with many concurrent range requests while sampling the
+	 * used heap, which must stay far below the size of the asset as the
+	 * ranges are transferred straight from the file.
+	 */
+	@Test
+	public void heapStaysFlatUnderConcurrentRanges() throws Exception {
+		final int clients = 32;
+		final int requestsPerClient = 10;
+
+		final Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		final long baseline = runtime.totalMemory() - runtime.freeMemory();
+		final AtomicLong maxUsed = new AtomicLong(baseline);
+		final AtomicBoolean running = new AtomicBoolean(true);
+
+		Thread sampler = new Thread(new Runnable() {
+			public void run() {
+				while (running.get()) {
+					long used = runtime.totalMemory() - runtime.freeMemory();
+					if (used > maxUsed.get()) {
+						maxUsed.set(used);
+					}
+					try {
+						Thread.sleep(20);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		});
+		sampler.start();
+
+		ExecutorService pool = Executors.newFixedThreadPool(clients);
+		long time = System.currentTimeMillis();
+		try {
+			List<Future<Long>> results = new ArrayList<Future<Long>>();
+			for (int c = 0; c < clients; c++) {
+				final Random random = new Random(c);
+				results.add(pool.submit(new Callable<Long>() {
+					public Long call() throws Exception {
+						long bytes = 0;
+						byte[] buffer = new byte[8192];
+						for (int r = 0; r < requestsPerClient; r++) {
+							long start = (long) (random.nextDouble() * (FILE_SIZE - 1));
+							HttpURLConnection conn = open("bytes=" + start + "-");
+							Assert.assertEquals(HttpURLConnection.HTTP_PARTIAL, conn.getResponseCode());
+							InputStream in = conn.getInputStream();
+							try {
+								// seek like a video player, read a few MB and drop the connection
+								int read;
+								long toRead = 4 * 1024 * 1024;
+								while (toRead > 0 && (read = in.read(buffer)) != -1) {
+									bytes += read;
+									toRead -= read;
+								}
+							} finally {
+								in.close();
+								conn.disconnect();
+							}
+						}
+						return bytes;
+					}
+				}));
+			}
+			long bytes = 0;
+			for (Future<Long> result : results) {
+				bytes += result.get();
+			}
+			time = System.currentTimeMillis() - time;
+			Logger.info(this, clients * requestsPerClient + " range requests, " + (bytes / 1024 / 1024) + "MB in " + time + "ms");
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+			running.set(false);
+			sampler.join();
+		}
+
+		long growth = maxUsed.get() - baseline;
+		Logger.info(this, "Heap growth during the range requests: " + (growth / 1024 / 1024) + "MB");
+		Assert.assertTrue("Heap grew " + growth + " bytes serving ranges of a " + FILE_SIZE + " bytes asset", growth < FILE_SIZE / 2);
+	}
+}
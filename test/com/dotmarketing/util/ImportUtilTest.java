@@ -10,6 +10,7 @@ import com.dotmarketing.business.APILocator;
 import com.dotmarketing.common.model.ContentletSearch;
 import com.dotmarketing.exception.DotDataException;
 import com.dotmarketing.exception.DotSecurityException;
+import com.dotmarketing.portlets.contentlet.action.ImportAuditUtil;
 import com.dotmarketing.portlets.contentlet.business.ContentletAPI;
 import com.dotmarketing.portlets.contentlet.model.Contentlet;
 import com.dotmarketing.portlets.languagesmanager.model.Language;
@@ -21,6 +22,7 @@ import com.liferay.portal.model.User;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -238,6 +240,136 @@ public class ImportUtilTest extends TestBase {
         assertEquals( spanishFound, 2 );
     }
 
+    /**
+     * Testing the chunked import keeps checking the unique fields in the whole file, when the lines with the same
+     * unique value are in different chunks
+     *
+     * @throws DotDataException
+     * @throws DotSecurityException
+     * @throws IOException
+     */
+    @Test
+    public void importFileChunkedUniqueFields () throws DotDataException, DotSecurityException, IOException {
+
+        ContentletAPI contentletAPI = APILocator.getContentletAPI();
+
+        String suffix = String.valueOf( new Date().getTime() );
+        Structure structure = new Structure();
+        structure.setName( "Import Unique Test " + suffix );
+        structure.setVelocityVarName( "ImportUniqueTest_" + suffix );
+        structure.setDescription( "Testing chunked import of unique fields" );
+        StructureFactory.saveStructure( structure );
+
+        Field uniqueField = new Field( "Title", Field.FieldType.TEXT, Field.DataType.TEXT, structure, true, true, true, 1, false, false, true );
+        uniqueField.setUnique( true );
+        FieldFactory.saveField( uniqueField );
+        Field hostField = new Field( "Host", Field.FieldType.HOST_OR_FOLDER, Field.DataType.TEXT, structure, true, true, true, 2, false, false, true );
+        FieldFactory.saveField( hostField );
+
+        //The duplicated value is in the first and the last chunk
+        Reader reader = createTempFile( "Title, Host" + "\r\n" +
+                "Unique1, " + defaultHost.getIdentifier() + "\r\n" +
+                "Unique2, " + defaultHost.getIdentifier() + "\r\n" +
+                "Unique3, " + defaultHost.getIdentifier() + "\r\n" +
+                "Unique1, " + defaultHost.getIdentifier() + "\r\n" );
+        CsvReader csvreader = new CsvReader( reader );
+        csvreader.setSafetySwitch( false );
+        String[] csvHeaders = csvreader.getHeaders();
+
+        HashMap<String, List<String>> results;
+        Config.setProperty( "IMPORT_CONTENT_THREADS", 2 );
+        Config.setProperty( "IMPORT_CONTENT_CHUNK_SIZE", 2 );
+        try {
+            results = ImportUtil.importFile( 0L, defaultHost.getInode(), structure.getInode(), new String[]{}, false, false, user, defaultLanguage.getId(), csvHeaders, csvreader, -1, -1, reader );
+        } finally {
+            Config.setProperty( "IMPORT_CONTENT_THREADS", 1 );
+            Config.setProperty( "IMPORT_CONTENT_CHUNK_SIZE", 100 );
+        }
+        validate( results, false, false, true );
+
+        boolean duplicateReported = false;
+        for ( String warning : results.get( "warnings" ) ) {
+            if ( warning.contains( " 5 " ) && warning.contains( uniqueField.getFieldName() ) ) {
+                duplicateReported = true;
+            }
+        }
+        assertTrue( duplicateReported );
+
+        List<Contentlet> savedData = contentletAPI.findByStructure( structure.getInode(), user, false, 0, 0 );
+        assertNotNull( savedData );
+        assertEquals( 3, savedData.size() );
+    }
+
+    /**
+     * Testing a chunked import cancelled in the middle of the file stops without leaving its reader thread behind
+     *
+     * @throws Exception
+     */
+    @Test
+    public void importFileChunkedCancel () throws Exception {
+
+        ContentletAPI contentletAPI = APILocator.getContentletAPI();
+
+        String suffix = String.valueOf( new Date().getTime() );
+        Structure structure = new Structure();
+        structure.setName( "Import Cancel Test " + suffix );
+        structure.setVelocityVarName( "ImportCancelTest_" + suffix );
+        structure.setDescription( "Testing cancelled chunked imports" );
+        StructureFactory.saveStructure( structure );
+
+        Field textField = new Field( "Title", Field.FieldType.TEXT, Field.DataType.TEXT, structure, true, true, true, 1, false, false, true );
+        FieldFactory.saveField( textField );
+        Field hostField = new Field( "Host", Field.FieldType.HOST_OR_FOLDER, Field.DataType.TEXT, structure, true, true, true, 2, false, false, true );
+        FieldFactory.saveField( hostField );
+
+        int totalLines = 500;
+        StringBuilder content = new StringBuilder( "Title, Host" + "\r\n" );
+        for ( int i = 0; i < totalLines; i++ ) {
+            content.append( "Cancel" ).append( i ).append( ", " ).append( defaultHost.getIdentifier() ).append( "\r\n" );
+        }
+        Reader reader = createTempFile( content.toString() );
+        CsvReader csvreader = new CsvReader( reader );
+        csvreader.setSafetySwitch( false );
+        String[] csvHeaders = csvreader.getHeaders();
+
+        final Long importId = Long.valueOf( suffix );
+        //Cancels the import once the reader has filled the queue of chunks and waits for the workers
+        Thread canceller = new Thread() {
+            @Override
+            public void run () {
+                try {
+                    Thread.sleep( 1000 );
+                } catch ( InterruptedException e ) {
+                    return;
+                }
+                ImportAuditUtil.cancelledImports.put( importId, Calendar.getInstance().getTime() );
+            }
+        };
+
+        Config.setProperty( "IMPORT_CONTENT_THREADS", 2 );
+        Config.setProperty( "IMPORT_CONTENT_CHUNK_SIZE", 1 );
+        try {
+            canceller.start();
+            ImportUtil.importFile( importId, defaultHost.getInode(), structure.getInode(), new String[]{}, false, false, user, defaultLanguage.getId(), csvHeaders, csvreader, -1, -1, reader );
+        } finally {
+            Config.setProperty( "IMPORT_CONTENT_THREADS", 1 );
+            Config.setProperty( "IMPORT_CONTENT_CHUNK_SIZE", 100 );
+            canceller.join();
+            ImportAuditUtil.cancelledImports.remove( importId );
+        }
+
+        List<Contentlet> savedData = contentletAPI.findByStructure( structure.getInode(), user, false, 0, 0 );
+        assertTrue( savedData.size() < totalLines );
+
+        //The reader thread must be gone
+        for ( Thread thread : Thread.getAllStackTraces().keySet() ) {
+            if ( thread.getName().equals( ImportUtil.READER_THREAD_NAME + importId ) ) {
+                thread.join( 5000 );
+                assertFalse( thread.isAlive() );
+            }
+        }
+    }
+
     /**
      * Creates a temporal file using a given content
      *
@@ -0,0 +1,112 @@
+package com.dotmarketing.velocity;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.dotcms.repackage.org.apache.commons.io.IOUtils;
+import com.dotmarketing.beans.Host;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.portlets.containers.model.Container;
+import com.dotmarketing.portlets.templates.model.Template;
+import com.dotmarketing.util.Config;
+import com.dotmarketing.util.Logger;
+import com.dotmarketing.util.VelocityUtil;
+import com.liferay.portal.model.User;
+
+public class DotResourceLoaderTest {
+
+	private static List<String> resources = new ArrayList<String>();
+
+	@BeforeClass
+	public static void prepare() throws Exception {
+		// makes sure the loader has been initialized by the engine
+		VelocityUtil.getEngine();
+
+		User user = APILocator.getUserAPI().getSystemUser();
+		Host demo = APILocator.getHostAPI().findByName("demo.dotcms.com", user, false);
+
+		for (Template template : APILocator.getTemplateAPI().findTemplatesAssignedTo(demo)) {
+			resources.add("live" + File.separator + template.getIdentifier() + "." + Config.getStringProperty("VELOCITY_TEMPLATE_EXTENSION"));
+		}
+		for (Container container : APILocator.getContainerAPI().findContainersUnder(demo)) {
+			resources.add("live" + File.separator + container.getIdentifier() + "." + Config.getStringProperty("VELOCITY_CONTAINER_EXTENSION"));
+		}
+		Assert.assertFalse(resources.isEmpty());
+	}
+
+	/**
+	 * Simulates a cold start: the velocity cache is flushed and many threads
+	 * ask at the same time for the same templates and containers. Every thread
+	 * must get the same contents and every request must have been either
+	 * generated or collapsed into a generation of another thread.
+	 */
+	@Test
+	public void coldStartConcurrentLoads() throws Exception {
+		final int threads = 64;
+		final DotResourceLoader loader = DotResourceLoader.getInstance();
+
+		CacheLocator.getVeloctyResourceCache().clearCache();
+
+		Map<String, Object> before = loader.getStats();
+		final CyclicBarrier barrier = new CyclicBarrier(threads);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long time = System.currentTimeMillis();
+		List<Future<List<byte[]>>> results = new ArrayList<Future<List<byte[]>>>();
+		try {
+			for (int t = 0; t < threads; t++) {
+				results.add(pool.submit(new Callable<List<byte[]>>() {
+					public List<byte[]> call() throws Exception {
+						barrier.await();
+						List<byte[]> contents = new ArrayList<byte[]>();
+						for (String resource : resources) {
+							InputStream in = loader.getResourceStream(resource);
+							try {
+								contents.add(IOUtils.toByteArray(in));
+							} finally {
+								in.close();
+							}
+						}
+						return contents;
+					}
+				}));
+			}
+
+			List<byte[]> expected = results.get(0).get();
+			for (Future<List<byte[]>> result : results) {
+				List<byte[]> contents = result.get();
+				for (int i = 0; i < resources.size(); i++) {
+					Assert.assertTrue("Different contents for " + resources.get(i), Arrays.equals(expected.get(i), contents.get(i)));
+				}
+			}
+			time = System.currentTimeMillis() - time;
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+
+		Map<String, Object> after = loader.getStats();
+		long loads = (Long) after.get("loads") - (Long) before.get("loads");
+		long collapsed = (Long) after.get("collapsedLoads") - (Long) before.get("collapsedLoads");
+		Logger.info(this, threads + " threads loaded " + resources.size() + " resources in " + time + "ms, "
+				+ loads + " loads, " + collapsed + " collapsed");
+
+		Assert.assertEquals((long) threads * resources.size(), loads + collapsed);
+		Assert.assertEquals(0, after.get("inFlight"));
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.dotmarketing.viewtools.content;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dotcms.TestBase;
+import com.dotmarketing.portlets.contentlet.model.Contentlet;
+import com.dotmarketing.util.PaginatedArrayList;
+
+public class ContentToolTest extends TestBase {
+
+	private static final String QUERY = "+structureName:webPageContent +languageId:1 +deleted:false +live:true";
+
+	@Test
+	public void pullOnceReusesTheResultInTheRequest() throws Exception {
+		ContentTool contentTool = new ContentTool();
+
+		PaginatedArrayList<Contentlet> cons = contentTool.pullOnce(QUERY, 0, 5, "modDate desc");
+		Assert.assertFalse(cons.isEmpty());
+		Assert.assertSame(cons, contentTool.pullOnce(QUERY, 0, 5, "modDate desc"));
+
+		// another page or sort is another pull
+		Assert.assertNotSame(cons, contentTool.pullOnce(QUERY, 5, 5, "modDate desc"));
+		Assert.assertNotSame(cons, contentTool.pullOnce(QUERY, 0, 5, "title"));
+
+		// random sorts change on every pull
+		PaginatedArrayList<Contentlet> random = contentTool.pullOnce(QUERY, 0, 5, "random");
+		Assert.assertNotSame(random, contentTool.pullOnce(QUERY, 0, 5, "random"));
+
+		// every request gets its own tool
+		Assert.assertNotSame(cons, new ContentTool().pullOnce(QUERY, 0, 5, "modDate desc"));
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.dotmarketing.viewtools.content.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.dotcms.TestBase;
+import com.dotmarketing.business.APILocator;
+import com.dotmarketing.business.CacheLocator;
+import com.dotmarketing.util.Config;
+import com.liferay.portal.model.User;
+
+/**
+ * Tests the {@link ContentQueryCache} keys and invalidation of the queries
+ * done through {@link ContentUtils}.
+ */
+public class ContentUtilsTest extends TestBase {
+
+	@Test
+	public void queryCacheKeyIsNormalized() throws Exception {
+		User user = APILocator.getUserAPI().getSystemUser();
+		String key = ContentUtils.buildQueryCacheKey("+structureName:News  +languageId:1\n +live:true ", 0, 10, " modDate desc", user);
+
+		Assert.assertEquals(key, ContentUtils.buildQueryCacheKey(" +structureName:News +languageId:1 +live:true", 0, 10, "modDate desc", user));
+		// paging, sort and user are part of the key
+		Assert.assertNotEquals(key, ContentUtils.buildQueryCacheKey("+structureName:News +languageId:1 +live:true", 10, 10, "modDate desc", user));
+		Assert.assertNotEquals(key, ContentUtils.buildQueryCacheKey("+structureName:News +languageId:1 +live:true", 0, 10, "title", user));
+		Assert.assertNotEquals(key, ContentUtils.buildQueryCacheKey("+structureName:News +languageId:1 +live:true", 0, 10, "modDate desc", null));
+		// the language and status are part of the query
+		Assert.assertNotEquals(key, ContentUtils.buildQueryCacheKey("+structureName:News +languageId:2 +live:true", 0, 10, "modDate desc", user));
+
+		// random sorts are not cached
+		Assert.assertNull(ContentUtils.buildQueryCacheKey("+structureName:News", 0, 10, "random", user));
+
+		boolean enabled = Config.getBooleanProperty("CONTENT_QUERY_CACHE_ENABLED", true);
+		Config.setProperty("CONTENT_QUERY_CACHE_ENABLED", false);
+		try {
+			Assert.assertNull(ContentUtils.buildQueryCacheKey("+structureName:News", 0, 10, "modDate desc", user));
+		} finally {
+			Config.setProperty("CONTENT_QUERY_CACHE_ENABLED", enabled);
+		}
+	}
+
+	@Test
+	public void queryDependsOnRequiredTopLevelStructures() throws Exception {
+		Assert.assertEquals(Arrays.asList("news"),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("+structureName:News +languageId:1").keySet()));
+		Assert.assertEquals(Arrays.asList("news"),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("+contentType:\"News\" +title:\"(draft\"").keySet()));
+		// a parenthesis or structure clause in a quoted phrase is not part of the query structure
+		Assert.assertEquals(Arrays.asList("news"),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("+title:\"(a\" +structureName:News").keySet()));
+		Assert.assertEquals(Arrays.asList(ContentQueryCache.ALL_STRUCTURES),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("+title:\"x +structureName:News\"").keySet()));
+
+		// optional, nested or wildcard clauses don't restrict the query
+		Assert.assertEquals(Arrays.asList(ContentQueryCache.ALL_STRUCTURES),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("structureName:News +languageId:1").keySet()));
+		Assert.assertEquals(Arrays.asList(ContentQueryCache.ALL_STRUCTURES),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("(+structureName:News) (+structureName:Event)").keySet()));
+		Assert.assertEquals(Arrays.asList(ContentQueryCache.ALL_STRUCTURES),
+				new ArrayList<String>(ContentUtils.getQueryGenerations("+structureName:New*").keySet()));
+	}
+
+	@Test
+	public void queriesAreInvalidatedByGeneration() throws Exception {
+		ContentQueryCache cache = CacheLocator.getContentQueryCache();
+		String newsKey = "ContentUtilsTest|news";
+		String eventKey = "ContentUtilsTest|event";
+		String allKey = "ContentUtilsTest|all";
+		cache.add(newsKey, new CachedContentQuery(Arrays.asList("a", "b"), 2, ContentUtils.getQueryGenerations("+structureName:News")));
+		cache.add(eventKey, new CachedContentQuery(Arrays.asList("c"), 1, ContentUtils.getQueryGenerations("+structureName:Event")));
+		cache.add(allKey, new CachedContentQuery(Arrays.asList("a", "c"), 2, ContentUtils.getQueryGenerations("+languageId:1")));
+
+		CachedContentQuery cached = cache.get(newsKey);
+		Assert.assertNotNull(cached);
+		Assert.assertEquals(Arrays.asList("a", "b"), cached.getInodes());
+		Assert.assertEquals(2, cached.getTotalResults());
+
+		// content of News changed, the queries not restricted to any structure depend on it too
+		String generation = cache.getGeneration("News");
+		cache.removeStructure("News");
+		Assert.assertNotEquals(generation, cache.getGeneration("news"));
+		Assert.assertNull(cache.get(newsKey));
+		Assert.assertNull(cache.get(allKey));
+		Assert.assertNotNull(cache.get(eventKey));
+
+		// cached again with the new generation
+		Map<String, String> generations = ContentUtils.getQueryGenerations("+structureName:News");
+		cache.add(newsKey, new CachedContentQuery(Arrays.asList("b"), 1, generations));
+		Assert.assertEquals(Arrays.asList("b"), cache.get(newsKey).getInodes());
+
+		cache.removeStructure("Event");
+		Assert.assertNull(cache.get(eventKey));
+		Assert.assertNotNull(cache.get(newsKey));
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.dotmarketing.cms.urlmap;
+
+import com.dotmarketing.cms.urlmap.URLMapRouter.URLMapMatch;
+import com.dotmarketing.portlets.structure.model.SimpleStructureURLMap;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class URLMapRouterTest {
+
+    private final URLMapRouter router = new URLMapRouter(Arrays.asList(
+            new SimpleStructureURLMap("news", "/news/{urlTitle}"),
+            new SimpleStructureURLMap("newsByYear", "/news/{year}/{urlTitle}"),
+            new SimpleStructureURLMap("events", "/events/{urlTitle}"),
+            new SimpleStructureURLMap("pages", "/{urlTitle}"),
+            new SimpleStructureURLMap("empty", "")));
+
+    @Test
+    public void routesByFirstFolderWithTheDeepestPatternFirst() {
+        List<URLMapMatch> matches = router.route("/news/2016/my-article/");
+        assertEquals(matches.size(), 3);
+        assertEquals(matches.get(0).getStructureInode(), "newsByYear");
+        assertEquals(matches.get(0).getFieldMatches(), Arrays.asList("year", "urlTitle"));
+        assertEquals(matches.get(0).getValues(), Arrays.asList("2016", "my-article"));
+        assertEquals(matches.get(1).getStructureInode(), "news");
+        assertEquals(matches.get(2).getStructureInode(), "pages");
+    }
+
+    @Test
+    public void fieldPatternsMatchAnyFolder() {
+        List<URLMapMatch> matches = router.route("/about-us/");
+        assertEquals(matches.size(), 1);
+        assertEquals(matches.get(0).getStructureInode(), "pages");
+        assertEquals(matches.get(0).getValues(), Arrays.asList("about-us"));
+
+        matches = router.route("/events/summit/");
+        assertEquals(matches.get(0).getStructureInode(), "events");
+        assertEquals(matches.get(0).getValues(), Arrays.asList("summit"));
+    }
+
+    @Test
+    public void patternsOnlyMatchFromTheStartOfTheUrl() {
+        URLMapRouter newsOnly = new URLMapRouter(Arrays.asList(new SimpleStructureURLMap("news", "/news/{urlTitle}")));
+        assertTrue(newsOnly.route("/blog/news/my-article/").isEmpty());
+        assertTrue(newsOnly.route("/news/").isEmpty());
+        assertEquals(newsOnly.getMasterRegEx(), "/news/(.+?)/");
+    }
+
+}
@@ -18,12 +18,14 @@ import java.io.IOException;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 
 import static com.dotmarketing.portlets.rules.conditionlet.Conditionlet.COMPARISON_KEY;
 import static com.dotmarketing.portlets.rules.conditionlet.DateTimeConditionlet.*;
 import static com.dotmarketing.portlets.rules.parameter.comparison.Comparison.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -171,7 +173,7 @@ public class DateTimeConditionletTest {
             LocalDateTime dateTime = LocalDateTime.parse(visitorsDateTime);
             Calendar mockDate = Calendar.getInstance();
             mockDate.setTime(dateTime.toDate());
-            when(geoIp2Util.getDateTime(mockIpAddress)).thenReturn(mockDate);
+            when(geoIp2Util.getDateTime(any(TimeZone.class))).thenReturn(mockDate);
             return this;
         }
 
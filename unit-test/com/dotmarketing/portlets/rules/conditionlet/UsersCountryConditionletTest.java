@@ -3,6 +3,7 @@ package com.dotmarketing.portlets.rules.conditionlet;
 import com.dotcms.repackage.com.google.common.collect.Lists;
 import com.dotcms.repackage.com.google.common.collect.Maps;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
+import com.dotcms.repackage.com.maxmind.geoip2.model.CityResponse;
 import com.dotcms.unittest.TestUtil;
 import com.dotcms.util.GeoIp2CityDbUtil;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -24,6 +25,7 @@ import static com.dotmarketing.portlets.rules.parameter.comparison.Comparison.IS
 import static com.dotmarketing.portlets.rules.parameter.comparison.Comparison.IS_NOT;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -133,7 +135,7 @@ public class UsersCountryConditionletTest {
             .withIsoCode("US")
             .withRequestIpAddress(MOCK_IP_ADDRESS)
             .shouldBeFalse();
-        when(aCase.geoIp2Util.getCountryIsoCode(MOCK_IP_ADDRESS)).thenThrow(new GeoIp2Exception("Boom."));
+        when(aCase.geoIp2Util.getCityResponse(MOCK_IP_ADDRESS)).thenThrow(new GeoIp2Exception("Boom."));
         assertThat(aCase.testDescription, runCase(aCase), is(false));
     }
 
@@ -187,7 +189,7 @@ public class UsersCountryConditionletTest {
         }
 
         TestCase withMockIpToIsoCode(String mockIpAddress, String mockIsoCode) throws IOException, GeoIp2Exception {
-            when(geoIp2Util.getCountryIsoCode(mockIpAddress)).thenReturn(mockIsoCode);
+            when(geoIp2Util.getCountryIsoCode(any(CityResponse.class))).thenReturn(mockIsoCode);
             return this;
         }
 
@@ -3,6 +3,7 @@ package com.dotmarketing.portlets.rules.conditionlet;
 import com.dotcms.repackage.com.google.common.collect.Lists;
 import com.dotcms.repackage.com.google.common.collect.Maps;
 import com.dotcms.repackage.com.maxmind.geoip2.exception.GeoIp2Exception;
+import com.dotcms.repackage.com.maxmind.geoip2.model.CityResponse;
 import com.dotcms.unittest.TestUtil;
 import com.dotcms.util.GeoIp2CityDbUtil;
 import com.dotmarketing.portlets.rules.exception.ComparisonNotSupportedException;
@@ -22,6 +23,7 @@ import static com.dotmarketing.portlets.rules.conditionlet.VisitorsGeolocationCo
 import static com.dotmarketing.portlets.rules.parameter.comparison.Comparison.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -174,7 +176,7 @@ public class VisitorsGeolocationConditionletTest {
 
         TestCase withMockVisitorsLocation(double latitude, double longitude) throws IOException, GeoIp2Exception {
             Location location = new Location(latitude, longitude);
-            when(geoIp2Util.getLocationByIp(MOCK_IP_ADDRESS)).thenReturn(location);
+            when(geoIp2Util.getLocation(any(CityResponse.class))).thenReturn(location);
             return this;
         }
 